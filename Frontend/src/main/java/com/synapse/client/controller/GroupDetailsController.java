@@ -15,6 +15,8 @@ import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableSet;
+import javafx.collections.SetChangeListener;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -101,6 +103,7 @@ public class GroupDetailsController {
         Long groupId = currentGroup.getGroup_id();
 
         // Load Tasks
+        TaskStore.getInstance().fetchTasksByGroupId(groupId);
         ObservableList<Task> tasks = TaskStore.getInstance().getTasksByGroupId(groupId);
         tasksListView.setItems(tasks);
         // Add listener to update chart dynamically
@@ -112,6 +115,11 @@ public class GroupDetailsController {
         ObservableList<User> members = MembersStore.getInstance().getMembersByGroupId(groupId);
         membersListView.setItems(members);
 
+        // Online indicators follow the presence pushed by the server
+        MembersStore.getInstance().fetchPresenceForGroup(groupId);
+        ObservableSet<Long> online = MembersStore.getInstance().getOnlineMembers(groupId);
+        online.addListener((SetChangeListener<Long>) change -> membersListView.refresh());
+
         // Load Resources
         ResourceStore.getInstance().fetchResourcesForGroup(groupId);
         ObservableList<Resource> resources = ResourceStore.getInstance().getResourcesByGroupId(groupId);
@@ -293,6 +301,13 @@ public class GroupDetailsController {
                     HBox row = new HBox(10);
                     row.setAlignment(Pos.CENTER_LEFT);
 
+                    boolean isOnline = currentGroup != null && MembersStore.getInstance()
+                            .getOnlineMembers(currentGroup.getGroup_id()).contains(user.getUser_id());
+                    FontIcon presenceDot = new FontIcon("bi-circle-fill");
+                    presenceDot.setIconSize(8);
+                    presenceDot.setIconColor(Paint.valueOf(isOnline ? "#28a745" : "#c0c0c0"));
+                    Tooltip.install(presenceDot, new Tooltip(isOnline ? "Online" : "Offline"));
+
                     VBox infoBox = new VBox();
                     Label nameLabel = new Label(user.getName());
                     nameLabel.setStyle("-fx-font-weight: bold;");
@@ -303,7 +318,7 @@ public class GroupDetailsController {
                     Region spacer = new Region();
                     HBox.setHgrow(spacer, Priority.ALWAYS);
 
-                    row.getChildren().addAll(infoBox, spacer);
+                    row.getChildren().addAll(presenceDot, infoBox, spacer);
                     Long currentLoggedInUserId = UserSession.getInstance().getUserId();
 
                     boolean amIOwner = currentGroup.getCreated_by() != null
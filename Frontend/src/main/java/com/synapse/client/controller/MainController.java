@@ -1,11 +1,17 @@
 package com.synapse.client.controller;
 
 import com.synapse.client.UserSession;
+import com.synapse.client.enums.ChangeEntityType;
+import com.synapse.client.enums.ChangeOperation;
 import com.synapse.client.model.Group;
 import com.synapse.client.model.Task;
+import com.synapse.client.model.dto.ChangeBatch;
+import com.synapse.client.model.dto.ChangeEvent;
+import com.synapse.client.model.dto.PresenceDiff;
 import com.synapse.client.service.ApiService;
 import com.synapse.client.service.StompClient;
 import com.synapse.client.store.*;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -25,7 +31,13 @@ import org.controlsfx.control.Notifications;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -43,7 +55,19 @@ import java.util.Set;
 public class MainController {
 
     // Tracks which groups we are already listening to via WebSocket to avoid duplicate subscriptions.
+    private static final int SEEN_EVENTS_LIMIT = 1000;
     private final Set<Long> subscribedGroupIds = new HashSet<>();
+    private final Map<String, Integer> pendingPopups = new LinkedHashMap<>();
+    // Per group: sequence number of the last event applied, and frames held back while missed events are fetched
+    private final Map<Long, Long> lastSeqs = new HashMap<>();
+    private final Map<Long, List<ChangeBatch>> pendingFrames = new HashMap<>();
+    private final PauseTransition popupDelay = new PauseTransition(Duration.millis(500));
+    private final Set<String> seenEventIds = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > SEEN_EVENTS_LIMIT;
+        }
+    });
 
     @FXML private BorderPane mainBorderPane;
 
@@ -88,6 +112,9 @@ public class MainController {
      * 4. Navigates to the default view (Groups).
      */
     public void onSuccessfulLogin() {
+        StompClient.getInstance().setOnReconnect(this::onReconnected);
+        // Connect as the logged-in user so the others see us online
+        StompClient.getInstance().authenticate(ApiService.getInstance().getCredential());
         setupGlobalGroupSubscriptions();
         subscribeToPersonalUpdates();
         refreshAllData();
@@ -260,6 +287,7 @@ public class MainController {
     }
 
     private void performLocalLogout() {
+        StompClient.getInstance().authenticate(null);
         UserSession.getInstance().logout();
         TaskStore.getInstance().clear();
         GroupsStore.getInstance().clear();
@@ -359,8 +387,14 @@ public class MainController {
 
     /**
      * Subscribes to a specific group's WebSocket topic.
-     * Routes incoming messages (Tasks, Resources, Members) to the appropriate Store
-     * and triggers a popup notification.
+     * <p>
+     * Every message is a {@link ChangeEvent} describing one created, updated or deleted
+     * task, resource or member. The event is applied to the matching Store in place,
+     * so no data is downloaded again. Only events the client cannot read fall back
+     * to reloading the group.
+     * <p>
+     * Events are numbered per group. When the numbers jump, the missed events are
+     * fetched first (see {@link #catchUp}) and the new frame is applied after them.
      *
      * @param groupId The ID of the group to listen to.
      */
@@ -371,41 +405,162 @@ public class MainController {
         String topic = "/topic/group/" + groupId;
 
         StompClient.getInstance().subscribe(topic, message -> {
-            Platform.runLater(() -> {
-                // Determine the type of update based on the message content
-                if (message.contains("New task created")) {
-                    TaskStore.getInstance().fetchTasksByGroupId(groupId);
-                    showPopupNotification("Tasks Created", message);
-                }
-                else if (message.contains("New task updated")) {
-                    TaskStore.getInstance().fetchTasksByGroupId(groupId);
-                    showPopupNotification("Tasks Updated", message);
-                }
-                else if (message.contains("Task deleted")) {
-                    TaskStore.getInstance().fetchTasksByGroupId(groupId);
-                    showPopupNotification("Tasks Deleted", message);
-                }
-
-                else if (message.contains("New resource created")) {
-                    ResourceStore.getInstance().fetchResourcesForGroup(groupId);
-                    showPopupNotification("New Resource", message);
-                }
-                else if (message.contains("Resource updated")) {
-                    ResourceStore.getInstance().fetchResourcesForGroup(groupId);
-                    showPopupNotification("Resource updated", message);
-                }
-                else if (message.contains("Resource deleted")) {
-                    ResourceStore.getInstance().fetchResourcesForGroup(groupId);
-                    showPopupNotification("Resource deleted", message);
-                }
-
-                else if (message.contains("MEMBER") || message.contains("JOIN") || message.contains("LEFT")) {
-                    MembersStore.getInstance().fetchMembersForGroup(groupId);
-                }
-            });
+            ChangeBatch frame = ApiService.getInstance().parseChangeFrame(message);
+            Platform.runLater(() -> onGroupFrame(groupId, frame));
+        });
+        StompClient.getInstance().subscribe(topic + "/presence", message -> {
+            PresenceDiff diff = ApiService.getInstance().parsePresenceDiff(message);
+            if (diff != null) {
+                Platform.runLater(() -> MembersStore.getInstance().applyPresence(diff));
+            }
         });
 
         subscribedGroupIds.add(groupId);
+
+        // The current sequence number is the starting point for noticing missed events
+        ApiService.getInstance().getGroupEvents(groupId, null).thenAccept(replay -> Platform.runLater(() -> {
+            if (replay != null) {
+                lastSeqs.merge(groupId, replay.lastSeq(), Math::max);
+            }
+        }));
+    }
+
+    /**
+     * Handles one frame of a group topic, unless missed events of the group are still being fetched.
+     */
+    private void onGroupFrame(Long groupId, ChangeBatch frame) {
+        List<ChangeBatch> pending = pendingFrames.get(groupId);
+        if (pending != null) {
+            pending.add(frame);
+            return;
+        }
+        Long last = lastSeqs.get(groupId);
+        Long first = frame == null || frame.invalidate() ? null : frame.firstSeq();
+        if (last != null && first != null && first > last + 1) {
+            pendingFrames.put(groupId, new ArrayList<>(List.of(frame)));
+            catchUp(groupId, last);
+            return;
+        }
+        applyGroupFrame(groupId, frame);
+    }
+
+    private void applyGroupFrame(Long groupId, ChangeBatch frame) {
+        // Too many changes at once (or an unreadable frame): one reload instead of hundreds of deltas
+        if (frame == null || frame.invalidate()
+                || frame.events().stream().anyMatch(event -> !event.isSupported())) {
+            reloadGroup(groupId);
+        } else {
+            for (ChangeEvent event : frame.events()) {
+                applyGroupChange(event);
+            }
+        }
+        if (frame != null && frame.lastSeq() != null) {
+            lastSeqs.merge(groupId, frame.lastSeq(), Math::max);
+        }
+    }
+
+    /**
+     * Fetches and applies the events of a group published after {@code after}, then the frames
+     * that arrived meanwhile. If the server no longer has all of them, the group is reloaded.
+     * Events that arrive twice this way are skipped by their eventId.
+     *
+     * @param groupId The group ID.
+     * @param after   The sequence number of the last event applied.
+     */
+    private void catchUp(Long groupId, Long after) {
+        pendingFrames.putIfAbsent(groupId, new ArrayList<>());
+        ApiService.getInstance().getGroupEvents(groupId, after).thenAccept(replay -> Platform.runLater(() -> {
+            if (replay == null || replay.resyncRequired()
+                    || replay.events().stream().anyMatch(event -> !event.isSupported())) {
+                reloadGroup(groupId);
+            } else {
+                replay.events().forEach(this::applyGroupChange);
+            }
+            if (replay != null) {
+                lastSeqs.merge(groupId, replay.lastSeq(), Math::max);
+            }
+            List<ChangeBatch> pending = pendingFrames.remove(groupId);
+            if (pending != null) {
+                pending.forEach(frame -> applyGroupFrame(groupId, frame));
+            }
+        }));
+    }
+
+    /**
+     * Called after the WebSocket connection was restored. Events published while it was
+     * down are not pushed again, so each group fetches what it missed.
+     */
+    private void onReconnected() {
+        for (Long groupId : subscribedGroupIds) {
+            if (pendingFrames.containsKey(groupId)) {
+                continue; // Already catching up
+            }
+            Long last = lastSeqs.get(groupId);
+            if (last != null) {
+                catchUp(groupId, last);
+            } else {
+                reloadGroup(groupId);
+            }
+        }
+        // Removals from a group arrive on the personal queue, which has no replay
+        GroupsStore.getInstance().fetchGroupsFromServer();
+        MembersStore.getInstance().refreshPresence();
+    }
+
+    /**
+     * Applies one change event of a group topic to the matching store.
+     * Redelivered events (same eventId) are ignored.
+     *
+     * @param event The change event.
+     */
+    private void applyGroupChange(ChangeEvent event) {
+        if (isRedelivery(event)) return;
+        switch (event.entityType()) {
+            case TASK -> {
+                TaskStore.getInstance().applyChange(event);
+                queuePopup("Tasks", event.operation());
+            }
+            case RESOURCE -> {
+                ResourceStore.getInstance().applyChange(event);
+                queuePopup("Resources", event.operation());
+            }
+            case MEMBER -> MembersStore.getInstance().applyChange(event);
+        }
+    }
+
+    /**
+     * Remembers the IDs of the last {@value #SEEN_EVENTS_LIMIT} events.
+     * The server may deliver an event twice after a restart; the copy is ignored.
+     *
+     * @return {@code true} if this event was already handled.
+     */
+    private boolean isRedelivery(ChangeEvent event) {
+        return event.eventId() != null && !seenEventIds.add(event.eventId());
+    }
+
+    /**
+     * Downloads tasks, resources and members of a group again.
+     * Used only when a change event cannot be applied in place.
+     */
+    private void reloadGroup(Long groupId) {
+        TaskStore.getInstance().fetchTasksByGroupId(groupId);
+        ResourceStore.getInstance().fetchResourcesForGroup(groupId);
+        MembersStore.getInstance().fetchMembersForGroup(groupId);
+    }
+
+    /**
+     * Counts a change for the next popup instead of showing one popup per event.
+     * <p>
+     * A batch of 50 new tasks arrives as 50 events within milliseconds; they are
+     * summed up and shown as a single "Tasks created: 50" notification.
+     */
+    private void queuePopup(String entity, ChangeOperation operation) {
+        pendingPopups.merge(entity + " " + operation.name().toLowerCase(), 1, Integer::sum);
+        popupDelay.setOnFinished(e -> {
+            pendingPopups.forEach((title, count) -> showPopupNotification(title, title + ": " + count));
+            pendingPopups.clear();
+        });
+        popupDelay.playFromStart();
     }
 
     /**
@@ -443,10 +598,17 @@ public class MainController {
         String topic = "/queue/user/" + userId;
 
         StompClient.getInstance().subscribe(topic, message -> {
+            ChangeBatch frame = ApiService.getInstance().parseChangeFrame(message);
             Platform.runLater(() -> {
-                if (message.contains("You have been removed from group")) {
-                    RequestStore.getInstance().fetchRequests(); // Refresh requests or groups
-                    showPopupNotification("Remove from group", "You have been removed from group.");
+                if (frame == null) return;
+                for (ChangeEvent event : frame.events()) {
+                    if (event.isSupported() && !isRedelivery(event)
+                            && event.entityType() == ChangeEntityType.MEMBER
+                            && event.operation() == ChangeOperation.DELETED) {
+                        GroupsStore.getInstance().getGroups().removeIf(g -> event.groupId().equals(g.getGroup_id()));
+                        RequestStore.getInstance().fetchRequests(); // Refresh requests or groups
+                        showPopupNotification("Remove from group", "You have been removed from group.");
+                    }
                 }
             });
         });
@@ -0,0 +1,25 @@
+package com.synapse.client.enums;
+
+/**
+ * The kind of entity a {@link com.synapse.client.model.dto.ChangeEvent} describes.
+ * <p>
+ * Decides which store applies the event.
+ */
+public enum ChangeEntityType {
+
+    /**
+     * A task of the group. Applied by {@link com.synapse.client.store.TaskStore}.
+     */
+    TASK,
+
+    /**
+     * A shared file or link. Applied by {@link com.synapse.client.store.ResourceStore}.
+     */
+    RESOURCE,
+
+    /**
+     * A membership of the group, identified by the member's user id.
+     * Applied by {@link com.synapse.client.store.MembersStore}.
+     */
+    MEMBER
+}
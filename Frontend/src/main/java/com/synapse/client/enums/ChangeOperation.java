@@ -0,0 +1,22 @@
+package com.synapse.client.enums;
+
+/**
+ * What happened to the entity described by a {@link com.synapse.client.model.dto.ChangeEvent}.
+ */
+public enum ChangeOperation {
+
+    /**
+     * The entity was created; the event carries its full data.
+     */
+    CREATED,
+
+    /**
+     * The entity was changed; the event carries its full new data.
+     */
+    UPDATED,
+
+    /**
+     * The entity was removed; the event carries no data.
+     */
+    DELETED
+}
@@ -72,6 +72,8 @@ public class Resource {
     // GETTERS & SETTERS
     // ==========================================
 
+    public Long getResource_id() { return resource_id; }
+
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
@@ -0,0 +1,38 @@
+package com.synapse.client.model.dto;
+
+import java.util.List;
+
+/**
+ * Immutable data carrier for one WebSocket frame of change events.
+ * <p>
+ * When many changes happen at once (e.g. a bulk import) the server sends one frame
+ * with all events of the group instead of one frame per event. If there are too many
+ * of them, the frame only says {@code invalidate} and the client reloads the group once.
+ * A frame with a single event is delivered as a plain {@link ChangeEvent} and wrapped here.
+ *
+ * @param schemaVersion Version of the frame format, currently {@code 1}.
+ * @param invalidate    {@code true} if the events were left out and the group must be reloaded.
+ * @param lastSeq       Sequence number of the last event in the frame, {@code null} on the personal queue.
+ * @param events        The events in the order they happened; empty when invalidated.
+ */
+public record ChangeBatch(int schemaVersion, boolean invalidate, Long lastSeq, List<ChangeEvent> events) {
+
+    /**
+     * Wraps a single event received on its own.
+     *
+     * @param event The event.
+     * @return A batch containing only that event.
+     */
+    public static ChangeBatch of(ChangeEvent event) {
+        return new ChangeBatch(event.schemaVersion(), false, event.seq(), List.of(event));
+    }
+
+    /**
+     * Sequence number of the first event, used to notice missed events.
+     *
+     * @return The number, or {@code null} if the frame carries no numbered events.
+     */
+    public Long firstSeq() {
+        return events.isEmpty() ? null : events.getFirst().seq();
+    }
+}
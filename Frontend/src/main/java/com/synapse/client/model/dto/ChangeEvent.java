@@ -0,0 +1,47 @@
+package com.synapse.client.model.dto;
+
+import com.google.gson.JsonElement;
+import com.synapse.client.enums.ChangeEntityType;
+import com.synapse.client.enums.ChangeOperation;
+
+/**
+ * Immutable data carrier for one change notification pushed over WebSocket.
+ * <p>
+ * Instead of a free-text message that forced every client to download the whole group again,
+ * the server sends what changed. {@code data} has the same shape as the entity returned by the
+ * REST API, so the stores can apply the change in place without any request.
+ * <p>
+ * {@code version} grows with every change of the entity. Stores remember the last version they
+ * applied and drop events that are not newer, so duplicated or reordered events are harmless.
+ * The server delivers every event at least once; a redelivered event has the same {@code eventId}.
+ * <p>
+ * Events of a group topic are numbered per group ({@code seq}). A jump in the numbers means events
+ * were missed, e.g. while the connection was down, and they can be fetched again by number.
+ *
+ * @param eventId       Unique ID of this event, identical on redelivery.
+ * @param schemaVersion Version of this event format, currently {@code 1}.
+ * @param entityType    The kind of entity that changed.
+ * @param operation     Whether it was created, updated or deleted.
+ * @param id            The entity ID (the user ID for members).
+ * @param groupId       The group the entity belongs to.
+ * @param version       The entity version after this change.
+ * @param data          The entity as the REST API would return it, or {@code null} for deletes.
+ * @param seq           Sequence number within the group, or {@code null} on the personal queue.
+ */
+public record ChangeEvent(String eventId, int schemaVersion, ChangeEntityType entityType, ChangeOperation operation,
+                          Long id, Long groupId, long version, JsonElement data, Long seq) {
+
+    /**
+     * The only event format this client understands.
+     */
+    public static final int SUPPORTED_SCHEMA = 1;
+
+    /**
+     * Checks whether this event can be applied by this client.
+     *
+     * @return {@code false} for unknown formats or entity kinds, which should trigger a full reload instead.
+     */
+    public boolean isSupported() {
+        return schemaVersion == SUPPORTED_SCHEMA && entityType != null && operation != null && id != null;
+    }
+}
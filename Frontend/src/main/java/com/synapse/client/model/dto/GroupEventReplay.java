@@ -0,0 +1,16 @@
+package com.synapse.client.model.dto;
+
+import java.util.List;
+
+/**
+ * Immutable data carrier for the change events a client missed in one group.
+ * <p>
+ * The server keeps only the most recent events of each group. If the missed ones are no
+ * longer all available, {@code resyncRequired} is set and the group has to be reloaded.
+ *
+ * @param resyncRequired {@code true} if the events are incomplete and the group must be reloaded.
+ * @param lastSeq        The sequence number of the newest event of the group.
+ * @param events         The missed events, oldest first.
+ */
+public record GroupEventReplay(boolean resyncRequired, long lastSeq, List<ChangeEvent> events) {
+}
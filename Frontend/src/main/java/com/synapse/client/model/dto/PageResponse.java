@@ -0,0 +1,27 @@
+package com.synapse.client.model.dto;
+
+import java.util.List;
+
+/**
+ * Immutable data carrier for one page of a cursor-paginated list endpoint.
+ * <p>
+ * List endpoints on the server no longer return the whole table at once. Each call returns
+ * at most {@code limit} items together with an opaque cursor pointing just past the last item.
+ * The client sends that cursor back unchanged to fetch the following page.
+ *
+ * @param items      The items of this page, in the server's sort order.
+ * @param nextCursor The cursor to request the next page with,
+ *                   or {@code null} when this is the last page.
+ * @param <T>        The type of the listed items.
+ */
+public record PageResponse<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Checks whether the server has more items after this page.
+     *
+     * @return {@code true} if another page can be requested with {@link #nextCursor()}.
+     */
+    public boolean hasNext() {
+        return nextCursor != null && !nextCursor.isBlank();
+    }
+}
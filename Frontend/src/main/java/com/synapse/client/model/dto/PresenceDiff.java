@@ -0,0 +1,15 @@
+package com.synapse.client.model.dto;
+
+import java.util.List;
+
+/**
+ * Immutable data carrier for a presence change pushed to {@code /topic/group/{id}/presence}.
+ * <p>
+ * The server collects changes for about a second and sends them together.
+ *
+ * @param groupId The group ID.
+ * @param joined  IDs of the members that came online.
+ * @param left    IDs of the members that went offline.
+ */
+public record PresenceDiff(Long groupId, List<Long> joined, List<Long> left) {
+}
@@ -0,0 +1,12 @@
+package com.synapse.client.model.dto;
+
+import java.util.List;
+
+/**
+ * Immutable data carrier for the members of a group that are online right now.
+ *
+ * @param groupId The group ID.
+ * @param online  IDs of the members connected over WebSocket.
+ */
+public record PresenceSnapshot(Long groupId, List<Long> online) {
+}
@@ -0,0 +1,8 @@
+package com.synapse.client.model.dto;
+
+/**
+ * Body of {@code /auth/refresh}.
+ *
+ * @param refreshToken The refresh token of the last {@link TokenResponse}.
+ */
+public record RefreshRequest(String refreshToken) {}
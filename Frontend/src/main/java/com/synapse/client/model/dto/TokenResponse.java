@@ -0,0 +1,14 @@
+package com.synapse.client.model.dto;
+
+import com.synapse.client.model.User;
+
+/**
+ * Answer of {@code /auth/token} and {@code /auth/refresh} when the server runs in token mode.
+ *
+ * @param user         The authenticated user.
+ * @param accessToken  Signed token sent as {@code Authorization: Bearer} with every request.
+ * @param tokenType    Always {@code Bearer}.
+ * @param expiresIn    Lifetime of the access token in seconds.
+ * @param refreshToken Token exchanged for a new pair before the access token expires.
+ */
+public record TokenResponse(User user, String accessToken, String tokenType, long expiresIn, String refreshToken) {}
@@ -4,14 +4,26 @@ import com.google.gson.*;
 import com.synapse.client.model.*;
 import com.synapse.client.model.dto.*;
 
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Centralized service for handling all HTTP REST API communication.
@@ -25,6 +37,9 @@ import java.util.concurrent.CompletableFuture;
  * that network requests do not block the JavaFX Application Thread.</li>
  * <li><b>JSON Serialization:</b> Uses {@link Gson} with custom adapters for Java 8 Time API.</li>
  * <li><b>Session Management:</b> Automatically extracts and attaches 'JSESSIONID' cookies.</li>
+ * <li><b>Token Mode:</b> Started with {@code -Dsynapse.auth.mode=TOKEN} (matching {@code app.auth.mode=TOKEN}
+ * on the server) it signs in through {@code /auth/token}, attaches the access token instead of the cookie
+ * and refreshes it in the background before it expires.</li>
  * </ul>
  */
 public class ApiService {
@@ -32,8 +47,20 @@ public class ApiService {
     private final HttpClient client;
     private final Gson gson;
     private String currentSessionId = null;
+    private volatile TokenResponse tokens = null;
+    private ScheduledFuture<?> refreshTask;
 
     private static final String BASE_URL = "http://localhost:8080";
+    private static final int PAGE_SIZE = 200;
+    private static final boolean TOKEN_MODE = "TOKEN".equalsIgnoreCase(System.getProperty("synapse.auth.mode"));
+    // Refresh when this share of the access token's lifetime has passed
+    private static final double REFRESH_AT = 0.8;
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Private constructor to enforce Singleton pattern.
@@ -103,8 +130,9 @@ public class ApiService {
         HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(URI.create(BASE_URL + path));
 
-        if (currentSessionId != null) {
-            builder.header("Cookie", currentSessionId);
+        Map.Entry<String, String> credential = getCredential();
+        if (credential != null) {
+            builder.header(credential.getKey(), credential.getValue());
         }
         return builder;
     }
@@ -122,6 +150,10 @@ public class ApiService {
      */
     public CompletableFuture<User> loginUser(String email, String password) {
         LoginRequest requestDto = new LoginRequest(email, password);
+        if (TOKEN_MODE) {
+            return sendTokenRequest("/auth/token", requestDto)
+                    .thenApply(response -> response == null ? null : response.user());
+        }
         return sendAuthRequest("/auth/login", requestDto);
     }
 
@@ -135,6 +167,13 @@ public class ApiService {
      */
     public CompletableFuture<User> registerUser(String username, String email, String password) {
         RegisterRequest requestDto = new RegisterRequest(username, email, password);
+        if (TOKEN_MODE) {
+            // Registering does not hand out tokens, sign in right after
+            return sendAuthRequest("/auth/register", requestDto)
+                    .thenCompose(user -> user == null
+                            ? CompletableFuture.completedFuture(null)
+                            : loginUser(email, password));
+        }
         return sendAuthRequest("/auth/register", requestDto);
     }
 
@@ -161,16 +200,86 @@ public class ApiService {
                 });
     }
 
+    /**
+     * Sends a token request and keeps the returned tokens, scheduling their refresh.
+     *
+     * @return The tokens, or {@code null} if the request was refused.
+     */
+    private CompletableFuture<TokenResponse> sendTokenRequest(String endpoint, Object dto) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + endpoint))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(dto)))
+                .build();
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() >= 300) {
+                        return null;
+                    }
+                    TokenResponse issued = gson.fromJson(response.body(), TokenResponse.class);
+                    this.tokens = issued;
+                    scheduleRefresh(issued);
+                    return issued;
+                });
+    }
+
+    /**
+     * Exchanges the refresh token for a new pair shortly before the access token expires.
+     * The open WebSocket stays as it is, only its next reconnect uses the new token.
+     */
+    private synchronized void scheduleRefresh(TokenResponse issued) {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+        }
+        long delayMs = (long) (issued.expiresIn() * 1000 * REFRESH_AT);
+        refreshTask = refresher.schedule(() -> {
+            if (tokens != issued) {
+                return; // logged out or already replaced
+            }
+            sendTokenRequest("/auth/refresh", new RefreshRequest(issued.refreshToken()))
+                    .thenAccept(refreshed -> {
+                        if (refreshed != null) {
+                            StompClient.getInstance().updateCredential(getCredential());
+                        }
+                    });
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the header that identifies the logged-in user, so the WebSocket connection
+     * can be opened as the same user.
+     *
+     * @return {@code Authorization: Bearer ...} in token mode, the session {@code Cookie} otherwise,
+     * or {@code null} if not logged in.
+     */
+    public Map.Entry<String, String> getCredential() {
+        TokenResponse current = tokens;
+        if (current != null) {
+            return Map.entry("Authorization", "Bearer " + current.accessToken());
+        }
+        return currentSessionId == null ? null : Map.entry("Cookie", currentSessionId);
+    }
+
     /**
      * Logs out the current user by invalidating the session on the server
-     * and clearing the local session ID.
+     * and clearing the local session ID or tokens.
      */
     public CompletableFuture<Void> logout() {
         HttpRequest request = newRequestBuilder("/auth/logout")
                 .POST(HttpRequest.BodyPublishers.noBody())
                 .build();
         return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
-                .thenAccept(r -> this.currentSessionId = null);
+                .thenAccept(r -> clearCredentials());
+    }
+
+    private synchronized void clearCredentials() {
+        this.currentSessionId = null;
+        this.tokens = null;
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
     }
 
     // ==========================================
@@ -228,12 +337,52 @@ public class ApiService {
 
     /**
      * Fetches all tasks associated with the user across all groups.
+     * <p>
+     * The server returns tasks page by page, so this walks every page with {@link #fetchAllPages}.
      */
     public CompletableFuture<Task[]> getAllTasks() {
-        HttpRequest request = newRequestBuilder("/api/tasks")
-                .GET()
-                .build();
-        return sendRequest(request, Task[].class);
+        return fetchAllPages("/api/tasks", Task.class)
+                .thenApply(tasks -> tasks.toArray(new Task[0]));
+    }
+
+    /**
+     * Fetches a single page of tasks.
+     *
+     * @param cursor The cursor returned with the previous page, or {@code null} for the first page.
+     * @param limit  The maximum number of tasks in the page.
+     * @return A Future containing the page, or null on error.
+     */
+    public CompletableFuture<PageResponse<Task>> getTasksPage(String cursor, int limit) {
+        return fetchPage("/api/tasks", cursor, limit, Task.class);
+    }
+
+    /**
+     * Fetches only the tasks matching the given filter, evaluated on the server.
+     * <p>
+     * The server limits the result to groups the current user is a member of.
+     * Date buckets are resolved in this machine's time zone. The result comes page by page,
+     * every page is fetched with {@link #fetchAllPages}.
+     *
+     * @param groupIds The groups to include, or {@code null} for all of the user's groups.
+     * @param bucket   "TODAY" or "UPCOMING" to filter by deadline, or {@code null} for any deadline.
+     * @param status   The task status to match, or {@code null} for any status.
+     * @return A Future containing the matching tasks ordered by deadline, or a failed Future if a page could not be fetched.
+     */
+    public CompletableFuture<Task[]> queryTasks(List<Long> groupIds, String bucket, String status) {
+        StringBuilder query = new StringBuilder("/api/tasks/query?zone=")
+                .append(URLEncoder.encode(java.time.ZoneId.systemDefault().getId(), StandardCharsets.UTF_8));
+        if (groupIds != null) {
+            groupIds.forEach(id -> query.append("&groupIds=").append(id));
+        }
+        if (bucket != null) {
+            query.append("&bucket=").append(bucket);
+        }
+        if (status != null) {
+            query.append("&status=").append(status);
+        }
+
+        return fetchAllPages(query.toString(), Task.class)
+                .thenApply(tasks -> tasks.toArray(new Task[0]));
     }
 
     public CompletableFuture<Task> createTask(Task task) {
@@ -298,24 +447,14 @@ public class ApiService {
     }
 
     /**
-     * Fetches the list of members for a specific group.
+     * Fetches the list of members for a specific group, walking every page of the member list.
      */
     public CompletableFuture<User[]> getGroupMembers(Long groupId) {
-        HttpRequest request = newRequestBuilder("/api/studyGroups/" + groupId + "/members")
-                .GET()
-                .build();
-
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenApply(response -> {
-                    if (response.statusCode() >= 300) {
-                        return new User[0];
-                    }
-                    try {
-                        return gson.fromJson(response.body(), User[].class);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        return new User[0];
-                    }
+        return fetchAllPages("/api/studyGroups/" + groupId + "/members", User.class)
+                .thenApply(members -> members.toArray(new User[0]))
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return new User[0];
                 });
     }
 
@@ -413,10 +552,156 @@ public class ApiService {
         return sendRequest(request, User.class);
     }
 
+    // ==========================================
+    // REAL-TIME EVENTS
+    // ==========================================
+
+    /**
+     * Parses a frame of change events received over WebSocket.
+     * <p>
+     * The frame is either a single {@link ChangeEvent} or a {@link ChangeBatch} of several.
+     *
+     * @param json The raw STOMP message body.
+     * @return The events of the frame, or null if the body is not readable.
+     */
+    public ChangeBatch parseChangeFrame(String json) {
+        try {
+            JsonObject frame = JsonParser.parseString(json).getAsJsonObject();
+            if (frame.has("events")) {
+                ChangeBatch batch = gson.fromJson(frame, ChangeBatch.class);
+                return batch.events() == null
+                        ? new ChangeBatch(batch.schemaVersion(), batch.invalidate(), batch.lastSeq(), List.of())
+                        : batch;
+            }
+            return ChangeBatch.of(gson.fromJson(frame, ChangeEvent.class));
+        } catch (JsonParseException | IllegalStateException e) {
+            System.err.println("Unreadable change frame: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Fetches the change events of a group published after a sequence number.
+     * <p>
+     * Used after a reconnect or when a jump in the sequence numbers shows that events were missed.
+     * Without {@code after} only the current sequence number is returned.
+     *
+     * @param groupId The group ID.
+     * @param after   The last sequence number received, or {@code null}.
+     * @return A Future containing the missed events, or null on error.
+     */
+    public CompletableFuture<GroupEventReplay> getGroupEvents(Long groupId, Long after) {
+        String path = "/api/studyGroups/" + groupId + "/events" + (after == null ? "" : "?after=" + after);
+        HttpRequest request = newRequestBuilder(path)
+                .GET()
+                .build();
+        return sendRequest(request, GroupEventReplay.class);
+    }
+
+    /**
+     * Fetches the members of a group that are online right now.
+     * Later changes arrive on {@code /topic/group/{id}/presence}.
+     *
+     * @param groupId The group ID.
+     * @return A Future containing the online members, or null on error.
+     */
+    public CompletableFuture<PresenceSnapshot> getGroupPresence(Long groupId) {
+        HttpRequest request = newRequestBuilder("/api/studyGroups/" + groupId + "/presence")
+                .GET()
+                .build();
+        return sendRequest(request, PresenceSnapshot.class);
+    }
+
+    /**
+     * Parses a frame of a group's presence topic.
+     *
+     * @param json The raw message body.
+     * @return The diff, or {@code null} if the frame could not be read.
+     */
+    public PresenceDiff parsePresenceDiff(String json) {
+        try {
+            return gson.fromJson(json, PresenceDiff.class);
+        } catch (JsonParseException e) {
+            System.err.println("Unreadable presence frame: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Converts the {@code data} of a change event into a model object,
+     * using the same date adapters as the REST responses.
+     *
+     * @param data The entity data carried by the event.
+     * @param type The model Class to convert to.
+     * @param <T>  The model type.
+     * @return The model object.
+     */
+    public <T> T fromEventData(JsonElement data, Class<T> type) {
+        return gson.fromJson(data, type);
+    }
+
     // ==========================================
     // HELPER METHODS
     // ==========================================
 
+    /**
+     * Fetches one page of a cursor-paginated list endpoint.
+     *
+     * @param path     The list endpoint path (e.g., "/api/tasks").
+     * @param cursor   The cursor of the previous page, or {@code null} for the first page.
+     * @param limit    The maximum number of items in the page.
+     * @param itemType The Class of the listed items.
+     * @param <T>      The type of the listed items.
+     * @return A Future containing the page, or null on error.
+     */
+    private <T> CompletableFuture<PageResponse<T>> fetchPage(String path, String cursor, int limit, Class<T> itemType) {
+        String query = (path.contains("?") ? "&" : "?") + "limit=" + limit;
+        if (cursor != null) {
+            query += "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8);
+        }
+        HttpRequest request = newRequestBuilder(path + query)
+                .GET()
+                .build();
+
+        Type pageType = TypeToken.getParameterized(PageResponse.class, itemType).getType();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() >= 300) {
+                        System.err.println("Request failed: " + response.statusCode() + " | Body: " + response.body());
+                        return null;
+                    }
+                    return gson.fromJson(response.body(), pageType);
+                });
+    }
+
+    /**
+     * Walks a cursor-paginated list endpoint from the first page to the last one
+     * and collects every item. Pages are requested one after another, each with the
+     * cursor returned by the previous page.
+     *
+     * @param path     The list endpoint path (e.g., "/api/tasks").
+     * @param itemType The Class of the listed items.
+     * @param <T>      The type of the listed items.
+     * @return A Future containing all items, or a failed Future if a page could not be fetched.
+     */
+    private <T> CompletableFuture<List<T>> fetchAllPages(String path, Class<T> itemType) {
+        return fetchRemainingPages(path, null, itemType, new ArrayList<>());
+    }
+
+    private <T> CompletableFuture<List<T>> fetchRemainingPages(String path, String cursor, Class<T> itemType, List<T> collected) {
+        return fetchPage(path, cursor, PAGE_SIZE, itemType).thenCompose(page -> {
+            if (page == null) {
+                return CompletableFuture.failedFuture(new RuntimeException("Error fetching " + path));
+            }
+            if (page.items() != null) {
+                collected.addAll(page.items());
+            }
+            return page.hasNext()
+                    ? fetchRemainingPages(path, page.nextCursor(), itemType, collected)
+                    : CompletableFuture.completedFuture(collected);
+        });
+    }
+
     /**
      * Generic helper method to send an async HTTP request and deserialize the JSON response.
      *
@@ -6,8 +6,14 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.WebSocket;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -18,6 +24,7 @@ import java.util.function.Consumer;
  * <li><b>Connect</b> to the Spring Boot WebSocket endpoint.</li>
  * <li><b>Subscribe</b> to specific topics (e.g., group updates).</li>
  * <li><b>Receive</b> and route asynchronous messages to the appropriate callback functions.</li>
+ * <li><b>Reconnect</b> with exponential backoff when the connection is lost, restoring all subscriptions.</li>
  * </ul>
  * It uses the native {@link java.net.http.WebSocket} client introduced in Java 11.
  */
@@ -28,8 +35,28 @@ public class StompClient {
 
     // Thread-safe map to store active subscriptions: Subscription ID -> Callback Function
     private final Map<String, Consumer<String>> subscriptions = new ConcurrentHashMap<>();
+    // Subscription ID -> Destination, re-sent after every (re)connect
+    private final Map<String, String> topics = new ConcurrentHashMap<>();
 
     private static final String WS_URL = "ws://localhost:8080/ws/websocket";
+    private static final long HEARTBEAT_MS = 10_000;
+    private static final long RECONNECT_INITIAL_MS = 1_000;
+    private static final long RECONNECT_MAX_MS = 30_000;
+
+    // Sends heart-beats so the server can tell a dead connection from an idle one, and schedules reconnects
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "stomp-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private boolean connecting;
+    private boolean connected;
+    private boolean wasConnected;
+    private int reconnectAttempts;
+    private ScheduledFuture<?> heartbeatTask;
+    private Runnable onReconnect;
+    private Map.Entry<String, String> credential;
 
     private StompClient() {}
 
@@ -44,74 +71,205 @@ public class StompClient {
         return instance;
     }
 
+    /**
+     * Sets the action to run on the JavaFX Application Thread after the connection was restored.
+     * <p>
+     * Messages published while the connection was down are not delivered again by the broker,
+     * so this is where the application fetches what it missed.
+     *
+     * @param onReconnect The action, or {@code null} for none.
+     */
+    public synchronized void setOnReconnect(Runnable onReconnect) {
+        this.onReconnect = onReconnect;
+    }
+
+    /**
+     * Opens the connection again as the logged-in user, so the server knows who is
+     * connected (e.g. to show them as online in their groups). Subscriptions are kept.
+     *
+     * @param credential The header identifying the user ({@link ApiService#getCredential()}), or {@code null} after logout.
+     */
+    public void authenticate(Map.Entry<String, String> credential) {
+        WebSocket previous;
+        synchronized (this) {
+            this.credential = credential;
+            previous = webSocket;
+            webSocket = null;
+            connected = false;
+            wasConnected = false;
+            if (heartbeatTask != null) {
+                heartbeatTask.cancel(false);
+                heartbeatTask = null;
+            }
+        }
+        if (previous != null) {
+            previous.abort();
+        }
+        connect();
+    }
+
+    /**
+     * Replaces the credential used for the next (re)connect without closing the open connection,
+     * e.g. after the access token was refreshed.
+     *
+     * @param credential The new header identifying the same user.
+     */
+    public synchronized void updateCredential(Map.Entry<String, String> credential) {
+        this.credential = credential;
+    }
+
     /**
      * Initiates the WebSocket connection to the server.
      * <p>
      * 1. Builds a standard WebSocket connection.
      * 2. Once connected, sends a STOMP <b>CONNECT</b> frame to perform the handshake.
      * <p>
-     * The connection happens asynchronously.
+     * The connection happens asynchronously. If it fails or is lost later, it is retried
+     * with exponential backoff.
      */
-    public void connect() {
-        if (webSocket != null) return; // Already connected
+    public synchronized void connect() {
+        if (webSocket != null || connecting) return; // Already connected or connecting
+        connecting = true;
+        Map.Entry<String, String> sent = credential;
 
-        HttpClient client = HttpClient.newHttpClient();
-        client.newWebSocketBuilder()
-                .buildAsync(URI.create(WS_URL), new WebSocketListener())
+        WebSocket.Builder builder = HttpClient.newHttpClient().newWebSocketBuilder();
+        if (sent != null) {
+            builder.header(sent.getKey(), sent.getValue());
+        }
+        builder.buildAsync(URI.create(WS_URL), new WebSocketListener())
                 .thenAccept(ws -> {
-                    this.webSocket = ws;
+                    synchronized (this) {
+                        connecting = false;
+                        if (!Objects.equals(sent, credential)) {
+                            // Logged in or out while connecting: open it again as the right user
+                            ws.abort();
+                            heartbeat.execute(this::connect);
+                            return;
+                        }
+                        this.webSocket = ws;
+                    }
                     System.out.println("WebSocket Connected!");
 
                     // Send STOMP CONNECT Frame
                     // \0 is the null byte, required to terminate STOMP frames
-                    String connectFrame = "CONNECT\naccept-version:1.1,1.0\nhost:localhost\n\n\0";
+                    String connectFrame = "CONNECT\naccept-version:1.1,1.0\nhost:localhost\nheart-beat:"
+                            + HEARTBEAT_MS + "," + HEARTBEAT_MS + "\n\n\0";
                     ws.sendText(connectFrame, true);
                 })
                 .exceptionally(e -> {
                     System.err.println("WebSocket connection failed: " + e.getMessage());
+                    synchronized (this) {
+                        connecting = false;
+                    }
+                    scheduleReconnect();
                     return null;
                 });
     }
 
     /**
      * Subscribes to a specific STOMP destination (topic).
+     * <p>
+     * The subscription is remembered and sent again after every reconnect. If the client
+     * is not connected yet, it is sent as soon as the handshake completes.
      *
      * @param topic    The destination string (e.g., "/topic/group/1").
      * @param callback A function to execute when a message arrives for this topic.
      * The function receives the message body as a String.
      */
-    public void subscribe(String topic, Consumer<String> callback) {
-        if (webSocket == null) {
-            System.err.println("Cannot subscribe: WebSocket is not connected.");
-            return;
-        }
-
+    public synchronized void subscribe(String topic, Consumer<String> callback) {
         // Generate a unique ID for this subscription based on the topic
         String subId = "sub-" + topic.hashCode();
         subscriptions.put(subId, callback);
+        topics.put(subId, topic);
+        if (connected) {
+            sendSubscribe(subId, topic);
+        }
+    }
+
+    private void sendSubscribe(String subId, String topic) {
         // Send STOMP SUBSCRIBE Frame
         String subscribeFrame = "SUBSCRIBE\nid:" + subId + "\ndestination:" + topic + "\n\n\0";
         webSocket.sendText(subscribeFrame, true);
     }
 
+    /**
+     * Completes the STOMP handshake: restores the subscriptions, starts the heart-beats
+     * and, if this was a reconnect, runs the reconnect action.
+     */
+    private synchronized void onConnected(WebSocket ws) {
+        if (ws != webSocket) return; // A connection that was already given up
+        connected = true;
+        reconnectAttempts = 0;
+        topics.forEach(this::sendSubscribe);
+        heartbeatTask = heartbeat.scheduleAtFixedRate(() -> ws.sendText("\n", true),
+                HEARTBEAT_MS, HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+
+        Runnable action = onReconnect;
+        if (wasConnected && action != null) {
+            Platform.runLater(action);
+        }
+        wasConnected = true;
+    }
+
+    /**
+     * Forgets a closed or failed connection and schedules a new one.
+     */
+    private void onConnectionLost(WebSocket ws) {
+        synchronized (this) {
+            if (ws != webSocket) return; // Already handled
+            webSocket = null;
+            connected = false;
+            if (heartbeatTask != null) {
+                heartbeatTask.cancel(false);
+                heartbeatTask = null;
+            }
+        }
+        ws.abort();
+        scheduleReconnect();
+    }
+
+    /**
+     * Retries the connection after 1s, 2s, 4s... up to 30s, with jitter so that clients
+     * dropped together by a server restart do not all reconnect at the same moment.
+     */
+    private void scheduleReconnect() {
+        long delay;
+        synchronized (this) {
+            long backoff = Math.min(RECONNECT_MAX_MS, RECONNECT_INITIAL_MS << Math.min(reconnectAttempts, 5));
+            reconnectAttempts++;
+            delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        }
+        System.out.println("Reconnecting in " + delay + " ms");
+        heartbeat.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Internal listener implementation to handle incoming WebSocket events.
      */
     private class WebSocketListener implements WebSocket.Listener {
 
+        // Large frames (e.g. a batch of change events) arrive in several parts
+        private final StringBuilder partial = new StringBuilder();
+
         /**
          * Invoked when a text message is received from the server.
          * Used to parse STOMP frames.
          */
         @Override
         public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
-            String message = data.toString();
+            partial.append(data);
+            if (!last) {
+                return WebSocket.Listener.super.onText(webSocket, data, last);
+            }
+            String message = partial.toString();
+            partial.setLength(0);
 
             // We only care about MESSAGE frames (actual data pushed from server)
             if (message.startsWith("MESSAGE")) {
                 handleMessage(message);
             } else if (message.startsWith("CONNECTED")) {
                 System.out.println("STOMP Handshake success.");
+                onConnected(webSocket);
             } else if (message.startsWith("ERROR")) {
                 System.err.println("STOMP Error received: " + message);
             }
@@ -155,9 +313,17 @@ public class StompClient {
             }
         }
 
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            System.err.println("WebSocket closed: " + statusCode + " " + reason);
+            onConnectionLost(webSocket);
+            return null;
+        }
+
         @Override
         public void onError(WebSocket webSocket, Throwable error) {
             System.err.println("WebSocket Error: " + error.getMessage());
+            onConnectionLost(webSocket);
         }
     }
 }
\ No newline at end of file
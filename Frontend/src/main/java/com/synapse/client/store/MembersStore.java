@@ -1,11 +1,15 @@
 package com.synapse.client.store;
 
+import com.synapse.client.enums.ChangeOperation;
 import com.synapse.client.model.User;
+import com.synapse.client.model.dto.ChangeEvent;
+import com.synapse.client.model.dto.PresenceDiff;
 import com.synapse.client.service.AlertService;
 import com.synapse.client.service.ApiService;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableSet;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -24,11 +28,15 @@ public class MembersStore {
     // Maps GroupID -> List of Users (Members)
     private final Map<Long, ObservableList<User>> groupMembers;
 
+    // Maps GroupID -> IDs of the members online right now
+    private final Map<Long, ObservableSet<Long>> onlineMembers;
+
     /**
      * Private constructor to enforce Singleton pattern.
      */
     private MembersStore() {
         groupMembers = new HashMap<>();
+        onlineMembers = new HashMap<>();
     }
 
     /**
@@ -77,6 +85,77 @@ public class MembersStore {
         });
     }
 
+    /**
+     * Applies a membership change pushed by the server in place.
+     * <p>
+     * Only groups whose member list was already loaded are touched; other groups
+     * load their members when first shown anyway. Versions are not compared here:
+     * a user who leaves and rejoins gets a new membership whose version starts again.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param event A change event with entity type {@code MEMBER}; its ID is the user ID.
+     */
+    public void applyChange(ChangeEvent event) {
+        ObservableList<User> members = groupMembers.get(event.groupId());
+        if (members == null) return;
+
+        members.removeIf(u -> event.id().equals(u.getUser_id()));
+        if (event.operation() != ChangeOperation.DELETED) {
+            members.add(ApiService.getInstance().fromEventData(event.data(), User.class));
+        }
+    }
+
+    /**
+     * Retrieves the IDs of the members of a group that are online right now.
+     * Like {@link #getMembersByGroupId(Long)} it returns an empty set until loaded.
+     *
+     * @param groupId The ID of the group.
+     * @return The ObservableSet of online user IDs.
+     */
+    public ObservableSet<Long> getOnlineMembers(Long groupId) {
+        return onlineMembers.computeIfAbsent(groupId, k -> FXCollections.observableSet());
+    }
+
+    /**
+     * Fetches which members of a group are online.
+     * Later changes are applied by {@link #applyPresence(PresenceDiff)}.
+     *
+     * @param groupId The ID of the group.
+     */
+    public void fetchPresenceForGroup(Long groupId) {
+        ApiService.getInstance().getGroupPresence(groupId).thenAccept(snapshot -> {
+            if (snapshot != null) {
+                Platform.runLater(() -> {
+                    ObservableSet<Long> online = getOnlineMembers(groupId);
+                    online.clear();
+                    online.addAll(snapshot.online());
+                });
+            }
+        });
+    }
+
+    /**
+     * Fetches presence again for every group it was loaded for, e.g. after a reconnect.
+     */
+    public void refreshPresence() {
+        onlineMembers.keySet().forEach(this::fetchPresenceForGroup);
+    }
+
+    /**
+     * Applies a presence change pushed by the server.
+     * Only groups whose presence was already loaded are touched.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param diff The members that came online or went offline.
+     */
+    public void applyPresence(PresenceDiff diff) {
+        ObservableSet<Long> online = onlineMembers.get(diff.groupId());
+        if (online == null) return;
+
+        if (diff.left() != null) online.removeAll(diff.left());
+        if (diff.joined() != null) online.addAll(diff.joined());
+    }
+
     /**
      * Helper method to resolve a User ID to a Display Name.
      * <p>
@@ -136,5 +215,6 @@ public class MembersStore {
      */
     public void clear() {
         groupMembers.clear();
+        onlineMembers.clear();
     }
 }
\ No newline at end of file
@@ -1,12 +1,17 @@
 package com.synapse.client.store;
 
+import com.synapse.client.enums.ChangeOperation;
 import com.synapse.client.model.Resource;
+import com.synapse.client.model.dto.ChangeEvent;
 import com.synapse.client.service.ApiService;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Centralized data store for managing Resources (Files and Links) associated with a group.
  * <p>
@@ -24,6 +29,9 @@ public class ResourceStore {
     // The live list of resources currently loaded in memory
     private final ObservableList<Resource> resources;
 
+    // Last applied change event version per resource ID
+    private final Map<Long, Long> versions = new HashMap<>();
+
     /**
      * Private constructor to enforce Singleton pattern.
      */
@@ -83,11 +91,33 @@ public class ResourceStore {
 
         ApiService.getInstance().createResource(resource).thenAccept(savedResource -> {
             if (savedResource != null) {
-                Platform.runLater(() -> resources.add(savedResource));
+                Platform.runLater(() -> {
+                    resources.removeIf(r -> savedResource.getResource_id().equals(r.getResource_id()));
+                    resources.add(savedResource);
+                });
             }
         });
     }
 
+    /**
+     * Applies a resource change pushed by the server to the local list in place.
+     * <p>
+     * Events not newer than the last applied version of the resource are ignored.
+     * Resources of other groups are filtered out by {@link #getResourcesByGroupId(Long)}.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param event A change event with entity type {@code RESOURCE}.
+     */
+    public void applyChange(ChangeEvent event) {
+        if (event.version() <= versions.getOrDefault(event.id(), -1L)) return;
+        versions.put(event.id(), event.version());
+
+        resources.removeIf(r -> event.id().equals(r.getResource_id()));
+        if (event.operation() != ChangeOperation.DELETED) {
+            resources.add(ApiService.getInstance().fromEventData(event.data(), Resource.class));
+        }
+    }
+
     /**
      * Returns a FilteredList view of the resources for a specific group.
      * <p>
@@ -110,5 +140,6 @@ public class ResourceStore {
      */
     public void clear() {
         resources.clear();
+        versions.clear();
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.synapse.client.store;
 
 import com.synapse.client.UserSession;
+import com.synapse.client.enums.ChangeOperation;
 import com.synapse.client.model.Task;
+import com.synapse.client.model.dto.ChangeEvent;
 import com.synapse.client.service.AlertService;
 import com.synapse.client.service.ApiService;
 import javafx.application.Platform;
@@ -12,8 +14,14 @@ import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Centralized data store for managing the state of Tasks within the application.
@@ -33,6 +41,9 @@ public class TaskStore {
     // The Master List containing ALL tasks loaded into the application
     private final ObservableList<Task> tasks = FXCollections.observableArrayList();
 
+    // Last applied change event version per task ID
+    private final Map<Long, Long> versions = new HashMap<>();
+
     // Live views (Read-only wrappers around the master list)
     private final FilteredList<Task> todayTasks;
     private final FilteredList<Task> upcomingTasks;
@@ -108,14 +119,24 @@ public class TaskStore {
     }
 
     /**
-     * Fetches all tasks for the current user from the backend.
-     * Replaces the entire content of the master list.
+     * Fetches the tasks shown on the Today and Upcoming views from the backend.
+     * <p>
+     * Only tasks due today or later in the user's groups are downloaded; the server
+     * does the date filtering. Tasks of other slices already in the master list
+     * (e.g. a group opened in the details view) are kept.
      */
     public void fetchTasksFromServer() {
-        ApiService.getInstance().getAllTasks()
+        ApiService api = ApiService.getInstance();
+        api.queryTasks(null, "TODAY", null)
+                .thenCombine(api.queryTasks(null, "UPCOMING", null), (today, upcoming) -> {
+                    if (today == null || upcoming == null) return null;
+                    List<Task> loaded = new ArrayList<>(Arrays.asList(today));
+                    loaded.addAll(Arrays.asList(upcoming));
+                    return loaded;
+                })
                 .thenAccept(loadedTasks -> {
                     if (loadedTasks != null) {
-                        Platform.runLater(() -> tasks.setAll(loadedTasks));
+                        Platform.runLater(() -> replaceSlice(this::isDueTodayOrLater, loadedTasks));
                     }
                 })
                 .exceptionally(e -> {
@@ -128,7 +149,7 @@ public class TaskStore {
      * Refreshes tasks for a specific group.
      * <p>
      * Logic:
-     * 1. Fetches data from the server.
+     * 1. Fetches only this group's tasks from the server.
      * 2. Removes old tasks belonging to this group from the master list.
      * 3. Adds the fresh tasks for this group.
      * This ensures we don't duplicate tasks while keeping other groups' data intact.
@@ -136,21 +157,11 @@ public class TaskStore {
      * @param groupId The ID of the group to refresh.
      */
     public void fetchTasksByGroupId(Long groupId) {
-        ApiService.getInstance().getAllTasks()
+        ApiService.getInstance().queryTasks(List.of(groupId), null, null)
                 .thenAccept(downloadedTasks -> {
                     if (downloadedTasks != null) {
-                        Platform.runLater(() -> {
-                            // Filter only the relevant tasks from the response
-                            List<Task> newGroupTasks = Arrays.stream(downloadedTasks)
-                                    .filter(t -> groupId.equals(t.getGroup_id()))
-                                    .toList();
-
-                            // Clean up old local data for this group
-                            this.tasks.removeIf(t -> groupId.equals(t.getGroup_id()));
-
-                            // Add new data
-                            this.tasks.addAll(newGroupTasks);
-                        });
+                        Platform.runLater(() -> replaceSlice(
+                                t -> groupId.equals(t.getGroup_id()), Arrays.asList(downloadedTasks)));
                     }
                 })
                 .exceptionally(e -> {
@@ -172,7 +183,7 @@ public class TaskStore {
         ApiService.getInstance().createTask(task)
                 .thenAccept(savedTask -> {
                     if (savedTask != null) {
-                        Platform.runLater(() -> tasks.add(savedTask));
+                        Platform.runLater(() -> upsert(savedTask));
                     }
                 })
                 .exceptionally(e -> {
@@ -219,7 +230,66 @@ public class TaskStore {
                 });
     }
 
+    /**
+     * Applies a task change pushed by the server to the master list in place.
+     * <p>
+     * Created and updated tasks replace the local copy with the same ID (or are added),
+     * deleted tasks are removed. Events not newer than the last applied version of the task
+     * are ignored, so a late update can never resurrect a deleted task.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param event A change event with entity type {@code TASK}.
+     */
+    public void applyChange(ChangeEvent event) {
+        if (event.version() <= versions.getOrDefault(event.id(), -1L)) return;
+        versions.put(event.id(), event.version());
+
+        if (event.operation() == ChangeOperation.DELETED) {
+            tasks.removeIf(t -> event.id().equals(t.getTask_id()));
+            return;
+        }
+
+        upsert(ApiService.getInstance().fromEventData(event.data(), Task.class));
+    }
+
+    /**
+     * Replaces the task with the same ID in the master list, or adds it if not present.
+     * The change event of a task created here may arrive before the HTTP response does.
+     */
+    private void upsert(Task task) {
+        for (int i = 0; i < tasks.size(); i++) {
+            if (task.getTask_id().equals(tasks.get(i).getTask_id())) {
+                tasks.set(i, task);
+                return;
+            }
+        }
+        tasks.add(task);
+    }
+
+    /**
+     * Replaces one slice of the master list with freshly downloaded tasks.
+     * <p>
+     * Tasks matching {@code slice} are removed first, then the fresh tasks are added,
+     * skipping any task already present from another slice.
+     *
+     * @param slice     Predicate selecting the tasks the download replaces.
+     * @param freshTasks The tasks returned by the server for that slice.
+     */
+    private void replaceSlice(Predicate<Task> slice, List<Task> freshTasks) {
+        tasks.removeIf(slice);
+        Set<Long> present = new HashSet<>();
+        tasks.forEach(t -> present.add(t.getTask_id()));
+        freshTasks.stream()
+                .filter(t -> present.add(t.getTask_id()))
+                .forEach(tasks::add);
+    }
+
+    private boolean isDueTodayOrLater(Task task) {
+        return task.getDeadline() != null && !task.getDeadline().toLocalDate().isBefore(LocalDate.now());
+    }
+
     public void clear() {
         tasks.clear();
+        versions.clear();
     }
 }
\ No newline at end of file
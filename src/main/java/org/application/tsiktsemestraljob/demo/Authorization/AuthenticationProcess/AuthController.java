@@ -2,21 +2,26 @@ package org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProce
 
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.servlet.http.HttpServletRequest;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import jakarta.servlet.http.HttpSession;
 import org.application.tsiktsemestraljob.demo.DTO.Authentication.LoginDTO;
+import org.application.tsiktsemestraljob.demo.DTO.Authentication.RefreshTokenDTO;
 import org.application.tsiktsemestraljob.demo.DTO.Authentication.RegisterDTO;
+import org.application.tsiktsemestraljob.demo.DTO.Authentication.TokenResponseDTO;
 import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserMapper;
 import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.AuthMode;
 import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
 import org.application.tsiktsemestraljob.demo.Service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.security.web.context.SecurityContextRepository;
@@ -24,20 +29,36 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/auth")
-@RequiredArgsConstructor
 public class AuthController {
 
     private final AuthenticationManager authManager;
     private final UserService userService;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
+    private final AuthMode authMode;
 
     private final SecurityContextRepository securityContextRepository =
             new HttpSessionSecurityContextRepository();
 
+    public AuthController(AuthenticationManager authManager,
+                          UserService userService,
+                          UserRepository userRepository,
+                          PasswordEncoder passwordEncoder,
+                          TokenService tokenService,
+                          @Value("${app.auth.mode:SESSION}") AuthMode authMode) {
+        this.authManager = authManager;
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.tokenService = tokenService;
+        this.authMode = authMode;
+    }
+
     @Operation(
             summary = "Register endpoint",
             description = "This endpoint implement register auth function"
@@ -51,15 +72,12 @@ public class AuthController {
         user.setPasswordHash(passwordEncoder.encode(dto.password()));
         userRepository.save(user);
 
-        UserDetails userDetails = org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail())
-                .password(user.getPasswordHash())
-                .roles("USER")
-                .build();
+        CustomUserDetails userDetails = new CustomUserDetails(user);
+        userDetails.eraseCredentials();
 
         Authentication auth = new UsernamePasswordAuthenticationToken(
                 userDetails,
-                userDetails.getPassword(),
+                null,
                 userDetails.getAuthorities()
         );
 
@@ -67,7 +85,9 @@ public class AuthController {
         context.setAuthentication(auth);
         SecurityContextHolder.setContext(context);
 
-        securityContextRepository.saveContext(context, request, response);
+        if (authMode == AuthMode.SESSION) {
+            securityContextRepository.saveContext(context, request, response);
+        }
 
         return UserMapper.toDTO(user);
     }
@@ -87,12 +107,46 @@ public class AuthController {
         context.setAuthentication(auth);
         SecurityContextHolder.setContext(context);
 
-        securityContextRepository.saveContext(context, request, response);
+        if (authMode == AuthMode.SESSION) {
+            securityContextRepository.saveContext(context, request, response);
+        }
 
         CustomUserDetails cud = (CustomUserDetails) auth.getPrincipal();
-        User user = cud.getUser();
 
-        return UserMapper.toDTO(user);
+        return new UserResponseDTO(cud.getId(), cud.getName(), cud.getEmail());
+    }
+
+    @Operation(
+            summary = "Token login",
+            description = "Exchanges email and password for an access and a refresh token, only with app.auth.mode=TOKEN"
+    )
+    @PostMapping("/token")
+    public TokenResponseDTO token(@RequestBody LoginDTO dto) {
+        requireTokenMode();
+        Authentication auth = authManager.authenticate(
+                new UsernamePasswordAuthenticationToken(dto.email(), dto.password())
+        );
+        CustomUserDetails cud = (CustomUserDetails) auth.getPrincipal();
+        User user = userRepository.findById(cud.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+        return tokenService.issue(user);
+    }
+
+    @Operation(
+            summary = "Refresh tokens",
+            description = "Exchanges a refresh token for a new access and refresh token, only with app.auth.mode=TOKEN"
+    )
+    @PostMapping("/refresh")
+    public TokenResponseDTO refresh(@RequestBody RefreshTokenDTO dto) {
+        requireTokenMode();
+        if (dto.refreshToken() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "refreshToken is required");
+        }
+        try {
+            return tokenService.refresh(dto.refreshToken());
+        } catch (JwtException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage());
+        }
     }
 
     @Operation(
@@ -101,7 +155,16 @@ public class AuthController {
     )
     @PostMapping("/logout")
     public String logout(HttpServletRequest req) {
-        req.getSession().invalidate();
+        HttpSession session = req.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
         return "Logged out";
     }
+
+    private void requireTokenMode() {
+        if (authMode != AuthMode.TOKEN) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+    }
 }
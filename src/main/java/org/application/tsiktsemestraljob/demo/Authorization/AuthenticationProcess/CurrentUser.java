@@ -1,16 +1,27 @@
 package org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess;
 
-import jakarta.persistence.EntityNotFoundException;
 import org.application.tsiktsemestraljob.demo.Entities.User;
 import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.server.ResponseStatusException;
 
+/*
+ * Resolves the authenticated caller. The User entity is looked up at most once per request and kept
+ * in the request attributes, so services may call getCurrentUser() as often as they need.
+ * When the principal is a CustomUserDetails the lookup goes by primary key, and id() needs no query at all.
+ * A principal whose user was deleted, from another session or a token that has not expired yet, is answered with 401.
+ */
 @Component
 public class CurrentUser {
 
+    private static final String REQUEST_ATTRIBUTE = CurrentUser.class.getName() + ".USER:";
+
     private final UserRepository userRepository;
 
     @Autowired
@@ -25,14 +36,54 @@ public class CurrentUser {
             return null;
         }
 
-        String username = auth.getName();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        String key = REQUEST_ATTRIBUTE + auth.getName();
 
-        return userRepository.findByEmail(username)
-                .orElseThrow(() -> new EntityNotFoundException("User not found: " + username));
-    }
+        if (attributes != null && attributes.getAttribute(key, RequestAttributes.SCOPE_REQUEST) instanceof User cached) {
+            return cached;
+        }
+
+        User user = load(auth);
 
+        if (attributes != null) {
+            attributes.setAttribute(key, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
 
     public Long id() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof CustomUserDetails details) {
+            return details.getId();
+        }
         return getCurrentUser().getId();
     }
+
+    /*
+     * Drops the user cached for the current request, must be called after the caller's row is updated or deleted.
+     */
+    public void invalidate() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if (auth != null && attributes != null) {
+            attributes.removeAttribute(REQUEST_ATTRIBUTE + auth.getName(), RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private User load(Authentication auth) {
+        if (auth.getPrincipal() instanceof CustomUserDetails details) {
+            return userRepository.findById(details.getId())
+                    .orElseThrow(() -> gone(details.getUsername()));
+        }
+
+        String username = auth.getName();
+
+        return userRepository.findByEmail(username)
+                .orElseThrow(() -> gone(username));
+    }
+
+    private static ResponseStatusException gone(String username) {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User no longer exists: " + username);
+    }
 }
@@ -1,22 +1,52 @@
 package org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess;
 
 import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.List;
 
-public class CustomUserDetails implements UserDetails {
+/*
+ * Slim principal stored in the security context (and therefore in the session).
+ * It keeps only the columns needed to identify the caller instead of the whole User entity,
+ * the password hash is erased once authentication succeeds.
+ * With app.session.store=JDBC it is serialized into http_sessions, the fixed serialVersionUID keeps those rows
+ * readable across releases as long as the fields stay the same.
+ */
+public class CustomUserDetails implements UserDetails, CredentialsContainer {
+    private static final long serialVersionUID = 1L;
 
-    private final User user;
+    private final Long id;
+    private final String name;
+    private final String email;
+    private String password;
 
     public CustomUserDetails(User user) {
-        this.user = user;
+        this.id = user.getId();
+        this.name = user.getName();
+        this.email = user.getEmail();
+        this.password = user.getPasswordHash();
     }
 
-    public User getUser() {
-        return user;
+    /* rebuilt from the claims of an access token, there are no credentials to keep */
+    public CustomUserDetails(Long id, String name, String email) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
     }
 
     @Override
@@ -26,12 +56,17 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public String getPassword() {
-        return user.getPasswordHash();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
     }
 
     @Override
@@ -45,4 +80,4 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() { return true; }
-}
\ No newline at end of file
+}
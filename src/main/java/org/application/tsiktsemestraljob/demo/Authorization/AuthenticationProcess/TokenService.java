@@ -0,0 +1,145 @@
+package org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.application.tsiktsemestraljob.demo.DTO.Authentication.TokenResponseDTO;
+import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserResponseDTO;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Events.MembershipChangedEvent;
+import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.application.tsiktsemestraljob.demo.Service.MembershipRoleCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+
+/*
+ * Signed tokens for app.auth.mode=TOKEN. Both kinds are HS256 JWTs signed with a key held by the nodes themselves:
+ * the access token names the user and carries their membership version, so a request is authenticated without a
+ * session or a user lookup; the refresh token only names the user and is exchanged for a new pair after the user
+ * is loaded again, which is where a deleted account or a changed name or membership version is noticed.
+ * Without a configured secret a random key is made at startup, tokens then die with the node and work on it alone.
+ * Refresh tokens are not stored, a stolen one stays valid until refresh-ttl-ms has passed.
+ */
+@Slf4j
+@Component
+public class TokenService {
+    public static final String TOKEN_TYPE = "Bearer";
+    private static final String ISSUER = "tsiktsemestraljob";
+    private static final String TYPE_CLAIM = "typ";
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
+    private static final String MEMBERSHIP_VERSION_CLAIM = "mv";
+
+    private final UserRepository userRepository;
+    private final MembershipRoleCache membershipRoleCache;
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final long accessTtlMs;
+    private final long refreshTtlMs;
+
+    public TokenService(UserRepository userRepository,
+                        MembershipRoleCache membershipRoleCache,
+                        @Value("${app.auth.token.secret:}") String secret,
+                        @Value("${app.auth.token.access-ttl-ms:900000}") long accessTtlMs,
+                        @Value("${app.auth.token.refresh-ttl-ms:1209600000}") long refreshTtlMs) {
+        this.userRepository = userRepository;
+        this.membershipRoleCache = membershipRoleCache;
+        this.accessTtlMs = accessTtlMs;
+        this.refreshTtlMs = refreshTtlMs;
+
+        if (secret.isBlank()) {
+            log.warn("app.auth.token.secret is not set, tokens are signed with a random key of this node");
+            this.key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        } else {
+            /* hmacShaKeyFor refuses keys shorter than the 256 bits HS256 needs */
+            this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        }
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .requireIssuer(ISSUER)
+                .build();
+    }
+
+    public TokenResponseDTO issue(User user) {
+        long now = System.currentTimeMillis();
+        String accessToken = Jwts.builder()
+                .setIssuer(ISSUER)
+                .setSubject(user.getId().toString())
+                .claim(TYPE_CLAIM, ACCESS)
+                .claim("name", user.getName())
+                .claim("email", user.getEmail())
+                .claim(MEMBERSHIP_VERSION_CLAIM, user.getMembershipVersion())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + accessTtlMs))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+        String refreshToken = Jwts.builder()
+                .setIssuer(ISSUER)
+                .setSubject(user.getId().toString())
+                .claim(TYPE_CLAIM, REFRESH)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + refreshTtlMs))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+        return new TokenResponseDTO(new UserResponseDTO(user.getId(), user.getName(), user.getEmail()),
+                accessToken, TOKEN_TYPE, accessTtlMs / 1000, refreshToken);
+    }
+
+    /*
+     * Verifies an access token and rebuilds the caller from its claims, throws JwtException when it is
+     * forged, expired or not an access token.
+     */
+    public UsernamePasswordAuthenticationToken authenticate(String accessToken) {
+        Claims claims = parse(accessToken, ACCESS);
+        Long userId = Long.valueOf(claims.getSubject());
+        membershipRoleCache.observeVersion(userId, claims.get(MEMBERSHIP_VERSION_CLAIM, Long.class));
+
+        CustomUserDetails details = new CustomUserDetails(userId, claims.get("name", String.class),
+                claims.get("email", String.class));
+        return UsernamePasswordAuthenticationToken.authenticated(details, null, details.getAuthorities());
+    }
+
+    @Transactional(readOnly = true)
+    public TokenResponseDTO refresh(String refreshToken) {
+        Long userId = Long.valueOf(parse(refreshToken, REFRESH).getSubject());
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new JwtException("User of the refresh token no longer exists"));
+        return issue(user);
+    }
+
+    /*
+     * Runs once the membership change has committed, in a transaction of its own. Inside the joining transaction the
+     * update would lock the users row while concurrent joins of the same user hold shared locks on it for their
+     * foreign key check and wait for our membership row, a deadlock. Tokens issued in between still carry the old
+     * version, which only delays the eviction of cached roles on other nodes until the next refresh.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        userRepository.bumpMembershipVersion(event.userId());
+    }
+
+    private Claims parse(String token, String type) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            if (!type.equals(claims.get(TYPE_CLAIM, String.class))) {
+                throw new JwtException("Expected a token of type " + type);
+            }
+            return claims;
+        } catch (IllegalArgumentException e) {
+            throw new JwtException("Malformed token", e);
+        }
+    }
+}
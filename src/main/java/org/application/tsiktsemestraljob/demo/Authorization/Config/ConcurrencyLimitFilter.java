@@ -0,0 +1,48 @@
+package org.application.tsiktsemestraljob.demo.Authorization.Config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.application.tsiktsemestraljob.demo.Service.ConcurrencyLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/*
+ * Sheds load with ConcurrencyLimiter before any work is done for the request, session and token lookups included.
+ * A request its pool has no room for is answered with 503 and Retry-After at once; an admitted one holds its permit
+ * until the rest of the chain has produced the response, and that time is what the limit adapts to.
+ * Not a bean, SecurityConfig puts it first into the chain.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ConcurrencyLimiter.Pool pool = concurrencyLimiter.route(request.getMethod(), request.getRequestURI());
+        if (pool == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ConcurrencyLimiter.Permit permit = pool.tryAcquire();
+        if (permit == null) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(concurrencyLimiter.getRetryAfterSeconds()));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server is busy, please retry shortly");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permit.release();
+        }
+    }
+}
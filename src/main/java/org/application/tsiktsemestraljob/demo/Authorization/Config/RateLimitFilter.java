@@ -0,0 +1,65 @@
+package org.application.tsiktsemestraljob.demo.Authorization.Config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.Service.RateLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Applies RateLimiter to every request once the caller is known: signed-in users by id, everybody else by address.
+ * Limited routes get the X-RateLimit-* headers, a throttled request is answered with 429 and Retry-After without
+ * reaching the controller. Not a bean, SecurityConfig puts it into the chain after authentication.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(caller(request), request.getRequestURI());
+        if (decision == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader("X-RateLimit-Limit", String.valueOf(decision.rule().burst()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(seconds(decision.resetNanos())));
+        if (!decision.allowed()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, seconds(decision.retryAfterNanos()))));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, please slow down");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static String caller(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return "ip:" + request.getRemoteAddr();
+        }
+        if (auth.getPrincipal() instanceof CustomUserDetails details) {
+            return "user:" + details.getId();
+        }
+        return "user:" + auth.getName();
+    }
+
+    private static long seconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
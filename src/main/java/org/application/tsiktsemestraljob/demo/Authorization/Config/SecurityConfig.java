@@ -1,23 +1,50 @@
 package org.application.tsiktsemestraljob.demo.Authorization.Config;
 
-import lombok.RequiredArgsConstructor;
-import org.application.tsiktsemestraljob.demo.Service.UserService;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.TokenAuthenticationFilter;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.TokenService;
+import org.application.tsiktsemestraljob.demo.Enums.AuthMode;
+import org.application.tsiktsemestraljob.demo.Service.ConcurrencyLimiter;
+import org.application.tsiktsemestraljob.demo.Service.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.session.DisableEncodeUrlFilter;
 
+/*
+ * SESSION keeps the SecurityContext in the HTTP session (see SessionConfig for where that lives).
+ * TOKEN is stateless: no session is created or read, every request brings an access token from /auth/token
+ * or /auth/refresh, and an unauthenticated request gets 401 rather than 403 so the client knows to refresh.
+ * In both modes RateLimitFilter runs right before the authorization checks, when the caller is known.
+ * ConcurrencyLimitFilter comes first of all, so a shed request costs no session or token lookup.
+ */
 @Configuration
 @EnableWebSecurity
-@RequiredArgsConstructor
 public class SecurityConfig {
+    private final AuthMode authMode;
+    private final TokenService tokenService;
+    private final RateLimiter rateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    public SecurityConfig(@Value("${app.auth.mode:SESSION}") AuthMode authMode,
+                          TokenService tokenService,
+                          RateLimiter rateLimiter,
+                          ConcurrencyLimiter concurrencyLimiter) {
+        this.authMode = authMode;
+        this.tokenService = tokenService;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
 
@@ -46,7 +73,9 @@ public class SecurityConfig {
                 .formLogin(form -> form.disable())
                 .httpBasic(basic -> basic.disable())
                 .sessionManagement(session ->
-                        session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
+                        session.sessionCreationPolicy(authMode == AuthMode.TOKEN
+                                ? SessionCreationPolicy.STATELESS
+                                : SessionCreationPolicy.IF_REQUIRED)
                 )
 
                 
@@ -55,6 +84,19 @@ public class SecurityConfig {
                         .contentTypeOptions(ctype -> ctype.disable()) 
                 );
 
+        if (authMode == AuthMode.TOKEN) {
+            http
+                    .addFilterBefore(new TokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class)
+                    .exceptionHandling(exceptions -> exceptions
+                            .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+        }
+        if (concurrencyLimiter.isEnabled()) {
+            http.addFilterBefore(new ConcurrencyLimitFilter(concurrencyLimiter), DisableEncodeUrlFilter.class);
+        }
+        if (rateLimiter.isEnabled()) {
+            http.addFilterBefore(new RateLimitFilter(rateLimiter), AuthorizationFilter.class);
+        }
+
         return http.build();
     }
 
@@ -62,9 +104,4 @@ public class SecurityConfig {
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
     }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
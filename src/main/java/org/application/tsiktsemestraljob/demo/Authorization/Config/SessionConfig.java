@@ -0,0 +1,43 @@
+package org.application.tsiktsemestraljob.demo.Authorization.Config;
+
+import org.application.tsiktsemestraljob.demo.Enums.SessionStore;
+import org.application.tsiktsemestraljob.demo.Service.JdbcSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.web.http.CookieHttpSessionIdResolver;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+
+/*
+ * MEMORY leaves sessions to the servlet container, a redeploy signs everybody out and every node knows only its own.
+ * JDBC puts SessionRepositoryFilter in front of the security filters, so request.getSession() and therefore
+ * HttpSessionSecurityContextRepository read and write http_sessions through JdbcSessionRepository.
+ * The cookie stays JSESSIONID with the plain id, clients do not notice which store is used.
+ * A session shared by several nodes does not share their MembershipRoleCache, a membership changed on one node reaches
+ * the others when their entry expires after app.membership-cache.ttl-ms.
+ */
+@Configuration
+public class SessionConfig {
+
+    @Bean
+    public FilterRegistrationBean<SessionRepositoryFilter<?>> sessionRepositoryFilter(
+            JdbcSessionRepository sessionRepository,
+            @Value("${app.session.store:MEMORY}") SessionStore store) {
+        DefaultCookieSerializer cookieSerializer = new DefaultCookieSerializer();
+        cookieSerializer.setCookieName("JSESSIONID");
+        cookieSerializer.setUseBase64Encoding(false);
+        CookieHttpSessionIdResolver sessionIdResolver = new CookieHttpSessionIdResolver();
+        sessionIdResolver.setCookieSerializer(cookieSerializer);
+
+        /* created here rather than as a bean, Boot would otherwise register it as a filter regardless of the store */
+        SessionRepositoryFilter<?> filter = new SessionRepositoryFilter<>(sessionRepository);
+        filter.setHttpSessionIdResolver(sessionIdResolver);
+
+        FilterRegistrationBean<SessionRepositoryFilter<?>> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(SessionRepositoryFilter.DEFAULT_ORDER);
+        registration.setEnabled(store == SessionStore.JDBC);
+        return registration;
+    }
+}
@@ -0,0 +1,85 @@
+package org.application.tsiktsemestraljob.demo.Authorization.Config;
+
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.Service.MembershipRoleCache;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/*
+ * The broker destinations carry full DTOs, member e-mails included, so a SUBSCRIBE is checked before the broker sees it.
+ * /topic/group/{id} and everything below it, presence included, is open to members of the group only;
+ * /queue/user/{id} only to user id. Any other /topic or /queue destination is refused, nothing is published there.
+ * The exception turns into a STOMP ERROR frame and the session is closed, the same as an invalid frame.
+ * Membership comes from MembershipRoleCache, as for the REST endpoints of the group.
+ */
+@Component
+public class SubscriptionInterceptor implements ChannelInterceptor {
+    private static final String GROUP_TOPIC = "/topic/group/";
+    private static final String USER_QUEUE = "/queue/user/";
+
+    private final MembershipRoleCache membershipRoleCache;
+
+    public SubscriptionInterceptor(MembershipRoleCache membershipRoleCache) {
+        this.membershipRoleCache = membershipRoleCache;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.SUBSCRIBE) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        Long userId = userId(SimpMessageHeaderAccessor.getUser(message.getHeaders()));
+        if (userId == null) {
+            throw new AccessDeniedException("Sign in before subscribing to " + destination);
+        }
+        if (!isAllowed(userId, destination)) {
+            throw new AccessDeniedException("Not allowed to subscribe to " + destination);
+        }
+        return message;
+    }
+
+    public boolean isAllowed(Long userId, String destination) {
+        if (destination == null) {
+            return false;
+        }
+        if (destination.startsWith(GROUP_TOPIC)) {
+            Long groupId = id(destination, GROUP_TOPIC.length(), true);
+            return groupId != null && membershipRoleCache.getRole(userId, groupId).isPresent();
+        }
+        if (destination.startsWith(USER_QUEUE)) {
+            return userId.equals(id(destination, USER_QUEUE.length(), false));
+        }
+        return false;
+    }
+
+    /* the id segment after the prefix; group topics may go on with "/..." below it, user queues may not */
+    private static Long id(String destination, int start, boolean nested) {
+        int end = destination.indexOf('/', start);
+        if (end < 0) {
+            end = destination.length();
+        } else if (!nested) {
+            return null;
+        }
+        String id = destination.substring(start, end);
+        if (id.isEmpty() || id.length() > 18 || !id.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return Long.parseLong(id);
+    }
+
+    private static Long userId(Principal user) {
+        if (user instanceof Authentication auth && auth.getPrincipal() instanceof CustomUserDetails details) {
+            return details.getId();
+        }
+        return null;
+    }
+}
@@ -1,14 +1,88 @@
 package org.application.tsiktsemestraljob.demo.Authorization.Config;
 
+import org.application.tsiktsemestraljob.demo.Enums.WebSocketBrokerMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/*
+ * SIMPLE keeps subscriptions in the in-memory broker of this JVM, which is enough for a single node.
+ * RELAY forwards /topic and /queue to an external STOMP broker (ActiveMQ Artemis, RabbitMQ with the STOMP plugin),
+ * so a change published on one node reaches clients connected to any other node behind the load balancer.
+ * Both channels run on bounded executors. A session whose send takes longer than send-time-limit-ms or whose
+ * unsent frames exceed send-buffer-size-limit-bytes is closed, so one member on bad Wi-Fi cannot hold a thread
+ * or buffer frames without limit; the client reconnects and reloads. Heartbeats detect dead connections.
+ * /ws itself is open, SubscriptionInterceptor decides per SUBSCRIBE which destinations a user may listen to.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private static final String[] BROKER_PREFIXES = {"/topic", "/queue"};
+
+    private final WebSocketBrokerMode brokerMode;
+    private final String relayHost;
+    private final int relayPort;
+    private final String clientLogin;
+    private final String clientPasscode;
+    private final String systemLogin;
+    private final String systemPasscode;
+    private final String virtualHost;
+    private final long heartbeatMs;
+    private final TaskScheduler heartbeatScheduler;
+    private final int sendTimeLimitMs;
+    private final int sendBufferSizeLimitBytes;
+    private final int messageSizeLimitBytes;
+    private final int inboundPoolSize;
+    private final int inboundQueueCapacity;
+    private final int outboundPoolSize;
+    private final int outboundQueueCapacity;
+    private final SubscriptionInterceptor subscriptionInterceptor;
+
+    public WebSocketConfig(@Value("${app.websocket.broker:SIMPLE}") WebSocketBrokerMode brokerMode,
+                           @Value("${app.websocket.relay.host:localhost}") String relayHost,
+                           @Value("${app.websocket.relay.port:61613}") int relayPort,
+                           @Value("${app.websocket.relay.client-login:guest}") String clientLogin,
+                           @Value("${app.websocket.relay.client-passcode:guest}") String clientPasscode,
+                           @Value("${app.websocket.relay.system-login:guest}") String systemLogin,
+                           @Value("${app.websocket.relay.system-passcode:guest}") String systemPasscode,
+                           @Value("${app.websocket.relay.virtual-host:}") String virtualHost,
+                           @Value("${app.websocket.heartbeat-ms:10000}") long heartbeatMs,
+                           @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler heartbeatScheduler,
+                           @Value("${app.websocket.send-time-limit-ms:10000}") int sendTimeLimitMs,
+                           @Value("${app.websocket.send-buffer-size-limit-bytes:524288}") int sendBufferSizeLimitBytes,
+                           @Value("${app.websocket.message-size-limit-bytes:65536}") int messageSizeLimitBytes,
+                           @Value("${app.websocket.inbound.pool-size:8}") int inboundPoolSize,
+                           @Value("${app.websocket.inbound.queue-capacity:1000}") int inboundQueueCapacity,
+                           @Value("${app.websocket.outbound.pool-size:8}") int outboundPoolSize,
+                           @Value("${app.websocket.outbound.queue-capacity:10000}") int outboundQueueCapacity,
+                           SubscriptionInterceptor subscriptionInterceptor) {
+        this.brokerMode = brokerMode;
+        this.relayHost = relayHost;
+        this.relayPort = relayPort;
+        this.clientLogin = clientLogin;
+        this.clientPasscode = clientPasscode;
+        this.systemLogin = systemLogin;
+        this.systemPasscode = systemPasscode;
+        this.virtualHost = virtualHost;
+        this.heartbeatMs = heartbeatMs;
+        this.heartbeatScheduler = heartbeatScheduler;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendBufferSizeLimitBytes = sendBufferSizeLimitBytes;
+        this.messageSizeLimitBytes = messageSizeLimitBytes;
+        this.inboundPoolSize = inboundPoolSize;
+        this.inboundQueueCapacity = inboundQueueCapacity;
+        this.outboundPoolSize = outboundPoolSize;
+        this.outboundQueueCapacity = outboundQueueCapacity;
+        this.subscriptionInterceptor = subscriptionInterceptor;
+    }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -19,7 +93,45 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic", "/queue");
+        switch (brokerMode) {
+            case SIMPLE -> registry.enableSimpleBroker(BROKER_PREFIXES)
+                    .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(heartbeatScheduler);
+            case RELAY -> registry.enableStompBrokerRelay(BROKER_PREFIXES)
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(clientLogin)
+                    .setClientPasscode(clientPasscode)
+                    .setSystemLogin(systemLogin)
+                    .setSystemPasscode(systemPasscode)
+                    .setVirtualHost(virtualHost.isBlank() ? null : virtualHost)
+                    .setSystemHeartbeatSendInterval(heartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(heartbeatMs);
+        }
         registry.setApplicationDestinationPrefixes("/app");
     }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimitBytes)
+                .setMessageSizeLimit(messageSizeLimitBytes);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(subscriptionInterceptor);
+        registration.taskExecutor()
+                .corePoolSize(inboundPoolSize)
+                .maxPoolSize(inboundPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
 }
@@ -0,0 +1,62 @@
+package org.application.tsiktsemestraljob.demo.Controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO.ActivityLogResponseDTO;
+import org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO.ActivityRollupDTO;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
+import org.application.tsiktsemestraljob.demo.Enums.RollupGranularity;
+import org.application.tsiktsemestraljob.demo.Service.ActivityLogsService;
+import org.application.tsiktsemestraljob.demo.Service.ActivityRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/activity")
+@RequiredArgsConstructor
+public class ActivityLogsController {
+    private final ActivityLogsService activityLogsService;
+    private final ActivityRollupService activityRollupService;
+
+    @Operation(
+            summary = "Get activity of a group",
+            description = "This endpoint returns what happened in a group, newest first, page by page using an optional" +
+                    " cursor and limit. Only members of the group can read it, the action parameter filters by action type"
+    )
+    @GetMapping("/group/{groupId}")
+    public CursorPageDTO<ActivityLogResponseDTO> getGroupFeed(@PathVariable Long groupId,
+                                                              @RequestParam(required = false) List<String> action,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit) {
+        return activityLogsService.getGroupFeed(groupId, action, cursor, limit);
+    }
+
+    @Operation(
+            summary = "Get my activity",
+            description = "This endpoint returns the activity of the current user, newest first, page by page using an" +
+                    " optional cursor and limit, the action parameter filters by action type"
+    )
+    @GetMapping("/me")
+    public CursorPageDTO<ActivityLogResponseDTO> getMyFeed(@RequestParam(required = false) List<String> action,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer limit) {
+        return activityLogsService.getMyFeed(action, cursor, limit);
+    }
+
+    @Operation(
+            summary = "Get activity counts of a group",
+            description = "This endpoint returns how many times each action happened in a group per day or per week" +
+                    " between from and to (inclusive, ISO dates), read from precomputed rollups. Only members of the group can read it"
+    )
+    @GetMapping("/group/{groupId}/rollups")
+    public List<ActivityRollupDTO> getGroupRollups(@PathVariable Long groupId,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                   @RequestParam(required = false) List<String> action,
+                                                   @RequestParam(defaultValue = "DAY") RollupGranularity granularity) {
+        return activityRollupService.getRollups(groupId, from, to, action, granularity);
+    }
+}
@@ -0,0 +1,25 @@
+package org.application.tsiktsemestraljob.demo.Controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.application.tsiktsemestraljob.demo.DTO.PurgeDTO.PurgeJobDTO;
+import org.application.tsiktsemestraljob.demo.DTO.PurgeDTO.PurgeJobMapper;
+import org.application.tsiktsemestraljob.demo.Service.PurgeService;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/purge-jobs")
+@RequiredArgsConstructor
+public class PurgeJobController {
+    private final PurgeService purgeService;
+
+    @Operation(
+            summary = "Get purge job progress",
+            description = "This endpoint returns the status, current stage and number of deleted rows of a group or user" +
+                    " purge, only the user who started the purge can see it"
+    )
+    @GetMapping("/{id}")
+    public PurgeJobDTO getJob(@PathVariable Long id) {
+        return PurgeJobMapper.toDto(purgeService.getJob(id));
+    }
+}
@@ -2,6 +2,7 @@ package org.application.tsiktsemestraljob.demo.Controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
 import org.application.tsiktsemestraljob.demo.DTO.ResourcesDTO.ResourcesMapper;
 import org.application.tsiktsemestraljob.demo.DTO.ResourcesDTO.ResourcesRequestDTO;
 import org.application.tsiktsemestraljob.demo.DTO.ResourcesDTO.ResourcesResponseDTO;
@@ -31,14 +32,12 @@ public class ResourcesController {
 
     @Operation(
             summary = "Find all resources",
-            description = "This endpoint help user to find all resources created"
+            description = "This endpoint help user to find all resources created, page by page using an optional cursor and limit"
     )
    @GetMapping
-    public List<ResourcesResponseDTO> findAll() {
-       return resourcesService.findAll()
-               .stream()
-               .map(ResourcesMapper::toDto)
-               .toList();
+    public CursorPageDTO<ResourcesResponseDTO> findAll(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer limit) {
+       return resourcesService.getResourcesPage(cursor, limit);
    }
 
     @Operation(
@@ -2,13 +2,19 @@ package org.application.tsiktsemestraljob.demo.Controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.GroupEventReplayDTO;
 import org.application.tsiktsemestraljob.demo.DTO.MembershipDTO.GroupMemberDTO;
-import org.application.tsiktsemestraljob.demo.DTO.MembershipDTO.MembershipMapper;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
+import org.application.tsiktsemestraljob.demo.DTO.PresenceDTO.PresenceSnapshotDTO;
+import org.application.tsiktsemestraljob.demo.DTO.PurgeDTO.PurgeJobDTO;
+import org.application.tsiktsemestraljob.demo.DTO.PurgeDTO.PurgeJobMapper;
 import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsMapper;
 import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsRequestDTO;
 import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
+import org.application.tsiktsemestraljob.demo.Service.GroupEventLog;
 import org.application.tsiktsemestraljob.demo.Service.MembershipService;
+import org.application.tsiktsemestraljob.demo.Service.PresenceRegistry;
 import org.application.tsiktsemestraljob.demo.Service.StudyGroupsService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +27,8 @@ import java.util.List;
 public class StudyGroupsController {
     private final StudyGroupsService studyGroupsService;
     private final MembershipService membershipService;
+    private final GroupEventLog groupEventLog;
+    private final PresenceRegistry presenceRegistry;
 
     @Operation(
             summary = "Delete Member",
@@ -38,27 +46,48 @@ public class StudyGroupsController {
     @Operation(
             summary = "GetGroupMembers",
             description = "This endpoint implement an get all group members , he take group id like parameter" +
-                    "and return an membership service-layer method getGroupMembers"
+                    "and optional cursor and limit, and return a page of members from membership service-layer method getGroupMembers"
     )
     @GetMapping("/{groupId}/members")
-    public List<GroupMemberDTO> getGroupMembers(@PathVariable Long groupId) {
-        return membershipService.getGroupMembers(groupId)
-                .stream()
-                .map(MembershipMapper::toDTO)
-                .toList();
+    public CursorPageDTO<GroupMemberDTO> getGroupMembers(@PathVariable Long groupId,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit) {
+        return membershipService.getGroupMembers(groupId, cursor, limit);
+    }
+
+    @Operation(
+            summary = "Get missed group events",
+            description = "This endpoint returns the change events of the group topic published after the sequence number" +
+                    " given in after, oldest first, so a reconnecting client does not reload the group. Without after it only" +
+                    " returns the current sequence number. resyncRequired means the events are no longer kept and the group" +
+                    " has to be reloaded. Only members of the group can read it"
+    )
+    @GetMapping("/{groupId}/events")
+    public GroupEventReplayDTO getGroupEvents(@PathVariable Long groupId,
+                                              @RequestParam(required = false) Long after) {
+        return groupEventLog.getReplay(groupId, after);
+    }
+
+    @Operation(
+            summary = "Get online members",
+            description = "This endpoint returns the ids of the group members that are connected over WebSocket right now." +
+                    " Later changes are pushed as joined/left diffs to /topic/group/{groupId}/presence. Only members of" +
+                    " the group can read it"
+    )
+    @GetMapping("/{groupId}/presence")
+    public PresenceSnapshotDTO getGroupPresence(@PathVariable Long groupId) {
+        return presenceRegistry.getSnapshot(groupId);
     }
 
     @Operation(
             summary = "getAll endpoint",
-            description = "This endpoint implement an get all study groups logic, he take no parameters " +
-                    "and return service-layer method to give all study groups"
+            description = "This endpoint implement an get all study groups logic page by page, he take an optional cursor and limit " +
+                    "and return a page of study groups ordered by name with the cursor of the next page"
     )
     @GetMapping
-    public List<StudyGroupsResponseDTO> getAll() {
-        return studyGroupsService.getStudyGroups()
-                .stream()
-                .map(StudyGroupsMapper::toDto)
-                .toList();
+    public CursorPageDTO<StudyGroupsResponseDTO> getAll(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        return studyGroupsService.getStudyGroupsPage(cursor, limit);
     }
 
     @Operation(
@@ -96,12 +125,12 @@ public class StudyGroupsController {
 
     @Operation(
             summary = "Delete endpoint",
-            description = "This endpoint implement delete logic , he takes id as parameter and return an " +
-                    "service-layer method to delete group"
+            description = "This endpoint implement delete logic , he takes id as parameter and starts a background " +
+                    "purge of the group, it returns the purge job whose progress is available under /api/purge-jobs/{jobId}"
     )
     @DeleteMapping("/{id}")
-    public void delete(@PathVariable Long id) {
-        studyGroupsService.deleteGroup(id);
+    public ResponseEntity<PurgeJobDTO> delete(@PathVariable Long id) {
+        return ResponseEntity.accepted().body(PurgeJobMapper.toDto(studyGroupsService.deleteGroup(id)));
     }
 
     @Operation(
@@ -117,9 +146,6 @@ public class StudyGroupsController {
 
     @GetMapping("/my-groups")
     public List<StudyGroupsResponseDTO> getMyGroups() {
-        List<StudyGroups> groups = membershipService.getUserGroups();
-        return groups.stream()
-                .map(StudyGroupsMapper::toDto)
-                .toList();
+        return membershipService.getUserGroups();
     }
 }
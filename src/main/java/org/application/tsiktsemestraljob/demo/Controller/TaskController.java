@@ -2,9 +2,12 @@ package org.application.tsiktsemestraljob.demo.Controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
 import org.application.tsiktsemestraljob.demo.Entities.Task;
 import org.application.tsiktsemestraljob.demo.Service.TaskService;
 import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskMapper;
+import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskQueryDTO;
 import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskRequestDTO;
 import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskResponseDTO;
 import org.springframework.web.bind.annotation.*;
@@ -19,15 +22,26 @@ public class TaskController {
 
     @Operation(
             summary = "Get all tasks",
-            description = "This endpoint implement an get all tasks logic, he takes no parameters and return"
-            + "an service-layer method that get all tasks"
+            description = "This endpoint implement an get all tasks logic page by page, he takes an optional cursor and limit" +
+                    " and return a page of tasks ordered by id with the cursor of the next page"
     )
     @GetMapping
-    public List<TaskResponseDTO> getTasks() {
-        return taskService.getAllTasks()
-                .stream()
-                .map(TaskMapper::toDto)
-                .toList();
+    public CursorPageDTO<TaskResponseDTO> getTasks(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limit) {
+        return taskService.getTasksPage(cursor, limit);
+    }
+
+    @Operation(
+            summary = "Query tasks",
+            description = "This endpoint returns tasks of the caller's groups filtered by group ids, status and deadline," +
+                    " either an explicit from/to window or a today/upcoming bucket in the caller's time zone." +
+                    " Tasks are returned page by page ordered by deadline, with the cursor of the next page"
+    )
+    @GetMapping("/query")
+    public CursorPageDTO<TaskResponseDTO> queryTasks(@ParameterObject TaskQueryDTO query,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit) {
+        return taskService.queryTasks(query, cursor, limit);
     }
 
     @Operation(
@@ -52,6 +66,22 @@ public class TaskController {
         return TaskMapper.toDto(task);
     }
 
+    @Operation(
+            summary = "Create tasks in batch",
+            description = "This endpoint implement an import of many tasks at once, he takes an group id and a list of" +
+                    " request dto, creates all tasks in one transaction and returns them"
+    )
+    @PostMapping("/{groupId}/batch")
+    public List<TaskResponseDTO> createTasks(@PathVariable Long groupId, @RequestBody List<TaskRequestDTO> dtos) {
+        List<Task> tasks = dtos.stream()
+                .map(TaskMapper::toEntity)
+                .toList();
+        return taskService.createTasks(groupId, tasks)
+                .stream()
+                .map(TaskMapper::toDto)
+                .toList();
+    }
+
     @Operation(
             summary = "Update task",
             description = "This endpoint implement an update task logic, he takes id and request dto" +
@@ -1,16 +1,20 @@
 package org.application.tsiktsemestraljob.demo.Controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
+import org.application.tsiktsemestraljob.demo.DTO.PurgeDTO.PurgeJobDTO;
+import org.application.tsiktsemestraljob.demo.DTO.PurgeDTO.PurgeJobMapper;
 import org.application.tsiktsemestraljob.demo.Entities.User;
 import org.application.tsiktsemestraljob.demo.Service.UserService;
 import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserMapper;
 import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserRequestDTO;
 import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserResponseDTO;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
@@ -30,15 +34,13 @@ public class UserController {
 
     @Operation(
             summary = "Get all users",
-            description = "This endpoint implement an get all users logic, he takes no parameters and return" +
-                    "a service-layer method who get all users"
+            description = "This endpoint implement an get all users logic page by page, he takes an optional cursor and limit" +
+                    " and return a page of users ordered by name with the cursor of the next page"
     )
     @GetMapping
-    public List<UserResponseDTO> getUsers() {
-        return userService.findAll()
-                .stream()
-                .map(UserMapper::toDTO)
-                .toList();
+    public CursorPageDTO<UserResponseDTO> getUsers(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limit) {
+        return userService.getUsersPage(cursor, limit);
     }
 
 
@@ -55,12 +57,18 @@ public class UserController {
 
     @Operation(
             summary = "Delete user",
-            description = "This endpoint implement an delete user by id logic, he takes id as parameter and return" +
-                    "a service-layer method who delete user by id"
+            description = "This endpoint implement an delete user by id logic, he takes id as parameter and starts a" +
+                    " background purge of the user with all his data, it returns the purge job"
     )
     @DeleteMapping("/{id}")
-    public void deleteUser(@PathVariable Long id) {
-        userService.deleteUser(id);
+    public ResponseEntity<PurgeJobDTO> deleteUser(@PathVariable Long id, HttpServletRequest request) {
+        PurgeJobDTO job = PurgeJobMapper.toDto(userService.deleteUser(id));
+        /* the account is going away, the caller is signed out now rather than when the purge reaches the row */
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+        return ResponseEntity.accepted().body(job);
     }
 
 }
@@ -0,0 +1,12 @@
+package org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO;
+
+import java.time.LocalDateTime;
+
+public record ActivityLogResponseDTO(
+        Long id,
+        Long userId,
+        Long groupId,
+        String action,
+        String details,
+        LocalDateTime timestamp
+) {}
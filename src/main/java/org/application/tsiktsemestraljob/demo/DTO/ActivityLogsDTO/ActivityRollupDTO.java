@@ -0,0 +1,10 @@
+package org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO;
+
+import java.time.LocalDate;
+
+/* periodStart is the day itself, or the Monday of the week for weekly rollups */
+public record ActivityRollupDTO(
+        String action,
+        LocalDate periodStart,
+        long count
+) {}
@@ -0,0 +1,3 @@
+package org.application.tsiktsemestraljob.demo.DTO.Authentication;
+
+public record RefreshTokenDTO(String refreshToken) {}
@@ -0,0 +1,7 @@
+package org.application.tsiktsemestraljob.demo.DTO.Authentication;
+
+import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserResponseDTO;
+
+/* expiresIn is the lifetime of the access token in seconds */
+public record TokenResponseDTO(UserResponseDTO user, String accessToken, String tokenType, long expiresIn,
+                               String refreshToken) {}
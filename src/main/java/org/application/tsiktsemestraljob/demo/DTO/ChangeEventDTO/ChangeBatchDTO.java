@@ -0,0 +1,17 @@
+package org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/*
+ * Several change events for one destination sent as a single frame, in publishing order.
+ * With invalidate set the events were too many to send and are left out, clients reload the group instead.
+ * lastSeq is the seq of the last event on group topics and null on user queues.
+ */
+public record ChangeBatchDTO(
+        int schemaVersion,
+        boolean invalidate,
+        Long lastSeq,
+        List<JsonNode> events
+) {}
@@ -0,0 +1,24 @@
+package org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO;
+
+import org.application.tsiktsemestraljob.demo.Enums.ChangeEntityType;
+import org.application.tsiktsemestraljob.demo.Enums.ChangeOperation;
+
+/*
+ * Change notification sent over the group and user topics. data is the same DTO the REST api returns
+ * for the entity (null for deletes), so clients apply it in place instead of reloading the group.
+ * version is the row version, clients ignore events not newer than what they already hold.
+ * For members id is the user id. Delivery is at-least-once, eventId lets clients drop redelivered events.
+ * On group topics the dispatcher adds seq, the per-group sequence number clients use to ask for missed events.
+ */
+public record ChangeEventDTO(
+        String eventId,
+        int schemaVersion,
+        ChangeEntityType entityType,
+        ChangeOperation operation,
+        Long id,
+        Long groupId,
+        long version,
+        Object data
+) {
+    public static final int SCHEMA_VERSION = 1;
+}
@@ -0,0 +1,35 @@
+package org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO;
+
+import org.application.tsiktsemestraljob.demo.DTO.MembershipDTO.MembershipMapper;
+import org.application.tsiktsemestraljob.demo.DTO.ResourcesDTO.ResourcesMapper;
+import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskMapper;
+import org.application.tsiktsemestraljob.demo.Entities.Membership;
+import org.application.tsiktsemestraljob.demo.Entities.Resources;
+import org.application.tsiktsemestraljob.demo.Entities.Task;
+import org.application.tsiktsemestraljob.demo.Enums.ChangeEntityType;
+import org.application.tsiktsemestraljob.demo.Enums.ChangeOperation;
+
+import java.util.UUID;
+
+public class ChangeEventMapper {
+    public static ChangeEventDTO task(ChangeOperation operation, Task task) {
+        return of(ChangeEntityType.TASK, operation, task.getId(), task.getStudyGroup().getGroupId(), task.getVersion(),
+                operation == ChangeOperation.DELETED ? null : TaskMapper.toDto(task));
+    }
+
+    public static ChangeEventDTO resource(ChangeOperation operation, Resources resource) {
+        return of(ChangeEntityType.RESOURCE, operation, resource.getId(), resource.getStudyGroup().getGroupId(), resource.getVersion(),
+                operation == ChangeOperation.DELETED ? null : ResourcesMapper.toDto(resource));
+    }
+
+    public static ChangeEventDTO member(ChangeOperation operation, Membership membership) {
+        return of(ChangeEntityType.MEMBER, operation, membership.getUser().getId(), membership.getStudyGroup().getGroupId(), membership.getVersion(),
+                operation == ChangeOperation.DELETED ? null : MembershipMapper.toDTO(membership));
+    }
+
+    /* a delete does not bump the row version, it is sent as one past the last version so it wins over the last update */
+    private static ChangeEventDTO of(ChangeEntityType type, ChangeOperation operation, Long id, Long groupId, long version, Object data) {
+        long eventVersion = operation == ChangeOperation.DELETED ? version + 1 : version;
+        return new ChangeEventDTO(UUID.randomUUID().toString(), ChangeEventDTO.SCHEMA_VERSION, type, operation, id, groupId, eventVersion, data);
+    }
+}
@@ -0,0 +1,15 @@
+package org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/*
+ * Events of a group topic published after the sequence number a client saw last, oldest first.
+ * With resyncRequired set they are no longer all kept, the client reloads the group and continues from lastSeq.
+ */
+public record GroupEventReplayDTO(
+        boolean resyncRequired,
+        long lastSeq,
+        List<JsonNode> events
+) {}
@@ -0,0 +1,48 @@
+package org.application.tsiktsemestraljob.demo.DTO.PaginationDTO;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ * Position of the last row of a page: the value of the sort column plus the row id as a tie-breaker.
+ * Clients only see the opaque base64 form and send it back unchanged to fetch the next page.
+ * For pages ordered by id alone the key is null. A present key is written behind a 'v' marker, so an empty key and
+ * a null one (the NULL sort value) come back as they were, and a decoded cursor without an id means the first page.
+ */
+public record Cursor(String key, Long id) {
+    private static final char SEPARATOR = '\n';
+    private static final char PRESENT = 'v';
+
+    public static Cursor of(Long id) {
+        return new Cursor(null, id);
+    }
+
+    public static Cursor of(String key, Long id) {
+        return new Cursor(key, id);
+    }
+
+    public String encode() {
+        String raw = (key == null ? "" : PRESENT + key) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String encoded) {
+        if (encoded == null || encoded.isBlank()) {
+            return new Cursor(null, null);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            String key = raw.substring(0, separator);
+            if (!key.isEmpty() && key.charAt(0) != PRESENT) {
+                throw new IllegalArgumentException("Unmarked cursor key");
+            }
+            return new Cursor(key.isEmpty() ? null : key.substring(1), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
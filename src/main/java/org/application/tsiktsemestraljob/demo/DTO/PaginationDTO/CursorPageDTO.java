@@ -0,0 +1,33 @@
+package org.application.tsiktsemestraljob.demo.DTO.PaginationDTO;
+
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPageDTO<T>(List<T> items, String nextCursor) {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    public static int clamp(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /*
+     * Repositories are asked for one row more than the page size, the extra row only tells us a next page exists.
+     */
+    public static Limit probe(int limit) {
+        return Limit.of(limit + 1);
+    }
+
+    public static <T> CursorPageDTO<T> of(List<T> rows, int limit, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPageDTO<>(rows, null);
+        }
+        List<T> page = rows.subList(0, limit);
+        return new CursorPageDTO<>(List.copyOf(page), cursorOf.apply(page.get(limit - 1)).encode());
+    }
+}
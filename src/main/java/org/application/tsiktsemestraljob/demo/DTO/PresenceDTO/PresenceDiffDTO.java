@@ -0,0 +1,13 @@
+package org.application.tsiktsemestraljob.demo.DTO.PresenceDTO;
+
+import java.util.List;
+
+/*
+ * Members that came online or went offline since the last frame on /topic/group/{id}/presence.
+ * A user who came and went within one flush interval is in neither list.
+ */
+public record PresenceDiffDTO(
+        Long groupId,
+        List<Long> joined,
+        List<Long> left
+) {}
@@ -0,0 +1,11 @@
+package org.application.tsiktsemestraljob.demo.DTO.PresenceDTO;
+
+import java.util.List;
+
+/*
+ * Members of a group that have a WebSocket session subscribed to the group topic right now.
+ */
+public record PresenceSnapshotDTO(
+        Long groupId,
+        List<Long> online
+) {}
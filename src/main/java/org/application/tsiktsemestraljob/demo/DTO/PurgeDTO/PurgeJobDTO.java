@@ -0,0 +1,18 @@
+package org.application.tsiktsemestraljob.demo.DTO.PurgeDTO;
+
+import org.application.tsiktsemestraljob.demo.Enums.PurgeStatus;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeTarget;
+
+import java.time.LocalDateTime;
+
+public record PurgeJobDTO(
+        Long id,
+        PurgeTarget targetType,
+        Long targetId,
+        PurgeStatus status,
+        String stage,
+        long deletedRows,
+        String error,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {}
@@ -0,0 +1,18 @@
+package org.application.tsiktsemestraljob.demo.DTO.PurgeDTO;
+
+import org.application.tsiktsemestraljob.demo.Entities.PurgeJob;
+
+public class PurgeJobMapper {
+    public static PurgeJobDTO toDto(PurgeJob job) {
+        return new PurgeJobDTO(
+                job.getId(),
+                job.getTargetType(),
+                job.getTargetId(),
+                job.getStatus(),
+                job.getStage(),
+                job.getDeletedRows(),
+                job.getError(),
+                job.getCreatedAt(),
+                job.getUpdatedAt());
+    }
+}
@@ -0,0 +1,22 @@
+package org.application.tsiktsemestraljob.demo.DTO.TaskDTO;
+
+import org.application.tsiktsemestraljob.demo.Enums.TaskBucket;
+import org.application.tsiktsemestraljob.demo.Enums.TaskStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ * Query-string filter of GET /api/tasks/query, every field is optional.
+ * bucket is resolved against the calendar day in zone (an IANA id like "Europe/Bratislava"),
+ * from/to is an explicit [from, to) deadline window and cannot be combined with bucket.
+ */
+public record TaskQueryDTO(
+        List<Long> groupIds,
+        TaskBucket bucket,
+        String zone,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        TaskStatus status
+) {}
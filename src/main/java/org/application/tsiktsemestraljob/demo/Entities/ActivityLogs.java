@@ -4,34 +4,42 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.sql.Timestamp;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Getter
 @Setter
 @Entity(name = "activity_log")
+@Table(indexes = {
+        @Index(name = "idx_activity_log_user_feed", columnList = "user_id, timestamp, log_id, action"),
+        @Index(name = "idx_activity_log_group_feed", columnList = "group_id, timestamp, log_id, action")
+})
 public class ActivityLogs {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "log_id")
     private Long id;
 
+    /* partitioned tables cannot have foreign keys, rows of deleted users are removed by the PurgeService */
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id")
+    @JoinColumn(name = "user_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
 
+    /* no foreign key: entries about a group stay in their authors' feeds after the group is purged */
+    @Column(name = "group_id")
+    private Long groupId;
+
     @Column(nullable = false)
     private String action;
 
-    @Column
-    private LocalDate timestamp;
+    /* partition key of the monthly partitions, part of the primary key (log_id, timestamp) in the database */
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
 
     @Column
     private String details;
 
     @PrePersist
     protected void onCreate() {
-        timestamp = LocalDate.now();
+        timestamp = LocalDateTime.now();
     }
 }
@@ -0,0 +1,20 @@
+package org.application.tsiktsemestraljob.demo.Entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * Number of activity_log entries per group, day and action. Rows are only ever incremented by the
+ * ActivityLogWriter or recomputed by ActivityRollupService.rebuild, never written through JPA.
+ */
+@Getter
+@Setter
+@Entity(name = "activity_rollups")
+public class ActivityRollup {
+    @EmbeddedId
+    private ActivityRollupId id;
+
+    @Column(name = "event_count", nullable = false)
+    private long eventCount;
+}
@@ -0,0 +1,29 @@
+package org.application.tsiktsemestraljob.demo.Entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class ActivityRollupId implements Serializable {
+    @Column(name = "group_id", nullable = false)
+    private Long groupId;
+
+    @Column(name = "activity_day", nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private String action;
+}
@@ -0,0 +1,26 @@
+package org.application.tsiktsemestraljob.demo.Entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/*
+ * The last events published on a group topic, numbered per group, used to replay what a reconnecting client missed.
+ * Only used with app.group-events.store=JDBC, rows are written and pruned with plain JDBC by GroupEventLog.
+ */
+@Getter
+@Setter
+@Entity(name = "group_events")
+public class GroupEvent {
+    @EmbeddedId
+    private GroupEventId id;
+
+    /* the event as it was sent, including its seq */
+    @Column(nullable = false, length = 16777215)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity(name = "invitation_tokens")
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_invitation_tokens_token", columnNames = "token"))
 public class Invitations {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
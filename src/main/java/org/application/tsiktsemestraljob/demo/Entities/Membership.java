@@ -10,6 +10,10 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @Entity(name = "memberships")
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "uk_memberships_user_group", columnNames = {"user_id", "group_id"}),
+        indexes = @Index(name = "idx_memberships_group_user", columnList = "group_id, user_id")
+)
 public class Membership {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,4 +38,8 @@ public class Membership {
 
     @Column(name = "joined_at")
     private LocalDate joinedAt;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
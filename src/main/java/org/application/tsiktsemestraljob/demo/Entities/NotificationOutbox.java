@@ -0,0 +1,31 @@
+package org.application.tsiktsemestraljob.demo.Entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/* rows are written and consumed with plain JDBC by NotificationService and NotificationOutboxDispatcher */
+@Getter
+@Setter
+@Entity(name = "notification_outbox")
+public class NotificationOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id")
+    private Long id;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(name = "group_id")
+    private Long groupId;
+
+    /* the serialized ChangeEventDTO */
+    @Column(nullable = false, length = 16777215)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
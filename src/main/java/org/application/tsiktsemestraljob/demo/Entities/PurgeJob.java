@@ -0,0 +1,55 @@
+package org.application.tsiktsemestraljob.demo.Entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeStatus;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeTarget;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity(name = "purge_jobs")
+@Table(indexes = @Index(name = "idx_purge_jobs_status", columnList = "status"))
+public class PurgeJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "job_id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false)
+    private PurgeTarget targetType;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PurgeStatus status;
+
+    @Column
+    private String stage;
+
+    @Column(name = "deleted_rows", nullable = false)
+    private long deletedRows;
+
+    @Column(name = "requested_by")
+    private Long requestedBy;
+
+    @Column
+    private String error;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -40,4 +40,8 @@ public class Resources {
 
     @Column(name = "uploaded_at")
     private LocalDate uploadedAt;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
@@ -0,0 +1,42 @@
+package org.application.tsiktsemestraljob.demo.Entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * An HTTP session shared by all nodes, times are epoch milliseconds.
+ * Only used with app.session.store=JDBC, rows are read and written with plain JDBC by JdbcSessionRepository.
+ */
+@Getter
+@Setter
+@Entity(name = "http_sessions")
+@Table(indexes = {
+        @Index(name = "idx_http_sessions_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_http_sessions_principal_id", columnList = "principal_id")
+})
+public class SessionRecord {
+    @Id
+    @Column(name = "session_id", length = 36)
+    private String sessionId;
+
+    /* the user the session is logged in as, so deleting a user can end their sessions */
+    @Column(name = "principal_id")
+    private Long principalId;
+
+    /* the serialized session attributes, in practice the SecurityContext with its slim CustomUserDetails */
+    @Column(nullable = false, length = 16777215)
+    private byte[] attributes;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "last_accessed_at", nullable = false)
+    private long lastAccessedAt;
+
+    @Column(name = "max_inactive_seconds", nullable = false)
+    private int maxInactiveSeconds;
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+}
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "study_groups")
+@Table(name = "study_groups", indexes = @Index(name = "idx_study_groups_name_id", columnList = "name, group_id"))
 @Getter
 @Setter
 public class StudyGroups {
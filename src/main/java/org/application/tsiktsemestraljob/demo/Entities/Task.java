@@ -11,9 +11,15 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity(name = "tasks")
+@Table(indexes = {
+        @Index(name = "idx_tasks_group_deadline", columnList = "group_id, deadline"),
+        @Index(name = "idx_tasks_group_status", columnList = "group_id, status")
+})
 public class Task {
+    /* pooled ids instead of IDENTITY so inserts can be JDBC batched, MySQL backs the sequence with the tasks_seq table */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
     @Column(name = "task_id")
     private Long id;
 
@@ -21,7 +27,7 @@ public class Task {
     @JoinColumn(name = "group_id")
     private StudyGroups studyGroup;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by", referencedColumnName = "user_id")
     private User createdBy;
 
@@ -45,4 +51,8 @@ public class Task {
 
     @Column(name = "created_at")
     private LocalDate createdAt;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
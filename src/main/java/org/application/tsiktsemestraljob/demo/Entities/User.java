@@ -14,7 +14,7 @@ import java.util.List;
 
 @Getter
 @Setter
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_name_id", columnList = "name, user_id"))
 @Entity
 public class User {
     @Id
@@ -49,6 +49,10 @@ public class User {
     @Column(name = "updated_at")
     private LocalDate updatedAt;
 
+    /* bumped with a native update by UserRepository, never written from the entity */
+    @Column(name = "membership_version", nullable = false, insertable = false, updatable = false)
+    private long membershipVersion;
+
     @OneToMany(mappedBy = "createdBy", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<StudyGroups> studyGroups;
 
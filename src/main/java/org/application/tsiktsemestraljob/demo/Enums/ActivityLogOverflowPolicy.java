@@ -0,0 +1,7 @@
+package org.application.tsiktsemestraljob.demo.Enums;
+
+public enum ActivityLogOverflowPolicy {
+    BLOCK,
+    DROP,
+    SPILL,
+}
@@ -0,0 +1,8 @@
+package org.application.tsiktsemestraljob.demo.Enums;
+
+public enum PurgeStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+}
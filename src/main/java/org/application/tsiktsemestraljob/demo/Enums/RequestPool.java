@@ -0,0 +1,7 @@
+package org.application.tsiktsemestraljob.demo.Enums;
+
+public enum RequestPool {
+    READ,
+    WRITE,
+    AUTH,
+}
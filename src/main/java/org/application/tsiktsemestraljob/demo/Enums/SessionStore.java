@@ -0,0 +1,6 @@
+package org.application.tsiktsemestraljob.demo.Enums;
+
+public enum SessionStore {
+    MEMORY,
+    JDBC,
+}
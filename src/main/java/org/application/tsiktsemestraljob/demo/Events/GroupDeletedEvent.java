@@ -0,0 +1,3 @@
+package org.application.tsiktsemestraljob.demo.Events;
+
+public record GroupDeletedEvent(Long groupId) {}
@@ -1,9 +1,48 @@
 package org.application.tsiktsemestraljob.demo.Repository;
 
+import org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO.ActivityLogResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.ActivityLogs;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ActivityLogsRepository extends JpaRepository<ActivityLogs, Long> {
+    String SELECT_DTO = "select new org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO.ActivityLogResponseDTO(" +
+            "a.id, a.user.id, a.groupId, a.action, a.details, a.timestamp) " +
+            "from activity_log a ";
+
+    /*
+     * newest first; the feed indexes end in (timestamp, log_id, action) so the seek and the action filter stay in the index.
+     * The lower bound on timestamp lets MySQL prune the partitions older than the retention window.
+     */
+    String FEED_PAGE = "and a.timestamp >= :since " +
+            "and (:anyAction = true or a.action in :actions) " +
+            "and (:beforeTimestamp is null or a.timestamp < :beforeTimestamp " +
+            "or (a.timestamp = :beforeTimestamp and a.id < :beforeId)) " +
+            "order by a.timestamp desc, a.id desc";
+
+    @Query(SELECT_DTO + "where a.groupId = :groupId " + FEED_PAGE)
+    List<ActivityLogResponseDTO> findGroupFeed(@Param("groupId") Long groupId,
+                                               @Param("since") LocalDateTime since,
+                                               @Param("anyAction") boolean anyAction,
+                                               @Param("actions") Collection<String> actions,
+                                               @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                               @Param("beforeId") Long beforeId,
+                                               Limit limit);
+
+    @Query(SELECT_DTO + "where a.user.id = :userId " + FEED_PAGE)
+    List<ActivityLogResponseDTO> findUserFeed(@Param("userId") Long userId,
+                                              @Param("since") LocalDateTime since,
+                                              @Param("anyAction") boolean anyAction,
+                                              @Param("actions") Collection<String> actions,
+                                              @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+                                              @Param("beforeId") Long beforeId,
+                                              Limit limit);
 }
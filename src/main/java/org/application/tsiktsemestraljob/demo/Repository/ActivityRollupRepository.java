@@ -0,0 +1,30 @@
+package org.application.tsiktsemestraljob.demo.Repository;
+
+import org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO.ActivityRollupDTO;
+import org.application.tsiktsemestraljob.demo.Entities.ActivityRollup;
+import org.application.tsiktsemestraljob.demo.Entities.ActivityRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ActivityRollupRepository extends JpaRepository<ActivityRollup, ActivityRollupId> {
+
+    /* the primary key is (group_id, activity_day, action), so this is one range read */
+    @Query("select new org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO.ActivityRollupDTO(" +
+            "r.id.action, r.id.day, r.eventCount) " +
+            "from activity_rollups r " +
+            "where r.id.groupId = :groupId and r.id.day >= :from and r.id.day <= :to " +
+            "and (:anyAction = true or r.id.action in :actions) " +
+            "order by r.id.day, r.id.action")
+    List<ActivityRollupDTO> findDaily(@Param("groupId") Long groupId,
+                                      @Param("from") LocalDate from,
+                                      @Param("to") LocalDate to,
+                                      @Param("anyAction") boolean anyAction,
+                                      @Param("actions") Collection<String> actions);
+}
@@ -1,7 +1,13 @@
 package org.application.tsiktsemestraljob.demo.Repository;
 
+import org.application.tsiktsemestraljob.demo.DTO.MembershipDTO.GroupMemberDTO;
+import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.Membership;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,9 +19,33 @@ public interface MembershipsRepository extends JpaRepository<Membership, Long> {
 
     Optional<Membership> findByUserIdAndStudyGroupGroupId(Long userId, Long groupId);
 
+    /* a locking read sees the latest committed row, a plain one could miss a membership committed after our snapshot */
+    @Query(value = "select membership_role from memberships where user_id = :userId and group_id = :groupId for share",
+            nativeQuery = true)
+    Optional<String> findCommittedRole(@Param("userId") Long userId, @Param("groupId") Long groupId);
+
+    @Query("select m.membershipRole from memberships m where m.user.id = :userId and m.studyGroup.groupId = :groupId")
+    Optional<MembershipRole> findRoleByUserIdAndGroupId(@Param("userId") Long userId, @Param("groupId") Long groupId);
+
     List<Membership> findAllByUserId(Long userId);
 
     List<Membership> findAllByStudyGroupGroupId(Long groupId);
 
+    @Query("select new org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsResponseDTO(" +
+            "g.groupId, g.name, g.description, c.id, g.createdAt, c.name) " +
+            "from memberships m join m.studyGroup g left join g.createdBy c " +
+            "where m.user.id = :userId")
+    List<StudyGroupsResponseDTO> findGroupDtosByUserId(@Param("userId") Long userId);
+
+    @Query("select new org.application.tsiktsemestraljob.demo.DTO.MembershipDTO.GroupMemberDTO(" +
+            "u.id, u.name, u.email, m.membershipRole) " +
+            "from memberships m join m.user u " +
+            "where m.studyGroup.groupId = :groupId and (:afterUserId is null or u.id > :afterUserId) " +
+            "order by u.id")
+    List<GroupMemberDTO> findMemberPageAfter(@Param("groupId") Long groupId, @Param("afterUserId") Long afterUserId, Limit limit);
+
+    @Query("select m.studyGroup.groupId from memberships m where m.user.id = :userId")
+    List<Long> findGroupIdsByUserId(@Param("userId") Long userId);
+
     void deleteByUserIdAndStudyGroupGroupId(Long userId, Long groupId);
 }
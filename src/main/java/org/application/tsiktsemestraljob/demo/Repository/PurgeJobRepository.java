@@ -0,0 +1,26 @@
+package org.application.tsiktsemestraljob.demo.Repository;
+
+import org.application.tsiktsemestraljob.demo.Entities.PurgeJob;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeStatus;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeTarget;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PurgeJobRepository extends JpaRepository<PurgeJob, Long> {
+    Optional<PurgeJob> findFirstByTargetTypeAndTargetIdAndStatusIn(PurgeTarget targetType, Long targetId, Collection<PurgeStatus> statuses);
+
+    List<PurgeJob> findAllByStatusIn(Collection<PurgeStatus> statuses);
+
+    @Modifying
+    @Query("update purge_jobs j set j.stage = :stage, j.deletedRows = j.deletedRows + :rows, j.updatedAt = :now where j.id = :id")
+    void recordProgress(@Param("id") Long id, @Param("stage") String stage, @Param("rows") long rows, @Param("now") LocalDateTime now);
+}
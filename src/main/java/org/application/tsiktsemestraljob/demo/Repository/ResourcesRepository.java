@@ -1,7 +1,11 @@
 package org.application.tsiktsemestraljob.demo.Repository;
 
+import org.application.tsiktsemestraljob.demo.DTO.ResourcesDTO.ResourcesResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.Resources;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +13,11 @@ import java.util.List;
 @Repository
 public interface ResourcesRepository extends JpaRepository<Resources, Long> {
     List<Resources> findAllByStudyGroup_GroupId(Long groupId);
+
+    @Query("select new org.application.tsiktsemestraljob.demo.DTO.ResourcesDTO.ResourcesResponseDTO(" +
+            "r.id, g.groupId, u.id, r.title, r.type, r.pathOrUrl, r.uploadedAt) " +
+            "from Resources r left join r.studyGroup g left join r.uploadedBy u " +
+            "where :afterId is null or r.id > :afterId " +
+            "order by r.id")
+    List<ResourcesResponseDTO> findPageAfter(@Param("afterId") Long afterId, Limit limit);
 }
@@ -1,8 +1,25 @@
 package org.application.tsiktsemestraljob.demo.Repository;
 
+import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface StudyGroupsRepository extends JpaRepository<StudyGroups, Long> {}
+public interface StudyGroupsRepository extends JpaRepository<StudyGroups, Long> {
+
+    /* NULL names sort first, as in UserRepository.findPageAfter */
+    @Query("select new org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsResponseDTO(" +
+            "g.groupId, g.name, g.description, c.id, g.createdAt, c.name) " +
+            "from StudyGroups g left join g.createdBy c " +
+            "where :afterId is null " +
+            "or (:afterName is null and (g.name is not null or g.groupId > :afterId)) " +
+            "or g.name > :afterName or (g.name = :afterName and g.groupId > :afterId) " +
+            "order by g.name, g.groupId")
+    List<StudyGroupsResponseDTO> findPageAfter(@Param("afterName") String afterName, @Param("afterId") Long afterId, Limit limit);
+}
@@ -1,6 +1,39 @@
 package org.application.tsiktsemestraljob.demo.Repository;
 
+import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.Task;
+import org.application.tsiktsemestraljob.demo.Enums.TaskStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface TaskRepository extends JpaRepository<Task, Long> {}
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TaskRepository extends JpaRepository<Task, Long> {
+    String SELECT_DTO = "select new org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskResponseDTO(" +
+            "t.id, t.title, t.description, g.groupId, c.id, t.deadline, t.status, t.createdAt) " +
+            "from tasks t left join t.studyGroup g left join t.createdBy c ";
+
+    @Query(SELECT_DTO + "where :afterId is null or t.id > :afterId order by t.id")
+    List<TaskResponseDTO> findPageAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /* MySQL sorts NULL deadlines first; a cursor on a NULL deadline continues with the other NULLs, then every dated row */
+    @Query(SELECT_DTO + "where g.groupId in :groupIds " +
+            "and (:status is null or t.status = :status) " +
+            "and (:from is null or t.deadline >= :from) " +
+            "and (:to is null or t.deadline < :to) " +
+            "and (:afterId is null " +
+            "or (:afterDeadline is null and (t.deadline is not null or t.id > :afterId)) " +
+            "or t.deadline > :afterDeadline or (t.deadline = :afterDeadline and t.id > :afterId)) " +
+            "order by t.deadline, t.id")
+    List<TaskResponseDTO> findByGroupsAndDeadline(@Param("groupIds") Collection<Long> groupIds,
+                                                  @Param("status") TaskStatus status,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to,
+                                                  @Param("afterDeadline") LocalDateTime afterDeadline,
+                                                  @Param("afterId") Long afterId,
+                                                  Limit limit);
+}
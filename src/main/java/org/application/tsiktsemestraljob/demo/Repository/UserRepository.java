@@ -1,13 +1,32 @@
 package org.application.tsiktsemestraljob.demo.Repository;
 
+import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Optional<User> findByName(String name);
+
+    /* MySQL sorts NULL names first; a cursor on a NULL name continues with the other NULLs, then every named row */
+    @Query("select new org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserResponseDTO(u.id, u.name, u.email) " +
+            "from User u " +
+            "where :afterId is null " +
+            "or (:afterName is null and (u.name is not null or u.id > :afterId)) " +
+            "or u.name > :afterName or (u.name = :afterName and u.id > :afterId) " +
+            "order by u.name, u.id")
+    List<UserResponseDTO> findPageAfter(@Param("afterName") String afterName, @Param("afterId") Long afterId, Limit limit);
+
+    @Modifying
+    @Query(value = "update users set membership_version = membership_version + 1 where user_id = :userId", nativeQuery = true)
+    int bumpMembershipVersion(@Param("userId") Long userId);
 }
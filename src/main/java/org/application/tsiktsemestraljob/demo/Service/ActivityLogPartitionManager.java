@@ -0,0 +1,169 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/*
+ * Maintains the monthly partitions of activity_log (see V7): partition pYYYYMM holds that month, p_future everything
+ * after the last month. Once a day the job splits the next months off the empty p_future and drops every partition
+ * older than app.activity-log.retention-months, which removes a whole month without touching single rows.
+ * When the table is not partitioned expired rows are deleted in chunks instead.
+ * Every node runs the job at startup and on the same cron, so it takes the named lock activity_log_maintenance first
+ * and reads the partitions only while holding it; a node that waited finds the work done. The lock belongs to the
+ * connection, the transaction only keeps lock, read and DDL on one connection.
+ */
+@Slf4j
+@Component
+public class ActivityLogPartitionManager {
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final String FUTURE = "p_future";
+    private static final String LOCK = "activity_log_maintenance";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate oneConnection;
+    private final int retentionMonths;
+    private final int monthsAhead;
+    private final int expiryChunkSize;
+    private final Clock clock;
+
+    @Autowired
+    public ActivityLogPartitionManager(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.activity-log.retention-months:12}") int retentionMonths,
+                                       @Value("${app.activity-log.partitions-ahead:2}") int monthsAhead,
+                                       @Value("${app.activity-log.expiry-chunk-size:5000}") int expiryChunkSize) {
+        this(jdbcTemplate, transactionManager, retentionMonths, monthsAhead, expiryChunkSize, Clock.systemDefaultZone());
+    }
+
+    public ActivityLogPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                       int retentionMonths, int monthsAhead, int expiryChunkSize, Clock clock) {
+        if (retentionMonths < 1) {
+            throw new IllegalArgumentException("app.activity-log.retention-months must be at least 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.oneConnection = new TransactionTemplate(transactionManager);
+        this.retentionMonths = retentionMonths;
+        this.monthsAhead = monthsAhead;
+        this.expiryChunkSize = expiryChunkSize;
+        this.clock = clock;
+    }
+
+    /* First day that is still kept, everything before it is expired. */
+    public LocalDate retainedSince() {
+        return YearMonth.now(clock).minusMonths(retentionMonths).atDay(1);
+    }
+
+    /* a failed run must not stop the node from starting, the daily run tries again */
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            log.warn("Activity log maintenance failed at startup", e);
+        }
+    }
+
+    @Scheduled(cron = "${app.activity-log.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        oneConnection.executeWithoutResult(status -> {
+            Integer locked = jdbcTemplate.queryForObject("select get_lock(?, ?)", Integer.class, LOCK, LOCK_TIMEOUT_SECONDS);
+            if (locked == null || locked != 1) {
+                log.info("Activity log maintenance skipped, another node held {} for {} s", LOCK, LOCK_TIMEOUT_SECONDS);
+                return;
+            }
+            try {
+                maintainLocked();
+            } finally {
+                jdbcTemplate.queryForObject("select release_lock(?)", Integer.class, LOCK);
+            }
+        });
+    }
+
+    private void maintainLocked() {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "select partition_name from information_schema.partitions " +
+                        "where table_schema = database() and table_name = 'activity_log' and partition_name is not null " +
+                        "order by partition_ordinal_position", String.class);
+
+        if (partitions.isEmpty()) {
+            deleteExpiredRows();
+            return;
+        }
+        addMonthsAhead(partitions);
+        dropExpiredPartitions(partitions);
+    }
+
+    private void addMonthsAhead(List<String> partitions) {
+        YearMonth last = partitions.stream()
+                .filter(name -> !name.equals(FUTURE))
+                .map(ActivityLogPartitionManager::monthOf)
+                .max(YearMonth::compareTo)
+                .orElse(YearMonth.now(clock).minusMonths(1));
+        YearMonth until = YearMonth.now(clock).plusMonths(monthsAhead);
+        if (!last.isBefore(until)) {
+            return;
+        }
+
+        /* p_future is empty as long as the job runs at least once a month, so reorganizing it copies nothing */
+        StringJoiner split = new StringJoiner(", ", "alter table activity_log reorganize partition " + FUTURE + " into (", ")");
+        for (YearMonth month = last.plusMonths(1); !month.isAfter(until); month = month.plusMonths(1)) {
+            split.add("partition " + month.atDay(1).format(PARTITION_NAME) +
+                    " values less than ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        split.add("partition " + FUTURE + " values less than (maxvalue)");
+        jdbcTemplate.execute(split.toString());
+        log.info("Added activity_log partitions up to {}", until);
+    }
+
+    /* the oldest partition also holds anything older than its month, so it can only go once its own month expired */
+    private void dropExpiredPartitions(List<String> partitions) {
+        YearMonth oldestKept = YearMonth.from(retainedSince());
+        List<String> expired = new ArrayList<>();
+        for (String name : partitions) {
+            if (!name.equals(FUTURE) && monthOf(name).isBefore(oldestKept)) {
+                expired.add(name);
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute("alter table activity_log drop partition " + String.join(", ", expired));
+        log.info("Dropped expired activity_log partitions {}", expired);
+    }
+
+    /* log_id grows with time, so walking the primary key finds the oldest rows first and every chunk stops early */
+    private void deleteExpiredRows() {
+        String sql = "delete from activity_log where timestamp < ? order by log_id limit " + expiryChunkSize;
+        LocalDate cutoff = retainedSince();
+        int deleted;
+        long total = 0;
+        do {
+            deleted = jdbcTemplate.update(sql, cutoff.atStartOfDay());
+            total += deleted;
+        } while (deleted >= expiryChunkSize);
+        if (total > 0) {
+            log.info("Deleted {} activity_log rows older than {}", total, cutoff);
+        }
+    }
+
+    private static YearMonth monthOf(String partitionName) {
+        return YearMonth.parse(partitionName.substring(1), DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+}
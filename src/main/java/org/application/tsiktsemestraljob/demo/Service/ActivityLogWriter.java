@@ -0,0 +1,300 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.application.tsiktsemestraljob.demo.Enums.ActivityLogOverflowPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Write-behind pipeline for activity_log rows. Callers only put an entry into a bounded queue; a single flusher
+ * thread collects up to batch-size entries (or whatever arrived within flush-interval-ms) and writes them with
+ * one JDBC batch insert. When the queue is full the overflow policy decides: BLOCK waits up to block-timeout-ms,
+ * DROP discards the entry, SPILL appends it to a file that is replayed once the queue has room again.
+ * On shutdown the queue and the spill file are drained before the data source goes away.
+ * The daily rollup counters are incremented in the same transaction as the rows they count.
+ */
+@Slf4j
+@Component
+public class ActivityLogWriter {
+    private static final String INSERT = "insert into activity_log (user_id, group_id, action, details, timestamp) values (?, ?, ?, ?, ?)";
+    private static final JsonMapper SPILL_MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    public record Entry(Long userId, Long groupId, String action, String details, LocalDateTime timestamp) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityRollupService activityRollupService;
+    private final TransactionTemplate batchTransaction;
+    private final BlockingQueue<Entry> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final ActivityLogOverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final long shutdownTimeoutMs;
+    private final Object spillLock = new Object();
+
+    private final Timer flushTimer;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public ActivityLogWriter(JdbcTemplate jdbcTemplate,
+                             ActivityRollupService activityRollupService,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.activity-log.queue-capacity:10000}") int capacity,
+                             @Value("${app.activity-log.batch-size:200}") int batchSize,
+                             @Value("${app.activity-log.flush-interval-ms:500}") long flushIntervalMs,
+                             @Value("${app.activity-log.overflow-policy:BLOCK}") ActivityLogOverflowPolicy overflowPolicy,
+                             @Value("${app.activity-log.block-timeout-ms:1000}") long blockTimeoutMs,
+                             @Value("${app.activity-log.spill-dir:${java.io.tmpdir}/activity-log}") Path spillDir,
+                             @Value("${app.activity-log.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.activityRollupService = activityRollupService;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.spillFile = spillDir.resolve("activity-log.spill");
+        this.replayFile = spillDir.resolve("activity-log.replay");
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        Gauge.builder("activity_log.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("activity_log.flush")
+                .register(meterRegistry);
+        this.written = entries(meterRegistry, "written");
+        this.dropped = entries(meterRegistry, "dropped");
+        this.spilled = entries(meterRegistry, "spilled");
+        this.failed = entries(meterRegistry, "failed");
+    }
+
+    private static Counter entries(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("activity_log.entries")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "activity-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public void submit(Entry entry) {
+        if (queue.offer(entry)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    if (!queue.offer(entry, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        drop(entry);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    drop(entry);
+                }
+            }
+            case DROP -> drop(entry);
+            case SPILL -> spill(entry);
+        }
+    }
+
+    /* Writes everything that is queued or spilled right now on the calling thread, returns the number of rows handed to the database. */
+    public int drain() {
+        int total = 0;
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            total += batch.size();
+            write(batch);
+            batch.clear();
+        }
+        return total + replaySpill();
+    }
+
+    private void flushLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Entry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                    queue.drainTo(batch, batchSize - 1);
+                    while (batch.size() < batchSize) {
+                        Entry next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    write(batch);
+                    batch.clear();
+                }
+                if (queue.size() < capacity / 2) {
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Activity log flush failed", e);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    /* A failed batch is retried row by row, so one bad row (e.g. a value too long for its column) loses only itself. */
+    private void write(List<Entry> batch) {
+        flushTimer.record(() -> {
+            try {
+                batchTransaction.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), ActivityLogWriter::bind);
+                    activityRollupService.increment(batch);
+                });
+                written.increment(batch.size());
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("Activity log batch of {} failed, retrying row by row: {}", batch.size(), e.getMessage());
+                for (Entry entry : batch) {
+                    try {
+                        batchTransaction.executeWithoutResult(status -> {
+                            jdbcTemplate.update(INSERT, ps -> bind(ps, entry));
+                            activityRollupService.increment(List.of(entry));
+                        });
+                        written.increment();
+                    } catch (DataAccessException | TransactionException rowFailure) {
+                        failed.increment();
+                        log.warn("Activity log entry {} could not be written: {}", entry, rowFailure.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement ps, Entry entry) throws SQLException {
+        ps.setObject(1, entry.userId(), Types.BIGINT);
+        ps.setObject(2, entry.groupId(), Types.BIGINT);
+        ps.setString(3, entry.action());
+        ps.setString(4, entry.details());
+        ps.setObject(5, entry.timestamp());
+    }
+
+    private void drop(Entry entry) {
+        dropped.increment();
+        log.warn("Activity log queue is full, dropping {}", entry);
+    }
+
+    private void spill(Entry entry) {
+        synchronized (spillLock) {
+            try {
+                Files.createDirectories(spillFile.getParent());
+                try (BufferedWriter out = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    out.write(SPILL_MAPPER.writeValueAsString(entry));
+                    out.newLine();
+                }
+                spilled.increment();
+            } catch (IOException e) {
+                log.error("Could not spill activity log entry", e);
+                drop(entry);
+            }
+        }
+    }
+
+    /*
+     * The spill file is renamed before it is read, so new spills go to a fresh file meanwhile.
+     * A replay file left over from a crash is picked up on the next run.
+     */
+    private int replaySpill() {
+        synchronized (spillLock) {
+            try {
+                if (Files.notExists(replayFile)) {
+                    if (Files.notExists(spillFile)) {
+                        return 0;
+                    }
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        try {
+            List<String> lines = Files.readAllLines(replayFile, StandardCharsets.UTF_8);
+            List<Entry> entries = new ArrayList<>(lines.size());
+            for (String line : lines) {
+                if (!line.isBlank()) {
+                    entries.add(SPILL_MAPPER.readValue(line, Entry.class));
+                }
+            }
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                write(entries.subList(from, Math.min(from + batchSize, entries.size())));
+            }
+            Files.delete(replayFile);
+            return entries.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(shutdownTimeoutMs);
+            if (flusher.isAlive()) {
+                log.warn("Activity log flusher did not stop within {} ms", shutdownTimeoutMs);
+                return;
+            }
+        }
+        int remaining = drain();
+        if (remaining > 0) {
+            log.info("Flushed {} activity log entries on shutdown", remaining);
+        }
+    }
+}
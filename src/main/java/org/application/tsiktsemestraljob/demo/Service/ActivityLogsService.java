@@ -1,28 +1,119 @@
 package org.application.tsiktsemestraljob.demo.Service;
 
-import lombok.RequiredArgsConstructor;
-import org.application.tsiktsemestraljob.demo.Entities.ActivityLogs;
-import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO.ActivityLogResponseDTO;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.Cursor;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
 import org.application.tsiktsemestraljob.demo.Entities.User;
 import org.application.tsiktsemestraljob.demo.Repository.ActivityLogsRepository;
-import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
-import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
+/*
+ * Hands log entries to the ActivityLogWriter instead of inserting them inside the caller's transaction.
+ * With app.activity-log.after-commit the entry is queued only once that transaction commits,
+ * so rolled back operations leave no trace in the log.
+ */
 @Service
-@RequiredArgsConstructor
-@Transactional
 public class ActivityLogsService {
+    private final ActivityLogWriter activityLogWriter;
     private final ActivityLogsRepository activityLogsRepository;
+    private final MembershipRoleCache membershipRoleCache;
+    private final CurrentUser currentUser;
+    private final ActivityLogPartitionManager partitionManager;
+    private final boolean afterCommit;
 
-    public void log(User user, String action, String details) {
-        ActivityLogs activityLogs = new ActivityLogs();
-        activityLogs.setUser(user);
-        activityLogs.setAction(action);
-        activityLogs.setDetails(details);
-        activityLogsRepository.save(activityLogs);
+    public ActivityLogsService(ActivityLogWriter activityLogWriter,
+                               ActivityLogsRepository activityLogsRepository,
+                               MembershipRoleCache membershipRoleCache,
+                               CurrentUser currentUser,
+                               ActivityLogPartitionManager partitionManager,
+                               @Value("${app.activity-log.after-commit:true}") boolean afterCommit) {
+        this.activityLogWriter = activityLogWriter;
+        this.activityLogsRepository = activityLogsRepository;
+        this.membershipRoleCache = membershipRoleCache;
+        this.currentUser = currentUser;
+        this.partitionManager = partitionManager;
+        this.afterCommit = afterCommit;
+    }
+
+    public void log(User user, Long groupId, String action, String details) {
+        ActivityLogWriter.Entry entry = new ActivityLogWriter.Entry(
+                user == null ? null : user.getId(), groupId, action, details, LocalDateTime.now());
+
+        if (afterCommit && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    activityLogWriter.submit(entry);
+                }
+            });
+        } else {
+            activityLogWriter.submit(entry);
+        }
+    }
+
+    public CursorPageDTO<ActivityLogResponseDTO> getGroupFeed(Long groupId, Collection<String> actions, String cursor, Integer limit) {
+        /* the cache is used directly, MembershipService itself depends on this service for logging */
+        if (membershipRoleCache.getRole(currentUser.id(), groupId).isEmpty()) {
+            throw new AccessDeniedException("You are not a member of this group");
+        }
+
+        int size = CursorPageDTO.clamp(limit);
+        FeedPosition before = FeedPosition.decode(cursor);
+        List<ActivityLogResponseDTO> rows = activityLogsRepository.findGroupFeed(groupId, retainedSince(), isAny(actions), actionsOrPlaceholder(actions),
+                before.timestamp(), before.id(), CursorPageDTO.probe(size));
+        return CursorPageDTO.of(rows, size, ActivityLogsService::cursorOf);
+    }
+
+    public CursorPageDTO<ActivityLogResponseDTO> getMyFeed(Collection<String> actions, String cursor, Integer limit) {
+        int size = CursorPageDTO.clamp(limit);
+        FeedPosition before = FeedPosition.decode(cursor);
+        List<ActivityLogResponseDTO> rows = activityLogsRepository.findUserFeed(currentUser.id(), retainedSince(), isAny(actions), actionsOrPlaceholder(actions),
+                before.timestamp(), before.id(), CursorPageDTO.probe(size));
+        return CursorPageDTO.of(rows, size, ActivityLogsService::cursorOf);
+    }
+
+    /* rows before it are expired and may not be dropped yet, the feed hides them either way */
+    private LocalDateTime retainedSince() {
+        return partitionManager.retainedSince().atStartOfDay();
+    }
+
+    private static boolean isAny(Collection<String> actions) {
+        return actions == null || actions.isEmpty();
+    }
+
+    /* "in ()" is not valid SQL, the placeholder is never compared because anyAction short-circuits the filter */
+    private static Collection<String> actionsOrPlaceholder(Collection<String> actions) {
+        return isAny(actions) ? Set.of("") : actions;
+    }
+
+    private static Cursor cursorOf(ActivityLogResponseDTO entry) {
+        return Cursor.of(entry.timestamp().toString(), entry.id());
+    }
+
+    private record FeedPosition(LocalDateTime timestamp, Long id) {
+        static FeedPosition decode(String encoded) {
+            Cursor cursor = Cursor.decode(encoded);
+            if (cursor.key() == null) {
+                return new FeedPosition(null, null);
+            }
+            try {
+                return new FeedPosition(LocalDateTime.parse(cursor.key()), cursor.id());
+            } catch (DateTimeParseException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
     }
 }
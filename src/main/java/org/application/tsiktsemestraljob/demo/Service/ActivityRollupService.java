@@ -0,0 +1,179 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO.ActivityRollupDTO;
+import org.application.tsiktsemestraljob.demo.Enums.RollupGranularity;
+import org.application.tsiktsemestraljob.demo.Repository.ActivityRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * Keeps activity_rollups equal to "select group_id, date(timestamp), action, count(*) from activity_log group by ...".
+ * The ActivityLogWriter calls increment() in the same transaction that inserts the log rows, so counters and rows
+ * are committed together. rebuild() recomputes the counters group by group from activity_log; it runs once on
+ * startup when the table is still empty, and again whenever app.activity-rollup.rebuild-on-startup is set.
+ * Purges do not rewrite the counters, they stay as they were logged until the next rebuild. Days whose log
+ * partitions already expired are never rebuilt, so their counters outlive the raw rows.
+ */
+@Slf4j
+@Service
+public class ActivityRollupService {
+    private static final String UPSERT = "insert into activity_rollups (group_id, activity_day, action, event_count) " +
+            "values (?, ?, ?, ?) as new " +
+            "on duplicate key update event_count = activity_rollups.event_count + new.event_count";
+    private static final int MAX_RANGE_DAYS = 400;
+    private static final int REBUILD_GROUPS_PER_QUERY = 100;
+
+    private record Key(Long groupId, LocalDate day, String action) {}
+
+    private record Week(LocalDate monday, String action) {}
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::groupId)
+            .thenComparing(Key::day)
+            .thenComparing(Key::action);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate groupTransaction;
+    private final ActivityRollupRepository activityRollupRepository;
+    private final MembershipRoleCache membershipRoleCache;
+    private final CurrentUser currentUser;
+    private final ActivityLogPartitionManager partitionManager;
+    private final boolean rebuildOnStartup;
+
+    public ActivityRollupService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ActivityRollupRepository activityRollupRepository,
+                                 MembershipRoleCache membershipRoleCache,
+                                 CurrentUser currentUser,
+                                 ActivityLogPartitionManager partitionManager,
+                                 @Value("${app.activity-rollup.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.groupTransaction = new TransactionTemplate(transactionManager);
+        this.activityRollupRepository = activityRollupRepository;
+        this.membershipRoleCache = membershipRoleCache;
+        this.currentUser = currentUser;
+        this.partitionManager = partitionManager;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    /*
+     * Adds the entries of one written batch to the counters, one upsert per (group, day, action).
+     * Keys are sorted so concurrent writers lock rows in the same order. Entries without a group are not counted.
+     */
+    public void increment(Collection<ActivityLogWriter.Entry> entries) {
+        Map<Key, Long> counts = entries.stream()
+                .filter(entry -> entry.groupId() != null)
+                .collect(Collectors.groupingBy(
+                        entry -> new Key(entry.groupId(), entry.timestamp().toLocalDate(), entry.action()),
+                        Collectors.counting()));
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Key, Long>> rows = new ArrayList<>(counts.entrySet());
+        rows.sort(Map.Entry.comparingByKey(KEY_ORDER));
+        jdbcTemplate.batchUpdate(UPSERT, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getKey().groupId());
+            ps.setObject(2, row.getKey().day());
+            ps.setString(3, row.getKey().action());
+            ps.setLong(4, row.getValue());
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        boolean empty = jdbcTemplate.queryForObject("select count(*) from (select 1 from activity_rollups limit 1) r", Integer.class) == 0;
+        if (rebuildOnStartup || empty) {
+            int groups = rebuild();
+            if (groups > 0) {
+                log.info("Rebuilt activity rollups of {} groups", groups);
+            }
+        }
+    }
+
+    /* Recomputes every group that has log entries or counters, returns the number of groups rebuilt. */
+    public int rebuild() {
+        int rebuilt = 0;
+        long after = 0;
+        List<Long> groupIds;
+        while (!(groupIds = jdbcTemplate.queryForList(
+                "select group_id from (" +
+                        "select distinct group_id from activity_log where group_id > ? " +
+                        "union select distinct group_id from activity_rollups where group_id > ?) g " +
+                        "order by group_id limit " + REBUILD_GROUPS_PER_QUERY,
+                Long.class, after, after)).isEmpty()) {
+            groupIds.forEach(this::rebuildGroup);
+            rebuilt += groupIds.size();
+            after = groupIds.getLast();
+        }
+        return rebuilt;
+    }
+
+    /*
+     * One group per transaction. The insert ... select reads the group's index range with locks,
+     * so a concurrent writer either committed before and is counted, or waits and increments afterwards.
+     * The lower timestamp bound keeps expired days and lets MySQL prune to the retained partitions.
+     */
+    public void rebuildGroup(Long groupId) {
+        LocalDate since = partitionManager.retainedSince();
+        groupTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from activity_rollups where group_id = ? and activity_day >= ?", groupId, since);
+            jdbcTemplate.update("insert into activity_rollups (group_id, activity_day, action, event_count) " +
+                    "select group_id, date(timestamp), action, count(*) from activity_log " +
+                    "where group_id = ? and timestamp >= ? " +
+                    "group by group_id, date(timestamp), action", groupId, since.atStartOfDay());
+        });
+    }
+
+    public List<ActivityRollupDTO> getRollups(Long groupId, LocalDate from, LocalDate to,
+                                              Collection<String> actions, RollupGranularity granularity) {
+        if (membershipRoleCache.getRole(currentUser.id(), groupId).isEmpty()) {
+            throw new AccessDeniedException("You are not a member of this group");
+        }
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from and to are required and from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_RANGE_DAYS + " days per request");
+        }
+
+        boolean anyAction = actions == null || actions.isEmpty();
+        List<ActivityRollupDTO> daily = activityRollupRepository.findDaily(groupId, from, to, anyAction,
+                anyAction ? Set.of("") : actions);
+        if (granularity != RollupGranularity.WEEK) {
+            return daily;
+        }
+
+        Map<Week, Long> weekly = new LinkedHashMap<>();
+        for (ActivityRollupDTO day : daily) {
+            LocalDate monday = day.periodStart().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            weekly.merge(new Week(monday, day.action()), day.count(), Long::sum);
+        }
+        return weekly.entrySet().stream()
+                .map(week -> new ActivityRollupDTO(week.getKey().action(), week.getKey().monday(), week.getValue()))
+                .sorted(Comparator.comparing(ActivityRollupDTO::periodStart).thenComparing(ActivityRollupDTO::action))
+                .toList();
+    }
+}
@@ -0,0 +1,192 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.application.tsiktsemestraljob.demo.Enums.RequestPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+ * Adaptive limit on the requests a pool works on at once, so overload is turned away at the door instead of queueing
+ * behind slow database calls. Reads, writes and /auth are separate pools, each configured in
+ * app.concurrency-limit.pools as "POOL=initial/max/latencyMs". The limit follows AIMD on the measured latency:
+ * a response within latencyMs while the pool was at least half used raises the limit by 1/limit, so by one per limit
+ * responses, and a slower one cuts it by backoff down to min-limit. Only requests started after the last cut may cut
+ * again, otherwise every slow request of the same wave would cut and the limit would collapse to the minimum at once.
+ * Admission is one compareAndSet on the in-flight count, a request over the limit is rejected without waiting.
+ */
+@Component
+public class ConcurrencyLimiter {
+    /* the limit is kept in thousandths so that additive increase can add fractions */
+    private static final long SCALE = 1000;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final double backoff;
+    private final long retryAfterSeconds;
+    private final LongSupplier clock;
+    private final EnumMap<RequestPool, Pool> pools = new EnumMap<>(RequestPool.class);
+
+    @Autowired
+    public ConcurrencyLimiter(MeterRegistry meterRegistry,
+                              @Value("${app.concurrency-limit.enabled:true}") boolean enabled,
+                              @Value("${app.concurrency-limit.pools:}") List<String> pools,
+                              @Value("${app.concurrency-limit.min-limit:4}") int minLimit,
+                              @Value("${app.concurrency-limit.backoff:0.9}") double backoff,
+                              @Value("${app.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds) {
+        this(meterRegistry, enabled, pools, minLimit, backoff, retryAfterSeconds, System::nanoTime);
+    }
+
+    public ConcurrencyLimiter(MeterRegistry meterRegistry, boolean enabled, List<String> pools, int minLimit,
+                              double backoff, long retryAfterSeconds, LongSupplier clock) {
+        if (minLimit < 1 || backoff <= 0 || backoff >= 1) {
+            throw new IllegalArgumentException("Concurrency limit needs min-limit >= 1 and a backoff between 0 and 1");
+        }
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.backoff = backoff;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.clock = clock;
+        for (String pool : pools) {
+            if (!pool.isBlank()) {
+                Pool parsed = parse(pool.trim(), meterRegistry);
+                this.pools.put(parsed.name, parsed);
+            }
+        }
+    }
+
+    /* "READ=40/200/300" starts reads at 40 concurrent requests, never above 200, and backs off past 300 ms */
+    private Pool parse(String pool, MeterRegistry meterRegistry) {
+        int equals = pool.indexOf('=');
+        String[] numbers = pool.substring(equals + 1).split("/");
+        if (equals <= 0 || numbers.length != 3) {
+            throw new IllegalArgumentException(
+                    "Concurrency limit pool must look like POOL=initial/max/latencyMs: " + pool);
+        }
+        RequestPool name = RequestPool.valueOf(pool.substring(0, equals).trim());
+        int initial = Integer.parseInt(numbers[0].trim());
+        int max = Integer.parseInt(numbers[1].trim());
+        long latencyMs = Long.parseLong(numbers[2].trim());
+        if (initial < minLimit || max < initial || latencyMs <= 0) {
+            throw new IllegalArgumentException("Concurrency limit pool needs min-limit <= initial <= max: " + pool);
+        }
+        return new Pool(name, initial, max, TimeUnit.MILLISECONDS.toNanos(latencyMs), meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled && !pools.isEmpty();
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /* null when the request is not limited: no pool configured for it, or not an /api or /auth request at all */
+    public Pool route(String method, String path) {
+        RequestPool pool = classify(method, path);
+        return pool == null ? null : pools.get(pool);
+    }
+
+    public Pool getPool(RequestPool pool) {
+        return pools.get(pool);
+    }
+
+    public static RequestPool classify(String method, String path) {
+        if (path.startsWith("/auth/")) {
+            return RequestPool.AUTH;
+        }
+        if (!path.startsWith("/api/")) {
+            return null;
+        }
+        return switch (method) {
+            case "GET", "HEAD", "OPTIONS" -> RequestPool.READ;
+            default -> RequestPool.WRITE;
+        };
+    }
+
+    /* inFlight is the pool's count right after this request was admitted */
+    public record Permit(Pool pool, long startedNanos, int inFlight) {
+        public void release() {
+            pool.release(this);
+        }
+    }
+
+    public final class Pool {
+        private final RequestPool name;
+        private final int maxLimit;
+        private final long latencyNanos;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong scaledLimit;
+        private final AtomicLong lastDecrease;
+        private final Counter rejected;
+
+        private Pool(RequestPool name, int initialLimit, int maxLimit, long latencyNanos, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.maxLimit = maxLimit;
+            this.latencyNanos = latencyNanos;
+            this.scaledLimit = new AtomicLong(initialLimit * SCALE);
+            this.lastDecrease = new AtomicLong(clock.getAsLong());
+
+            String tag = name.name().toLowerCase();
+            Gauge.builder("concurrency.limit", this, Pool::getLimit)
+                    .tag("pool", tag)
+                    .register(meterRegistry);
+            Gauge.builder("concurrency.inflight", inFlight, AtomicInteger::get)
+                    .tag("pool", tag)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("concurrency.rejected")
+                    .tag("pool", tag)
+                    .description("Requests turned away because the pool was at its limit")
+                    .register(meterRegistry);
+        }
+
+        public RequestPool getName() {
+            return name;
+        }
+
+        public int getLimit() {
+            return (int) (scaledLimit.get() / SCALE);
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        /* null when the pool is at its limit, otherwise the permit has to be released when the response is done */
+        public Permit tryAcquire() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= getLimit()) {
+                    rejected.increment();
+                    return null;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return new Permit(this, clock.getAsLong(), current + 1);
+                }
+            }
+        }
+
+        private void release(Permit permit) {
+            long now = clock.getAsLong();
+            inFlight.decrementAndGet();
+
+            if (now - permit.startedNanos() > latencyNanos) {
+                long last = lastDecrease.get();
+                if (permit.startedNanos() - last >= 0 && lastDecrease.compareAndSet(last, now)) {
+                    scaledLimit.updateAndGet(limit -> Math.max(minLimit * SCALE, (long) (limit * backoff)));
+                }
+            } else if (permit.inFlight() * 2 >= getLimit()) {
+                scaledLimit.updateAndGet(limit -> Math.min(maxLimit * SCALE, limit + SCALE * SCALE / limit));
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.GroupEventReplayDTO;
+import org.application.tsiktsemestraljob.demo.Enums.GroupEventStore;
+import org.application.tsiktsemestraljob.demo.Enums.WebSocketBrokerMode;
+import org.application.tsiktsemestraljob.demo.Events.GroupDeletedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Numbers the events of every group topic and keeps the last buffer-size of them per group, so a client that lost
+ * its socket asks for the events after the last seq it saw instead of reloading everything. If some of those are
+ * no longer kept the client is told to resync.
+ * Sequence numbers are assigned by the NotificationOutboxDispatcher: lastSeq is read in its transaction, the events
+ * get the following numbers and are recorded once their frame was sent, a failed frame reuses them on the next round.
+ * MEMORY keeps the buffers of up to max-groups groups in this JVM. A buffer starts at the current time in
+ * microseconds, or after the highest number handed out so far, so numbers from before a restart or eviction are
+ * always older than the buffer and end in a resync. It only works for a single node.
+ * JDBC keeps them in group_events, where selecting the max seq FOR UPDATE serializes the dispatchers of all nodes
+ * per group and the numbers survive restarts.
+ * Without app.group-events.store the store follows app.websocket.broker: MEMORY for SIMPLE, JDBC for RELAY. MEMORY
+ * together with RELAY is refused at startup, every node would number the same topic on its own and the clients would
+ * see gaps on every frame and resync over and over.
+ */
+@Component
+public class GroupEventLog {
+    private static final String LAST_SEQ = "select coalesce(max(seq), 0) from group_events where group_id = ?";
+    private static final String INSERT = "insert into group_events (group_id, seq, payload, created_at) values (?, ?, ?, ?)";
+    private static final String PRUNE = "delete from group_events where group_id = ? and seq <= ?";
+    private static final String SELECT_AFTER = "select seq, payload from group_events where group_id = ? and seq > ? order by seq";
+
+    public record Event(long seq, String payload) {}
+
+    private static final class Buffer {
+        private long lastSeq;
+        private final ArrayDeque<Event> events = new ArrayDeque<>();
+
+        private Buffer(long lastSeq) {
+            this.lastSeq = lastSeq;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MembershipRoleCache membershipRoleCache;
+    private final CurrentUser currentUser;
+    private final GroupEventStore store;
+    private final int bufferSize;
+    private final Map<Long, Buffer> buffers;
+    private long highestSeq;
+
+    public GroupEventLog(JdbcTemplate jdbcTemplate,
+                         ObjectMapper objectMapper,
+                         MembershipRoleCache membershipRoleCache,
+                         CurrentUser currentUser,
+                         @Value("${app.group-events.store:#{null}}") GroupEventStore store,
+                         @Value("${app.websocket.broker:SIMPLE}") WebSocketBrokerMode brokerMode,
+                         @Value("${app.group-events.buffer-size:500}") int bufferSize,
+                         @Value("${app.group-events.max-groups:10000}") int maxGroups) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.membershipRoleCache = membershipRoleCache;
+        this.currentUser = currentUser;
+        this.store = resolveStore(store, brokerMode);
+        this.bufferSize = bufferSize;
+        this.buffers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Buffer> eldest) {
+                return size() > maxGroups;
+            }
+        };
+    }
+
+    private static GroupEventStore resolveStore(GroupEventStore store, WebSocketBrokerMode brokerMode) {
+        if (store == null) {
+            return brokerMode == WebSocketBrokerMode.RELAY ? GroupEventStore.JDBC : GroupEventStore.MEMORY;
+        }
+        if (store == GroupEventStore.MEMORY && brokerMode == WebSocketBrokerMode.RELAY) {
+            throw new IllegalStateException(
+                    "app.group-events.store=MEMORY only works with one node, use JDBC with app.websocket.broker=RELAY");
+        }
+        return store;
+    }
+
+    public GroupEventStore getStore() {
+        return store;
+    }
+
+    /* the seq of the last recorded event, called by the dispatcher inside its transaction */
+    public long lastSeq(long groupId) {
+        return switch (store) {
+            case MEMORY -> {
+                synchronized (buffers) {
+                    yield buffer(groupId).lastSeq;
+                }
+            }
+            case JDBC -> jdbcTemplate.queryForObject(LAST_SEQ + " for update", Long.class, groupId);
+        };
+    }
+
+    /* events that were sent, in seq order directly following lastSeq */
+    public void record(long groupId, List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        long last = events.getLast().seq();
+        switch (store) {
+            case MEMORY -> {
+                synchronized (buffers) {
+                    Buffer buffer = buffer(groupId);
+                    buffer.events.addAll(events);
+                    while (buffer.events.size() > bufferSize) {
+                        buffer.events.removeFirst();
+                    }
+                    buffer.lastSeq = last;
+                    highestSeq = Math.max(highestSeq, last);
+                }
+            }
+            case JDBC -> {
+                LocalDateTime now = LocalDateTime.now();
+                jdbcTemplate.batchUpdate(INSERT, events.stream()
+                        .map(event -> new Object[]{groupId, event.seq(), event.payload(), now})
+                        .toList());
+                jdbcTemplate.update(PRUNE, groupId, last - bufferSize);
+            }
+        }
+    }
+
+    public GroupEventReplayDTO getReplay(Long groupId, Long after) {
+        /* the cache is used directly, MembershipService depends on NotificationService and with it on this log */
+        if (membershipRoleCache.getRole(currentUser.id(), groupId).isEmpty()) {
+            throw new AccessDeniedException("You are not a member of this group");
+        }
+        return replay(groupId, after);
+    }
+
+    /* without after only the current lastSeq is returned, clients take it as their starting point */
+    public GroupEventReplayDTO replay(long groupId, Long after) {
+        long last;
+        List<Event> missed;
+        switch (store) {
+            case MEMORY -> {
+                synchronized (buffers) {
+                    Buffer buffer = buffer(groupId);
+                    last = buffer.lastSeq;
+                    missed = after == null ? List.of() : buffer.events.stream().filter(event -> event.seq() > after).toList();
+                }
+            }
+            case JDBC -> {
+                last = jdbcTemplate.queryForObject(LAST_SEQ, Long.class, groupId);
+                missed = after == null || after >= last ? List.of() : jdbcTemplate.query(SELECT_AFTER,
+                        (rs, rowNum) -> new Event(rs.getLong("seq"), rs.getString("payload")), groupId, after);
+            }
+            default -> throw new IllegalStateException("Unknown group event store " + store);
+        }
+
+        if (after == null || after == last) {
+            return new GroupEventReplayDTO(false, last, List.of());
+        }
+        if (after > last || missed.isEmpty() || missed.getFirst().seq() != after + 1) {
+            return new GroupEventReplayDTO(true, last, List.of());
+        }
+        return new GroupEventReplayDTO(false, last, missed.stream().map(this::parse).toList());
+    }
+
+    @EventListener
+    public void onGroupDeleted(GroupDeletedEvent event) {
+        switch (store) {
+            case MEMORY -> {
+                synchronized (buffers) {
+                    buffers.remove(event.groupId());
+                }
+            }
+            case JDBC -> jdbcTemplate.update(PRUNE, event.groupId(), Long.MAX_VALUE);
+        }
+    }
+
+    /* callers hold the buffers lock */
+    private Buffer buffer(long groupId) {
+        return buffers.computeIfAbsent(groupId, id -> {
+            highestSeq = Math.max(System.currentTimeMillis() * 1000, highestSeq + 1);
+            return new Buffer(highestSeq);
+        });
+    }
+
+    private JsonNode parse(Event event) {
+        try {
+            return objectMapper.readTree(event.payload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Group event " + event.seq() + " is not valid JSON", e);
+        }
+    }
+}
@@ -46,7 +46,7 @@ public class InvitationsService {
         invitations.setExpiresAt(LocalDateTime.now().plusDays(7));
         invitationsRepository.save(invitations);
 
-        activityLogsService.log(user,
+        activityLogsService.log(user, groupId,
                 "CREATE_INVINTATION",
         "INVITATION_CREATED_IN_GROUP" + groupId);
 
@@ -82,7 +82,7 @@ public class InvitationsService {
         invitation.setStatus(AcceptStatus.USED);
         invitation.setUsedByUserId(user.getId());
 
-        activityLogsService.log(user,
+        activityLogsService.log(user, studyGroup.getGroupId(),
                 "JOIN_GROUP",
                 "TO_GROUP" + studyGroup.getGroupId());
 
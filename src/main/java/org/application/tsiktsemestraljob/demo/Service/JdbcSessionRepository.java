@@ -0,0 +1,332 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.Enums.SessionStore;
+import org.application.tsiktsemestraljob.demo.Events.UserDeletedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * HTTP sessions in the http_sessions table, so a login survives a redeploy and any node can serve any request.
+ * Used by the SessionRepositoryFilter registered in SessionConfig when app.session.store=JDBC.
+ * Every request reads its row by primary key. Attributes are written only when they change, which in practice is
+ * login and logout; the last-access time is not written per request but collected in memory once it is at least
+ * touch-delay-ms newer than the stored one and written in one batch every touch-flush-ms. expires_at includes
+ * touch-delay-ms, so a session whose newest access is still pending on some node is never expired early.
+ * Expired rows are deleted in batches by cleanup-cron.
+ */
+@Slf4j
+@Component
+public class JdbcSessionRepository implements SessionRepository<JdbcSessionRepository.JdbcSession> {
+    private static final String SELECT = "select principal_id, attributes, created_at, last_accessed_at, max_inactive_seconds, expires_at " +
+            "from http_sessions where session_id = ?";
+    private static final String INSERT = "insert into http_sessions (session_id, principal_id, attributes, created_at, " +
+            "last_accessed_at, max_inactive_seconds, expires_at) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "update http_sessions set principal_id = ?, attributes = ?, last_accessed_at = ?, " +
+            "max_inactive_seconds = ?, expires_at = ? where session_id = ?";
+    private static final String CHANGE_ID = "update http_sessions set session_id = ? where session_id = ?";
+    private static final String TOUCH = "update http_sessions set last_accessed_at = ?, expires_at = ? " +
+            "where session_id = ? and last_accessed_at < ?";
+    private static final String DELETE = "delete from http_sessions where session_id = ?";
+    private static final String DELETE_EXPIRED = "delete from http_sessions where expires_at < ? limit ?";
+    private static final String DELETE_OF_USER = "delete from http_sessions where principal_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionStore store;
+    private final Duration timeout;
+    private final Duration touchDelay;
+    private final int cleanupBatchSize;
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer = new DeserializingConverter();
+
+    /* sessionId -> newest last-access not yet written */
+    private final Map<String, Pending> touches = new ConcurrentHashMap<>();
+    private final Counter writes;
+    private final Counter touchWrites;
+
+    private record Pending(long lastAccessedAt, long expiresAt) {}
+
+    public JdbcSessionRepository(JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.session.store:MEMORY}") SessionStore store,
+                                 @Value("${server.servlet.session.timeout:30m}") Duration timeout,
+                                 @Value("${app.session.touch-delay-ms:60000}") long touchDelayMs,
+                                 @Value("${app.session.cleanup-batch-size:1000}") int cleanupBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.store = store;
+        this.timeout = timeout;
+        this.touchDelay = Duration.ofMillis(touchDelayMs);
+        this.cleanupBatchSize = cleanupBatchSize;
+
+        Gauge.builder("session.touches.pending", touches, Map::size)
+                .register(meterRegistry);
+        this.writes = Counter.builder("session.writes")
+                .tag("kind", "attributes")
+                .register(meterRegistry);
+        this.touchWrites = Counter.builder("session.writes")
+                .tag("kind", "touch")
+                .register(meterRegistry);
+    }
+
+    /*
+     * The session as one request sees it. isNew and storedId tell save() whether to insert, rename or update,
+     * attributes set or removed during the request mark it changed.
+     */
+    public final class JdbcSession implements Session {
+        private final MapSession delegate;
+        private boolean isNew;
+        private boolean changed;
+        private String storedId;
+        private Instant storedLastAccess;
+
+        private JdbcSession(MapSession delegate, boolean isNew) {
+            this.delegate = delegate;
+            this.isNew = isNew;
+            this.storedId = isNew ? null : delegate.getId();
+            this.storedLastAccess = delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            delegate.removeAttribute(attributeName);
+            changed = true;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+            changed = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return expiresAt(this) < System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public JdbcSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(timeout);
+        return new JdbcSession(session, true);
+    }
+
+    @Override
+    public void save(JdbcSession session) {
+        if (session.isNew) {
+            jdbcTemplate.update(INSERT, session.getId(), principalId(session), serialize(session),
+                    session.getCreationTime().toEpochMilli(), session.getLastAccessedTime().toEpochMilli(),
+                    (int) session.getMaxInactiveInterval().toSeconds(), expiresAt(session));
+            writes.increment();
+            stored(session);
+            return;
+        }
+        if (!session.getId().equals(session.storedId)) {
+            jdbcTemplate.update(CHANGE_ID, session.getId(), session.storedId);
+            touches.remove(session.storedId);
+            session.storedId = session.getId();
+        }
+        if (session.changed) {
+            jdbcTemplate.update(UPDATE, principalId(session), serialize(session), session.getLastAccessedTime().toEpochMilli(),
+                    (int) session.getMaxInactiveInterval().toSeconds(), expiresAt(session), session.getId());
+            writes.increment();
+            stored(session);
+            return;
+        }
+        if (!session.getLastAccessedTime().isBefore(session.storedLastAccess.plus(touchDelay))) {
+            touches.merge(session.getId(), new Pending(session.getLastAccessedTime().toEpochMilli(), expiresAt(session)),
+                    (previous, next) -> next.lastAccessedAt() > previous.lastAccessedAt() ? next : previous);
+        }
+    }
+
+    private void stored(JdbcSession session) {
+        session.isNew = false;
+        session.changed = false;
+        session.storedId = session.getId();
+        session.storedLastAccess = session.getLastAccessedTime();
+        touches.remove(session.getId());
+    }
+
+    @Override
+    public JdbcSession findById(String id) {
+        List<JdbcSession> found = jdbcTemplate.query(SELECT, (rs, rowNum) -> {
+            if (rs.getLong("expires_at") < System.currentTimeMillis()) {
+                return null;
+            }
+            MapSession session = new MapSession(id);
+            session.setCreationTime(Instant.ofEpochMilli(rs.getLong("created_at")));
+            session.setLastAccessedTime(Instant.ofEpochMilli(rs.getLong("last_accessed_at")));
+            session.setMaxInactiveInterval(Duration.ofSeconds(rs.getInt("max_inactive_seconds")));
+            try {
+                deserialize(rs.getBytes("attributes")).forEach(session::setAttribute);
+            } catch (SerializationFailedException e) {
+                /* written by a release whose classes no longer match, the user has to sign in again */
+                log.warn("Dropping unreadable session: {}", e.getMessage());
+                return null;
+            }
+            return new JdbcSession(session, false);
+        }, id);
+        if (found.isEmpty()) {
+            return null;
+        }
+        if (found.getFirst() == null) {
+            deleteById(id);
+            return null;
+        }
+        JdbcSession session = found.getFirst();
+        /* an access this node has not written yet counts, otherwise every request would queue the same touch again */
+        Pending pending = touches.get(id);
+        if (pending != null && pending.lastAccessedAt() > session.storedLastAccess.toEpochMilli()) {
+            session.storedLastAccess = Instant.ofEpochMilli(pending.lastAccessedAt());
+        }
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        touches.remove(id);
+        jdbcTemplate.update(DELETE, id);
+    }
+
+    @Scheduled(fixedDelayString = "${app.session.touch-flush-ms:10000}")
+    public void flushTouches() {
+        if (touches.isEmpty()) {
+            return;
+        }
+        Map<String, Pending> batch = new HashMap<>();
+        for (String id : touches.keySet()) {
+            Pending pending = touches.remove(id);
+            if (pending != null) {
+                batch.put(id, pending);
+            }
+        }
+        jdbcTemplate.batchUpdate(TOUCH, batch.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue().lastAccessedAt(), entry.getValue().expiresAt(),
+                        entry.getKey(), entry.getValue().lastAccessedAt()})
+                .toList());
+        touchWrites.increment(batch.size());
+    }
+
+    @Scheduled(cron = "${app.session.cleanup-cron:0 */5 * * * *}")
+    public void deleteExpired() {
+        if (store != SessionStore.JDBC) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(DELETE_EXPIRED, now, cleanupBatchSize);
+            total += deleted;
+        } while (deleted == cleanupBatchSize);
+        if (total > 0) {
+            log.info("Deleted {} expired sessions", total);
+        }
+    }
+
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        if (store == SessionStore.JDBC) {
+            jdbcTemplate.update(DELETE_OF_USER, event.userId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushTouches();
+    }
+
+    private long expiresAt(JdbcSession session) {
+        return session.getLastAccessedTime().plus(session.getMaxInactiveInterval()).plus(touchDelay).toEpochMilli();
+    }
+
+    private byte[] serialize(JdbcSession session) {
+        HashMap<String, Object> attributes = new HashMap<>();
+        session.getAttributeNames().forEach(name -> attributes.put(name, session.getAttribute(name)));
+        return serializer.convert(attributes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> deserialize(byte[] attributes) {
+        return (Map<String, Object>) deserializer.convert(attributes);
+    }
+
+    private static Long principalId(JdbcSession session) {
+        Object context = session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        if (context instanceof SecurityContext securityContext && securityContext.getAuthentication() != null
+                && securityContext.getAuthentication().getPrincipal() instanceof CustomUserDetails details) {
+            return details.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,192 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Events.GroupDeletedEvent;
+import org.application.tsiktsemestraljob.demo.Events.MembershipChangedEvent;
+import org.application.tsiktsemestraljob.demo.Events.UserDeletedEvent;
+import org.application.tsiktsemestraljob.demo.Repository.MembershipsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/*
+ * Bounded cache of (userId, groupId) -> role used by every authorization check.
+ * Reads are lock-free ConcurrentHashMap lookups, a missing membership is cached as Optional.empty().
+ * Entries are evicted when membership events are published: once immediately and once more after the
+ * surrounding transaction commits, so a reader that loaded the old row in between cannot keep it.
+ * The generation counter catches loads that raced with an eviction.
+ * Events only reach the node they happen on; with access tokens the membership version in the token tells
+ * every other node that the user's memberships changed since it last saw them, and their entries are dropped.
+ * Sessions carry no such version, so every entry also expires ttl-ms after it was loaded: a member removed or demoted
+ * on one node loses the old role on every other node within that time.
+ */
+@Component
+public class MembershipRoleCache {
+
+    private final MembershipsRepository membershipsRepository;
+    private final int maxSize;
+    private final long ttlMs;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    /* userId -> newest membership version seen in a token */
+    private final ConcurrentHashMap<Long, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public MembershipRoleCache(MembershipsRepository membershipsRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.membership-cache.max-size:10000}") int maxSize,
+                               @Value("${app.membership-cache.ttl-ms:5000}") long ttlMs) {
+        this(membershipsRepository, meterRegistry, maxSize, ttlMs, System::currentTimeMillis);
+    }
+
+    public MembershipRoleCache(MembershipsRepository membershipsRepository, MeterRegistry meterRegistry,
+                               int maxSize, long ttlMs, LongSupplier clock) {
+        this.membershipsRepository = membershipsRepository;
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+
+        FunctionCounter.builder("membership.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("membership.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("membership.cache.size", entries, ConcurrentHashMap::size)
+                .register(meterRegistry);
+    }
+
+    public Optional<MembershipRole> getRole(Long userId, Long groupId) {
+        Key key = new Key(userId, groupId);
+
+        Entry cached = entries.get(key);
+        long now = clock.getAsLong();
+        if (cached != null && now - cached.loadedAt() < ttlMs) {
+            hits.increment();
+            return cached.role();
+        }
+        misses.increment();
+
+        long seen = generation.get();
+        Entry loaded = new Entry(membershipsRepository.findRoleByUserIdAndGroupId(userId, groupId), now);
+
+        if (cached == null && entries.size() >= maxSize) {
+            evictOne();
+        }
+        entries.put(key, loaded);
+        if (generation.get() != seen) {
+            entries.remove(key, loaded);
+        }
+        return loaded.role();
+    }
+
+    /*
+     * Called for every request authenticated by an access token. The first token of a user seen here
+     * also drops their entries, they may have been loaded before a change made on another node.
+     */
+    public void observeVersion(Long userId, long version) {
+        Long known = versions.get(userId);
+        if (known != null && known >= version) {
+            return;
+        }
+        if (known == null && versions.size() >= maxSize) {
+            evictOneVersion();
+        }
+        boolean newer = known == null
+                ? versions.putIfAbsent(userId, version) == null
+                : versions.replace(userId, known, version);
+        if (newer) {
+            evictMatching(k -> k.userId().equals(userId));
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @EventListener
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        Key key = new Key(event.userId(), event.groupId());
+        evictNowAndAfterCommit(() -> evict(key));
+    }
+
+    @EventListener
+    public void onGroupDeleted(GroupDeletedEvent event) {
+        evictNowAndAfterCommit(() -> evictMatching(k -> k.groupId().equals(event.groupId())));
+    }
+
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        versions.remove(event.userId());
+        evictNowAndAfterCommit(() -> evictMatching(k -> k.userId().equals(event.userId())));
+    }
+
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private void evict(Key key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+    }
+
+    private void evictMatching(Predicate<Key> predicate) {
+        generation.incrementAndGet();
+        entries.keySet().removeIf(predicate);
+    }
+
+    private void evictOne() {
+        Iterator<Key> iterator = entries.keySet().iterator();
+        if (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private void evictOneVersion() {
+        Iterator<Long> iterator = versions.keySet().iterator();
+        if (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private record Key(Long userId, Long groupId) {}
+
+    private record Entry(Optional<MembershipRole> role, long loadedAt) {}
+}
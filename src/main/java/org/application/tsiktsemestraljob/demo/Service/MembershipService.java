@@ -1,49 +1,64 @@
 package org.application.tsiktsemestraljob.demo.Service;
 
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.ChangeEventMapper;
+import org.application.tsiktsemestraljob.demo.DTO.MembershipDTO.GroupMemberDTO;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.Cursor;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
+import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.Membership;
 import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
 import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.ChangeOperation;
 import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Events.MembershipChangedEvent;
 import org.application.tsiktsemestraljob.demo.Repository.MembershipsRepository;
 import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
 import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class MembershipService {
+    private static final String INSERT_MEMBERSHIP =
+            "insert into memberships (user_id, group_id, membership_role, joined_at, version) values (?, ?, ?, ?, 0)";
+
     private final MembershipsRepository membershipRepository;
     private final CurrentUser currentUser;
     private final ActivityLogsService activityLogsService;
     private final NotificationService notificationService;
+    private final MembershipRoleCache membershipRoleCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
 
     @Transactional
-    public List<Membership> getGroupMembers(Long groupId) {
-        User user = currentUser.getCurrentUser();
-
-        if (!isMember(user.getId(), groupId)) {
+    public CursorPageDTO<GroupMemberDTO> getGroupMembers(Long groupId, String cursor, Integer limit) {
+        if (!isMember(currentUser.id(), groupId)) {
             throw new AccessDeniedException("You are not a member of this group");
         }
 
-        return membershipRepository.findAllByStudyGroupGroupId(groupId);
+        int size = CursorPageDTO.clamp(limit);
+        List<GroupMemberDTO> rows = membershipRepository.findMemberPageAfter(groupId, Cursor.decode(cursor).id(), CursorPageDTO.probe(size));
+        return CursorPageDTO.of(rows, size, member -> Cursor.of(member.userId()));
     }
 
-    public List<StudyGroups> getUserGroups() {
-        User user = currentUser.getCurrentUser();
-
-        List<Membership> memberships = membershipRepository.findAllByUserId(user.getId());
+    public List<StudyGroupsResponseDTO> getUserGroups() {
+        return membershipRepository.findGroupDtosByUserId(currentUser.id());
+    }
 
-        return memberships.stream()
-                .map(Membership::getStudyGroup)
-                .toList();
+    public List<Long> getUserGroupIds() {
+        return membershipRepository.findGroupIdsByUserId(currentUser.id());
     }
 
     @Transactional
@@ -62,42 +77,57 @@ public class MembershipService {
             throw new AccessDeniedException("Cannot remove the owner of the group");
         }
 
-        notificationService.sendToUser(memberId,
-                "You have been removed from group " + groupId);
-        notificationService.sendToGroup(groupId,
-                "User " + memberId + " has been removed");
-
         membershipRepository.delete(membership);
+        notificationService.publishToUser(memberId, () -> ChangeEventMapper.member(ChangeOperation.DELETED, membership));
+        notificationService.publishToGroup(groupId, () -> ChangeEventMapper.member(ChangeOperation.DELETED, membership));
+        eventPublisher.publishEvent(new MembershipChangedEvent(memberId, groupId));
 
         activityLogsService.log(
                 current,
+                groupId,
                 "REMOVE_MEMBER",
                 "Removed user " + memberId + " from group " + groupId
         );
     }
 
+    /*
+     * Idempotent join: one insert that the unique key on (user_id, group_id) lets through at most once, so concurrent
+     * joins of the same user cannot create two rows. Empty when the membership was created now, otherwise the role
+     * the user already had, and then nothing is published. Only the duplicate key is tolerated, a foreign key or a
+     * bad value fails the join. The insert goes through JdbcTemplate on the transaction's connection: MySQL undoes just
+     * the failed statement, a failed JPA query would mark the whole transaction rollback-only.
+     */
     @Transactional
-    public Membership addMember(User user, StudyGroups group, MembershipRole role) {
-        if (membershipRepository.existsByUserIdAndStudyGroupGroupId(user.getId(), group.getGroupId())) {
-            return membershipRepository.findByUserIdAndStudyGroupGroupId(user.getId(), group.getGroupId())
-                    .orElseThrow();
+    public Optional<MembershipRole> addMember(User user, StudyGroups group, MembershipRole role) {
+        LocalDate joinedAt = LocalDate.now();
+        try {
+            jdbcTemplate.update(INSERT_MEMBERSHIP, user.getId(), group.getGroupId(), role.name(), joinedAt);
+        } catch (DuplicateKeyException e) {
+            /* a locking read, the row we collided with may have committed after our snapshot was taken */
+            return Optional.of(membershipRepository.findCommittedRole(user.getId(), group.getGroupId())
+                    .map(MembershipRole::valueOf)
+                    .orElseThrow(() -> new ConcurrencyFailureException(
+                            "Membership of user " + user.getId() + " in group " + group.getGroupId()
+                                    + " was removed while joining", e)));
         }
 
-        Membership m = new Membership();
-        m.setUser(user);
-        m.setStudyGroup(group);
-        m.setMembershipRole(role);
-
-        return membershipRepository.save(m);
+        Membership created = new Membership();
+        created.setUser(user);
+        created.setStudyGroup(group);
+        created.setMembershipRole(role);
+        created.setJoinedAt(joinedAt);
+        eventPublisher.publishEvent(new MembershipChangedEvent(user.getId(), group.getGroupId()));
+        notificationService.publishToGroup(group.getGroupId(), () -> ChangeEventMapper.member(ChangeOperation.CREATED, created));
+        return Optional.empty();
     }
 
     public boolean isMember(Long userId, Long groupId) {
-        return membershipRepository.existsByUserIdAndStudyGroupGroupId(userId, groupId);
+        return membershipRoleCache.getRole(userId, groupId).isPresent();
     }
 
     public boolean isOwner(Long userId, Long groupId) {
-        return membershipRepository.findByUserIdAndStudyGroupGroupId(userId, groupId)
-                .map(m -> m.getMembershipRole() == MembershipRole.OWNER)
+        return membershipRoleCache.getRole(userId, groupId)
+                .map(role -> role == MembershipRole.OWNER)
                 .orElse(false);
     }
 }
@@ -0,0 +1,111 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.ChangeBatchDTO;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.ChangeEventDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Turns the outbox rows of one dispatch round into as few frames as possible: the events of each destination become
+ * one frame, a single event is sent unchanged, more become a ChangeBatchDTO. When a destination has more than
+ * max-events events or the batch would exceed max-frame-bytes, an invalidate frame without events is sent instead,
+ * reloading the group once is cheaper than applying hundreds of deltas.
+ * Frames keep the order of the first row of each destination, events inside a frame keep outbox order.
+ * Batches of a group topic carry the seq of their last event, clients continue from it after an invalidate.
+ */
+@Component
+public class NotificationCoalescer {
+    public record Row(long id, String destination, String payload, Long seq) {}
+
+    public record Frame(String destination, byte[] payload, List<Long> rowIds) {}
+
+    private final ObjectMapper objectMapper;
+    private final int maxEvents;
+    private final int maxFrameBytes;
+
+    private final Counter single;
+    private final Counter batched;
+    private final Counter invalidated;
+    private final Counter framesSaved;
+
+    public NotificationCoalescer(ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.notification-outbox.coalesce-max-events:200}") int maxEvents,
+                                 @Value("${app.notification-outbox.coalesce-max-frame-bytes:262144}") int maxFrameBytes) {
+        this.objectMapper = objectMapper;
+        this.maxEvents = maxEvents;
+        this.maxFrameBytes = maxFrameBytes;
+
+        this.single = frames(meterRegistry, "single");
+        this.batched = frames(meterRegistry, "batch");
+        this.invalidated = frames(meterRegistry, "invalidate");
+        this.framesSaved = Counter.builder("notification_coalescer.frames_saved")
+                .description("Events delivered without a frame of their own")
+                .register(meterRegistry);
+    }
+
+    private static Counter frames(MeterRegistry meterRegistry, String kind) {
+        return Counter.builder("notification_coalescer.frames")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    public List<Frame> coalesce(List<Row> rows) {
+        Map<String, List<Row>> byDestination = new LinkedHashMap<>();
+        for (Row row : rows) {
+            byDestination.computeIfAbsent(row.destination(), d -> new ArrayList<>()).add(row);
+        }
+
+        List<Frame> frames = new ArrayList<>(byDestination.size());
+        byDestination.forEach((destination, events) -> frames.add(frame(destination, events)));
+        return frames;
+    }
+
+    /* the metrics count frames built, a frame that then fails to send is built again on the next round */
+    private Frame frame(String destination, List<Row> events) {
+        List<Long> ids = events.stream().map(Row::id).toList();
+        if (events.size() == 1) {
+            single.increment();
+            return new Frame(destination, events.getFirst().payload().getBytes(StandardCharsets.UTF_8), ids);
+        }
+
+        framesSaved.increment(events.size() - 1);
+        Long lastSeq = events.getLast().seq();
+        if (events.size() <= maxEvents) {
+            byte[] batch = toJson(new ChangeBatchDTO(ChangeEventDTO.SCHEMA_VERSION, false, lastSeq, events.stream().map(this::parse).toList()));
+            if (batch.length <= maxFrameBytes) {
+                batched.increment();
+                return new Frame(destination, batch, ids);
+            }
+        }
+        invalidated.increment();
+        return new Frame(destination, toJson(new ChangeBatchDTO(ChangeEventDTO.SCHEMA_VERSION, true, lastSeq, List.of())), ids);
+    }
+
+    private JsonNode parse(Row row) {
+        try {
+            return objectMapper.readTree(row.payload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox row " + row.id() + " is not valid JSON", e);
+        }
+    }
+
+    private byte[] toJson(ChangeBatchDTO batch) {
+        try {
+            return objectMapper.writeValueAsBytes(batch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change batch", e);
+        }
+    }
+}
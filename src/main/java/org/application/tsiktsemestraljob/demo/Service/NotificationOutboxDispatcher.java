@@ -0,0 +1,251 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Publishes the rows of notification_outbox to the broker. A single dispatcher thread takes the oldest batch-size rows
+ * under FOR UPDATE, sends them in outbox_id order and deletes the sent rows in the same transaction, so events of a
+ * group go out in commit order. It is woken after every commit that wrote events and polls every poll-interval-ms
+ * for rows of other instances or of a previous run. After a wake-up it waits up to coalesce-window-ms, or until
+ * coalesce-max-events events are waiting, so a burst is read in one round and the NotificationCoalescer sends
+ * one frame per destination instead of one per event.
+ * Events of group topics get their per-group sequence number from the GroupEventLog here, in the order they are sent.
+ * Delivery is at-least-once: a crash between sending and committing the delete sends those rows again,
+ * clients drop them by the eventId in the payload. When sending fails the batch stops at that frame and the rest
+ * is retried on the next poll, later rows never overtake it.
+ */
+@Slf4j
+@Component
+public class NotificationOutboxDispatcher {
+    private static final String SELECT = "select outbox_id, destination, group_id, payload, created_at from notification_outbox order by outbox_id limit ? for update";
+    private static final String DELETE = "delete from notification_outbox where outbox_id = ?";
+    private static final RowMapper<OutboxRow> ROW_MAPPER = (rs, rowNum) -> new OutboxRow(
+            rs.getLong("outbox_id"), rs.getString("destination"), rs.getObject("group_id", Long.class), rs.getString("payload"),
+            rs.getObject("created_at", LocalDateTime.class));
+
+    record OutboxRow(long id, String destination, Long groupId, String payload, LocalDateTime createdAt) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationCoalescer coalescer;
+    private final GroupEventLog groupEventLog;
+    private final TransactionTemplate dispatchTransaction;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long windowMs;
+    private final int windowEvents;
+    private final long shutdownTimeoutMs;
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final AtomicLong lagMs = new AtomicLong();
+
+    private final Timer deliveryLag;
+    private final Timer addedLatency;
+    private final Counter published;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public NotificationOutboxDispatcher(JdbcTemplate jdbcTemplate,
+                                        SimpMessagingTemplate messagingTemplate,
+                                        NotificationCoalescer coalescer,
+                                        GroupEventLog groupEventLog,
+                                        PlatformTransactionManager transactionManager,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.notification-outbox.batch-size:500}") int batchSize,
+                                        @Value("${app.notification-outbox.poll-interval-ms:1000}") long pollIntervalMs,
+                                        @Value("${app.notification-outbox.coalesce-window-ms:100}") long windowMs,
+                                        @Value("${app.notification-outbox.coalesce-max-events:200}") int windowEvents,
+                                        @Value("${app.notification-outbox.shutdown-timeout-ms:5000}") long shutdownTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.coalescer = coalescer;
+        this.groupEventLog = groupEventLog;
+        this.dispatchTransaction = new TransactionTemplate(transactionManager);
+        /* no gap locks at the end of the table, requests inserting new rows never wait for the dispatcher */
+        this.dispatchTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.windowMs = windowMs;
+        this.windowEvents = windowEvents;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        Gauge.builder("notification_outbox.lag", lagMs, AtomicLong::get)
+                .description("Age of the oldest unpublished event at the last poll")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.deliveryLag = Timer.builder("notification_outbox.delivery")
+                .description("Time from writing an event to publishing it")
+                .register(meterRegistry);
+        this.addedLatency = Timer.builder("notification_coalescer.added_latency")
+                .description("Time the dispatcher waited for more events after a wake-up")
+                .register(meterRegistry);
+        this.published = events(meterRegistry, "published");
+        this.failed = events(meterRegistry, "failed");
+    }
+
+    private static Counter events(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("notification_outbox.events")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "notification-outbox-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public void wakeUp(int events) {
+        wakeUps.release(events);
+    }
+
+    /* Publishes everything in the outbox right now on the calling thread, returns the number of events sent. */
+    public int drain() {
+        int total = 0;
+        int sent;
+        do {
+            sent = dispatchBatch();
+            total += sent;
+        } while (sent == batchSize);
+        return total;
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                if (wakeUps.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS) && windowMs > 0) {
+                    long start = System.nanoTime();
+                    wakeUps.tryAcquire(Math.max(windowEvents - 1, 0), windowMs, TimeUnit.MILLISECONDS);
+                    addedLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                wakeUps.drainPermits();
+                drain();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("Notification outbox dispatch failed: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Notification outbox dispatch failed", e);
+            }
+        }
+    }
+
+    /* returns the number of events sent, fewer than batch-size when the outbox ran empty or sending failed */
+    private int dispatchBatch() {
+        Integer sent = dispatchTransaction.execute(status -> {
+            List<OutboxRow> rows = jdbcTemplate.query(SELECT, ROW_MAPPER, batchSize);
+            LocalDateTime now = LocalDateTime.now();
+            lagMs.set(rows.isEmpty() ? 0 : Duration.between(rows.getFirst().createdAt(), now).toMillis());
+
+            Map<Long, OutboxRow> outboxRows = new HashMap<>();
+            rows.forEach(row -> outboxRows.put(row.id(), row));
+            Map<Long, NotificationCoalescer.Row> sequenced = sequence(rows);
+            List<NotificationCoalescer.Frame> frames = coalescer.coalesce(List.copyOf(sequenced.values()));
+
+            List<Object[]> done = new ArrayList<>(rows.size());
+            for (NotificationCoalescer.Frame frame : frames) {
+                try {
+                    messagingTemplate.send(frame.destination(), toMessage(frame));
+                } catch (MessagingException e) {
+                    failed.increment(frame.rowIds().size());
+                    log.warn("Publishing {} outbox events to {} failed, retrying on the next poll: {}",
+                            frame.rowIds().size(), frame.destination(), e.getMessage());
+                    break;
+                }
+                for (Long id : frame.rowIds()) {
+                    done.add(new Object[]{id});
+                    deliveryLag.record(Duration.between(outboxRows.get(id).createdAt(), now));
+                }
+                Long groupId = outboxRows.get(frame.rowIds().getFirst()).groupId();
+                if (groupId != null) {
+                    groupEventLog.record(groupId, frame.rowIds().stream()
+                            .map(sequenced::get)
+                            .map(row -> new GroupEventLog.Event(row.seq(), row.payload()))
+                            .toList());
+                }
+            }
+            if (!done.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE, done);
+                published.increment(done.size());
+            }
+            if (done.size() == rows.size() && rows.size() < batchSize) {
+                lagMs.set(0);
+            }
+            return done.size();
+        });
+        return sent == null ? 0 : sent;
+    }
+
+    /* numbers the events of each group after the last recorded one, keeping outbox order */
+    private Map<Long, NotificationCoalescer.Row> sequence(List<OutboxRow> rows) {
+        Map<Long, Long> lastSeq = new HashMap<>();
+        Map<Long, NotificationCoalescer.Row> sequenced = new LinkedHashMap<>();
+        for (OutboxRow row : rows) {
+            Long seq = null;
+            String payload = row.payload();
+            if (row.groupId() != null) {
+                seq = lastSeq.computeIfAbsent(row.groupId(), groupEventLog::lastSeq) + 1;
+                lastSeq.put(row.groupId(), seq);
+                /* the payload is always a serialized ChangeEventDTO object, seq goes in front of its first field */
+                payload = "{\"seq\":" + seq + "," + payload.substring(1);
+            }
+            sequenced.put(row.id(), new NotificationCoalescer.Row(row.id(), row.destination(), payload, seq));
+        }
+        return sequenced;
+    }
+
+    private static Message<byte[]> toMessage(NotificationCoalescer.Frame frame) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create();
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(frame.payload(), headers.getMessageHeaders());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (dispatcher != null) {
+            wakeUps.release(windowEvents);
+            dispatcher.join(shutdownTimeoutMs);
+            if (dispatcher.isAlive()) {
+                log.warn("Notification outbox dispatcher did not stop within {} ms", shutdownTimeoutMs);
+            }
+        }
+    }
+}
@@ -1,20 +1,92 @@
 package org.application.tsiktsemestraljob.demo.Service;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.ChangeEventDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+ * Writes typed change events to notification_outbox in the transaction of the change itself; the
+ * NotificationOutboxDispatcher publishes them after commit, so rolled back changes are never announced and
+ * the broker is off the request path. The events are built just before commit, after a flush,
+ * so they carry the row versions the commit writes.
+ */
 @Service
-@RequiredArgsConstructor
 public class NotificationService {
+    private static final String GROUP_TOPIC = "/topic/group/";
+    private static final String USER_QUEUE = "/queue/user/";
+    private static final String INSERT = "insert into notification_outbox (destination, group_id, payload, created_at) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final NotificationOutboxDispatcher dispatcher;
+
+    public NotificationService(JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper,
+                               EntityManager entityManager,
+                               NotificationOutboxDispatcher dispatcher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.dispatcher = dispatcher;
+    }
 
-    private final SimpMessagingTemplate messagingTemplate;
+    public void publishToGroup(Long groupId, Supplier<ChangeEventDTO> event) {
+        enqueue(GROUP_TOPIC + groupId, groupId, () -> List.of(event.get()));
+    }
+
+    public void publishAllToGroup(Long groupId, Supplier<List<ChangeEventDTO>> events) {
+        enqueue(GROUP_TOPIC + groupId, groupId, events);
+    }
+
+    public void publishToUser(Long userId, Supplier<ChangeEventDTO> event) {
+        enqueue(USER_QUEUE + userId, null, () -> List.of(event.get()));
+    }
+
+    private void enqueue(String destination, Long groupId, Supplier<List<ChangeEventDTO>> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatcher.wakeUp(insert(destination, groupId, events.get()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private int written;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                entityManager.flush();
+                written = insert(destination, groupId, events.get());
+            }
+
+            @Override
+            public void afterCommit() {
+                dispatcher.wakeUp(written);
+            }
+        });
+    }
 
-    public void sendToGroup(Long groupId, String message) {
-        messagingTemplate.convertAndSend("/topic/group/" + groupId, message);
+    private int insert(String destination, Long groupId, List<ChangeEventDTO> events) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = events.stream()
+                .map(event -> new Object[]{destination, groupId, toJson(event), now})
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT, rows);
+        return rows.size();
     }
 
-    public void sendToUser(Long userId, String message) {
-        messagingTemplate.convertAndSend("/queue/user/" + userId, message);
+    private String toJson(ChangeEventDTO event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change event " + event.eventId(), e);
+        }
     }
 }
@@ -0,0 +1,149 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponseException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ * The PasswordEncoder of the application. BCrypt runs on its own pool of pool-size threads with at most
+ * queue-capacity hashes waiting; anything beyond is answered with 503 and Retry-After instead of queueing, so a login
+ * storm at semester start occupies a bounded number of request threads and the read endpoints keep being served.
+ * With strength 0 the cost is calibrated at startup: one hash at min-strength is timed and the cost raised while the
+ * doubled time stays within target-ms. A stored hash of a lower cost is replaced on the next successful login,
+ * DaoAuthenticationProvider asks upgradeEncoding and hands the new hash to UserService.updatePassword.
+ */
+@Slf4j
+@Component
+public class PasswordHashingService implements PasswordEncoder {
+    private final BCryptPasswordEncoder bcrypt;
+    private final int strength;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+
+    public PasswordHashingService(MeterRegistry meterRegistry,
+                                  @Value("${app.password-hashing.pool-size:0}") int poolSize,
+                                  @Value("${app.password-hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.password-hashing.strength:0}") int strength,
+                                  @Value("${app.password-hashing.target-ms:250}") long targetMs,
+                                  @Value("${app.password-hashing.min-strength:10}") int minStrength,
+                                  @Value("${app.password-hashing.max-strength:14}") int maxStrength,
+                                  @Value("${app.password-hashing.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.strength = strength > 0 ? strength : calibrate(targetMs, minStrength, maxStrength);
+        this.bcrypt = new BCryptPasswordEncoder(this.strength);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.meterRegistry = meterRegistry;
+
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("password.hash.queue.depth", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("password.hash.strength", this, service -> service.strength)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.hash.rejected")
+                .description("Hashes refused because the queue was full")
+                .register(meterRegistry);
+        log.info("Password hashing uses BCrypt strength {} on {} threads", this.strength, threads);
+    }
+
+    /* the cost doubles with every step, so the time at min-strength tells how many steps fit into the target */
+    private static int calibrate(long targetMs, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode("calibration");
+        long started = System.nanoTime();
+        probe.encode("calibration");
+        double elapsedMs = Math.max((System.nanoTime() - started) / 1_000_000.0, 0.001);
+
+        int calibrated = minStrength;
+        while (calibrated < maxStrength && elapsedMs * 2 <= targetMs) {
+            calibrated++;
+            elapsedMs *= 2;
+        }
+        return calibrated;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute("encode", () -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute("matches", () -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    /* runs hashing work on the pool and waits for it, the caller's thread does no hashing itself */
+    public <T> T execute(String operation, Supplier<T> hashing) {
+        Timer latency = Timer.builder("password.hash.latency")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        Future<T> result;
+        try {
+            result = executor.submit(() -> latency.record(hashing));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw busy();
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private ErrorResponseException busy() {
+        ErrorResponseException exception = new ErrorResponseException(HttpStatus.SERVICE_UNAVAILABLE);
+        exception.setDetail("Too many sign-ins at the moment, please retry shortly");
+        exception.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return exception;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
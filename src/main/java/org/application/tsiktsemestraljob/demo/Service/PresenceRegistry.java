@@ -0,0 +1,295 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.DTO.PresenceDTO.PresenceDiffDTO;
+import org.application.tsiktsemestraljob.demo.DTO.PresenceDTO.PresenceSnapshotDTO;
+import org.application.tsiktsemestraljob.demo.Enums.WebSocketBrokerMode;
+import org.application.tsiktsemestraljob.demo.Events.GroupDeletedEvent;
+import org.application.tsiktsemestraljob.demo.Events.MembershipChangedEvent;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Who is online in which group, driven by the STOMP session events instead of polling the member list.
+ * A member is online in a group while at least one of their sessions subscribes to /topic/group/{id}; every update
+ * touches one session and one group entry, and the per-group work runs inside ConcurrentHashMap.compute so two
+ * sessions of the same group are serialized without a global lock. Any inbound frame, heartbeats included, marks the
+ * session as alive, sessions silent for longer than ttl-ms are dropped in case their disconnect event never came.
+ * Changes are collected per group and sent as one PresenceDiffDTO to /topic/group/{id}/presence every flush-ms, a
+ * member who comes and goes within the interval cancels out. SubscriptionInterceptor keeps non-members off the group
+ * topics, so neither the diffs nor the group's messages reach them.
+ * Only this node's sessions are known. With the RELAY broker the diffs reach every node's clients, but the snapshot
+ * shows only the members connected to this node, so the registry warns at startup until presence is shared.
+ */
+@Slf4j
+@Component
+public class PresenceRegistry implements ChannelInterceptor {
+    private static final String GROUP_TOPIC = "/topic/group/";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final AbstractSubscribableChannel clientInboundChannel;
+    private final MembershipRoleCache membershipRoleCache;
+    private final CurrentUser currentUser;
+    private final long ttlMs;
+    private final WebSocketBrokerMode brokerMode;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    /* groupId -> userId -> ids of that user's sessions subscribed to the group */
+    private final ConcurrentHashMap<Long, Map<Long, Set<String>>> online = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Diff> pending = new ConcurrentHashMap<>();
+
+    private static final class Session {
+        private final long userId;
+        /* subscriptionId -> groupId */
+        private final Map<String, Long> groups = new ConcurrentHashMap<>();
+        private volatile long lastSeen = System.currentTimeMillis();
+
+        private Session(long userId) {
+            this.userId = userId;
+        }
+    }
+
+    private static final class Diff {
+        private final Set<Long> joined = new LinkedHashSet<>();
+        private final Set<Long> left = new LinkedHashSet<>();
+    }
+
+    public PresenceRegistry(SimpMessageSendingOperations messagingTemplate,
+                            @Qualifier("clientInboundChannel") AbstractSubscribableChannel clientInboundChannel,
+                            MembershipRoleCache membershipRoleCache,
+                            CurrentUser currentUser,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.presence.ttl-ms:30000}") long ttlMs,
+                            @Value("${app.websocket.broker:SIMPLE}") WebSocketBrokerMode brokerMode) {
+        this.messagingTemplate = messagingTemplate;
+        this.clientInboundChannel = clientInboundChannel;
+        this.membershipRoleCache = membershipRoleCache;
+        this.currentUser = currentUser;
+        this.ttlMs = ttlMs;
+        this.brokerMode = brokerMode;
+
+        Gauge.builder("presence.sessions", sessions, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("presence.groups", online, Map::size)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        clientInboundChannel.addInterceptor(this);
+        if (brokerMode == WebSocketBrokerMode.RELAY) {
+            log.warn("Presence is tracked per node; with the RELAY broker each snapshot lists only the members "
+                    + "connected to this node");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clientInboundChannel.removeInterceptor(this);
+    }
+
+    public PresenceSnapshotDTO getSnapshot(Long groupId) {
+        /* the cache is used directly, as in GroupEventLog */
+        if (membershipRoleCache.getRole(currentUser.id(), groupId).isEmpty()) {
+            throw new AccessDeniedException("You are not a member of this group");
+        }
+        return snapshot(groupId);
+    }
+
+    public PresenceSnapshotDTO snapshot(Long groupId) {
+        Map<Long, Set<String>> users = online.get(groupId);
+        return new PresenceSnapshotDTO(groupId, users == null ? List.of() : List.copyOf(users.keySet()));
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Long userId = userId(event.getUser());
+        if (userId != null) {
+            sessions.putIfAbsent(sessionId(event.getMessage()), new Session(userId));
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Session session = sessions.get(headers.getSessionId());
+        Long groupId = groupId(headers.getDestination());
+        if (session == null || groupId == null || headers.getSubscriptionId() == null) {
+            return;
+        }
+        /* SubscriptionInterceptor already refused non-members, the check covers a membership removed since then */
+        if (membershipRoleCache.getRole(session.userId, groupId).isEmpty()) {
+            return;
+        }
+        Long previous = session.groups.put(headers.getSubscriptionId(), groupId);
+        join(groupId, session.userId, headers.getSessionId());
+        if (previous != null && !session.groups.containsValue(previous)) {
+            leave(previous, session.userId, headers.getSessionId());
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Session session = sessions.get(headers.getSessionId());
+        Long groupId = session == null ? null : session.groups.remove(headers.getSubscriptionId());
+        if (groupId != null && !session.groups.containsValue(groupId)) {
+            leave(groupId, session.userId, headers.getSessionId());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        end(event.getSessionId());
+    }
+
+    /* a removed member disappears at once, even while a subscription made before the removal is still open */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        if (membershipRoleCache.getRole(event.userId(), event.groupId()).isPresent()) {
+            return;
+        }
+        online.computeIfPresent(event.groupId(), (id, users) -> {
+            if (users.remove(event.userId()) != null) {
+                changed(id, event.userId(), false);
+            }
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    @EventListener
+    public void onGroupDeleted(GroupDeletedEvent event) {
+        online.remove(event.groupId());
+        pending.remove(event.groupId());
+    }
+
+    /* every inbound frame of a session, heartbeats included, proves it is alive */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = sessionId(message);
+        Session session = sessionId == null ? null : sessions.get(sessionId);
+        if (session != null) {
+            session.lastSeen = System.currentTimeMillis();
+        }
+        return message;
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.sweep-ms:10000}")
+    public void expireIdleSessions() {
+        expireIdleSince(System.currentTimeMillis() - ttlMs);
+    }
+
+    public void expireIdleSince(long cutoff) {
+        sessions.forEach((sessionId, session) -> {
+            if (session.lastSeen < cutoff) {
+                end(sessionId);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.presence.flush-ms:1000}")
+    public void flush() {
+        for (Long groupId : pending.keySet()) {
+            Diff diff = pending.remove(groupId);
+            if (diff != null) {
+                messagingTemplate.convertAndSend(GROUP_TOPIC + groupId + "/presence",
+                        new PresenceDiffDTO(groupId, List.copyOf(diff.joined), List.copyOf(diff.left)));
+            }
+        }
+    }
+
+    private void end(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session != null) {
+            session.groups.values().stream().distinct().forEach(groupId -> leave(groupId, session.userId, sessionId));
+        }
+    }
+
+    private void join(long groupId, long userId, String sessionId) {
+        online.compute(groupId, (id, users) -> {
+            Map<Long, Set<String>> members = users == null ? new ConcurrentHashMap<>() : users;
+            Set<String> userSessions = members.get(userId);
+            if (userSessions == null) {
+                userSessions = ConcurrentHashMap.newKeySet();
+                members.put(userId, userSessions);
+                changed(groupId, userId, true);
+            }
+            userSessions.add(sessionId);
+            return members;
+        });
+    }
+
+    private void leave(long groupId, long userId, String sessionId) {
+        online.computeIfPresent(groupId, (id, users) -> {
+            Set<String> userSessions = users.get(userId);
+            if (userSessions != null && userSessions.remove(sessionId) && userSessions.isEmpty()) {
+                users.remove(userId);
+                changed(groupId, userId, false);
+            }
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    private void changed(long groupId, long userId, boolean joined) {
+        pending.compute(groupId, (id, diff) -> {
+            Diff changes = diff == null ? new Diff() : diff;
+            Set<Long> same = joined ? changes.joined : changes.left;
+            Set<Long> opposite = joined ? changes.left : changes.joined;
+            if (!opposite.remove(userId)) {
+                same.add(userId);
+            }
+            return changes.joined.isEmpty() && changes.left.isEmpty() ? null : changes;
+        });
+    }
+
+    private static Long groupId(String destination) {
+        if (destination == null || !destination.startsWith(GROUP_TOPIC)) {
+            return null;
+        }
+        String id = destination.substring(GROUP_TOPIC.length());
+        if (id.isEmpty() || id.length() > 18 || !id.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return Long.parseLong(id);
+    }
+
+    private static Long userId(Principal user) {
+        if (user instanceof Authentication auth && auth.getPrincipal() instanceof CustomUserDetails details) {
+            return details.getId();
+        }
+        return null;
+    }
+
+    private static String sessionId(Message<?> message) {
+        return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    }
+}
@@ -0,0 +1,217 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.Entities.PurgeJob;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeStatus;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeTarget;
+import org.application.tsiktsemestraljob.demo.Events.GroupDeletedEvent;
+import org.application.tsiktsemestraljob.demo.Events.UserDeletedEvent;
+import org.application.tsiktsemestraljob.demo.Repository.PurgeJobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * Deletes a group or a user together with every row that references it, without loading anything into the
+ * persistence context. Each child table is emptied with "delete ... limit n" statements, every chunk in its own
+ * short transaction that also records the job's progress. All steps are plain deletes by foreign key, so running
+ * a job again after a crash just continues where the rows end; unfinished jobs are resumed on startup.
+ * Jobs run one at a time on a single background thread.
+ */
+@Slf4j
+@Service
+public class PurgeService {
+    private static final Set<PurgeStatus> UNFINISHED = EnumSet.of(PurgeStatus.PENDING, PurgeStatus.RUNNING);
+
+    private final PurgeJobRepository purgeJobRepository;
+    private final CurrentUser currentUser;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Executor executor;
+    private final int chunkSize;
+
+    @Autowired
+    public PurgeService(PurgeJobRepository purgeJobRepository,
+                        CurrentUser currentUser,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        ApplicationEventPublisher eventPublisher,
+                        @Value("${app.purge.chunk-size:500}") int chunkSize) {
+        this(purgeJobRepository, currentUser, jdbcTemplate, transactionManager, eventPublisher, chunkSize,
+                Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "purge-worker")));
+    }
+
+    public PurgeService(PurgeJobRepository purgeJobRepository,
+                        CurrentUser currentUser,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        ApplicationEventPublisher eventPublisher,
+                        int chunkSize,
+                        Executor executor) {
+        this.purgeJobRepository = purgeJobRepository;
+        this.currentUser = currentUser;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+    }
+
+    /*
+     * Creates the job, or returns the one already running for the same target.
+     * The worker starts only after the caller's transaction commits, before that it could not see the job row.
+     */
+    @Transactional
+    public PurgeJob submit(PurgeTarget targetType, Long targetId, Long requestedBy) {
+        PurgeJob job = purgeJobRepository.findFirstByTargetTypeAndTargetIdAndStatusIn(targetType, targetId, UNFINISHED)
+                .orElseGet(() -> {
+                    PurgeJob created = new PurgeJob();
+                    created.setTargetType(targetType);
+                    created.setTargetId(targetId);
+                    created.setStatus(PurgeStatus.PENDING);
+                    created.setRequestedBy(requestedBy);
+                    return purgeJobRepository.save(created);
+                });
+
+        Long jobId = job.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(() -> run(jobId));
+                }
+            });
+        } else {
+            executor.execute(() -> run(jobId));
+        }
+        return job;
+    }
+
+    public PurgeJob getJob(Long jobId) {
+        PurgeJob job = purgeJobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Purge job not found"));
+        if (!job.getRequestedBy().equals(currentUser.id())) {
+            throw new AccessDeniedException("Only the user who started the purge can follow it");
+        }
+        return job;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        List<PurgeJob> unfinished = purgeJobRepository.findAllByStatusIn(UNFINISHED);
+        for (PurgeJob job : unfinished) {
+            Long jobId = job.getId();
+            executor.execute(() -> run(jobId));
+        }
+    }
+
+    public void run(Long jobId) {
+        PurgeJob job = chunkTransaction.execute(status -> {
+            PurgeJob current = purgeJobRepository.findById(jobId).orElse(null);
+            if (current == null || !UNFINISHED.contains(current.getStatus())) {
+                return null;
+            }
+            current.setStatus(PurgeStatus.RUNNING);
+            current.setUpdatedAt(LocalDateTime.now());
+            return current;
+        });
+        if (job == null) {
+            return;
+        }
+
+        try {
+            if (job.getTargetType() == PurgeTarget.GROUP) {
+                purgeGroup(jobId, job.getTargetId());
+            } else {
+                purgeUser(jobId, job.getTargetId());
+            }
+            finish(jobId, PurgeStatus.COMPLETED, null);
+        } catch (RuntimeException e) {
+            log.error("Purge job {} failed", jobId, e);
+            finish(jobId, PurgeStatus.FAILED, e.getMessage());
+        }
+    }
+
+    /*
+     * memberships go first so that nobody passes an access check on a group that is being deleted,
+     * their users' membership versions are bumped while the rows still say who they are
+     */
+    private void purgeGroup(Long jobId, Long groupId) {
+        chunkTransaction.executeWithoutResult(status -> jdbcTemplate.update("update users " +
+                "set membership_version = membership_version + 1 " +
+                "where user_id in (select user_id from memberships where group_id = ?)", groupId));
+        deleteInChunks(jobId, "memberships", "group_id", groupId);
+        eventPublisher.publishEvent(new GroupDeletedEvent(groupId));
+        deleteInChunks(jobId, "invitation_tokens", "group_id", groupId);
+        deleteInChunks(jobId, "tasks", "group_id", groupId);
+        deleteInChunks(jobId, "resources", "group_id", groupId);
+        deleteInChunks(jobId, "study_groups", "group_id", groupId);
+    }
+
+    private void purgeUser(Long jobId, Long userId) {
+        List<Long> ownedGroups;
+        while (!(ownedGroups = jdbcTemplate.queryForList(
+                "select group_id from study_groups where created_by = ? limit 100", Long.class, userId)).isEmpty()) {
+            ownedGroups.forEach(groupId -> purgeGroup(jobId, groupId));
+        }
+
+        deleteInChunks(jobId, "memberships", "user_id", userId);
+        eventPublisher.publishEvent(new UserDeletedEvent(userId));
+        deleteInChunks(jobId, "invitation_tokens", "created_by", userId);
+        deleteInChunks(jobId, "tasks", "created_by", userId);
+        deleteInChunks(jobId, "resources", "uploaded_by", userId);
+        deleteInChunks(jobId, "activity_log", "user_id", userId);
+        deleteInChunks(jobId, "users", "user_id", userId);
+    }
+
+    private void deleteInChunks(Long jobId, String table, String column, Long id) {
+        String sql = "delete from " + table + " where " + column + " = ? limit " + chunkSize;
+        Integer deleted;
+        do {
+            deleted = chunkTransaction.execute(status -> {
+                int rows = jdbcTemplate.update(sql, id);
+                purgeJobRepository.recordProgress(jobId, table, rows, LocalDateTime.now());
+                return rows;
+            });
+        } while (deleted != null && deleted >= chunkSize);
+    }
+
+    private void finish(Long jobId, PurgeStatus status, String error) {
+        chunkTransaction.executeWithoutResult(tx -> purgeJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setError(error == null ? null : error.substring(0, Math.min(error.length(), 255)));
+            job.setUpdatedAt(LocalDateTime.now());
+        }));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+}
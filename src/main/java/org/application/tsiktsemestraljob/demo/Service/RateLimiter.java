@@ -0,0 +1,195 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+ * Token buckets per caller and route group. Each rule "pattern=perSecond/burst" of app.rate-limit.rules is a route
+ * group, the first rule whose pattern matches the path applies and paths matching none are not limited.
+ * A bucket is kept as the single number GCRA needs, the time at which it would be full again, in an AtomicLong of a
+ * ConcurrentHashMap: a request is one map lookup and one compareAndSet, no lock is taken. A bucket that is full again
+ * carries no information and is dropped by the sweep, so memory follows the callers active in the last sweep-ms.
+ * The sweep may race with a request on the same bucket and forget that one request, which only ever allows one more.
+ * max-buckets bounds the map. A new caller arriving at the cap triggers an extra sweep, at most one per second across
+ * all threads. If the map is still full after that sweep, the new caller is refused with 429 and told to retry after a
+ * second. Callers that already have a bucket are unaffected, so a flood of new keys cannot make every request scan the
+ * map.
+ * Plain "/prefix/**" patterns, which is what the rules normally are, are matched as strings without parsing the path.
+ */
+@Component
+public class RateLimiter {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long CAP_SWEEP_INTERVAL_NANOS = NANOS_PER_SECOND;
+
+    private final boolean enabled;
+    private final List<Rule> rules;
+    private final int maxBuckets;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Key, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastCapSweep;
+
+    /* prefix is set for patterns of the form "/prefix/**", which match without a PathPattern */
+    public record Rule(int index, String pattern, String prefix, PathPattern matcher, long intervalNanos, int burst,
+                       Counter allowed, Counter throttled) {}
+
+    /* remaining and the two times are for the response headers; a throttled request may retry after retryAfterNanos */
+    public record Decision(Rule rule, boolean allowed, long remaining, long resetNanos, long retryAfterNanos) {}
+
+    private record Key(String caller, int rule) {}
+
+    @Autowired
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${app.rate-limit.rules:}") List<String> rules,
+                       @Value("${app.rate-limit.max-buckets:100000}") int maxBuckets) {
+        this(meterRegistry, enabled, rules, maxBuckets, System::nanoTime);
+    }
+
+    public RateLimiter(MeterRegistry meterRegistry, boolean enabled, List<String> rules, int maxBuckets,
+                       LongSupplier clock) {
+        this.enabled = enabled;
+        this.maxBuckets = maxBuckets;
+        this.clock = clock;
+        this.lastCapSweep = new AtomicLong(clock.getAsLong() - CAP_SWEEP_INTERVAL_NANOS);
+        this.rules = new ArrayList<>();
+        for (String rule : rules) {
+            if (!rule.isBlank()) {
+                this.rules.add(parse(this.rules.size(), rule.trim(), meterRegistry));
+            }
+        }
+
+        Gauge.builder("ratelimit.buckets", buckets, Map::size)
+                .register(meterRegistry);
+    }
+
+    /* "/api/tasks/**=20/40" allows 20 requests per second with bursts of up to 40 */
+    private static Rule parse(int index, String rule, MeterRegistry meterRegistry) {
+        int equals = rule.lastIndexOf('=');
+        int slash = rule.lastIndexOf('/');
+        if (equals <= 0 || slash < equals) {
+            throw new IllegalArgumentException("Rate limit rule must look like pattern=perSecond/burst: " + rule);
+        }
+        String pattern = rule.substring(0, equals);
+        double perSecond = Double.parseDouble(rule.substring(equals + 1, slash));
+        int burst = Integer.parseInt(rule.substring(slash + 1));
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limit rule needs a positive rate and burst: " + rule);
+        }
+
+        return new Rule(index, pattern, prefix(pattern), PathPatternParser.defaultInstance.parse(pattern),
+                Math.max(1, Math.round(NANOS_PER_SECOND / perSecond)), burst,
+                requests(meterRegistry, pattern, "allowed"), requests(meterRegistry, pattern, "throttled"));
+    }
+
+    private static String prefix(String pattern) {
+        if (!pattern.endsWith("/**")) {
+            return null;
+        }
+        String prefix = pattern.substring(0, pattern.length() - 3);
+        return prefix.contains("*") || prefix.contains("?") || prefix.contains("{") ? null : prefix;
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String pattern, String result) {
+        return Counter.builder("ratelimit.requests")
+                .tag("rule", pattern)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled && !rules.isEmpty();
+    }
+
+    public List<Rule> getRules() {
+        return List.copyOf(rules);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    /* null when no rule covers the path */
+    public Decision tryAcquire(String caller, String path) {
+        Rule rule = match(path);
+        if (rule == null) {
+            return null;
+        }
+
+        long now = clock.getAsLong();
+        Key key = new Key(caller, rule.index());
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets && !sweepAtCap(now)) {
+                rule.throttled().increment();
+                return new Decision(rule, false, 0, 0, CAP_SWEEP_INTERVAL_NANOS);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        long capacity = rule.intervalNanos() * rule.burst();
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + rule.intervalNanos();
+            long debt = next - now;
+            if (debt > capacity) {
+                rule.throttled().increment();
+                return new Decision(rule, false, 0, Math.max(fullAt - now, 0), debt - capacity);
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                rule.allowed().increment();
+                return new Decision(rule, true, (capacity - debt) / rule.intervalNanos(), debt, 0);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-ms:60000}")
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        buckets.values().removeIf(fullAt -> fullAt.get() <= now);
+    }
+
+    /* true when there is room for a new bucket; the thread that wins the compareAndSet does the sweep */
+    private boolean sweepAtCap(long now) {
+        long last = lastCapSweep.get();
+        if (now - last >= CAP_SWEEP_INTERVAL_NANOS && lastCapSweep.compareAndSet(last, now)) {
+            evictIdle();
+        }
+        return buckets.size() < maxBuckets;
+    }
+
+    private Rule match(String path) {
+        PathContainer container = null;
+        for (Rule rule : rules) {
+            String prefix = rule.prefix();
+            if (prefix != null) {
+                if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                    return rule;
+                }
+                continue;
+            }
+            if (container == null) {
+                container = PathContainer.parsePath(path);
+            }
+            if (rule.matcher().matches(container)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+}
@@ -3,9 +3,14 @@ package org.application.tsiktsemestraljob.demo.Service;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.ChangeEventMapper;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.Cursor;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
+import org.application.tsiktsemestraljob.demo.DTO.ResourcesDTO.ResourcesResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.Resources;
 import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
 import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.ChangeOperation;
 import org.application.tsiktsemestraljob.demo.Repository.ResourcesRepository;
 import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
 import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
@@ -38,8 +43,10 @@ public class ResourcesService {
         return resourcesRepository.findAllByStudyGroup_GroupId(groupId);
     }
 
-    public List<Resources> findAll() {
-        return resourcesRepository.findAll();
+    public CursorPageDTO<ResourcesResponseDTO> getResourcesPage(String cursor, Integer limit) {
+        int size = CursorPageDTO.clamp(limit);
+        List<ResourcesResponseDTO> rows = resourcesRepository.findPageAfter(Cursor.decode(cursor).id(), CursorPageDTO.probe(size));
+        return CursorPageDTO.of(rows, size, resource -> Cursor.of(resource.id()));
     }
 
     @Transactional
@@ -51,10 +58,9 @@ public class ResourcesService {
         resources.setUploadedBy(creator);
         Resources saved = resourcesRepository.save(resources);
 
-        notificationService.sendToGroup(groupId,
-                "New resource created: " + saved.getTitle());
+        notificationService.publishToGroup(groupId, () -> ChangeEventMapper.resource(ChangeOperation.CREATED, saved));
 
-        activityLogsService.log(creator,
+        activityLogsService.log(creator, groupId,
                 "RESOURCE_CREATED",
                 "RESOURCE-ID: " + saved.getId());
         return saved;
@@ -80,13 +86,12 @@ public class ResourcesService {
            oldResources.setTitle(resources.getTitle());
            if(resources.getUploadedAt() != null) {oldResources.setUploadedAt(resources.getUploadedAt());}
 
-        notificationService.sendToGroup(resources.getStudyGroup().getGroupId(),
-                "Resource updated: " + resources.getTitle());
-
-           activityLogsService.log(currentUserr,
+           activityLogsService.log(currentUserr, oldResources.getStudyGroup().getGroupId(),
                    "UPDATE_RESOURCE"
            , "RESOURCE-ID: " + oldResources.getId());
-           return resourcesRepository.save(oldResources);
+           Resources saved = resourcesRepository.save(oldResources);
+           notificationService.publishToGroup(saved.getStudyGroup().getGroupId(), () -> ChangeEventMapper.resource(ChangeOperation.UPDATED, saved));
+           return saved;
     }
 
     @Transactional
@@ -98,13 +103,11 @@ public class ResourcesService {
             throw new AccessDeniedException("You are not owner of this resource");
         }
 
-        notificationService.sendToGroup(resources.getStudyGroup().getGroupId(),
-                "Resource deleted: " + resources.getTitle());
-
-        activityLogsService.log(currentUserr,
+        activityLogsService.log(currentUserr, resources.getStudyGroup().getGroupId(),
                 "DELETE_RESOURCES"
         , "RESOURCE-ID: " + resources.getId());
 
-        resourcesRepository.deleteById(id);
+        resourcesRepository.delete(resources);
+        notificationService.publishToGroup(resources.getStudyGroup().getGroupId(), () -> ChangeEventMapper.resource(ChangeOperation.DELETED, resources));
     }
 }
@@ -2,10 +2,15 @@ package org.application.tsiktsemestraljob.demo.Service;
 
 import lombok.RequiredArgsConstructor;
 import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.Cursor;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
+import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.Membership;
+import org.application.tsiktsemestraljob.demo.Entities.PurgeJob;
 import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
 import org.application.tsiktsemestraljob.demo.Entities.User;
 import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeTarget;
 import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
 import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
 import org.springframework.security.access.AccessDeniedException;
@@ -23,6 +28,7 @@ public class StudyGroupsService {
     private final MembershipService membershipService;
     private final ActivityLogsService activityLogsService;
     private final UserRepository userRepository;
+    private final PurgeService purgeService;
 
     @Transactional
     public StudyGroups create(Long id,StudyGroups group) {
@@ -39,7 +45,7 @@ public class StudyGroupsService {
         StudyGroups finalGroup = studyGroupsRepository.save(group);
         membershipService.addMember(creator, finalGroup, MembershipRole.OWNER);
 
-        activityLogsService.log(creator,
+        activityLogsService.log(creator, finalGroup.getGroupId(),
                 "CREATE_StudyGroup",
                 "STUDYGROUP-ID: " + finalGroup.getGroupId());
 
@@ -52,30 +58,36 @@ public class StudyGroupsService {
         StudyGroups group = studyGroupsRepository.findById(groupId).orElseThrow(()
                 -> new IllegalArgumentException("Group not found with id " + groupId));
 
-        membershipService.addMember(user, group, MembershipRole.MEMBER);
+        /* a repeated join, a double click say, changes nothing and is not logged again */
+        if (membershipService.addMember(user, group, MembershipRole.MEMBER).isPresent()) {
+            return;
+        }
 
-        activityLogsService.log(user,
+        activityLogsService.log(user, group.getGroupId(),
                 "JOIN_GROUP",
                 "STUDYGROUP-ID: " + group.getGroupId()
         );
     }
 
-    public List<StudyGroups> getStudyGroups() {
-        return studyGroupsRepository.findAll();
+    public CursorPageDTO<StudyGroupsResponseDTO> getStudyGroupsPage(String cursor, Integer limit) {
+        int size = CursorPageDTO.clamp(limit);
+        Cursor after = Cursor.decode(cursor);
+        List<StudyGroupsResponseDTO> rows = studyGroupsRepository.findPageAfter(after.key(), after.id(), CursorPageDTO.probe(size));
+        return CursorPageDTO.of(rows, size, group -> Cursor.of(group.name(), group.id()));
     }
 
     @Transactional
-    public void deleteGroup(Long groupId) {
+    public PurgeJob deleteGroup(Long groupId) {
         User user = currentUser.getCurrentUser();
         if (!membershipService.isOwner(user.getId(), groupId)) {
             throw new AccessDeniedException("Only owner of group can delete group");
         }
 
-        activityLogsService.log(user,
+        activityLogsService.log(user, groupId,
                 "DELETE_GROUP",
                 "STUDYGROUP-ID: " + groupId);
 
-        studyGroupsRepository.deleteById(groupId);
+        return purgeService.submit(PurgeTarget.GROUP, groupId, user.getId());
     }
 
     @Transactional
@@ -91,7 +103,7 @@ public class StudyGroupsService {
         if(newStudyGroups.getCreatedBy() != null) {studyGroups.setCreatedBy(newStudyGroups.getCreatedBy());}
         if(newStudyGroups.getDescription() != null) {studyGroups.setDescription(newStudyGroups.getDescription());}
 
-        activityLogsService.log(user,
+        activityLogsService.log(user, studyGroups.getGroupId(),
                 "UPDATE_GROUP",
                 "STUDYGROUP-ID: " + studyGroups.getGroupId());
 
@@ -2,19 +2,37 @@ package org.application.tsiktsemestraljob.demo.Service;
 
 import lombok.RequiredArgsConstructor;
 import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.ChangeEventMapper;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.Cursor;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
+import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskQueryDTO;
+import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskResponseDTO;
 import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
 import org.application.tsiktsemestraljob.demo.Entities.Task;
 import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.ChangeOperation;
+import org.application.tsiktsemestraljob.demo.Enums.TaskBucket;
 import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
 import org.application.tsiktsemestraljob.demo.Repository.TaskRepository;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class TaskService {
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final TaskRepository repository;
     private final StudyGroupsRepository studyGroupsRepository;
     private final ActivityLogsService activityLogsService;
@@ -22,22 +40,58 @@ public class TaskService {
     private final NotificationService notificationService;
     private final CurrentUser currentUser;
 
+    @Transactional
     public Task createTask(Long groupId, Task task) {
         User creator = currentUser.getCurrentUser();
         StudyGroups studyGroup = studyGroupsRepository.findById(groupId).orElseThrow(()
                 -> new IllegalArgumentException("StudyGroup not found with id " + groupId));
+        if (!membershipService.isMember(creator.getId(), groupId)) {
+            throw new AccessDeniedException("You are not a member of this group");
+        }
 
         task.setCreatedBy(creator);
         task.setStudyGroup(studyGroup);
         task.setStatus(task.getStatus());
 
-        notificationService.sendToGroup(task.getStudyGroup().getGroupId(),
-                "New task created: " + task.getTitle());
-
         Task saved = repository.save(task);
-        activityLogsService.log(creator,
+        activityLogsService.log(creator, groupId,
                 "CREATE_TASK",
                 "TASK-ID : " + saved.getId());
+        notificationService.publishToGroup(groupId, () -> ChangeEventMapper.task(ChangeOperation.CREATED, saved));
+
+        return saved;
+    }
+
+    @Transactional
+    public List<Task> createTasks(Long groupId, List<Task> tasks) {
+        if (tasks == null || tasks.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No tasks to create");
+        }
+        if (tasks.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " tasks per batch");
+        }
+
+        User creator = currentUser.getCurrentUser();
+        StudyGroups studyGroup = studyGroupsRepository.findById(groupId).orElseThrow(()
+                -> new IllegalArgumentException("StudyGroup not found with id " + groupId));
+        if (!membershipService.isMember(creator.getId(), groupId)) {
+            throw new AccessDeniedException("You are not a member of this group");
+        }
+
+        for (Task task : tasks) {
+            task.setCreatedBy(creator);
+            task.setStudyGroup(studyGroup);
+        }
+
+        /* ids come from the pooled sequence, the inserts themselves are sent as JDBC batches on flush */
+        List<Task> saved = repository.saveAll(tasks);
+
+        activityLogsService.log(creator, groupId,
+                "CREATE_TASKS",
+                "TASK-COUNT: " + saved.size() + ", TASK-IDS: " + saved.getFirst().getId() + ".." + saved.getLast().getId());
+        notificationService.publishAllToGroup(groupId, () -> saved.stream()
+                .map(task -> ChangeEventMapper.task(ChangeOperation.CREATED, task))
+                .toList());
 
         return saved;
     }
@@ -47,10 +101,66 @@ public class TaskService {
                 .orElseThrow(() -> new IllegalArgumentException("Task not found"));
     }
 
-    public List<Task> getAllTasks() {
-        return repository.findAll();
+    public CursorPageDTO<TaskResponseDTO> getTasksPage(String cursor, Integer limit) {
+        int size = CursorPageDTO.clamp(limit);
+        List<TaskResponseDTO> rows = repository.findPageAfter(Cursor.decode(cursor).id(), CursorPageDTO.probe(size));
+        return CursorPageDTO.of(rows, size, task -> Cursor.of(task.id()));
     }
 
+    public CursorPageDTO<TaskResponseDTO> queryTasks(TaskQueryDTO query, String cursor, Integer limit) {
+        if (query.bucket() != null && (query.from() != null || query.to() != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Use either bucket or from/to, not both");
+        }
+
+        /* requested groups the caller is not a member of are silently dropped */
+        Set<Long> groupIds = new LinkedHashSet<>(membershipService.getUserGroupIds());
+        if (query.groupIds() != null) {
+            groupIds.retainAll(query.groupIds());
+        }
+        if (groupIds.isEmpty()) {
+            return new CursorPageDTO<>(List.of(), null);
+        }
+
+        LocalDateTime from = query.from();
+        LocalDateTime to = query.to();
+        if (query.bucket() != null) {
+            /* deadlines are stored as the wall-clock time the user picked, so the day bounds are the caller's local midnights */
+            LocalDate today = LocalDate.now(resolveZone(query.zone()));
+            from = query.bucket() == TaskBucket.TODAY ? today.atStartOfDay() : today.plusDays(1).atStartOfDay();
+            to = query.bucket() == TaskBucket.TODAY ? today.plusDays(1).atStartOfDay() : null;
+        }
+
+        int size = CursorPageDTO.clamp(limit);
+        Cursor after = Cursor.decode(cursor);
+        List<TaskResponseDTO> rows = repository.findByGroupsAndDeadline(groupIds, query.status(), from, to,
+                deadline(after.key()), after.id(), CursorPageDTO.probe(size));
+        return CursorPageDTO.of(rows, size,
+                task -> Cursor.of(task.deadline() == null ? null : task.deadline().toString(), task.id()));
+    }
+
+    private static LocalDateTime deadline(String key) {
+        if (key == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private ZoneId resolveZone(String zone) {
+        if (zone == null || zone.isBlank()) {
+            return ZoneId.systemDefault();
+        }
+        try {
+            return ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown time zone " + zone);
+        }
+    }
+
+    @Transactional
     public Task updateTask(Long id ,Task task) {
         User creator = currentUser.getCurrentUser();
         Task taskToUpdate = repository.findById(id).orElse(null);
@@ -64,16 +174,16 @@ public class TaskService {
         if(task.getDeadline() != null) {taskToUpdate.setDeadline(task.getDeadline());}
         taskToUpdate.setTitle(task.getTitle());
 
-        notificationService.sendToGroup(taskToUpdate.getStudyGroup().getGroupId(),
-                "New task updated: " + task.getTitle());
-
-        activityLogsService.log(creator,
+        activityLogsService.log(creator, taskToUpdate.getStudyGroup().getGroupId(),
                 "UPDATE_TASK"
-        ,"TASK-ID : " + task.getId());
+        ,"TASK-ID : " + taskToUpdate.getId());
 
-        return repository.save(taskToUpdate);
+        Task saved = repository.save(taskToUpdate);
+        notificationService.publishToGroup(saved.getStudyGroup().getGroupId(), () -> ChangeEventMapper.task(ChangeOperation.UPDATED, saved));
+        return saved;
     }
 
+    @Transactional
     public void deleteTask(Long taskId) {
         Task task = repository.findById(taskId).orElse(null);
         if (task == null) {throw new IllegalArgumentException("Task not found");}
@@ -84,14 +194,12 @@ public class TaskService {
             throw new AccessDeniedException("Only owner of group can remove tasks");
         }
 
-        notificationService.sendToGroup(task.getStudyGroup().getGroupId(),
-                "Task deleted: " + task.getTitle());
-
-        activityLogsService.log(user,
+        activityLogsService.log(user, task.getStudyGroup().getGroupId(),
                 "TASK_DELETED",
                 "TASK-ID: " + taskId);
 
-        repository.deleteById(taskId);
+        repository.delete(task);
+        notificationService.publishToGroup(task.getStudyGroup().getGroupId(), () -> ChangeEventMapper.task(ChangeOperation.DELETED, task));
     }
 
 }
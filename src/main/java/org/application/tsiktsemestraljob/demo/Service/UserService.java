@@ -3,12 +3,17 @@ package org.application.tsiktsemestraljob.demo.Service;
 import lombok.RequiredArgsConstructor;
 import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
 import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.Cursor;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
+import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserResponseDTO;
+import org.application.tsiktsemestraljob.demo.Entities.PurgeJob;
 import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeTarget;
 import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -18,10 +23,11 @@ import java.util.List;
 
 @Service
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final CurrentUser currentUser;
+    private final PurgeService purgeService;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -31,11 +37,24 @@ public class UserService implements UserDetailsService {
         return new CustomUserDetails(user);
     }
 
+    /* called by DaoAuthenticationProvider after a successful login when the stored hash uses an older cost */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userDetails instanceof CustomUserDetails details
+                ? userRepository.findById(details.getId()).orElse(null)
+                : userRepository.findByEmail(userDetails.getUsername()).orElse(null);
+        if (user == null) {
+            return userDetails;
+        }
+        user.setPasswordHash(newPassword);
+        return new CustomUserDetails(userRepository.save(user));
+    }
+
     public User register(String name, String email, String rawPassword) {
         User user = new User();
         user.setName(name);
         user.setEmail(email);
-        user.setPasswordHash(new BCryptPasswordEncoder().encode(rawPassword));
+        user.setPasswordHash(passwordEncoder.encode(rawPassword));
         return userRepository.save(user);
     }
 
@@ -44,18 +63,23 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
     }
 
-    public List<User> findAll() {
-        return userRepository.findAll();
+    public CursorPageDTO<UserResponseDTO> getUsersPage(String cursor, Integer limit) {
+        int size = CursorPageDTO.clamp(limit);
+        Cursor after = Cursor.decode(cursor);
+        List<UserResponseDTO> rows = userRepository.findPageAfter(after.key(), after.id(), CursorPageDTO.probe(size));
+        return CursorPageDTO.of(rows, size, user -> Cursor.of(user.name(), user.id()));
     }
 
-    public void deleteUser(Long id) {
-        User toDelete = userRepository.findById(id)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        User current = currentUser.getCurrentUser();
-        if (!current.getId().equals(id)) {
+    public PurgeJob deleteUser(Long id) {
+        if (!userRepository.existsById(id)) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        if (!currentUser.id().equals(id)) {
             throw new SecurityException("You are not allowed to delete other users");
         }
-        userRepository.delete(toDelete);
+        PurgeJob job = purgeService.submit(PurgeTarget.USER, id, id);
+        currentUser.invalidate();
+        return job;
     }
 
     public User updateUser(Long id, User newUser) {
@@ -74,6 +98,8 @@ public class UserService implements UserDetailsService {
         if (newUser.getPasswordHash() != null && !newUser.getPasswordHash().isBlank()) {
             existing.setPasswordHash(passwordEncoder.encode(newUser.getPasswordHash()));
         }
-        return userRepository.save(existing);
+        User saved = userRepository.save(existing);
+        currentUser.invalidate();
+        return saved;
     }
 }
@@ -0,0 +1,172 @@
+package org.application.tsiktsemestraljob.demo.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Metrics of the STOMP sessions: connected sessions, subscriptions per destination, queue depth of the inbound and
+ * outbound channel executors, sessions dropped for exceeding the send-time or buffer limit, and the publish latency
+ * of MESSAGE frames from being handed to clientOutboundChannel until written to the session.
+ * A destination gauge exists only while the destination has subscribers, so the tag values stay bounded by the
+ * groups and users that are online.
+ */
+@Component
+public class WebSocketSessionMetrics implements ExecutorChannelInterceptor {
+    private static final String QUEUED_AT = "queuedAt";
+
+    private final MeterRegistry meterRegistry;
+    private final AbstractSubscribableChannel clientOutboundChannel;
+
+    private final Map<String, Map<String, String>> subscriptionsBySession = new HashMap<>();
+    private final Map<String, DestinationGauge> destinations = new HashMap<>();
+    private final Counter dropped;
+    private final Timer publishLatency;
+
+    private record DestinationGauge(int[] subscribers, Gauge gauge) {}
+
+    public WebSocketSessionMetrics(MeterRegistry meterRegistry,
+                                   @Qualifier("clientOutboundChannel") AbstractSubscribableChannel clientOutboundChannel,
+                                   @Qualifier("clientInboundChannelExecutor") Executor inboundExecutor,
+                                   @Qualifier("clientOutboundChannelExecutor") Executor outboundExecutor) {
+        this.meterRegistry = meterRegistry;
+        this.clientOutboundChannel = clientOutboundChannel;
+
+        Gauge.builder("websocket.sessions", this, WebSocketSessionMetrics::sessions)
+                .register(meterRegistry);
+        queueDepth(meterRegistry, "inbound", inboundExecutor);
+        queueDepth(meterRegistry, "outbound", outboundExecutor);
+        this.dropped = Counter.builder("websocket.sessions.dropped")
+                .description("Sessions closed because they exceeded the send-time or send-buffer limit")
+                .register(meterRegistry);
+        this.publishLatency = Timer.builder("websocket.publish.latency")
+                .register(meterRegistry);
+    }
+
+    private static void queueDepth(MeterRegistry meterRegistry, String channel, Executor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            Gauge.builder("websocket.channel.queue.depth", pool, ThreadPoolTaskExecutor::getQueueSize)
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        clientOutboundChannel.addInterceptor(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clientOutboundChannel.removeInterceptor(this);
+    }
+
+    private synchronized int sessions() {
+        return subscriptionsBySession.size();
+    }
+
+    @EventListener
+    public synchronized void onConnected(SessionConnectedEvent event) {
+        subscriptionsBySession.putIfAbsent(sessionId(event.getMessage()), new HashMap<>());
+    }
+
+    @EventListener
+    public synchronized void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (destination == null || headers.getSubscriptionId() == null) {
+            return;
+        }
+        String previous = subscriptionsBySession.computeIfAbsent(headers.getSessionId(), id -> new HashMap<>())
+                .put(headers.getSubscriptionId(), destination);
+        if (previous != null) {
+            unsubscribed(previous);
+        }
+        destinations.computeIfAbsent(destination, this::destinationGauge).subscribers()[0]++;
+    }
+
+    @EventListener
+    public synchronized void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = subscriptionsBySession.get(headers.getSessionId());
+        String destination = subscriptions == null ? null : subscriptions.remove(headers.getSubscriptionId());
+        if (destination != null) {
+            unsubscribed(destination);
+        }
+    }
+
+    @EventListener
+    public synchronized void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = subscriptionsBySession.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::unsubscribed);
+        }
+        if (CloseStatus.SESSION_NOT_RELIABLE.equals(event.getCloseStatus())) {
+            dropped.increment();
+        }
+    }
+
+    private DestinationGauge destinationGauge(String destination) {
+        int[] subscribers = new int[1];
+        Gauge gauge = Gauge.builder("websocket.subscriptions", subscribers, count -> count[0])
+                .tag("destination", destination)
+                .register(meterRegistry);
+        return new DestinationGauge(subscribers, gauge);
+    }
+
+    private void unsubscribed(String destination) {
+        DestinationGauge entry = destinations.get(destination);
+        if (entry != null && --entry.subscribers()[0] == 0) {
+            destinations.remove(destination);
+            meterRegistry.remove(entry.gauge());
+        }
+    }
+
+    private static String sessionId(Message<?> message) {
+        return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        accessor.setHeader(QUEUED_AT, System.nanoTime());
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Long queuedAt = message.getHeaders().get(QUEUED_AT, Long.class);
+        if (queuedAt != null && ex == null) {
+            publishLatency.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
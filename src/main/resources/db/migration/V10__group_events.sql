@@ -0,0 +1,10 @@
+-- Recent events of every group topic with their per-group sequence number, so reconnecting clients can fetch
+-- what they missed. Written by GroupEventLog when app.group-events.store=JDBC, older rows are pruned per group.
+
+create table group_events (
+    group_id   bigint      not null,
+    seq        bigint      not null,
+    payload    mediumtext  not null,
+    created_at datetime(6) not null,
+    primary key (group_id, seq)
+) engine=InnoDB;
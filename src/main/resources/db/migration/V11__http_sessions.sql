@@ -0,0 +1,16 @@
+-- HTTP sessions shared by all nodes so a login survives redeploys and needs no sticky sessions.
+-- Written by JdbcSessionRepository when app.session.store=JDBC, times are epoch milliseconds.
+
+create table http_sessions (
+    session_id           varchar(36) not null,
+    principal_id         bigint,
+    attributes           mediumblob  not null,
+    created_at           bigint      not null,
+    last_accessed_at     bigint      not null,
+    max_inactive_seconds integer     not null,
+    expires_at           bigint      not null,
+    primary key (session_id)
+) engine=InnoDB;
+
+create index idx_http_sessions_expires_at on http_sessions (expires_at);
+create index idx_http_sessions_principal_id on http_sessions (principal_id);
@@ -0,0 +1,4 @@
+-- Bumped whenever one of the user's memberships changes. Access tokens carry it (app.auth.mode=TOKEN),
+-- so a node that sees a newer value drops the user's cached roles.
+
+alter table users add column membership_version bigint not null default 0;
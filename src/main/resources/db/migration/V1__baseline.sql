@@ -0,0 +1,86 @@
+-- Schema as it was created by spring.jpa.hibernate.ddl-auto=update before migrations were introduced.
+-- Databases that already have these tables are baselined at version 1 and skip this script.
+
+create table users (
+    user_id       bigint       not null auto_increment,
+    name          varchar(255) not null,
+    email         varchar(255) not null,
+    password_hash varchar(255) not null,
+    created_at    date,
+    updated_at    date,
+    primary key (user_id),
+    constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email)
+) engine=InnoDB;
+
+create table study_groups (
+    group_id    bigint       not null auto_increment,
+    name        varchar(255) not null,
+    description varchar(255),
+    created_by  bigint,
+    created_at  datetime(6),
+    primary key (group_id),
+    constraint UK27ty2g15yfxifu5wc49j7goid unique (name),
+    constraint FK5hmdtbkpguqov559w8qy94625 foreign key (created_by) references users (user_id)
+) engine=InnoDB;
+
+create table memberships (
+    membership_id   bigint not null auto_increment,
+    user_id         bigint,
+    group_id        bigint,
+    membership_role enum ('MEMBER','OWNER'),
+    joined_at       date,
+    primary key (membership_id),
+    constraint FKdjormybfoo7f4i4d4r803qohb foreign key (user_id) references users (user_id),
+    constraint FKnrj023ak487ulor4ifdgxmc65 foreign key (group_id) references study_groups (group_id)
+) engine=InnoDB;
+
+create table tasks (
+    task_id     bigint       not null auto_increment,
+    group_id    bigint,
+    created_by  bigint,
+    title       varchar(255) not null,
+    description varchar(255),
+    status      enum ('CANCELED','COMPLETED','IN_PROGRESS'),
+    deadline    datetime(6),
+    created_at  date,
+    primary key (task_id),
+    constraint FKbfqlc03nga04uxf1pneq6rqrb foreign key (group_id) references study_groups (group_id),
+    constraint FK9dgm9t7wn4w3gh57h63g712lo foreign key (created_by) references users (user_id)
+) engine=InnoDB;
+
+create table resources (
+    resource_id bigint       not null auto_increment,
+    group_id    bigint,
+    uploaded_by bigint,
+    title       varchar(255) not null,
+    type        varchar(255),
+    path_or_url varchar(255),
+    uploaded_at date,
+    primary key (resource_id),
+    constraint FK3ca1nrnw969s5oxbw9eq4ikil foreign key (group_id) references study_groups (group_id),
+    constraint FKf3dn169v0hyegkheyvmck8x5l foreign key (uploaded_by) references users (user_id)
+) engine=InnoDB;
+
+create table activity_log (
+    log_id    bigint       not null auto_increment,
+    user_id   bigint,
+    action    varchar(255) not null,
+    details   varchar(255),
+    timestamp date,
+    primary key (log_id),
+    constraint FK634sb3dvk7nyxjcjcem7m282a foreign key (user_id) references users (user_id)
+) engine=InnoDB;
+
+create table invitation_tokens (
+    id              bigint not null auto_increment,
+    token           varchar(255),
+    group_id        bigint,
+    created_by      bigint,
+    created_at      datetime(6),
+    expires_at      datetime(6),
+    used_by_user_id bigint,
+    status          enum ('ACTIVE','EXPIRED','USED'),
+    primary key (id),
+    constraint FKmq4m655kjlncpc9tk8hjg8jav foreign key (group_id) references study_groups (group_id),
+    constraint FKlnnptq6ay87psrbpgvx7ua9x4 foreign key (created_by) references users (user_id)
+) engine=InnoDB;
@@ -0,0 +1,26 @@
+-- Indexes for the lookups and list pages that used to scan whole tables.
+
+-- ddl-auto never enforced one membership per user and group, keep the oldest row before adding the constraint
+delete m from memberships m
+    join memberships older
+      on older.user_id = m.user_id
+     and older.group_id = m.group_id
+     and older.membership_id < m.membership_id;
+
+alter table memberships
+    add constraint uk_memberships_user_group unique (user_id, group_id);
+
+create index idx_memberships_group_user on memberships (group_id, user_id);
+
+alter table invitation_tokens
+    add constraint uk_invitation_tokens_token unique (token);
+
+create index idx_tasks_group_deadline on tasks (group_id, deadline);
+
+create index idx_tasks_group_status on tasks (group_id, status);
+
+create index idx_activity_log_user_timestamp on activity_log (user_id, timestamp);
+
+create index idx_users_name_id on users (name, user_id);
+
+create index idx_study_groups_name_id on study_groups (name, group_id);
@@ -0,0 +1,12 @@
+-- Task ids come from a pooled sequence (allocation size 50) so Hibernate can batch task inserts.
+-- MySQL has no sequences, Hibernate emulates them with a single-row table.
+
+create table tasks_seq (
+    next_val bigint
+) engine=InnoDB;
+
+-- the pooled optimizer hands out (next_val - 49 .. next_val], start the first block above the existing ids
+insert into tasks_seq (next_val)
+select coalesce(max(task_id), 0) + 51 from tasks;
+
+alter table tasks modify task_id bigint not null;
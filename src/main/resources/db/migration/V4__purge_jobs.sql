@@ -0,0 +1,18 @@
+-- Background jobs deleting a group or a user with all their rows in small chunks.
+-- requested_by has no foreign key, a user purge removes the requesting user itself.
+
+create table purge_jobs (
+    job_id       bigint       not null auto_increment,
+    target_type  enum ('GROUP','USER') not null,
+    target_id    bigint       not null,
+    status       enum ('COMPLETED','FAILED','PENDING','RUNNING') not null,
+    stage        varchar(255),
+    deleted_rows bigint       not null,
+    requested_by bigint,
+    error        varchar(255),
+    created_at   datetime(6),
+    updated_at   datetime(6),
+    primary key (job_id)
+) engine=InnoDB;
+
+create index idx_purge_jobs_status on purge_jobs (status);
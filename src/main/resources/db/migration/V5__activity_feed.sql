@@ -0,0 +1,30 @@
+-- Activity feed: sub-second timestamps for ordering, a real group_id column and indexes for the feed pages.
+
+alter table activity_log
+    modify timestamp datetime(6),
+    add column group_id bigint;
+
+-- older entries only carry their group inside the details text, e.g. "STUDYGROUP-ID: 5" or "TO_GROUP5"
+update activity_log
+   set group_id = cast(regexp_substr(details, '[0-9]+$') as unsigned)
+ where action in ('CREATE_StudyGroup', 'JOIN_GROUP', 'DELETE_GROUP', 'UPDATE_GROUP', 'REMOVE_MEMBER', 'CREATE_INVINTATION')
+   and details regexp '[0-9]+$';
+
+update activity_log a
+    join tasks t on t.task_id = cast(regexp_substr(a.details, '[0-9]+$') as unsigned)
+   set a.group_id = t.group_id
+ where a.action in ('CREATE_TASK', 'UPDATE_TASK', 'TASK_DELETED')
+   and a.details regexp '[0-9]+$';
+
+update activity_log a
+    join resources r on r.resource_id = cast(regexp_substr(a.details, '[0-9]+$') as unsigned)
+   set a.group_id = r.group_id
+ where a.action in ('RESOURCE_CREATED', 'UPDATE_RESOURCE', 'DELETE_RESOURCES')
+   and a.details regexp '[0-9]+$';
+
+create index idx_activity_log_user_feed on activity_log (user_id, timestamp, log_id, action);
+
+create index idx_activity_log_group_feed on activity_log (group_id, timestamp, log_id, action);
+
+-- the user feed index also serves the user_id foreign key, so the old one can go
+drop index idx_activity_log_user_timestamp on activity_log;
@@ -0,0 +1,10 @@
+-- Daily activity counters per group and action, kept up to date by the activity log writer.
+-- Existing activity_log rows are counted by ActivityRollupService on the first start after this migration.
+
+create table activity_rollups (
+    group_id     bigint       not null,
+    activity_day date         not null,
+    action       varchar(255) not null,
+    event_count  bigint       not null,
+    primary key (group_id, activity_day, action)
+) engine=InnoDB;
@@ -0,0 +1,36 @@
+-- Monthly range partitions for activity_log, so old months can be dropped instead of deleted row by row.
+-- MySQL does not allow foreign keys on partitioned tables, and the partitioning column must be part of the primary key.
+
+alter table activity_log drop foreign key FK634sb3dvk7nyxjcjcem7m282a;
+
+update activity_log
+   set timestamp = coalesce((select oldest from (select min(timestamp) as oldest from activity_log) o), now(6))
+ where timestamp is null;
+
+alter table activity_log
+    modify timestamp datetime(6) not null,
+    drop primary key,
+    add primary key (log_id, timestamp);
+
+-- one partition pYYYYMM per month from the oldest row up to two months ahead, p_future catches anything later;
+-- ActivityLogPartitionManager keeps adding months in front of p_future and drops expired ones
+set @first_month = date_format(coalesce((select min(timestamp) from activity_log), now()), '%Y-%m-01');
+
+set @partition_ddl = (
+    with recursive months (month_start) as (
+        select cast(@first_month as date)
+        union all
+        select month_start + interval 1 month from months
+         where month_start < cast(date_format(now(), '%Y-%m-01') as date) + interval 2 month
+    )
+    select concat('alter table activity_log partition by range columns (timestamp) (',
+                  group_concat(concat('partition p', date_format(month_start, '%Y%m'),
+                                      ' values less than (''', month_start + interval 1 month, ''')')
+                               order by month_start separator ', '),
+                  ', partition p_future values less than (maxvalue))')
+      from months
+);
+
+prepare partition_activity_log from @partition_ddl;
+execute partition_activity_log;
+deallocate prepare partition_activity_log;
@@ -0,0 +1,6 @@
+-- Row versions for tasks, resources and memberships.
+-- Hibernate bumps them on every update and change events carry them, so clients can drop stale or duplicate deltas.
+
+alter table tasks add column version bigint not null default 0;
+alter table resources add column version bigint not null default 0;
+alter table memberships add column version bigint not null default 0;
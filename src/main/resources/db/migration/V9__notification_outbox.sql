@@ -0,0 +1,11 @@
+-- Change events waiting to be published to the WebSocket broker.
+-- Rows are inserted in the transaction of the change they describe and deleted once NotificationOutboxDispatcher has sent them.
+
+create table notification_outbox (
+    outbox_id   bigint       not null auto_increment,
+    destination varchar(255) not null,
+    group_id    bigint,
+    payload     mediumtext   not null,
+    created_at  datetime(6)  not null,
+    primary key (outbox_id)
+) engine=InnoDB;
@@ -0,0 +1,169 @@
+package org.application.tsiktsemestraljob.Activity;
+/*
+ * Monthly partitioned activity_log compared with the single-table layout it replaced: latency of batched inserts,
+ * of the newest-first group feed page, of a one-month count per action, and the cost of expiring the oldest month.
+ * Both tables get the same rows spread evenly over two years. Opt-in because it loads a lot of data; it defaults to
+ * 1M rows and is meant to be run at 50M:
+ * mvn test -Dtest=ActivityLogPartitionBenchmarkTest -Dbenchmark=true -Dbenchmark.rows=50000000
+ */
+
+import jakarta.transaction.Transactional;
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers
+@SpringBootTest
+@Transactional(Transactional.TxType.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ActivityLogPartitionBenchmarkTest extends IntegrationTest {
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int MONTHS = 24;
+    private static final int USERS = 5000;
+    private static final int GROUPS = 1000;
+    private static final int LOAD_CHUNK = 100_000;
+    private static final int INSERT_BATCHES = 200;
+    private static final int BATCH_SIZE = 100;
+    private static final int READS = 500;
+    private static final int EXPIRY_CHUNK = 5000;
+    private static final String FLAT = "bench_activity_flat";
+    private static final String PARTITIONED = "bench_activity_partitioned";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final YearMonth oldest = YearMonth.now().minusMonths(MONTHS - 1);
+
+    @BeforeEach
+    void setUp() {
+        dropTables();
+
+        /* the layout before V7: primary key on log_id alone, no partitions */
+        jdbcTemplate.execute("create table " + FLAT + " like activity_log");
+        jdbcTemplate.execute("alter table " + FLAT + " remove partitioning");
+        jdbcTemplate.execute("alter table " + FLAT + " drop primary key, add primary key (log_id)");
+
+        jdbcTemplate.execute("create table " + PARTITIONED + " like activity_log");
+        StringJoiner partitions = new StringJoiner(", ", "alter table " + PARTITIONED + " partition by range columns (timestamp) (", ")");
+        for (YearMonth month = oldest; !month.isAfter(YearMonth.now().plusMonths(1)); month = month.plusMonths(1)) {
+            partitions.add("partition p" + month.format(DateTimeFormatter.ofPattern("yyyyMM")) +
+                    " values less than ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        partitions.add("partition p_future values less than (maxvalue)");
+        jdbcTemplate.execute(partitions.toString());
+
+        load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dropTables();
+    }
+
+    private void dropTables() {
+        jdbcTemplate.execute("drop table if exists " + FLAT + ", " + PARTITIONED);
+    }
+
+    /* rows are generated inside MySQL, one recursive CTE per chunk, on a single connection for the session variable */
+    private void load() {
+        long spanSeconds = Duration.between(oldest.atDay(1).atStartOfDay(), now).getSeconds();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("set session cte_max_recursion_depth = " + LOAD_CHUNK);
+                for (long start = 0; start < ROWS; start += LOAD_CHUNK) {
+                    long chunk = Math.min(LOAD_CHUNK, ROWS - start);
+                    statement.execute("insert into " + FLAT + " (user_id, group_id, action, details, timestamp) " +
+                            "with recursive n (i) as (select " + start + " union all select i + 1 from n where i < " + (start + chunk - 1) + ") " +
+                            "select 1 + (i * 7919) % " + USERS + ", 1 + (i * 104729) % " + GROUPS + ", " +
+                            "elt(1 + i % 4, 'CREATE_TASK', 'UPDATE_TASK', 'JOIN_GROUP', 'RESOURCE_CREATED'), 'bench', " +
+                            "timestamp('" + oldest.atDay(1).atStartOfDay() + "') + interval floor(i * " + spanSeconds + " / " + ROWS + ") second " +
+                            "from n");
+                }
+                statement.execute("insert into " + PARTITIONED + " select * from " + FLAT);
+                statement.execute("analyze table " + FLAT + ", " + PARTITIONED);
+            }
+            return null;
+        });
+    }
+
+    @Test
+    void partitionedLayoutKeepsReadsAndWritesAndExpiresCheaply() {
+        Random random = new Random(42);
+        YearMonth sampleMonth = YearMonth.now().minusMonths(6);
+
+        for (String table : List.of(FLAT, PARTITIONED)) {
+            long[] inserts = sample(INSERT_BATCHES, () -> time(() -> insertBatch(table, random)));
+            long[] feed = sample(READS, () -> time(() -> jdbcTemplate.queryForList(
+                    "select log_id, user_id, group_id, action, details, timestamp from " + table +
+                            " where group_id = ? order by timestamp desc, log_id desc limit 50", 1 + random.nextInt(GROUPS))));
+            long[] month = sample(READS, () -> time(() -> jdbcTemplate.queryForList(
+                    "select action, count(*) from " + table + " where group_id = ? and timestamp >= ? and timestamp < ? group by action",
+                    1 + random.nextInt(GROUPS), sampleMonth.atDay(1).atStartOfDay(), sampleMonth.plusMonths(1).atDay(1).atStartOfDay())));
+            System.out.printf("%-28s insert batch p50 %6.2f ms p99 %6.2f ms | feed page p50 %6.2f ms p99 %6.2f ms | month counts p50 %6.2f ms p99 %6.2f ms%n",
+                    table, p(inserts, 50), p(inserts, 99), p(feed, 50), p(feed, 99), p(month, 50), p(month, 99));
+        }
+
+        String oldestPartition = "p" + oldest.format(DateTimeFormatter.ofPattern("yyyyMM"));
+        long drop = time(() -> jdbcTemplate.execute("alter table " + PARTITIONED + " drop partition " + oldestPartition));
+        long delete = time(() -> {
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update("delete from " + FLAT + " where timestamp < ? order by log_id limit " + EXPIRY_CHUNK,
+                        oldest.plusMonths(1).atDay(1).atStartOfDay());
+            } while (deleted >= EXPIRY_CHUNK);
+        });
+        System.out.printf("expire oldest month (%d rows total): drop partition %.1f ms, chunked delete %.1f ms%n",
+                ROWS, drop / 1e6, delete / 1e6);
+
+        assertTrue(drop < delete, "dropping a partition should be cheaper than deleting its rows");
+    }
+
+    private void insertBatch(String table, Random random) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            rows.add(new Object[]{1 + random.nextInt(USERS), 1 + random.nextInt(GROUPS), "CREATE_TASK", LocalDateTime.now()});
+        }
+        jdbcTemplate.batchUpdate("insert into " + table + " (user_id, group_id, action, details, timestamp) values (?, ?, ?, 'bench', ?)", rows);
+    }
+
+    private static long time(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+
+    private static long[] sample(int count, LongSupplier measurement) {
+        long[] samples = new long[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = measurement.getAsLong();
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static double p(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1e6;
+    }
+}
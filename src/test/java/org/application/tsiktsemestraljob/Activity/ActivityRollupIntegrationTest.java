@@ -0,0 +1,141 @@
+package org.application.tsiktsemestraljob.Activity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.StudyGroups.StudyGroupsPostRequest;
+import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsResponseDTO;
+import org.application.tsiktsemestraljob.demo.Enums.ActivityLogOverflowPolicy;
+import org.application.tsiktsemestraljob.demo.Service.ActivityLogWriter;
+import org.application.tsiktsemestraljob.demo.Service.ActivityRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * Writes activity through an ActivityLogWriter that is never started, so every batch is flushed on the test thread
+ * inside the test transaction, then compares the rollup table with a GROUP BY over activity_log.
+ */
+@Testcontainers
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@WithMockUser(username = "testmail")
+class ActivityRollupIntegrationTest extends IntegrationTest {
+    private static final List<String> ACTIONS = List.of("CREATE_TASK", "UPDATE_TASK", "JOIN_GROUP", "RESOURCE_CREATED");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ActivityRollupService activityRollupService;
+    @Autowired
+    private EntityManager entityManager;
+
+    private ActivityLogWriter writer;
+    private StudyGroupsResponseDTO group;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        writer = new ActivityLogWriter(jdbcTemplate, activityRollupService, transactionManager, new SimpleMeterRegistry(),
+                10000, 37, 50, ActivityLogOverflowPolicy.BLOCK, 100, Files.createTempDirectory("activity-log"), 1000);
+        group = new StudyGroupsPostRequest(mockMvc, objectMapper).postGroup("rollupgroup");
+        entityManager.flush();
+    }
+
+    /* two weeks that start in the previous month, well inside the retention period whenever the test runs */
+    private void writeRandomActivity(int count, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime start = LocalDate.now().withDayOfMonth(1).minusMonths(1).atStartOfDay();
+        for (int i = 0; i < count; i++) {
+            long groupId = group.id() + random.nextInt(3);
+            writer.submit(new ActivityLogWriter.Entry(group.createdBy(), groupId, ACTIONS.get(random.nextInt(ACTIONS.size())),
+                    "seed " + i, start.plusMinutes(random.nextInt(14 * 24 * 60))));
+        }
+        writer.drain();
+    }
+
+    private List<Map<String, Object>> rollups() {
+        return jdbcTemplate.queryForList("select group_id, activity_day, action, event_count from activity_rollups " +
+                "where group_id between ? and ? order by group_id, activity_day, action", group.id(), group.id() + 2);
+    }
+
+    private List<Map<String, Object>> recomputed() {
+        return jdbcTemplate.queryForList("select group_id, date(timestamp) as activity_day, action, count(*) as event_count " +
+                "from activity_log where group_id between ? and ? " +
+                "group by group_id, date(timestamp), action order by group_id, activity_day, action", group.id(), group.id() + 2);
+    }
+
+    @Test
+    void incrementalRollupsMatchFullRecomputation() {
+        writeRandomActivity(500, 1);
+        assertFalse(rollups().isEmpty());
+        assertEquals(recomputed(), rollups());
+
+        writeRandomActivity(250, 2);
+        assertEquals(recomputed(), rollups());
+    }
+
+    @Test
+    void rebuildRestoresRollupsFromTheLog() {
+        writeRandomActivity(300, 3);
+        jdbcTemplate.update("update activity_rollups set event_count = 999 where group_id = ?", group.id());
+        jdbcTemplate.update("delete from activity_rollups where group_id = ?", group.id() + 1);
+
+        activityRollupService.rebuild();
+
+        assertEquals(recomputed(), rollups());
+    }
+
+    @Test
+    void rollupEndpointReadsDailyAndWeeklyCounts() throws Exception {
+        LocalDateTime monday = LocalDateTime.of(2026, 3, 2, 10, 0);
+        for (int day = 0; day < 7; day++) {
+            writer.submit(new ActivityLogWriter.Entry(group.createdBy(), group.id(), "CREATE_TASK", null, monday.plusDays(day)));
+        }
+        writer.submit(new ActivityLogWriter.Entry(group.createdBy(), group.id(), "JOIN_GROUP", null, monday));
+        writer.drain();
+
+        mockMvc.perform(get("/api/activity/group/" + group.id() + "/rollups")
+                        .param("from", "2026-03-02").param("to", "2026-03-08").param("action", "CREATE_TASK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(7))
+                .andExpect(jsonPath("$[0].count").value(1));
+
+        mockMvc.perform(get("/api/activity/group/" + group.id() + "/rollups")
+                        .param("from", "2026-03-01").param("to", "2026-03-31").param("granularity", "WEEK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].action").value("CREATE_TASK"))
+                .andExpect(jsonPath("$[0].periodStart").value("2026-03-02"))
+                .andExpect(jsonPath("$[0].count").value(7))
+                .andExpect(jsonPath("$[1].count").value(1));
+    }
+}
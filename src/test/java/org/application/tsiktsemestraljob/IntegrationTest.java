@@ -29,8 +29,11 @@ public abstract class IntegrationTest {
         r.add("spring.datasource.url", MYSQL::getJdbcUrl);
         r.add("spring.datasource.username", MYSQL::getUsername);
         r.add("spring.datasource.password", MYSQL::getPassword);
-        r.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+        r.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
         r.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.MySQLDialect");
+        r.add("spring.jpa.properties.hibernate.session_factory.statement_inspector", SqlStatementCounter.class::getName);
+        /* tests and benchmarks fire far more requests per caller than the production limits allow */
+        r.add("app.rate-limit.enabled", () -> "false");
     }
 
 }
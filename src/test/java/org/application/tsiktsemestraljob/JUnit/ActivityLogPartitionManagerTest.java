@@ -0,0 +1,131 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import org.application.tsiktsemestraljob.demo.Service.ActivityLogPartitionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ActivityLogPartitionManagerTest {
+    private static final Clock OCTOBER_2026 = Clock.fixed(Instant.parse("2026-10-18T10:00:00Z"), ZoneOffset.UTC);
+
+    private JdbcTemplate jdbcTemplate;
+    private ActivityLogPartitionManager manager;
+
+    @BeforeEach
+    void setup() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        lock(1);
+        manager = new ActivityLogPartitionManager(jdbcTemplate, mock(PlatformTransactionManager.class), 12, 2, 100, OCTOBER_2026);
+    }
+
+    private void lock(int result) {
+        when(jdbcTemplate.queryForObject(eq("select get_lock(?, ?)"), eq(Integer.class), any(), any())).thenReturn(result);
+    }
+
+    private void partitions(String... names) {
+        when(jdbcTemplate.queryForList(contains("information_schema.partitions"), eq(String.class))).thenReturn(List.of(names));
+    }
+
+    @Test
+    void retentionStartsAtFirstDayOfOldestKeptMonth() {
+        assertEquals(LocalDate.of(2025, 10, 1), manager.retainedSince());
+    }
+
+    @Test
+    void missingMonthsAreSplitOffTheFuturePartition() {
+        partitions("p202609", "p202610", "p_future");
+
+        manager.maintain();
+
+        verify(jdbcTemplate).execute("alter table activity_log reorganize partition p_future into (" +
+                "partition p202611 values less than ('2026-12-01'), " +
+                "partition p202612 values less than ('2027-01-01'), " +
+                "partition p_future values less than (maxvalue))");
+    }
+
+    @Test
+    void nothingIsAddedWhenMonthsAheadExist() {
+        partitions("p202610", "p202611", "p202612", "p_future");
+
+        manager.maintain();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void partitionsOlderThanRetentionAreDropped() {
+        partitions("p202508", "p202509", "p202510", "p202609", "p202610", "p202611", "p202612", "p_future");
+
+        manager.maintain();
+
+        verify(jdbcTemplate).execute("alter table activity_log drop partition p202508, p202509");
+        verify(jdbcTemplate, never()).execute(contains("reorganize"));
+    }
+
+    @Test
+    void unpartitionedTableDeletesExpiredRowsInChunks() {
+        partitions();
+        when(jdbcTemplate.update(startsWith("delete from activity_log"), any(Object[].class))).thenReturn(100, 100, 7);
+
+        manager.maintain();
+
+        verify(jdbcTemplate, times(3)).update("delete from activity_log where timestamp < ? order by log_id limit 100",
+                LocalDateTime.of(2025, 10, 1, 0, 0));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void partitionsAreReadAndChangedOnlyUnderTheLock() {
+        partitions("p202609", "p202610", "p_future");
+
+        manager.maintain();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).queryForObject(eq("select get_lock(?, ?)"), eq(Integer.class), eq("activity_log_maintenance"), any());
+        order.verify(jdbcTemplate).queryForList(contains("information_schema.partitions"), eq(String.class));
+        order.verify(jdbcTemplate).execute(contains("reorganize"));
+        order.verify(jdbcTemplate).queryForObject("select release_lock(?)", Integer.class, "activity_log_maintenance");
+    }
+
+    @Test
+    void nodeThatDoesNotGetTheLockChangesNothing() {
+        lock(0);
+        partitions("p202508", "p202609", "p_future");
+
+        manager.maintain();
+
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).queryForObject(eq("select release_lock(?)"), eq(Integer.class), any());
+    }
+
+    @Test
+    void lockIsReleasedAndStartupGoesOnWhenMaintenanceFails() {
+        partitions("p202609", "p202610", "p_future");
+        doThrow(new DataAccessResourceFailureException("partition in use"))
+                .when(jdbcTemplate).execute(contains("reorganize"));
+
+        assertDoesNotThrow(() -> manager.maintainOnStartup());
+
+        verify(jdbcTemplate).queryForObject("select release_lock(?)", Integer.class, "activity_log_maintenance");
+    }
+
+    @Test
+    void retentionBelowOneMonthIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ActivityLogPartitionManager(jdbcTemplate, mock(PlatformTransactionManager.class), 0, 2, 100, OCTOBER_2026));
+    }
+}
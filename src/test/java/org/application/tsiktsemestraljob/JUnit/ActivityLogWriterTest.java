@@ -0,0 +1,190 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.ActivityLogOverflowPolicy;
+import org.application.tsiktsemestraljob.demo.Service.ActivityLogWriter;
+import org.application.tsiktsemestraljob.demo.Service.ActivityLogsService;
+import org.application.tsiktsemestraljob.demo.Service.ActivityRollupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ActivityLogWriterTest {
+
+    @TempDir
+    Path spillDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private ActivityRollupService activityRollupService;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<ActivityLogWriter.Entry> inserted = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        activityRollupService = mock(ActivityRollupService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(inv -> {
+                    inserted.addAll(inv.<Collection<ActivityLogWriter.Entry>>getArgument(1));
+                    return new int[0][];
+                });
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private ActivityLogWriter writer(int capacity, int batchSize, ActivityLogOverflowPolicy policy) {
+        return new ActivityLogWriter(jdbcTemplate, activityRollupService, mock(PlatformTransactionManager.class), meterRegistry,
+                capacity, batchSize, 50, policy, 10, spillDir, 1000);
+    }
+
+    private static ActivityLogWriter.Entry entry(long userId) {
+        return new ActivityLogWriter.Entry(userId, 10L, "CREATE_TASK", "Task " + userId, LocalDateTime.now());
+    }
+
+    private double entries(String outcome) {
+        return meterRegistry.get("activity_log.entries").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drainWritesQueuedEntriesInBatches() {
+        ActivityLogWriter writer = writer(100, 2, ActivityLogOverflowPolicy.DROP);
+        for (long i = 1; i <= 5; i++) {
+            writer.submit(entry(i));
+        }
+
+        assertEquals(5, writer.drain());
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), inserted.stream().map(ActivityLogWriter.Entry::userId).toList());
+        assertEquals(5, entries("written"));
+        verify(activityRollupService, times(3)).increment(anyCollection());
+    }
+
+    @Test
+    void dropPolicyCountsDiscardedEntries() {
+        ActivityLogWriter writer = writer(2, 10, ActivityLogOverflowPolicy.DROP);
+        for (long i = 1; i <= 5; i++) {
+            writer.submit(entry(i));
+        }
+
+        assertEquals(3, entries("dropped"));
+        assertEquals(2, meterRegistry.get("activity_log.queue.depth").gauge().value());
+        assertEquals(2, writer.drain());
+    }
+
+    @Test
+    void blockPolicyDropsAfterTimeout() {
+        ActivityLogWriter writer = writer(1, 10, ActivityLogOverflowPolicy.BLOCK);
+        writer.submit(entry(1));
+        writer.submit(entry(2));
+
+        assertEquals(1, entries("dropped"));
+    }
+
+    @Test
+    void spillPolicyWritesOverflowToDiskAndReplaysIt() throws Exception {
+        ActivityLogWriter writer = writer(1, 10, ActivityLogOverflowPolicy.SPILL);
+        List<ActivityLogWriter.Entry> submitted = List.of(entry(1), entry(2), entry(3));
+        submitted.forEach(writer::submit);
+        assertEquals(2, entries("spilled"));
+        assertEquals(2, Files.readAllLines(spillDir.resolve("activity-log.spill")).size());
+
+        assertEquals(3, writer.drain());
+
+        assertEquals(submitted, inserted);
+        try (var files = Files.list(spillDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBatchIsRetriedRowByRow() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("fk_user"));
+        ArgumentCaptor<PreparedStatementSetter> rows = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        when(jdbcTemplate.update(anyString(), rows.capture()))
+                .thenReturn(1)
+                .thenThrow(new DataIntegrityViolationException("fk_user"))
+                .thenReturn(1);
+
+        ActivityLogWriter writer = writer(10, 10, ActivityLogOverflowPolicy.DROP);
+        for (long i = 1; i <= 3; i++) {
+            writer.submit(entry(i));
+        }
+        writer.drain();
+
+        assertEquals(3, rows.getAllValues().size());
+        assertEquals(2, entries("written"));
+        verify(activityRollupService, times(2)).increment(argThat(batch -> batch.size() == 1));
+        assertEquals(1, entries("failed"));
+    }
+
+    @Test
+    void flusherWritesInBackgroundAndShutdownDrains() throws Exception {
+        ActivityLogWriter writer = writer(100, 10, ActivityLogOverflowPolicy.BLOCK);
+        writer.start();
+        for (long i = 1; i <= 25; i++) {
+            writer.submit(entry(i));
+        }
+        writer.shutdown();
+
+        assertEquals(25, inserted.size());
+        assertEquals(0, meterRegistry.get("activity_log.queue.depth").gauge().value());
+    }
+
+    @Test
+    void afterCommitLogsAreQueuedOnlyWhenTransactionCommits() {
+        ActivityLogWriter writer = mock(ActivityLogWriter.class);
+        ActivityLogsService service = new ActivityLogsService(writer, null, null, null, null, true);
+        User user = new User();
+        user.setId(7L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.log(user, 10L, "CREATE_TASK", "Task");
+        verifyNoInteractions(writer);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(writer).submit(argThat(e -> e.userId().equals(7L) && e.groupId().equals(10L) && e.action().equals("CREATE_TASK")));
+    }
+
+    @Test
+    void logsAreQueuedImmediatelyWhenAfterCommitIsOff() {
+        ActivityLogWriter writer = mock(ActivityLogWriter.class);
+        ActivityLogsService service = new ActivityLogsService(writer, null, null, null, null, false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.log(null, null, "LOGIN", null);
+
+        verify(writer).submit(argThat(e -> e.userId() == null));
+    }
+}
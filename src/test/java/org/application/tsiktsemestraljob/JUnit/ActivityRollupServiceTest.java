@@ -0,0 +1,135 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.DTO.ActivityLogsDTO.ActivityRollupDTO;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Enums.RollupGranularity;
+import org.application.tsiktsemestraljob.demo.Repository.ActivityRollupRepository;
+import org.application.tsiktsemestraljob.demo.Service.ActivityLogPartitionManager;
+import org.application.tsiktsemestraljob.demo.Service.ActivityLogWriter;
+import org.application.tsiktsemestraljob.demo.Service.ActivityRollupService;
+import org.application.tsiktsemestraljob.demo.Service.MembershipRoleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ActivityRollupServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ActivityRollupRepository activityRollupRepository;
+
+    @Mock
+    private MembershipRoleCache membershipRoleCache;
+
+    @Mock
+    private CurrentUser currentUser;
+
+    private ActivityRollupService service;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        service = new ActivityRollupService(jdbcTemplate, mock(PlatformTransactionManager.class),
+                activityRollupRepository, membershipRoleCache, currentUser, mock(ActivityLogPartitionManager.class), false);
+        when(currentUser.id()).thenReturn(1L);
+        when(membershipRoleCache.getRole(1L, 10L)).thenReturn(Optional.of(MembershipRole.MEMBER));
+    }
+
+    private static ActivityLogWriter.Entry entry(Long groupId, String action, LocalDateTime timestamp) {
+        return new ActivityLogWriter.Entry(1L, groupId, action, null, timestamp);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void incrementSendsOneUpsertPerGroupDayAndAction() throws Exception {
+        LocalDateTime monday = LocalDateTime.of(2026, 3, 2, 9, 0);
+        service.increment(List.of(
+                entry(10L, "CREATE_TASK", monday),
+                entry(10L, "CREATE_TASK", monday.plusHours(5)),
+                entry(10L, "CREATE_TASK", monday.plusDays(1)),
+                entry(10L, "JOIN_GROUP", monday),
+                entry(9L, "CREATE_TASK", monday),
+                entry(null, "LOGIN", monday)));
+
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter = ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into activity_rollups"), rows.capture(), eq(4), setter.capture());
+
+        List<String> bound = new ArrayList<>();
+        for (Object row : rows.getValue()) {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            setter.getValue().setValues(ps, row);
+            ArgumentCaptor<Long> longs = ArgumentCaptor.forClass(Long.class);
+            ArgumentCaptor<Object> day = ArgumentCaptor.forClass(Object.class);
+            ArgumentCaptor<String> action = ArgumentCaptor.forClass(String.class);
+            verify(ps, times(2)).setLong(anyInt(), longs.capture());
+            verify(ps).setObject(eq(2), day.capture());
+            verify(ps).setString(eq(3), action.capture());
+            bound.add(longs.getAllValues().get(0) + " " + day.getValue() + " " + action.getValue() + " " + longs.getAllValues().get(1));
+        }
+        assertEquals(List.of(
+                "9 2026-03-02 CREATE_TASK 1",
+                "10 2026-03-02 CREATE_TASK 2",
+                "10 2026-03-02 JOIN_GROUP 1",
+                "10 2026-03-03 CREATE_TASK 1"), bound);
+    }
+
+    @Test
+    void incrementWithoutGroupedEntriesDoesNothing() {
+        service.increment(List.of(entry(null, "LOGIN", LocalDateTime.now())));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void weeklyRollupsSumDaysFromMonday() {
+        when(activityRollupRepository.findDaily(eq(10L), any(), any(), eq(true), anyCollection())).thenReturn(List.of(
+                new ActivityRollupDTO("CREATE_TASK", LocalDate.of(2026, 3, 2), 2),
+                new ActivityRollupDTO("JOIN_GROUP", LocalDate.of(2026, 3, 4), 1),
+                new ActivityRollupDTO("CREATE_TASK", LocalDate.of(2026, 3, 8), 3),
+                new ActivityRollupDTO("CREATE_TASK", LocalDate.of(2026, 3, 9), 4)));
+
+        List<ActivityRollupDTO> weeks = service.getRollups(10L, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31),
+                null, RollupGranularity.WEEK);
+
+        assertEquals(List.of(
+                new ActivityRollupDTO("CREATE_TASK", LocalDate.of(2026, 3, 2), 5),
+                new ActivityRollupDTO("JOIN_GROUP", LocalDate.of(2026, 3, 2), 1),
+                new ActivityRollupDTO("CREATE_TASK", LocalDate.of(2026, 3, 9), 4)), weeks);
+    }
+
+    @Test
+    void rollupsAreOnlyForMembers() {
+        when(membershipRoleCache.getRole(1L, 11L)).thenReturn(Optional.empty());
+        assertThrows(AccessDeniedException.class, () -> service.getRollups(11L, LocalDate.now(), LocalDate.now(),
+                null, RollupGranularity.DAY));
+    }
+
+    @Test
+    void invalidRangeIsRejected() {
+        LocalDate today = LocalDate.now();
+        assertThrows(ResponseStatusException.class, () -> service.getRollups(10L, today, today.minusDays(1), null, RollupGranularity.DAY));
+        assertThrows(ResponseStatusException.class, () -> service.getRollups(10L, today.minusYears(2), today, null, RollupGranularity.DAY));
+    }
+}
@@ -0,0 +1,188 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.application.tsiktsemestraljob.demo.Authorization.Config.ConcurrencyLimitFilter;
+import org.application.tsiktsemestraljob.demo.Enums.RequestPool;
+import org.application.tsiktsemestraljob.demo.Service.ConcurrencyLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ConcurrencyLimiterTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000 * MS);
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimiter limiter;
+    private ConcurrencyLimiter.Pool reads;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = limiter("READ=10/20/100", "WRITE=4/8/200");
+        reads = limiter.getPool(RequestPool.READ);
+    }
+
+    private ConcurrencyLimiter limiter(String... pools) {
+        return new ConcurrencyLimiter(meterRegistry, true, List.of(pools), 4, 0.5, 2, clock::get);
+    }
+
+    private List<ConcurrencyLimiter.Permit> acquire(ConcurrencyLimiter.Pool pool, int count) {
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(pool.tryAcquire());
+        }
+        return permits;
+    }
+
+    @Test
+    void requestsAreSortedIntoPools() {
+        assertEquals(RequestPool.AUTH, ConcurrencyLimiter.classify("POST", "/auth/login"));
+        assertEquals(RequestPool.AUTH, ConcurrencyLimiter.classify("GET", "/auth/me"));
+        assertEquals(RequestPool.READ, ConcurrencyLimiter.classify("GET", "/api/tasks/7"));
+        assertEquals(RequestPool.WRITE, ConcurrencyLimiter.classify("DELETE", "/api/tasks/7"));
+        assertNull(ConcurrencyLimiter.classify("GET", "/ws"));
+        assertNull(ConcurrencyLimiter.classify("GET", "/swagger-ui/index.html"));
+
+        assertSame(reads, limiter.route("GET", "/api/studyGroups/my-groups"));
+        assertNull(limiter.route("POST", "/auth/login"));
+    }
+
+    @Test
+    void poolRejectsOnceItIsFullAndAdmitsAgainAfterARelease() {
+        List<ConcurrencyLimiter.Permit> permits = acquire(reads, 10);
+        assertTrue(permits.stream().allMatch(permit -> permit != null));
+        assertEquals(10, meterRegistry.get("concurrency.inflight").tag("pool", "read").gauge().value());
+
+        assertNull(reads.tryAcquire());
+        assertNull(reads.tryAcquire());
+        assertEquals(2, meterRegistry.get("concurrency.rejected").tag("pool", "read").counter().count());
+        assertNotNull(limiter.getPool(RequestPool.WRITE).tryAcquire());
+
+        permits.get(0).release();
+        assertNotNull(reads.tryAcquire());
+    }
+
+    @Test
+    void fastResponsesUnderLoadRaiseTheLimitUpToMax() {
+        /* each fast response from the upper half adds a tenth of a slot */
+        acquire(reads, 10).forEach(ConcurrencyLimiter.Permit::release);
+        assertEquals(10, reads.getLimit());
+        acquire(reads, 10).forEach(ConcurrencyLimiter.Permit::release);
+        assertEquals(11, reads.getLimit());
+
+        for (int round = 0; round < 100; round++) {
+            acquire(reads, reads.getLimit()).forEach(ConcurrencyLimiter.Permit::release);
+        }
+        assertEquals(20, reads.getLimit());
+        assertEquals(20, meterRegistry.get("concurrency.limit").tag("pool", "read").gauge().value());
+    }
+
+    @Test
+    void fastResponsesWithFewRequestsInFlightKeepTheLimit() {
+        for (int i = 0; i < 100; i++) {
+            reads.tryAcquire().release();
+        }
+        assertEquals(10, reads.getLimit());
+    }
+
+    @Test
+    void slowResponsesCutTheLimitOncePerWave() {
+        List<ConcurrencyLimiter.Permit> wave = acquire(reads, 10);
+        clock.addAndGet(150 * MS);
+
+        /* the whole wave was slow, only the first response cuts */
+        wave.forEach(ConcurrencyLimiter.Permit::release);
+        assertEquals(5, reads.getLimit());
+
+        /* a request admitted after the cut and still slow cuts again, down to min-limit */
+        ConcurrencyLimiter.Permit next = reads.tryAcquire();
+        clock.addAndGet(150 * MS);
+        next.release();
+        assertEquals(4, reads.getLimit());
+    }
+
+    @Test
+    void malformedPoolsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> limiter("READ=10/20"));
+        assertThrows(IllegalArgumentException.class, () -> limiter("READ=2/20/100"));
+        assertThrows(IllegalArgumentException.class, () -> limiter("READ=30/20/100"));
+        assertThrows(IllegalArgumentException.class, () -> limiter("SLOW=10/20/100"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConcurrencyLimiter(meterRegistry, true, List.of(), 4, 1.5, 1, clock::get));
+        assertFalse(new ConcurrencyLimiter(meterRegistry, true, List.of(" "), 4, 0.5, 1, clock::get).isEnabled());
+    }
+
+    @Test
+    void filterShedsWith503AndReleasesEvenWhenTheChainFails() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter);
+        ConcurrencyLimiter.Pool writes = limiter.getPool(RequestPool.WRITE);
+        FilterChain failing = mock(FilterChain.class);
+        doThrow(new ServletException("boom")).when(failing).doFilter(any(), any());
+
+        assertThrows(ServletException.class, () -> filter.doFilter(
+                new MockHttpServletRequest("POST", "/api/tasks"), new MockHttpServletResponse(), failing));
+        assertEquals(0, writes.getInFlight());
+
+        List<ConcurrencyLimiter.Permit> held = acquire(writes, 4);
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/tasks"), shed, chain);
+        assertEquals(503, shed.getStatus());
+        assertEquals("2", shed.getHeader("Retry-After"));
+        verify(chain, never()).doFilter(any(), any());
+
+        /* other pools and unlimited paths are not affected */
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/tasks"), read, chain);
+        filter.doFilter(new MockHttpServletRequest("POST", "/ws"), new MockHttpServletResponse(), chain);
+        assertEquals(200, read.getStatus());
+        verify(chain, times(2)).doFilter(any(), any());
+        held.forEach(ConcurrencyLimiter.Permit::release);
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheLimit() throws Exception {
+        ConcurrencyLimiter.Pool writes = limiter.getPool(RequestPool.WRITE);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger highest = new AtomicInteger();
+        try {
+            for (int t = 0; t < 8; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2000; i++) {
+                        ConcurrencyLimiter.Permit permit = writes.tryAcquire();
+                        if (permit != null) {
+                            highest.accumulateAndGet(writes.getInFlight(), Math::max);
+                            permit.release();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertTrue(highest.get() <= writes.getLimit());
+        assertEquals(0, writes.getInFlight());
+    }
+}
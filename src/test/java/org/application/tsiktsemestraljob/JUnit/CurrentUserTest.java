@@ -0,0 +1,125 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CurrentUserTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private CurrentUser currentUser;
+
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+
+        user = new User();
+        user.setId(1L);
+        user.setName("testname");
+        user.setEmail("testmail");
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate(Object principal) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    @Test
+    void callerIsLoadedOncePerRequest() {
+        authenticate("testmail");
+        when(userRepository.findByEmail("testmail")).thenReturn(Optional.of(user));
+
+        assertSame(user, currentUser.getCurrentUser());
+        assertSame(user, currentUser.getCurrentUser());
+        assertEquals(1L, currentUser.id());
+
+        verify(userRepository, times(1)).findByEmail("testmail");
+    }
+
+    @Test
+    void slimPrincipalResolvesIdWithoutQuery() {
+        authenticate(new CustomUserDetails(user));
+
+        assertEquals(1L, currentUser.id());
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void slimPrincipalIsLoadedByPrimaryKey() {
+        authenticate(new CustomUserDetails(user));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        currentUser.getCurrentUser();
+        currentUser.getCurrentUser();
+
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        authenticate("testmail");
+        when(userRepository.findByEmail("testmail")).thenReturn(Optional.of(user));
+
+        currentUser.getCurrentUser();
+        currentUser.invalidate();
+        currentUser.getCurrentUser();
+
+        verify(userRepository, times(2)).findByEmail("testmail");
+    }
+
+    @Test
+    void eachRequestResolvesItsOwnCaller() {
+        authenticate("testmail");
+        when(userRepository.findByEmail("testmail")).thenReturn(Optional.of(user));
+
+        currentUser.getCurrentUser();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        currentUser.getCurrentUser();
+
+        verify(userRepository, times(2)).findByEmail("testmail");
+    }
+
+    @Test
+    void principalOfDeletedUserIsUnauthorized() {
+        authenticate(new CustomUserDetails(user));
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        ResponseStatusException gone = assertThrows(ResponseStatusException.class, currentUser::getCurrentUser);
+        assertEquals(HttpStatus.UNAUTHORIZED, gone.getStatusCode());
+    }
+}
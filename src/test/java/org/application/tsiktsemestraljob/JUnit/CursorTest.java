@@ -0,0 +1,46 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.Cursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorTest {
+
+    private static Cursor roundTrip(Cursor cursor) {
+        return Cursor.decode(cursor.encode());
+    }
+
+    @Test
+    void emptyAndNullKeysStayDistinct() {
+        assertEquals(Cursor.of(null, 7L), roundTrip(Cursor.of(null, 7L)));
+        assertEquals(Cursor.of("", 7L), roundTrip(Cursor.of("", 7L)));
+        assertNotEquals(Cursor.of(null, 7L).encode(), Cursor.of("", 7L).encode());
+    }
+
+    @Test
+    void keysSurviveWhateverTheyContain() {
+        for (String key : new String[]{"v", "value", "two\nlines", "2026-01-01T12:00", "Zoë"}) {
+            assertEquals(Cursor.of(key, 3L), roundTrip(Cursor.of(key, 3L)));
+        }
+        assertEquals(Cursor.of(12L), roundTrip(Cursor.of(12L)));
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertEquals(new Cursor(null, null), Cursor.decode(null));
+        assertEquals(new Cursor(null, null), Cursor.decode(""));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        String unmarked = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("name\n5".getBytes(StandardCharsets.UTF_8));
+        assertThrows(ResponseStatusException.class, () -> Cursor.decode(unmarked));
+        assertThrows(ResponseStatusException.class, () -> Cursor.decode("not-a-cursor"));
+    }
+}
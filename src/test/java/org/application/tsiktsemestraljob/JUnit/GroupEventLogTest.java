@@ -0,0 +1,143 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.GroupEventReplayDTO;
+import org.application.tsiktsemestraljob.demo.Enums.GroupEventStore;
+import org.application.tsiktsemestraljob.demo.Enums.WebSocketBrokerMode;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Events.GroupDeletedEvent;
+import org.application.tsiktsemestraljob.demo.Service.GroupEventLog;
+import org.application.tsiktsemestraljob.demo.Service.MembershipRoleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+public class GroupEventLogTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private MembershipRoleCache membershipRoleCache;
+
+    @Mock
+    private CurrentUser currentUser;
+
+    private GroupEventLog groupEventLog;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        groupEventLog = new GroupEventLog(jdbcTemplate, JsonMapper.builder().build(), membershipRoleCache, currentUser,
+                GroupEventStore.MEMORY, WebSocketBrokerMode.SIMPLE, 5, 2);
+    }
+
+    /* records count events directly after the current lastSeq, the way the dispatcher does */
+    private long publish(long groupId, int count) {
+        long last = groupEventLog.lastSeq(groupId);
+        groupEventLog.record(groupId, LongStream.rangeClosed(last + 1, last + count)
+                .mapToObj(seq -> new GroupEventLog.Event(seq, "{\"seq\":" + seq + "}"))
+                .toList());
+        return last;
+    }
+
+    private static List<Long> seqs(GroupEventReplayDTO replay) {
+        return replay.events().stream().map(event -> event.get("seq").asLong()).toList();
+    }
+
+    @Test
+    void withoutAfterOnlyTheCurrentSeqIsReturned() {
+        long start = publish(10, 3);
+
+        GroupEventReplayDTO replay = groupEventLog.replay(10, null);
+
+        assertFalse(replay.resyncRequired());
+        assertEquals(start + 3, replay.lastSeq());
+        assertTrue(replay.events().isEmpty());
+    }
+
+    @Test
+    void returnsOnlyTheMissedEventsInOrder() {
+        long start = publish(10, 4);
+
+        GroupEventReplayDTO replay = groupEventLog.replay(10, start + 2);
+
+        assertFalse(replay.resyncRequired());
+        assertEquals(List.of(start + 3, start + 4), seqs(replay));
+        assertTrue(groupEventLog.replay(10, start + 4).events().isEmpty(), "an up to date client gets nothing");
+    }
+
+    @Test
+    void gapOlderThanTheBufferRequiresResync() {
+        long start = publish(10, 8);
+
+        assertTrue(groupEventLog.replay(10, start + 2).resyncRequired(), "only the last 5 events are kept");
+        assertEquals(List.of(start + 4, start + 5, start + 6, start + 7, start + 8), seqs(groupEventLog.replay(10, start + 3)));
+    }
+
+    @Test
+    void seqFromBeforeARestartOrEvictionRequiresResync() {
+        long start = publish(10, 2);
+        publish(20, 1);
+        publish(30, 1);
+
+        GroupEventReplayDTO replay = groupEventLog.replay(10, start + 2);
+
+        assertTrue(replay.resyncRequired(), "group 10 was evicted, its buffer starts again at a later seq");
+        assertTrue(replay.lastSeq() > start + 2);
+    }
+
+    @Test
+    void seqAheadOfTheServerRequiresResync() {
+        long start = publish(10, 1);
+
+        assertTrue(groupEventLog.replay(10, start + 100).resyncRequired());
+    }
+
+    @Test
+    void deletedGroupForgetsItsEvents() {
+        long start = publish(10, 2);
+
+        groupEventLog.onGroupDeleted(new GroupDeletedEvent(10L));
+
+        assertTrue(groupEventLog.replay(10, start).resyncRequired());
+    }
+
+    @Test
+    void onlyMembersCanReplay() {
+        when(currentUser.id()).thenReturn(1L);
+        when(membershipRoleCache.getRole(1L, 10L)).thenReturn(Optional.empty());
+        when(membershipRoleCache.getRole(1L, 20L)).thenReturn(Optional.of(MembershipRole.MEMBER));
+
+        assertThrows(AccessDeniedException.class, () -> groupEventLog.getReplay(10L, null));
+        assertFalse(groupEventLog.getReplay(20L, null).resyncRequired());
+    }
+
+    private GroupEventLog groupEventLog(GroupEventStore store, WebSocketBrokerMode broker) {
+        return new GroupEventLog(jdbcTemplate, JsonMapper.builder().build(), membershipRoleCache, currentUser,
+                store, broker, 5, 2);
+    }
+
+    @Test
+    void storeFollowsTheBrokerUnlessSet() {
+        assertEquals(GroupEventStore.MEMORY, groupEventLog(null, WebSocketBrokerMode.SIMPLE).getStore());
+        assertEquals(GroupEventStore.JDBC, groupEventLog(null, WebSocketBrokerMode.RELAY).getStore());
+        assertEquals(GroupEventStore.JDBC, groupEventLog(GroupEventStore.JDBC, WebSocketBrokerMode.SIMPLE).getStore());
+    }
+
+    @Test
+    void memoryStoreIsRefusedBehindARelay() {
+        assertThrows(IllegalStateException.class, () -> groupEventLog(GroupEventStore.MEMORY, WebSocketBrokerMode.RELAY));
+    }
+}
@@ -0,0 +1,177 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.SessionStore;
+import org.application.tsiktsemestraljob.demo.Service.JdbcSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class JdbcSessionRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcSessionRepository repository;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        repository = new JdbcSessionRepository(jdbcTemplate, meterRegistry, SessionStore.JDBC,
+                Duration.ofMinutes(30), 60_000, 2);
+    }
+
+    private static SecurityContext signedIn(long userId) {
+        User user = new User();
+        user.setId(userId);
+        user.setName("Ann");
+        user.setEmail("ann@test.com");
+        CustomUserDetails details = new CustomUserDetails(user);
+        details.eraseCredentials();
+        return new SecurityContextImpl(new UsernamePasswordAuthenticationToken(details, null, List.of()));
+    }
+
+    /* lets findById read one stored row */
+    @SuppressWarnings("unchecked")
+    private void storedRow(String id, Instant lastAccess, long expiresAt, Map<String, Object> attributes) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("created_at")).thenReturn(lastAccess.minusSeconds(600).toEpochMilli());
+        when(rs.getLong("last_accessed_at")).thenReturn(lastAccess.toEpochMilli());
+        when(rs.getLong("expires_at")).thenReturn(expiresAt);
+        when(rs.getInt("max_inactive_seconds")).thenReturn(1800);
+        when(rs.getBytes("attributes")).thenReturn(new SerializingConverter().convert(new HashMap<>(attributes)));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(id)))
+                .thenAnswer(invocation -> Collections.singletonList(invocation.<RowMapper<?>>getArgument(1).mapRow(rs, 0)));
+    }
+
+    private double writes(String kind) {
+        return meterRegistry.get("session.writes").tag("kind", kind).counter().count();
+    }
+
+    @Test
+    void newSessionIsInsertedWithItsPrincipal() {
+        JdbcSessionRepository.JdbcSession session = repository.createSession();
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, signedIn(3));
+
+        repository.save(session);
+
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(startsWith("insert into http_sessions"), args.capture(), args.capture(),
+                args.capture(), args.capture(), args.capture(), args.capture(), args.capture());
+        assertEquals(session.getId(), args.getAllValues().get(0));
+        assertEquals(3L, args.getAllValues().get(1));
+        assertEquals(1800, args.getAllValues().get(5));
+
+        repository.save(session);
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void accessWithinTheTouchDelayWritesNothing() throws Exception {
+        Instant stored = Instant.now().minusSeconds(30);
+        storedRow("s1", stored, Instant.now().plusSeconds(1800).toEpochMilli(), Map.of("k", "v"));
+
+        JdbcSessionRepository.JdbcSession session = repository.findById("s1");
+        assertEquals("v", session.getAttribute("k"));
+        session.setLastAccessedTime(Instant.now());
+        repository.save(session);
+        repository.flushTouches();
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void laterAccessesAreFlushedAsOneBatch() throws Exception {
+        Instant stored = Instant.now().minusSeconds(120);
+        storedRow("s1", stored, Instant.now().plusSeconds(1800).toEpochMilli(), Map.of());
+        storedRow("s2", stored, Instant.now().plusSeconds(1800).toEpochMilli(), Map.of());
+
+        for (int request = 0; request < 3; request++) {
+            for (String id : List.of("s1", "s2")) {
+                JdbcSessionRepository.JdbcSession session = repository.findById(id);
+                session.setLastAccessedTime(Instant.now());
+                repository.save(session);
+            }
+        }
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        assertEquals(2.0, meterRegistry.get("session.touches.pending").gauge().value());
+
+        repository.flushTouches();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("update http_sessions set last_accessed_at"), batch.capture());
+        assertEquals(2, batch.getValue().size(), "one row per session however many requests it made");
+        assertEquals(2.0, writes("touch"));
+        assertEquals(0.0, meterRegistry.get("session.touches.pending").gauge().value());
+    }
+
+    @Test
+    void changedAttributesAreWrittenAtOnce() throws Exception {
+        storedRow("s1", Instant.now().minusSeconds(5), Instant.now().plusSeconds(1800).toEpochMilli(), Map.of());
+
+        JdbcSessionRepository.JdbcSession session = repository.findById("s1");
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, signedIn(9));
+        repository.save(session);
+
+        verify(jdbcTemplate).update(startsWith("update http_sessions set principal_id"), eq(9L), any(byte[].class),
+                anyLong(), eq(1800), anyLong(), eq("s1"));
+        assertEquals(1.0, writes("attributes"));
+    }
+
+    @Test
+    void changedIdRenamesTheRow() throws Exception {
+        storedRow("s1", Instant.now().minusSeconds(5), Instant.now().plusSeconds(1800).toEpochMilli(), Map.of());
+
+        JdbcSessionRepository.JdbcSession session = repository.findById("s1");
+        String newId = session.changeSessionId();
+        repository.save(session);
+
+        verify(jdbcTemplate).update(startsWith("update http_sessions set session_id"), eq(newId), eq("s1"));
+        verify(jdbcTemplate, never()).update(startsWith("update http_sessions set principal_id"), any(Object[].class));
+    }
+
+    @Test
+    void expiredRowIsDeletedAndNotReturned() throws Exception {
+        storedRow("s1", Instant.now().minusSeconds(7200), Instant.now().minusSeconds(60).toEpochMilli(), Map.of());
+
+        assertNull(repository.findById("s1"));
+        verify(jdbcTemplate).update("delete from http_sessions where session_id = ?", "s1");
+    }
+
+    @Test
+    void cleanupDeletesInBatchesUntilNothingIsLeft() {
+        when(jdbcTemplate.update(startsWith("delete from http_sessions where expires_at"), anyLong(), eq(2)))
+                .thenReturn(2, 2, 1);
+
+        repository.deleteExpired();
+
+        verify(jdbcTemplate, times(3)).update(startsWith("delete from http_sessions where expires_at"), anyLong(), eq(2));
+    }
+}
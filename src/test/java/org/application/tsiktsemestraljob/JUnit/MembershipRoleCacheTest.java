@@ -0,0 +1,174 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Events.GroupDeletedEvent;
+import org.application.tsiktsemestraljob.demo.Events.MembershipChangedEvent;
+import org.application.tsiktsemestraljob.demo.Events.UserDeletedEvent;
+import org.application.tsiktsemestraljob.demo.Repository.MembershipsRepository;
+import org.application.tsiktsemestraljob.demo.Service.MembershipRoleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class MembershipRoleCacheTest {
+
+    private final Map<String, MembershipRole> database = new ConcurrentHashMap<>();
+    private MembershipsRepository membershipsRepository;
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private MembershipRoleCache cache;
+
+    @BeforeEach
+    void setup() {
+        membershipsRepository = mock(MembershipsRepository.class, withSettings().stubOnly());
+        when(membershipsRepository.findRoleByUserIdAndGroupId(anyLong(), anyLong())).thenAnswer(inv -> {
+            Optional<MembershipRole> role = Optional.ofNullable(database.get(inv.getArgument(0) + ":" + inv.getArgument(1)));
+            Thread.yield();
+            return role;
+        });
+        cache = new MembershipRoleCache(membershipsRepository, new SimpleMeterRegistry(), 1000, 5000, clock::get);
+    }
+
+    private void join(long userId, long groupId, MembershipRole role) {
+        database.put(userId + ":" + groupId, role);
+        cache.onMembershipChanged(new MembershipChangedEvent(userId, groupId));
+    }
+
+    private void leave(long userId, long groupId) {
+        database.remove(userId + ":" + groupId);
+        cache.onMembershipChanged(new MembershipChangedEvent(userId, groupId));
+    }
+
+    @Test
+    void negativeResultsAreCached() {
+        assertTrue(cache.getRole(1L, 10L).isEmpty());
+        assertTrue(cache.getRole(1L, 10L).isEmpty());
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void changeMadeOnAnotherNodeIsSeenOnceTheEntryExpires() {
+        database.put("1:10", MembershipRole.OWNER);
+        assertEquals(Optional.of(MembershipRole.OWNER), cache.getRole(1L, 10L));
+
+        /* no event reaches this node */
+        database.put("1:10", MembershipRole.MEMBER);
+        clock.addAndGet(4999);
+        assertEquals(Optional.of(MembershipRole.OWNER), cache.getRole(1L, 10L));
+
+        clock.addAndGet(1);
+        assertEquals(Optional.of(MembershipRole.MEMBER), cache.getRole(1L, 10L));
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void joinAndLeaveInvalidateEntry() {
+        assertTrue(cache.getRole(1L, 10L).isEmpty());
+
+        join(1L, 10L, MembershipRole.MEMBER);
+        assertEquals(Optional.of(MembershipRole.MEMBER), cache.getRole(1L, 10L));
+
+        leave(1L, 10L);
+        assertTrue(cache.getRole(1L, 10L).isEmpty());
+    }
+
+    @Test
+    void groupAndUserDeletionEvictAllTheirEntries() {
+        join(1L, 10L, MembershipRole.OWNER);
+        join(2L, 10L, MembershipRole.MEMBER);
+        join(2L, 20L, MembershipRole.MEMBER);
+        cache.getRole(1L, 10L);
+        cache.getRole(2L, 10L);
+        cache.getRole(2L, 20L);
+
+        database.clear();
+        cache.onGroupDeleted(new GroupDeletedEvent(10L));
+        assertTrue(cache.getRole(1L, 10L).isEmpty());
+        assertTrue(cache.getRole(2L, 10L).isEmpty());
+        assertEquals(Optional.of(MembershipRole.MEMBER), cache.getRole(2L, 20L));
+
+        cache.onUserDeleted(new UserDeletedEvent(2L));
+        assertTrue(cache.getRole(2L, 20L).isEmpty());
+    }
+
+    @Test
+    void cacheStaysBounded() {
+        for (long userId = 0; userId < 5000; userId++) {
+            cache.getRole(userId, 1L);
+        }
+        assertTrue(cache.size() <= 1000);
+    }
+
+    @Test
+    void concurrentJoinLeaveNeverLeavesStaleEntries() throws Exception {
+        int users = 8;
+        int groups = 4;
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < 2; w++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 20_000; i++) {
+                    long userId = ThreadLocalRandom.current().nextInt(users);
+                    long groupId = ThreadLocalRandom.current().nextInt(groups);
+                    if (ThreadLocalRandom.current().nextBoolean()) {
+                        join(userId, groupId, MembershipRole.MEMBER);
+                    } else {
+                        leave(userId, groupId);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < 6; r++) {
+            executor.submit(() -> {
+                start.await();
+                while (running.get()) {
+                    cache.getRole((long) ThreadLocalRandom.current().nextInt(users),
+                            (long) ThreadLocalRandom.current().nextInt(groups));
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (long userId = 0; userId < users; userId++) {
+            for (long groupId = 0; groupId < groups; groupId++) {
+                assertEquals(Optional.ofNullable(database.get(userId + ":" + groupId)),
+                        cache.getRole(userId, groupId),
+                        "stale entry for user " + userId + " in group " + groupId);
+            }
+        }
+        assertTrue(cache.getHits() > 0);
+    }
+}
@@ -0,0 +1,95 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.tsiktsemestraljob.demo.Service.NotificationCoalescer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotificationCoalescerTest {
+    private final JsonMapper objectMapper = JsonMapper.builder().build();
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationCoalescer coalescer;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new NotificationCoalescer(objectMapper, meterRegistry, 200, 262144);
+    }
+
+    private static NotificationCoalescer.Row row(long id, long groupId) {
+        return new NotificationCoalescer.Row(id, "/topic/group/" + groupId,
+                "{\"eventId\":\"e" + id + "\",\"schemaVersion\":1,\"entityType\":\"TASK\",\"operation\":\"UPDATED\",\"id\":" + id + "}", id);
+    }
+
+    private static List<NotificationCoalescer.Row> burst(long groupId, int events) {
+        return LongStream.rangeClosed(1, events).mapToObj(id -> row(id, groupId)).toList();
+    }
+
+    private JsonNode json(NotificationCoalescer.Frame frame) throws Exception {
+        return objectMapper.readTree(frame.payload());
+    }
+
+    private double frames(String kind) {
+        return meterRegistry.counter("notification_coalescer.frames", "kind", kind).count();
+    }
+
+    @Test
+    void singleEventIsSentUnchanged() {
+        NotificationCoalescer.Frame frame = coalescer.coalesce(List.of(row(1, 10))).getFirst();
+
+        assertEquals(row(1, 10).payload(), new String(frame.payload(), StandardCharsets.UTF_8));
+        assertEquals(0, meterRegistry.counter("notification_coalescer.frames_saved").count());
+    }
+
+    @Test
+    void burstBecomesOneFramePerDestinationInOrder() throws Exception {
+        List<NotificationCoalescer.Row> rows = new ArrayList<>();
+        for (long id = 1; id <= 150; id++) {
+            rows.add(row(id, id % 3 == 0 ? 20 : 10));
+        }
+
+        List<NotificationCoalescer.Frame> frames = coalescer.coalesce(rows);
+
+        assertEquals(2, frames.size());
+        assertEquals("/topic/group/10", frames.get(0).destination());
+        JsonNode events = json(frames.get(0)).get("events");
+        assertEquals(100, events.size());
+        assertEquals(1, events.get(0).get("id").asLong());
+        assertEquals(2, events.get(1).get("id").asLong());
+        assertEquals(4, events.get(2).get("id").asLong());
+        assertEquals(50, frames.get(1).rowIds().size());
+        assertEquals(148, meterRegistry.counter("notification_coalescer.frames_saved").count());
+        assertEquals(2, frames("batch"));
+    }
+
+    @Test
+    void burstAboveMaxEventsInvalidatesTheGroup() throws Exception {
+        NotificationCoalescer.Frame frame = coalescer.coalesce(burst(10, 500)).getFirst();
+
+        JsonNode json = json(frame);
+        assertTrue(json.get("invalidate").asBoolean());
+        assertEquals(0, json.get("events").size());
+        assertEquals(500, json.get("lastSeq").asLong(), "clients continue after the last skipped event");
+        assertEquals(500, frame.rowIds().size(), "the invalidated rows are consumed as well");
+        assertEquals(499, meterRegistry.counter("notification_coalescer.frames_saved").count());
+        assertEquals(1, frames("invalidate"));
+    }
+
+    @Test
+    void batchAboveMaxFrameBytesInvalidatesTheGroup() throws Exception {
+        coalescer = new NotificationCoalescer(objectMapper, meterRegistry, 200, 1024);
+
+        NotificationCoalescer.Frame frame = coalescer.coalesce(burst(10, 50)).getFirst();
+
+        assertTrue(json(frame).get("invalidate").asBoolean());
+    }
+}
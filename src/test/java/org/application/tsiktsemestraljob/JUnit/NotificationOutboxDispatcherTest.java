@@ -0,0 +1,199 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.Enums.GroupEventStore;
+import org.application.tsiktsemestraljob.demo.Enums.WebSocketBrokerMode;
+import org.application.tsiktsemestraljob.demo.Service.GroupEventLog;
+import org.application.tsiktsemestraljob.demo.Service.MembershipRoleCache;
+import org.application.tsiktsemestraljob.demo.Service.NotificationCoalescer;
+import org.application.tsiktsemestraljob.demo.Service.NotificationOutboxDispatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class NotificationOutboxDispatcherTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GroupEventLog groupEventLog;
+    private NotificationOutboxDispatcher dispatcher;
+
+    /* outbox rows as they come back from the select: id, destination, group_id, payload, created_at */
+    private final List<List<Object[]>> batches = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        NotificationCoalescer coalescer = new NotificationCoalescer(JsonMapper.builder().build(), meterRegistry, 200, 262144);
+        groupEventLog = new GroupEventLog(jdbcTemplate, JsonMapper.builder().build(), mock(MembershipRoleCache.class), mock(CurrentUser.class),
+                GroupEventStore.MEMORY, WebSocketBrokerMode.SIMPLE, 500, 100);
+        dispatcher = new NotificationOutboxDispatcher(jdbcTemplate, messagingTemplate, coalescer, groupEventLog, mock(PlatformTransactionManager.class),
+                meterRegistry, 2, 1000, 0, 200, 1000);
+
+        when(jdbcTemplate.query(startsWith("select outbox_id"), any(RowMapper.class), eq(2))).thenAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            List<Object[]> rows = batches.isEmpty() ? List.of() : batches.removeFirst();
+            List<Object> mapped = new ArrayList<>();
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("outbox_id")).thenReturn((Long) row[0]);
+                when(rs.getString("destination")).thenReturn((String) row[1]);
+                when(rs.getObject("group_id", Long.class)).thenReturn((Long) row[2]);
+                when(rs.getString("payload")).thenReturn((String) row[3]);
+                when(rs.getObject("created_at", LocalDateTime.class)).thenReturn((LocalDateTime) row[4]);
+                mapped.add(mapper.mapRow(rs, mapped.size()));
+            }
+            return mapped;
+        });
+    }
+
+    private static Object[] row(long id, long groupId, LocalDateTime createdAt) {
+        return new Object[]{id, "/topic/group/" + groupId, groupId, "{\"n\":" + id + "}", createdAt};
+    }
+
+    private static Object[] userRow(long id, long userId, LocalDateTime createdAt) {
+        return new Object[]{id, "/queue/user/" + userId, null, "{\"n\":" + id + "}", createdAt};
+    }
+
+    private static JsonNode json(Message<?> message) throws Exception {
+        return JsonMapper.builder().build().readTree((byte[]) message.getPayload());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> deletedIds() {
+        ArgumentCaptor<List<Object[]>> deletes = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, atLeast(0)).batchUpdate(startsWith("delete from notification_outbox"), deletes.capture());
+        return deletes.getAllValues().stream().flatMap(List::stream).map(args -> (Long) args[0]).toList();
+    }
+
+    @Test
+    void publishesRowsInOutboxOrderAndDeletesThem() {
+        LocalDateTime now = LocalDateTime.now();
+        batches.add(List.<Object[]>of(row(1, 10, now), row(2, 20, now)));
+        batches.add(List.<Object[]>of(row(3, 10, now)));
+
+        assertEquals(3, dispatcher.drain());
+
+        ArgumentCaptor<Message<?>> messages = ArgumentCaptor.forClass(Message.class);
+        ArgumentCaptor<String> destinations = ArgumentCaptor.forClass(String.class);
+        verify(messagingTemplate, times(3)).send(destinations.capture(), messages.capture());
+        assertEquals(List.of("/topic/group/10", "/topic/group/20", "/topic/group/10"), destinations.getAllValues());
+        assertEquals("{\"seq\":" + groupEventLog.lastSeq(10) + ",\"n\":3}", new String((byte[]) messages.getAllValues().get(2).getPayload(), StandardCharsets.UTF_8));
+        assertEquals(List.of(1L, 2L, 3L), deletedIds());
+        assertEquals(3, meterRegistry.counter("notification_outbox.events", "outcome", "published").count());
+    }
+
+    @Test
+    void failedSendStopsTheBatchAndKeepsLaterRows() {
+        LocalDateTime now = LocalDateTime.now();
+        batches.add(List.<Object[]>of(row(1, 10, now), row(2, 20, now)));
+        doNothing().doThrow(new MessageDeliveryException("broker down")).when(messagingTemplate).send(anyString(), any(Message.class));
+
+        assertEquals(1, dispatcher.drain());
+
+        assertEquals(List.of(1L), deletedIds());
+        assertEquals(1, meterRegistry.counter("notification_outbox.events", "outcome", "failed").count());
+    }
+
+    @Test
+    void lagIsTheAgeOfTheOldestPendingRow() {
+        batches.add(List.<Object[]>of(row(1, 10, LocalDateTime.now().minusSeconds(30)), row(2, 20, LocalDateTime.now())));
+        doThrow(new MessageDeliveryException("broker down")).when(messagingTemplate).send(anyString(), any(Message.class));
+
+        dispatcher.drain();
+
+        double lag = meterRegistry.get("notification_outbox.lag").gauge().value();
+        assertTrue(lag >= 30_000, "lag was " + lag);
+        assertTrue(deletedIds().isEmpty());
+    }
+
+    @Test
+    void eventsOfOneDestinationGoOutAsOneFrame() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        batches.add(List.<Object[]>of(row(1, 10, now), row(2, 10, now)));
+
+        assertEquals(2, dispatcher.drain());
+
+        ArgumentCaptor<Message<?>> message = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq("/topic/group/10"), message.capture());
+        JsonNode frame = json(message.getValue());
+        assertEquals(2, frame.get("events").size());
+        assertEquals(frame.get("events").get(1).get("seq").asLong(), frame.get("lastSeq").asLong());
+        assertEquals(List.of(1L, 2L), deletedIds());
+    }
+
+    @Test
+    void lagDropsToZeroOnceTheOutboxIsEmpty() {
+        batches.add(List.<Object[]>of(row(1, 10, LocalDateTime.now().minusSeconds(30))));
+
+        dispatcher.drain();
+
+        assertEquals(0, meterRegistry.get("notification_outbox.lag").gauge().value());
+        assertEquals(1, meterRegistry.get("notification_outbox.delivery").timer().count());
+    }
+
+    @Test
+    void groupEventsAreNumberedPerGroupAndKeptForReplay() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        long before = groupEventLog.lastSeq(10);
+        batches.add(List.<Object[]>of(row(1, 10, now), userRow(2, 7, now)));
+        batches.add(List.<Object[]>of(row(3, 10, now)));
+
+        dispatcher.drain();
+
+        ArgumentCaptor<Message<?>> messages = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(3)).send(anyString(), messages.capture());
+        assertEquals(before + 1, json(messages.getAllValues().get(0)).get("seq").asLong());
+        assertFalse(json(messages.getAllValues().get(1)).has("seq"), "user queues are not numbered");
+        assertEquals(before + 2, json(messages.getAllValues().get(2)).get("seq").asLong());
+
+        List<JsonNode> missed = groupEventLog.replay(10, before).events();
+        assertEquals(List.of(1L, 3L), missed.stream().map(event -> event.get("n").asLong()).toList());
+    }
+
+    @Test
+    void failedFrameIsNotRecordedAndItsSeqIsReused() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        long before = groupEventLog.lastSeq(10);
+        batches.add(List.<Object[]>of(row(1, 10, now)));
+        batches.add(List.<Object[]>of(row(1, 10, now)));
+        doThrow(new MessageDeliveryException("broker down")).doNothing().when(messagingTemplate).send(anyString(), any(Message.class));
+
+        dispatcher.drain();
+        assertEquals(before, groupEventLog.lastSeq(10));
+        dispatcher.drain();
+
+        ArgumentCaptor<Message<?>> messages = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(2)).send(anyString(), messages.capture());
+        assertEquals(before + 1, json(messages.getAllValues().get(1)).get("seq").asLong());
+        assertEquals(before + 1, groupEventLog.lastSeq(10));
+    }
+}
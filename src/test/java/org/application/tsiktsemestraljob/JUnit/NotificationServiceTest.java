@@ -0,0 +1,162 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.persistence.EntityManager;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.ChangeEventDTO;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.ChangeEventMapper;
+import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskResponseDTO;
+import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
+import org.application.tsiktsemestraljob.demo.Entities.Task;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.ChangeEntityType;
+import org.application.tsiktsemestraljob.demo.Enums.ChangeOperation;
+import org.application.tsiktsemestraljob.demo.Service.NotificationOutboxDispatcher;
+import org.application.tsiktsemestraljob.demo.Service.NotificationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class NotificationServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private NotificationOutboxDispatcher dispatcher;
+
+    private final JsonMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        notificationService = new NotificationService(jdbcTemplate, objectMapper, entityManager, dispatcher);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Task task(long version) {
+        StudyGroups group = new StudyGroups();
+        group.setGroupId(10L);
+        User creator = new User();
+        creator.setId(1L);
+
+        Task task = new Task();
+        task.setId(5L);
+        task.setTitle("Read chapter 3");
+        task.setStudyGroup(group);
+        task.setCreatedBy(creator);
+        task.setVersion(version);
+        return task;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> insertedRows() {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into notification_outbox"), rows.capture());
+        return rows.getValue();
+    }
+
+    @Test
+    void writesOutboxRowImmediatelyWithoutTransaction() {
+        notificationService.publishToGroup(10L, () -> ChangeEventMapper.task(ChangeOperation.CREATED, task(0)));
+
+        Object[] row = insertedRows().getFirst();
+        assertEquals("/topic/group/10", row[0]);
+        assertEquals(10L, row[1]);
+        verify(dispatcher).wakeUp(1);
+    }
+
+    @Test
+    void writesEventsBeforeCommitAfterFlushAndWakesDispatcherAfterCommit() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        Task task = task(0);
+
+        notificationService.publishToGroup(10L, () -> ChangeEventMapper.task(ChangeOperation.UPDATED, task));
+        verifyNoInteractions(jdbcTemplate, dispatcher);
+
+        /* the flush bumps the version, the event has to carry the new one */
+        doAnswer(invocation -> {
+            task.setVersion(1);
+            return null;
+        }).when(entityManager).flush();
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+
+        JsonNode event = objectMapper.readTree((String) insertedRows().getFirst()[2]);
+        assertEquals(1, event.get("version").asLong());
+        assertEquals("UPDATED", event.get("operation").asText());
+        assertFalse(event.get("eventId").asText().isBlank());
+        verifyNoInteractions(dispatcher);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        InOrder order = inOrder(entityManager, jdbcTemplate, dispatcher);
+        order.verify(entityManager).flush();
+        order.verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        order.verify(dispatcher).wakeUp(1);
+    }
+
+    @Test
+    void rolledBackChangesAreNotWritten() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        notificationService.publishToUser(7L, () -> ChangeEventMapper.task(ChangeOperation.DELETED, task(0)));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(jdbcTemplate, dispatcher);
+    }
+
+    @Test
+    void batchIsOneOutboxRowPerEvent() {
+        notificationService.publishAllToGroup(10L, () -> List.of(
+                ChangeEventMapper.task(ChangeOperation.CREATED, task(0)),
+                ChangeEventMapper.task(ChangeOperation.CREATED, task(0))));
+
+        List<Object[]> rows = insertedRows();
+        assertEquals(2, rows.size());
+        assertNotEquals(rows.get(0)[2], rows.get(1)[2], "every event gets its own eventId");
+    }
+
+    @Test
+    void taskEventCarriesTheResponseDto() {
+        ChangeEventDTO event = ChangeEventMapper.task(ChangeOperation.UPDATED, task(3));
+
+        assertEquals(ChangeEventDTO.SCHEMA_VERSION, event.schemaVersion());
+        assertEquals(ChangeEntityType.TASK, event.entityType());
+        assertEquals(5L, event.id());
+        assertEquals(10L, event.groupId());
+        assertEquals(3, event.version());
+        TaskResponseDTO data = assertInstanceOf(TaskResponseDTO.class, event.data());
+        assertEquals("Read chapter 3", data.title());
+    }
+
+    @Test
+    void deleteIsNewerThanTheLastUpdate() {
+        ChangeEventDTO event = ChangeEventMapper.task(ChangeOperation.DELETED, task(3));
+
+        assertEquals(4, event.version());
+        assertNull(event.data());
+    }
+}
@@ -0,0 +1,140 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.application.tsiktsemestraljob.demo.Service.PasswordHashingService;
+import org.application.tsiktsemestraljob.demo.Service.PurgeService;
+import org.application.tsiktsemestraljob.demo.Service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.ErrorResponseException;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class PasswordHashingServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CurrentUser currentUser;
+
+    @Mock
+    private PurgeService purgeService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingService hashingService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        hashingService = service(2, 8, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingService.shutdown();
+    }
+
+    private PasswordHashingService service(int poolSize, int queueCapacity, int strength) {
+        return new PasswordHashingService(meterRegistry, poolSize, queueCapacity, strength, 250, 4, 6, 2);
+    }
+
+    @Test
+    void hashesOnItsOwnPool() {
+        String hash = hashingService.encode("secret");
+
+        assertTrue(hash.startsWith("$2a$05$"));
+        assertTrue(hashingService.matches("secret", hash));
+        assertFalse(hashingService.matches("wrong", hash));
+        assertTrue(hashingService.execute("probe", () -> Thread.currentThread().getName()).startsWith("password-hashing-"));
+        assertEquals(1, meterRegistry.get("password.hash.latency").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hash.latency").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void costIsCalibratedWithinBounds() {
+        PasswordHashingService fast = new PasswordHashingService(new SimpleMeterRegistry(), 1, 1, 0, 1, 4, 6, 2);
+        PasswordHashingService slow = new PasswordHashingService(new SimpleMeterRegistry(), 1, 1, 0, 60_000, 4, 6, 2);
+
+        assertTrue(fast.getStrength() >= 4 && fast.getStrength() <= 6);
+        assertEquals(6, slow.getStrength(), "a generous target ends at max-strength");
+        fast.shutdown();
+        slow.shutdown();
+    }
+
+    @Test
+    void fullQueueIsRejectedWithRetryAfter() throws Exception {
+        hashingService.shutdown();
+        meterRegistry = new SimpleMeterRegistry();
+        hashingService = service(1, 1, 4);
+        PasswordHashingService saturated = hashingService;
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> busy = CompletableFuture.supplyAsync(() -> saturated.execute("block", () -> {
+            running.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> saturated.encode("queued"));
+        while (meterRegistry.get("password.hash.queue.depth").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        ErrorResponseException rejected = assertThrows(ErrorResponseException.class, () -> saturated.encode("rejected"));
+        assertEquals(503, rejected.getStatusCode().value());
+        assertEquals("2", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, meterRegistry.get("password.hash.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(busy.get(5, TimeUnit.SECONDS));
+        assertTrue(saturated.matches("queued", queued.get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void weakerHashIsUpgradedOnSuccessfulLogin() {
+        User user = new User();
+        user.setId(3L);
+        user.setName("Ann");
+        user.setEmail("ann@test.com");
+        user.setPasswordHash(new BCryptPasswordEncoder(4).encode("secret"));
+        when(userRepository.findByEmail("ann@test.com")).thenReturn(Optional.of(user));
+        when(userRepository.findById(3L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UserService userService = new UserService(userRepository, hashingService, currentUser, purgeService);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userService);
+        provider.setPasswordEncoder(hashingService);
+        provider.setUserDetailsPasswordService(userService);
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("ann@test.com", "secret"));
+
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+        verify(userRepository).save(saved.capture());
+        assertTrue(saved.getValue().getPasswordHash().startsWith("$2a$05$"));
+        assertTrue(hashingService.matches("secret", saved.getValue().getPasswordHash()));
+        assertFalse(hashingService.upgradeEncoding(saved.getValue().getPasswordHash()));
+    }
+}
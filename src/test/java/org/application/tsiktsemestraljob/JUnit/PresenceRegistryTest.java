@@ -0,0 +1,250 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.DTO.PresenceDTO.PresenceDiffDTO;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Enums.WebSocketBrokerMode;
+import org.application.tsiktsemestraljob.demo.Events.MembershipChangedEvent;
+import org.application.tsiktsemestraljob.demo.Service.MembershipRoleCache;
+import org.application.tsiktsemestraljob.demo.Service.PresenceRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class PresenceRegistryTest {
+
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Mock
+    private MembershipRoleCache membershipRoleCache;
+
+    @Mock
+    private CurrentUser currentUser;
+
+    private ExecutorSubscribableChannel clientInboundChannel;
+    private PresenceRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(membershipRoleCache.getRole(anyLong(), anyLong())).thenReturn(Optional.of(MembershipRole.MEMBER));
+        clientInboundChannel = new ExecutorSubscribableChannel();
+        registry = new PresenceRegistry(messagingTemplate, clientInboundChannel, membershipRoleCache, currentUser,
+                new SimpleMeterRegistry(), 30_000, WebSocketBrokerMode.SIMPLE);
+        registry.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    private static Principal principal(long userId) {
+        User user = new User();
+        user.setId(userId);
+        user.setEmail("user" + userId + "@test.com");
+        return new UsernamePasswordAuthenticationToken(new CustomUserDetails(user), null, List.of());
+    }
+
+    private static Message<byte[]> stomp(StompCommand command, String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private void connect(String sessionId, long userId) {
+        registry.onConnected(new SessionConnectedEvent(this, stomp(StompCommand.CONNECTED, sessionId, null, null),
+                principal(userId)));
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        registry.onSubscribe(new SessionSubscribeEvent(this, stomp(StompCommand.SUBSCRIBE, sessionId, subscriptionId, destination)));
+    }
+
+    private void disconnect(String sessionId) {
+        registry.onDisconnect(new SessionDisconnectEvent(this, stomp(StompCommand.DISCONNECT, sessionId, null, null),
+                sessionId, CloseStatus.NORMAL));
+    }
+
+    private void heartbeat(String sessionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.HEARTBEAT);
+        headers.setSessionId(sessionId);
+        clientInboundChannel.send(MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+    }
+
+    private List<Long> online(long groupId) {
+        return registry.snapshot(groupId).online().stream().sorted().toList();
+    }
+
+    /* flushes and returns the diffs sent, by group */
+    private Map<Long, PresenceDiffDTO> flush() {
+        clearInvocations(messagingTemplate);
+        registry.flush();
+        ArgumentCaptor<PresenceDiffDTO> diffs = ArgumentCaptor.forClass(PresenceDiffDTO.class);
+        verify(messagingTemplate, atLeast(0)).convertAndSend(anyString(), diffs.capture());
+        return diffs.getAllValues().stream().collect(Collectors.toMap(PresenceDiffDTO::groupId, diff -> diff));
+    }
+
+    @Test
+    void memberIsOnlineWhileOneOfTheirSessionsSubscribesToTheGroup() {
+        connect("a", 1);
+        connect("b", 1);
+        subscribe("a", "sub-1", "/topic/group/7");
+        subscribe("b", "sub-1", "/topic/group/7");
+        subscribe("b", "sub-2", "/topic/group/7/presence");
+
+        assertEquals(List.of(1L), online(7));
+
+        disconnect("a");
+        assertEquals(List.of(1L), online(7), "the second session keeps the user online");
+
+        registry.onUnsubscribe(new SessionUnsubscribeEvent(this, stomp(StompCommand.UNSUBSCRIBE, "b", "sub-1", null)));
+        assertEquals(List.of(), online(7));
+    }
+
+    @Test
+    void diffsAreCoalescedPerGroupAndSentOnFlush() {
+        connect("a", 1);
+        connect("b", 2);
+        connect("c", 3);
+        subscribe("a", "sub-1", "/topic/group/7");
+        subscribe("b", "sub-1", "/topic/group/7");
+        subscribe("c", "sub-1", "/topic/group/8");
+        flush();
+
+        subscribe("c", "sub-2", "/topic/group/7");
+        disconnect("a");
+        connect("d", 4);
+        subscribe("d", "sub-1", "/topic/group/7");
+        disconnect("d");
+
+        Map<Long, PresenceDiffDTO> diffs = flush();
+        assertEquals(1, diffs.size(), "group 8 did not change");
+        assertEquals(List.of(3L), diffs.get(7L).joined());
+        assertEquals(List.of(1L), diffs.get(7L).left(), "user 4 came and went within the interval");
+        verify(messagingTemplate).convertAndSend(eq("/topic/group/7/presence"), any(PresenceDiffDTO.class));
+
+        assertTrue(flush().isEmpty(), "nothing changed since the last flush");
+    }
+
+    @Test
+    void anonymousSessionsAndNonMembersAreNotTracked() {
+        registry.onConnected(new SessionConnectedEvent(this, stomp(StompCommand.CONNECTED, "anon", null, null)));
+        subscribe("anon", "sub-1", "/topic/group/7");
+        when(membershipRoleCache.getRole(2L, 7L)).thenReturn(Optional.empty());
+        connect("b", 2);
+        subscribe("b", "sub-1", "/topic/group/7");
+
+        assertEquals(List.of(), online(7));
+        assertTrue(flush().isEmpty());
+    }
+
+    @Test
+    void silentSessionsExpireAndHeartbeatsKeepThemAlive() throws InterruptedException {
+        connect("a", 1);
+        connect("b", 2);
+        subscribe("a", "sub-1", "/topic/group/7");
+        subscribe("b", "sub-1", "/topic/group/7");
+
+        Thread.sleep(5);
+        long cutoff = System.currentTimeMillis();
+        Thread.sleep(5);
+        heartbeat("b");
+        registry.expireIdleSince(cutoff);
+
+        assertEquals(List.of(2L), online(7));
+    }
+
+    @Test
+    void removedMemberGoesOfflineAtOnce() {
+        connect("a", 1);
+        subscribe("a", "sub-1", "/topic/group/7");
+        flush();
+
+        when(membershipRoleCache.getRole(1L, 7L)).thenReturn(Optional.empty());
+        registry.onMembershipChanged(new MembershipChangedEvent(1L, 7L));
+
+        assertEquals(List.of(), online(7));
+        assertEquals(List.of(1L), flush().get(7L).left());
+        disconnect("a");
+        assertTrue(flush().isEmpty(), "the later disconnect must not report the user twice");
+    }
+
+    @Test
+    void snapshotIsOnlyForMembers() {
+        when(currentUser.id()).thenReturn(5L);
+        when(membershipRoleCache.getRole(5L, 7L)).thenReturn(Optional.empty());
+
+        assertThrows(AccessDeniedException.class, () -> registry.getSnapshot(7L));
+    }
+
+    /* 10k sessions in 100 groups, connected and disconnected from 8 threads at once */
+    @Test
+    void tenThousandConcurrentSessions() {
+        int sessions = 10_000;
+        int groups = 100;
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            IntStream.range(0, sessions).parallel().forEach(i -> {
+                connect("s" + i, i);
+                subscribe("s" + i, "sub-1", "/topic/group/" + i % groups);
+                heartbeat("s" + i);
+            });
+        });
+
+        for (long groupId = 0; groupId < groups; groupId++) {
+            assertEquals(sessions / groups, online(groupId).size());
+        }
+        Map<Long, PresenceDiffDTO> joined = flush();
+        assertEquals(groups, joined.size(), "one diff per group however many members joined");
+        joined.values().forEach(diff -> assertEquals(sessions / groups, diff.joined().size()));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            IntStream.range(0, sessions).parallel().forEach(i -> disconnect("s" + i));
+        });
+
+        for (long groupId = 0; groupId < groups; groupId++) {
+            assertEquals(List.of(), online(groupId));
+        }
+        flush().values().forEach(diff -> assertEquals(sessions / groups, diff.left().size()));
+    }
+}
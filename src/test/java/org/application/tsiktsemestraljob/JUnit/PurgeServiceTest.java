@@ -0,0 +1,146 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.Entities.PurgeJob;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeStatus;
+import org.application.tsiktsemestraljob.demo.Enums.PurgeTarget;
+import org.application.tsiktsemestraljob.demo.Events.GroupDeletedEvent;
+import org.application.tsiktsemestraljob.demo.Repository.PurgeJobRepository;
+import org.application.tsiktsemestraljob.demo.Service.PurgeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PurgeServiceTest {
+    private static final int CHUNK = 2;
+
+    @Mock
+    private PurgeJobRepository purgeJobRepository;
+
+    @Mock
+    private CurrentUser currentUser;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private PurgeService purgeService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        purgeService = new PurgeService(purgeJobRepository, currentUser, jdbcTemplate, transactionManager,
+                eventPublisher, CHUNK, Runnable::run);
+    }
+
+    @Test
+    void groupPurgeDeletesChildrenInChunksThenTheGroup() {
+        PurgeJob job = job(1L, PurgeTarget.GROUP, 10L, PurgeStatus.PENDING);
+        when(jdbcTemplate.update(startsWith("delete from tasks"), eq(10L))).thenReturn(2, 2, 1);
+        when(jdbcTemplate.update(startsWith("delete from study_groups"), eq(10L))).thenReturn(1);
+
+        purgeService.run(1L);
+
+        verify(jdbcTemplate, times(3)).update("delete from tasks where group_id = ? limit " + CHUNK, 10L);
+        verify(jdbcTemplate).update("delete from memberships where group_id = ? limit " + CHUNK, 10L);
+        verify(jdbcTemplate).update("delete from study_groups where group_id = ? limit " + CHUNK, 10L);
+        verify(purgeJobRepository, times(3)).recordProgress(eq(1L), eq("tasks"), anyLong(), any());
+        verify(eventPublisher).publishEvent(new GroupDeletedEvent(10L));
+        assertEquals(PurgeStatus.COMPLETED, job.getStatus());
+    }
+
+    @Test
+    void userPurgeRemovesOwnedGroupsBeforeTheUser() {
+        PurgeJob job = job(2L, PurgeTarget.USER, 5L, PurgeStatus.PENDING);
+        when(jdbcTemplate.queryForList(startsWith("select group_id from study_groups"), eq(Long.class), eq(5L)))
+                .thenReturn(List.of(10L), List.of());
+
+        purgeService.run(2L);
+
+        var order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update("delete from study_groups where group_id = ? limit " + CHUNK, 10L);
+        order.verify(jdbcTemplate).update("delete from memberships where user_id = ? limit " + CHUNK, 5L);
+        order.verify(jdbcTemplate).update("delete from users where user_id = ? limit " + CHUNK, 5L);
+        assertEquals(PurgeStatus.COMPLETED, job.getStatus());
+    }
+
+    @Test
+    void finishedJobIsNotRunAgain() {
+        job(3L, PurgeTarget.GROUP, 10L, PurgeStatus.COMPLETED);
+
+        purgeService.run(3L);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void failedChunkMarksJobFailed() {
+        PurgeJob job = job(4L, PurgeTarget.GROUP, 10L, PurgeStatus.PENDING);
+        when(jdbcTemplate.update(startsWith("delete from tasks"), eq(10L))).thenThrow(new IllegalStateException("lock wait timeout"));
+
+        purgeService.run(4L);
+
+        assertEquals(PurgeStatus.FAILED, job.getStatus());
+        assertEquals("lock wait timeout", job.getError());
+        verify(jdbcTemplate, never()).update(startsWith("delete from study_groups"), anyLong());
+    }
+
+    @Test
+    void unfinishedJobsAreResumedOnStartup() {
+        PurgeJob running = job(5L, PurgeTarget.GROUP, 10L, PurgeStatus.RUNNING);
+        PurgeJob pending = job(6L, PurgeTarget.GROUP, 11L, PurgeStatus.PENDING);
+        when(purgeJobRepository.findAllByStatusIn(anyCollection())).thenReturn(List.of(running, pending));
+
+        purgeService.resumeUnfinished();
+
+        assertEquals(PurgeStatus.COMPLETED, running.getStatus());
+        assertEquals(PurgeStatus.COMPLETED, pending.getStatus());
+        verify(jdbcTemplate).update("delete from study_groups where group_id = ? limit " + CHUNK, 11L);
+    }
+
+    @Test
+    void submitReusesUnfinishedJobForSameTarget() {
+        PurgeJob running = job(7L, PurgeTarget.GROUP, 10L, PurgeStatus.RUNNING);
+        when(purgeJobRepository.findFirstByTargetTypeAndTargetIdAndStatusIn(eq(PurgeTarget.GROUP), eq(10L), anyCollection()))
+                .thenReturn(Optional.of(running));
+
+        assertSame(running, purgeService.submit(PurgeTarget.GROUP, 10L, 1L));
+        verify(purgeJobRepository, never()).save(any());
+    }
+
+    @Test
+    void onlyRequesterCanReadJob() {
+        PurgeJob job = job(8L, PurgeTarget.GROUP, 10L, PurgeStatus.RUNNING);
+        job.setRequestedBy(1L);
+        when(currentUser.id()).thenReturn(2L);
+
+        assertThrows(AccessDeniedException.class, () -> purgeService.getJob(8L));
+    }
+
+    private PurgeJob job(Long id, PurgeTarget target, Long targetId, PurgeStatus status) {
+        PurgeJob job = new PurgeJob();
+        job.setId(id);
+        job.setTargetType(target);
+        job.setTargetId(targetId);
+        job.setStatus(status);
+        when(purgeJobRepository.findById(id)).thenReturn(Optional.of(job));
+        return job;
+    }
+}
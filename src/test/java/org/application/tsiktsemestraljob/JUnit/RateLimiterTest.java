@@ -0,0 +1,250 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.Authorization.Config.RateLimitFilter;
+import org.application.tsiktsemestraljob.demo.Service.RateLimiter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = limiter(1000, "/auth/**=1/3", "/api/tasks/**=10/5", "/api/**=2/4");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private RateLimiter limiter(int maxBuckets, String... rules) {
+        return new RateLimiter(meterRegistry, true, List.of(rules), maxBuckets, clock::get);
+    }
+
+    private double requests(String rule, String result) {
+        return meterRegistry.get("ratelimit.requests").tag("rule", rule).tag("result", result).counter().count();
+    }
+
+    @Test
+    void burstIsAllowedThenThrottledUntilATokenIsBack() {
+        for (int i = 0; i < 3; i++) {
+            RateLimiter.Decision decision = rateLimiter.tryAcquire("ip:1", "/auth/login");
+            assertTrue(decision.allowed());
+            assertEquals(2 - i, decision.remaining());
+        }
+
+        RateLimiter.Decision throttled = rateLimiter.tryAcquire("ip:1", "/auth/login");
+        assertFalse(throttled.allowed());
+        assertEquals(0, throttled.remaining());
+        assertEquals(SECOND, throttled.retryAfterNanos());
+        assertEquals(3 * SECOND, throttled.resetNanos());
+
+        clock.addAndGet(SECOND / 2);
+        assertFalse(rateLimiter.tryAcquire("ip:1", "/auth/login").allowed());
+        clock.addAndGet(SECOND / 2);
+        assertTrue(rateLimiter.tryAcquire("ip:1", "/auth/login").allowed());
+        assertFalse(rateLimiter.tryAcquire("ip:1", "/auth/login").allowed());
+
+        assertEquals(4, requests("/auth/**", "allowed"));
+        assertEquals(3, requests("/auth/**", "throttled"));
+    }
+
+    @Test
+    void bucketRefillsOnlyUpToItsBurst() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("ip:1", "/auth/login");
+        }
+        clock.addAndGet(60 * SECOND);
+
+        int allowed = 0;
+        while (rateLimiter.tryAcquire("ip:1", "/auth/login").allowed()) {
+            allowed++;
+        }
+        assertEquals(3, allowed);
+    }
+
+    @Test
+    void callersAndRouteGroupsHaveTheirOwnBuckets() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("user:1", "/auth/login");
+        }
+        assertFalse(rateLimiter.tryAcquire("user:1", "/auth/logout").allowed());
+        assertTrue(rateLimiter.tryAcquire("user:2", "/auth/login").allowed());
+        assertTrue(rateLimiter.tryAcquire("user:1", "/api/tasks/7").allowed());
+        assertTrue(rateLimiter.tryAcquire("user:1", "/api/studyGroups/my-groups").allowed());
+        assertEquals(4, rateLimiter.size());
+    }
+
+    @Test
+    void firstMatchingRuleWinsAndOtherPathsAreNotLimited() {
+        RateLimiter.Decision task = rateLimiter.tryAcquire("user:1", "/api/tasks/7");
+        assertEquals("/api/tasks/**", task.rule().pattern());
+        assertEquals(5, task.rule().burst());
+        assertEquals("/api/**", rateLimiter.tryAcquire("user:1", "/api/memberships").rule().pattern());
+
+        assertNull(rateLimiter.tryAcquire("user:1", "/ws"));
+        assertNull(rateLimiter.tryAcquire("user:1", "/actuator/health"));
+        assertNull(rateLimiter.tryAcquire("user:1", "/authors"));
+        assertEquals("/auth/**", rateLimiter.tryAcquire("user:1", "/auth").rule().pattern());
+    }
+
+    @Test
+    void patternsThatAreNoPlainPrefixStillMatch() {
+        RateLimiter patterns = limiter(10, "/api/studyGroups/{id}/tasks=1/1", "/api/*/export/**=1/1");
+        assertNull(patterns.getRules().get(0).prefix());
+        assertNull(patterns.getRules().get(1).prefix());
+
+        assertEquals(0, patterns.tryAcquire("user:1", "/api/studyGroups/3/tasks").rule().index());
+        assertEquals(1, patterns.tryAcquire("user:1", "/api/tasks/export/csv").rule().index());
+        assertNull(patterns.tryAcquire("user:1", "/api/studyGroups/3/members"));
+    }
+
+    @Test
+    void malformedRulesAreRejectedAndNoRulesMeansDisabled() {
+        assertThrows(IllegalArgumentException.class, () -> limiter(10, "/api/**"));
+        assertThrows(IllegalArgumentException.class, () -> limiter(10, "/api/**=0/5"));
+        assertThrows(IllegalArgumentException.class, () -> limiter(10, "/api/**=5/0"));
+        assertFalse(limiter(10, " ").isEnabled());
+        assertTrue(rateLimiter.isEnabled());
+    }
+
+    @Test
+    void fullBucketsAreEvicted() {
+        rateLimiter.tryAcquire("user:1", "/auth/login");
+        rateLimiter.tryAcquire("user:2", "/auth/login");
+        rateLimiter.tryAcquire("user:2", "/auth/login");
+        assertEquals(2, rateLimiter.size());
+        assertEquals(2, meterRegistry.get("ratelimit.buckets").gauge().value());
+
+        clock.addAndGet(SECOND);
+        rateLimiter.evictIdle();
+        assertEquals(1, rateLimiter.size());
+
+        clock.addAndGet(SECOND);
+        rateLimiter.evictIdle();
+        assertEquals(0, rateLimiter.size());
+    }
+
+    @Test
+    void reachingMaxBucketsSweepsBeforeAddingOne() {
+        RateLimiter small = limiter(2, "/api/**=1/1");
+        small.tryAcquire("user:1", "/api/x");
+        small.tryAcquire("user:2", "/api/x");
+        clock.addAndGet(SECOND);
+
+        small.tryAcquire("user:3", "/api/x");
+        assertEquals(1, small.size());
+    }
+
+    @Test
+    void newCallersAreRefusedWhileTheMapIsFullAndSweptAtMostOncePerSecond() {
+        RateLimiter small = limiter(2, "/api/**=10/1");
+        small.tryAcquire("user:1", "/api/x");
+        small.tryAcquire("user:2", "/api/x");
+
+        /* both buckets are active, the sweep frees nothing and the new caller is turned away */
+        RateLimiter.Decision refused = small.tryAcquire("user:3", "/api/x");
+        assertFalse(refused.allowed());
+        assertEquals(SECOND, refused.retryAfterNanos());
+        assertEquals(2, small.size());
+
+        /* the buckets are idle now, but the sweep ran less than a second ago */
+        clock.addAndGet(SECOND / 5);
+        assertFalse(small.tryAcquire("user:3", "/api/x").allowed());
+        assertEquals(2, small.size());
+        assertTrue(small.tryAcquire("user:1", "/api/x").allowed());
+
+        clock.addAndGet(SECOND);
+        assertTrue(small.tryAcquire("user:3", "/api/x").allowed());
+        assertEquals(1, small.size());
+    }
+
+    @Test
+    void concurrentCallersNeverGetMoreThanTheBurst() throws Exception {
+        RateLimiter shared = limiter(10, "/api/**=1/100");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+        try {
+            for (int t = 0; t < 8; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1000; i++) {
+                        if (shared.tryAcquire("user:1", "/api/x").allowed()) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(100, allowed.get());
+    }
+
+    @Test
+    void filterKeysOnThePrincipalAndAnswersThrottledRequestsWith429() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(rateLimiter);
+        FilterChain chain = mock(FilterChain.class);
+        CustomUserDetails user = new CustomUserDetails(9L, "Ann", "ann@test.com");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+
+        MockHttpServletResponse response = null;
+        for (int i = 0; i < 4; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/studyGroups/my-groups");
+            response = new MockHttpServletResponse();
+            filter.doFilter(request, response, chain);
+            assertEquals("4", response.getHeader("X-RateLimit-Limit"));
+            assertEquals(String.valueOf(3 - i), response.getHeader("X-RateLimit-Remaining"));
+        }
+        verify(chain, times(4)).doFilter(any(), any());
+
+        MockHttpServletResponse throttled = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/studyGroups/my-groups"), throttled, chain);
+        assertEquals(429, throttled.getStatus());
+        assertEquals("1", throttled.getHeader("Retry-After"));
+        assertEquals("2", throttled.getHeader("X-RateLimit-Reset"));
+        verify(chain, times(4)).doFilter(any(), any());
+
+        /* anonymous callers are keyed by address */
+        SecurityContextHolder.clearContext();
+        MockHttpServletResponse anonymous = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/studyGroups/my-groups"), anonymous, chain);
+        assertEquals(200, anonymous.getStatus());
+        assertEquals("3", anonymous.getHeader("X-RateLimit-Remaining"));
+
+        MockHttpServletResponse unlimited = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/ws"), unlimited, chain);
+        assertNull(unlimited.getHeader("X-RateLimit-Limit"));
+    }
+}
@@ -0,0 +1,99 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.Authorization.Config.SubscriptionInterceptor;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Service.MembershipRoleCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+public class SubscriptionInterceptorTest {
+
+    @Mock
+    private MembershipRoleCache membershipRoleCache;
+
+    private SubscriptionInterceptor interceptor;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(membershipRoleCache.getRole(anyLong(), anyLong())).thenReturn(Optional.empty());
+        when(membershipRoleCache.getRole(1L, 10L)).thenReturn(Optional.of(MembershipRole.MEMBER));
+        interceptor = new SubscriptionInterceptor(membershipRoleCache);
+    }
+
+    private static Principal principal(long userId) {
+        User user = new User();
+        user.setId(userId);
+        user.setEmail("user" + userId + "@test.com");
+        return new UsernamePasswordAuthenticationToken(new CustomUserDetails(user), null, List.of());
+    }
+
+    private static Message<byte[]> frame(StompCommand command, Principal user, String destination) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+        headers.setSessionId("s1");
+        headers.setSubscriptionId("sub-0");
+        headers.setDestination(destination);
+        headers.setUser(user);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private void subscribe(long userId, String destination) {
+        interceptor.preSend(frame(StompCommand.SUBSCRIBE, principal(userId), destination), null);
+    }
+
+    @Test
+    void membersMayListenToTheirGroupAndItsPresence() {
+        assertDoesNotThrow(() -> subscribe(1, "/topic/group/10"));
+        assertDoesNotThrow(() -> subscribe(1, "/topic/group/10/presence"));
+    }
+
+    @Test
+    void nonMembersAreRefusedEveryGroupDestination() {
+        assertThrows(AccessDeniedException.class, () -> subscribe(2, "/topic/group/10"));
+        assertThrows(AccessDeniedException.class, () -> subscribe(2, "/topic/group/10/presence"));
+        assertThrows(AccessDeniedException.class, () -> subscribe(1, "/topic/group/11"));
+        /* broker patterns would match every group */
+        assertThrows(AccessDeniedException.class, () -> subscribe(1, "/topic/group/*"));
+        assertThrows(AccessDeniedException.class, () -> subscribe(1, "/topic/group/**"));
+    }
+
+    @Test
+    void personalQueueIsOnlyOpenToItsOwner() {
+        assertDoesNotThrow(() -> subscribe(1, "/queue/user/1"));
+        assertThrows(AccessDeniedException.class, () -> subscribe(1, "/queue/user/2"));
+        assertThrows(AccessDeniedException.class, () -> subscribe(1, "/queue/user/1/extra"));
+        assertThrows(AccessDeniedException.class, () -> subscribe(1, "/queue/user/*"));
+    }
+
+    @Test
+    void anonymousSessionsAndUnknownDestinationsAreRefused() {
+        assertThrows(AccessDeniedException.class,
+                () -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, null, "/queue/user/1"), null));
+        assertThrows(AccessDeniedException.class, () -> subscribe(1, "/topic/other"));
+        assertThrows(AccessDeniedException.class, () -> subscribe(1, "/topic/**"));
+    }
+
+    @Test
+    void framesOtherThanSubscribePass() {
+        assertDoesNotThrow(() -> interceptor.preSend(frame(StompCommand.SEND, null, "/app/anything"), null));
+        assertDoesNotThrow(() -> interceptor.preSend(frame(StompCommand.UNSUBSCRIBE, null, null), null));
+    }
+}
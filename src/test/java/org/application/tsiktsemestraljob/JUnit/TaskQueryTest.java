@@ -0,0 +1,153 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CurrentUser;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.Cursor;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
+import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskQueryDTO;
+import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskResponseDTO;
+import org.application.tsiktsemestraljob.demo.Enums.TaskBucket;
+import org.application.tsiktsemestraljob.demo.Enums.TaskStatus;
+import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
+import org.application.tsiktsemestraljob.demo.Repository.TaskRepository;
+import org.application.tsiktsemestraljob.demo.Service.ActivityLogsService;
+import org.application.tsiktsemestraljob.demo.Service.MembershipService;
+import org.application.tsiktsemestraljob.demo.Service.NotificationService;
+import org.application.tsiktsemestraljob.demo.Service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class TaskQueryTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private StudyGroupsRepository studyGroupsRepository;
+
+    @Mock
+    private ActivityLogsService activityLogsService;
+
+    @Mock
+    private MembershipService membershipService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private CurrentUser currentUser;
+
+    @InjectMocks
+    private TaskService taskService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(membershipService.getUserGroupIds()).thenReturn(List.of(1L, 2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void requestedGroupsAreRestrictedToCallerMemberships() {
+        taskService.queryTasks(new TaskQueryDTO(List.of(2L, 3L), null, null, null, null, TaskStatus.IN_PROGRESS), null, null);
+
+        ArgumentCaptor<Collection<Long>> groups = ArgumentCaptor.forClass(Collection.class);
+        verify(taskRepository).findByGroupsAndDeadline(groups.capture(), eq(TaskStatus.IN_PROGRESS), isNull(), isNull(),
+                isNull(), isNull(), any());
+        assertEquals(List.of(2L), List.copyOf(groups.getValue()));
+    }
+
+    @Test
+    void foreignGroupsOnlyReturnNothingWithoutQuerying() {
+        assertTrue(taskService.queryTasks(new TaskQueryDTO(List.of(3L), null, null, null, null, null), null, null).items().isEmpty());
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void todayBucketIsTheCallersCalendarDay() {
+        String zone = "Pacific/Kiritimati";
+        LocalDate today = LocalDate.now(ZoneId.of(zone));
+
+        taskService.queryTasks(new TaskQueryDTO(null, TaskBucket.TODAY, zone, null, null, null), null, null);
+
+        verify(taskRepository).findByGroupsAndDeadline(anyCollection(), isNull(),
+                eq(today.atStartOfDay()), eq(today.plusDays(1).atStartOfDay()), isNull(), isNull(), any());
+    }
+
+    @Test
+    void upcomingBucketIsOpenEnded() {
+        String zone = "Pacific/Pago_Pago";
+        LocalDate today = LocalDate.now(ZoneId.of(zone));
+
+        taskService.queryTasks(new TaskQueryDTO(null, TaskBucket.UPCOMING, zone, null, null, null), null, null);
+
+        verify(taskRepository).findByGroupsAndDeadline(anyCollection(), isNull(),
+                eq(today.plusDays(1).atStartOfDay()), isNull(), isNull(), isNull(), any());
+    }
+
+    @Test
+    void bucketCannotBeCombinedWithExplicitWindow() {
+        TaskQueryDTO query = new TaskQueryDTO(null, TaskBucket.TODAY, null, LocalDateTime.now(), null, null);
+        assertThrows(ResponseStatusException.class, () -> taskService.queryTasks(query, null, null));
+    }
+
+    @Test
+    void unknownZoneIsRejected() {
+        TaskQueryDTO query = new TaskQueryDTO(null, TaskBucket.TODAY, "Mars/Olympus", null, null, null);
+        assertThrows(ResponseStatusException.class, () -> taskService.queryTasks(query, null, null));
+    }
+
+    private static TaskResponseDTO task(long id, LocalDateTime deadline) {
+        return new TaskResponseDTO(id, "task" + id, null, 1L, 1L, deadline, TaskStatus.IN_PROGRESS, null);
+    }
+
+    @Test
+    void pagesAreClampedAndContinueAfterTheLastDeadlineAndId() {
+        LocalDateTime deadline = LocalDateTime.of(2026, 10, 20, 9, 30);
+        when(taskRepository.findByGroupsAndDeadline(anyCollection(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(task(1, null), task(2, deadline), task(3, deadline)));
+        TaskQueryDTO query = new TaskQueryDTO(null, null, null, null, null, null);
+
+        CursorPageDTO<TaskResponseDTO> page = taskService.queryTasks(query, null, 2);
+
+        verify(taskRepository).findByGroupsAndDeadline(anyCollection(), isNull(), isNull(), isNull(),
+                isNull(), isNull(), eq(Limit.of(3)));
+        assertEquals(List.of(1L, 2L), page.items().stream().map(TaskResponseDTO::id).toList());
+
+        taskService.queryTasks(query, page.nextCursor(), 10_000);
+        verify(taskRepository).findByGroupsAndDeadline(anyCollection(), isNull(), isNull(), isNull(),
+                eq(deadline), eq(2L), eq(Limit.of(CursorPageDTO.MAX_LIMIT + 1)));
+    }
+
+    @Test
+    void cursorOnATaskWithoutDeadlineKeepsTheNull() {
+        String cursor = Cursor.of(5L).encode();
+
+        taskService.queryTasks(new TaskQueryDTO(null, null, null, null, null, null), cursor, null);
+
+        verify(taskRepository).findByGroupsAndDeadline(anyCollection(), isNull(), isNull(), isNull(),
+                isNull(), eq(5L), eq(Limit.of(CursorPageDTO.DEFAULT_LIMIT + 1)));
+    }
+
+    @Test
+    void cursorWithAMalformedDeadlineIsRejected() {
+        String cursor = Cursor.of("tomorrow", 5L).encode();
+        TaskQueryDTO query = new TaskQueryDTO(null, null, null, null, null, null);
+        assertThrows(ResponseStatusException.class, () -> taskService.queryTasks(query, cursor, null));
+    }
+}
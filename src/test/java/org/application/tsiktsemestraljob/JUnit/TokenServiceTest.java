@@ -0,0 +1,143 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.TokenAuthenticationFilter;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.TokenService;
+import org.application.tsiktsemestraljob.demo.DTO.Authentication.TokenResponseDTO;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Repository.MembershipsRepository;
+import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.application.tsiktsemestraljob.demo.Service.MembershipRoleCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TokenServiceTest {
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MembershipsRepository membershipsRepository;
+
+    private MembershipRoleCache membershipRoleCache;
+    private TokenService tokenService;
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        membershipRoleCache = new MembershipRoleCache(membershipsRepository, new SimpleMeterRegistry(), 1000, 60_000);
+        tokenService = new TokenService(userRepository, membershipRoleCache, SECRET, 60_000, 600_000);
+
+        user = new User();
+        user.setId(4L);
+        user.setName("Ann");
+        user.setEmail("ann@test.com");
+        when(userRepository.findById(4L)).thenReturn(Optional.of(user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void accessTokenAuthenticatesWithoutALookup() {
+        TokenResponseDTO tokens = tokenService.issue(user);
+
+        Authentication auth = tokenService.authenticate(tokens.accessToken());
+
+        CustomUserDetails details = (CustomUserDetails) auth.getPrincipal();
+        assertEquals(4L, details.getId());
+        assertEquals("Ann", details.getName());
+        assertEquals("ann@test.com", details.getUsername());
+        assertTrue(auth.isAuthenticated());
+        assertEquals(60, tokens.expiresIn());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void forgedExpiredAndMisusedTokensAreRejected() {
+        TokenResponseDTO tokens = tokenService.issue(user);
+        TokenService otherKey = new TokenService(userRepository, membershipRoleCache, "", 60_000, 600_000);
+        TokenService expired = new TokenService(userRepository, membershipRoleCache, SECRET, -1_000, -1_000);
+
+        assertThrows(JwtException.class, () -> tokenService.authenticate(otherKey.issue(user).accessToken()));
+        assertThrows(JwtException.class, () -> tokenService.authenticate(expired.issue(user).accessToken()));
+        assertThrows(JwtException.class, () -> tokenService.authenticate(tokens.refreshToken()));
+        assertThrows(JwtException.class, () -> tokenService.refresh(tokens.accessToken()));
+        assertThrows(JwtException.class, () -> tokenService.authenticate("not a token"));
+    }
+
+    @Test
+    void refreshIssuesTokensForTheCurrentUserRow() {
+        TokenResponseDTO tokens = tokenService.issue(user);
+        user.setName("Ann B.");
+
+        TokenResponseDTO refreshed = tokenService.refresh(tokens.refreshToken());
+
+        assertEquals("Ann B.", refreshed.user().name());
+        CustomUserDetails details = (CustomUserDetails) tokenService.authenticate(refreshed.accessToken()).getPrincipal();
+        assertEquals("Ann B.", details.getName());
+
+        when(userRepository.findById(4L)).thenReturn(Optional.empty());
+        assertThrows(JwtException.class, () -> tokenService.refresh(refreshed.refreshToken()));
+    }
+
+    @Test
+    void newerMembershipVersionDropsCachedRoles() {
+        when(membershipsRepository.findRoleByUserIdAndGroupId(4L, 7L)).thenReturn(Optional.of(MembershipRole.MEMBER));
+        tokenService.authenticate(tokenService.issue(user).accessToken());
+        membershipRoleCache.getRole(4L, 7L);
+
+        /* the same version again keeps the entry */
+        tokenService.authenticate(tokenService.issue(user).accessToken());
+        membershipRoleCache.getRole(4L, 7L);
+        verify(membershipsRepository, times(1)).findRoleByUserIdAndGroupId(4L, 7L);
+
+        /* another node removed the membership and the user refreshed */
+        when(membershipsRepository.findRoleByUserIdAndGroupId(4L, 7L)).thenReturn(Optional.empty());
+        user.setMembershipVersion(1);
+        tokenService.authenticate(tokenService.issue(user).accessToken());
+        assertTrue(membershipRoleCache.getRole(4L, 7L).isEmpty());
+    }
+
+    @Test
+    void filterAnswersBadTokensWith401() throws Exception {
+        TokenAuthenticationFilter filter = new TokenAuthenticationFilter(tokenService);
+        FilterChain chain = mock(FilterChain.class);
+
+        MockHttpServletRequest bad = new MockHttpServletRequest();
+        bad.addHeader("Authorization", "Bearer garbage");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(bad, rejected, chain);
+        assertEquals(401, rejected.getStatus());
+        assertTrue(rejected.getHeader("WWW-Authenticate").startsWith("Bearer"));
+        verify(chain, never()).doFilter(any(), any());
+
+        MockHttpServletRequest good = new MockHttpServletRequest();
+        good.addHeader("Authorization", "Bearer " + tokenService.issue(user).accessToken());
+        filter.doFilter(good, new MockHttpServletResponse(), chain);
+        verify(chain).doFilter(any(), any());
+        assertEquals("ann@test.com", SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+}
@@ -0,0 +1,133 @@
+package org.application.tsiktsemestraljob.JUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.application.tsiktsemestraljob.demo.Service.WebSocketSessionMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebSocketSessionMetricsTest {
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor outboundExecutor;
+    private ExecutorSubscribableChannel clientOutboundChannel;
+    private WebSocketSessionMetrics metrics;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboundExecutor = new ThreadPoolTaskExecutor();
+        outboundExecutor.setCorePoolSize(1);
+        outboundExecutor.initialize();
+        clientOutboundChannel = new ExecutorSubscribableChannel(outboundExecutor);
+        metrics = new WebSocketSessionMetrics(meterRegistry, clientOutboundChannel, new ThreadPoolTaskExecutor(), outboundExecutor);
+        metrics.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        metrics.shutdown();
+        outboundExecutor.shutdown();
+    }
+
+    private static Message<byte[]> stomp(StompCommand command, String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private void connect(String sessionId) {
+        metrics.onConnected(new SessionConnectedEvent(this, stomp(StompCommand.CONNECTED, sessionId, null, null)));
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        metrics.onSubscribe(new SessionSubscribeEvent(this, stomp(StompCommand.SUBSCRIBE, sessionId, subscriptionId, destination)));
+    }
+
+    private void disconnect(String sessionId, CloseStatus status) {
+        metrics.onDisconnect(new SessionDisconnectEvent(this, stomp(StompCommand.DISCONNECT, sessionId, null, null), sessionId, status));
+    }
+
+    private double sessions() {
+        return meterRegistry.get("websocket.sessions").gauge().value();
+    }
+
+    private Double subscriptions(String destination) {
+        var gauge = meterRegistry.find("websocket.subscriptions").tag("destination", destination).gauge();
+        return gauge == null ? null : gauge.value();
+    }
+
+    @Test
+    void countsSessionsAndSubscriptionsPerDestination() {
+        connect("a");
+        connect("b");
+        subscribe("a", "sub-1", "/topic/group/1");
+        subscribe("b", "sub-1", "/topic/group/1");
+        subscribe("b", "sub-2", "/queue/user/2");
+
+        assertEquals(2, sessions());
+        assertEquals(2, subscriptions("/topic/group/1"));
+        assertEquals(1, subscriptions("/queue/user/2"));
+
+        metrics.onUnsubscribe(new SessionUnsubscribeEvent(this, stomp(StompCommand.UNSUBSCRIBE, "b", "sub-1", null)));
+        assertEquals(1, subscriptions("/topic/group/1"));
+    }
+
+    @Test
+    void disconnectRemovesTheSessionAndEmptyDestinations() {
+        connect("a");
+        subscribe("a", "sub-1", "/topic/group/1");
+
+        disconnect("a", CloseStatus.NORMAL);
+
+        assertEquals(0, sessions());
+        assertNull(subscriptions("/topic/group/1"), "a destination without subscribers must not keep its gauge");
+        assertEquals(0, meterRegistry.get("websocket.sessions.dropped").counter().count());
+    }
+
+    @Test
+    void sessionClosedForExceedingLimitsCountsAsDropped() {
+        connect("slow");
+
+        disconnect("slow", CloseStatus.SESSION_NOT_RELIABLE);
+
+        assertEquals(1, meterRegistry.get("websocket.sessions.dropped").counter().count());
+    }
+
+    @Test
+    void recordsPublishLatencyOfMessageFrames() throws Exception {
+        CountDownLatch handled = new CountDownLatch(2);
+        clientOutboundChannel.subscribe((MessageHandler) message -> handled.countDown());
+
+        SimpMessageHeaderAccessor message = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        message.setSessionId("a");
+        clientOutboundChannel.send(MessageBuilder.createMessage(new byte[0], message.getMessageHeaders()));
+        clientOutboundChannel.send(stomp(StompCommand.RECEIPT, "a", null, null));
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        outboundExecutor.shutdown();
+        outboundExecutor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS);
+
+        assertEquals(1, meterRegistry.get("websocket.publish.latency").timer().count());
+        assertEquals(0, meterRegistry.get("websocket.channel.queue.depth").tag("channel", "outbound").gauge().value());
+    }
+}
@@ -0,0 +1,192 @@
+package org.application.tsiktsemestraljob.Schema;
+
+import jakarta.transaction.Transactional;
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.SqlStatementCounter;
+import org.application.tsiktsemestraljob.demo.Enums.TaskStatus;
+import org.application.tsiktsemestraljob.demo.Repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Runs every query declared on the repositories against a seeded schema created by the Flyway migrations and
+ * EXPLAINs the SQL Hibernate generated for it. A plan with access type ALL means a full table scan, that is
+ * a missing index and fails the test.
+ * */
+@Testcontainers
+@SpringBootTest
+@Transactional
+public class QueryPlanIntegrationTest extends IntegrationTest {
+    private static final int USERS = 500;
+    private static final int GROUPS = 50;
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+    private static final Pattern LIMIT_BEFORE = Pattern.compile("(?i)limit\\s*$");
+    private static final String LITERAL = "'9999999'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StudyGroupsRepository studyGroupsRepository;
+    @Autowired
+    private MembershipsRepository membershipsRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private ResourcesRepository resourcesRepository;
+    @Autowired
+    private InvitationsRepository invitationsRepository;
+    @Autowired
+    private ActivityLogsRepository activityLogsRepository;
+    @Autowired
+    private ActivityRollupRepository activityRollupRepository;
+
+    private final List<String> fullScans = new ArrayList<>();
+
+    /*
+     * The optimizer happily scans tables of a few rows, so give it enough data to make the index worth it.
+     * Names are zero-padded numbers so that they sort below the literal the statements are explained with.
+     */
+    @BeforeEach
+    void seed() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new Object[]{i, name(i), name(i) + "@mail", "hash"});
+        }
+        jdbcTemplate.batchUpdate("insert into users (user_id, name, email, password_hash) values (?, ?, ?, ?)", users);
+
+        List<Object[]> groups = new ArrayList<>();
+        for (int i = 1; i <= GROUPS; i++) {
+            groups.add(new Object[]{i, name(i), i});
+        }
+        jdbcTemplate.batchUpdate("insert into study_groups (group_id, name, created_by) values (?, ?, ?)", groups);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            rows.add(new Object[]{i, i % GROUPS + 1, "MEMBER"});
+        }
+        jdbcTemplate.batchUpdate("insert into memberships (user_id, group_id, membership_role) values (?, ?, ?)", rows);
+        jdbcTemplate.batchUpdate("insert into tasks (task_id, group_id, created_by, title, status, deadline) values (?, ?, ?, 'task', 'IN_PROGRESS', now())",
+                rows.stream().map(r -> new Object[]{r[0], r[1], r[0]}).toList());
+        jdbcTemplate.batchUpdate("insert into resources (group_id, uploaded_by, title) values (?, ?, 'resource')",
+                rows.stream().map(r -> new Object[]{r[1], r[0]}).toList());
+        jdbcTemplate.batchUpdate("insert into invitation_tokens (token, group_id, created_by, status) values (?, ?, ?, 'ACTIVE')",
+                rows.stream().map(r -> new Object[]{name((Integer) r[0]), r[1], r[0]}).toList());
+        jdbcTemplate.batchUpdate("insert into activity_log (user_id, group_id, action, timestamp) values (?, ?, 'SEED', now(6))",
+                rows.stream().map(r -> new Object[]{r[0], r[1]}).toList());
+    }
+
+    @Test
+    void membershipQueriesUseIndexes() {
+        explain(() -> membershipsRepository.existsByUserIdAndStudyGroupGroupId(7L, 8L));
+        explain(() -> membershipsRepository.findByUserIdAndStudyGroupGroupId(7L, 8L));
+        explain(() -> membershipsRepository.findRoleByUserIdAndGroupId(7L, 8L));
+        explain(() -> membershipsRepository.findCommittedRole(7L, 8L));
+        explain(() -> membershipsRepository.findAllByUserId(7L));
+        explain(() -> membershipsRepository.findAllByStudyGroupGroupId(8L));
+        explain(() -> membershipsRepository.findGroupDtosByUserId(7L));
+        explain(() -> membershipsRepository.findMemberPageAfter(8L, 7L, Limit.of(10)));
+        explain(() -> membershipsRepository.findGroupIdsByUserId(7L));
+        assertNoFullScans();
+    }
+
+    @Test
+    void listAndLookupQueriesUseIndexes() {
+        explain(() -> userRepository.findByEmail(name(7) + "@mail"));
+        explain(() -> userRepository.findByName(name(7)));
+        explain(() -> userRepository.findPageAfter(name(7), 7L, Limit.of(10)));
+        explain(() -> studyGroupsRepository.findPageAfter(name(7), 7L, Limit.of(10)));
+        explain(() -> taskRepository.findPageAfter(7L, Limit.of(10)));
+        explain(() -> taskRepository.findByGroupsAndDeadline(List.of(7L, 8L), TaskStatus.IN_PROGRESS,
+                LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1), LocalDateTime.now(), 7L, Limit.of(10)));
+        explain(() -> resourcesRepository.findPageAfter(7L, Limit.of(10)));
+        explain(() -> resourcesRepository.findAllByStudyGroup_GroupId(8L));
+        explain(() -> invitationsRepository.findInvitationsByToken(name(7)));
+        assertNoFullScans();
+    }
+
+    @Test
+    void activityFeedQueriesUseIndexes() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now.minusMonths(12);
+        explain(() -> activityLogsRepository.findGroupFeed(8L, since, true, Set.of(""), null, null, Limit.of(10)));
+        explain(() -> activityLogsRepository.findGroupFeed(8L, since, false, Set.of("SEED"), now, 7L, Limit.of(10)));
+        explain(() -> activityLogsRepository.findUserFeed(7L, since, true, Set.of(""), null, null, Limit.of(10)));
+        explain(() -> activityLogsRepository.findUserFeed(7L, since, false, Set.of("SEED"), now, 7L, Limit.of(10)));
+        explain(() -> activityRollupRepository.findDaily(8L, now.toLocalDate().minusDays(7), now.toLocalDate(), true, Set.of("")));
+        assertNoFullScans();
+    }
+
+    /* V7 partitions activity_log by month, a query bounded to the coming months must not read the current one */
+    @Test
+    void boundedActivityQueriesPruneOlderPartitions() {
+        YearMonth thisMonth = YearMonth.now();
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList(
+                "explain select action, count(*) from activity_log where group_id = 8 and timestamp >= ? group by action",
+                thisMonth.plusMonths(1).atDay(1).atStartOfDay());
+
+        String partitions = (String) plan.getFirst().get("partitions");
+        assertFalse(partitions == null || partitions.contains("p" + thisMonth.format(DateTimeFormatter.ofPattern("yyyyMM"))),
+                "query was not pruned, partitions: " + partitions);
+    }
+
+    private void explain(Runnable query) {
+        SqlStatementCounter.reset();
+        query.run();
+        List<String> selects = SqlStatementCounter.statements().stream()
+                .filter(sql -> sql.trim().toLowerCase().startsWith("select"))
+                .toList();
+        assertFalse(selects.isEmpty(), "query did not run a select");
+
+        for (String sql : selects) {
+            for (Map<String, Object> row : jdbcTemplate.queryForList("explain " + withLiterals(sql))) {
+                if ("ALL".equals(row.get("type"))) {
+                    fullScans.add(row.get("table") + " in " + sql);
+                }
+            }
+        }
+    }
+
+    /*
+     * The statement inspector only sees the SQL, not the bound values, so every parameter is replaced by one literal
+     * that is above all seeded ids and names. Range predicates then select nothing and only an index can answer them
+     * without a scan. MySQL converts the quoted literal for numeric columns, LIMIT needs a plain number.
+     */
+    private String withLiterals(String sql) {
+        Matcher matcher = PARAMETER.matcher(sql);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            boolean numeric = LIMIT_BEFORE.matcher(sql.substring(0, matcher.start())).find();
+            matcher.appendReplacement(result, numeric ? "10" : LITERAL);
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static String name(int i) {
+        return String.format("%07d", i);
+    }
+
+    private void assertNoFullScans() {
+        assertTrue(fullScans.isEmpty(), "Full table scans:\n" + String.join("\n", fullScans));
+    }
+}
@@ -0,0 +1,37 @@
+package org.application.tsiktsemestraljob;
+/*
+ * Hibernate StatementInspector registered by IntegrationTest, it records every SQL statement prepared by the
+ * application so tests can assert how many round trips a request makes.
+ * */
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+public class SqlStatementCounter implements StatementInspector {
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void reset() {
+        STATEMENTS.clear();
+    }
+
+    public static int count() {
+        return STATEMENTS.size();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    public static long count(String regex) {
+        Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        return STATEMENTS.stream().filter(sql -> pattern.matcher(sql).find()).count();
+    }
+}
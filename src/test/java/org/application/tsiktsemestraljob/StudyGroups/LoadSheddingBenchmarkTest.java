@@ -0,0 +1,171 @@
+package org.application.tsiktsemestraljob.StudyGroups;
+/*
+ * Latency of a database-backed read while the database is saturated, with and without ConcurrencyLimitFilter.
+ * HOGS threads keep that many of Hikari's ten connections busy in "select sleep(0.2)" while CLIENTS signed-in users
+ * request their groups as fast as they can for SECONDS. Without the limiter every request waits its turn for a
+ * connection and the tail grows with the number of clients; with it the read pool shrinks to what the remaining
+ * connections serve within the latency target and the rest is shed with 503 at once.
+ * Opt-in because it is slow:
+ * mvn test -Dtest=LoadSheddingBenchmarkTest -Dbenchmark=true
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.User.UserRegisterRequest;
+import org.application.tsiktsemestraljob.demo.DTO.Authentication.LoginDTO;
+import org.application.tsiktsemestraljob.demo.Enums.RequestPool;
+import org.application.tsiktsemestraljob.demo.Service.ConcurrencyLimiter;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Testcontainers
+@SpringBootTest
+@Transactional(Transactional.TxType.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class LoadSheddingBenchmarkTest extends IntegrationTest {
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 64);
+    private static final int HOGS = Integer.getInteger("benchmark.hogs", 8);
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 20);
+    private static final String ENDPOINT = "/api/studyGroups/my-groups";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    /* latencies of the served requests in microseconds, and how many were shed or failed */
+    private record Client(long[] served, int count, int shed, int failed) {}
+
+    private MockHttpSession login(String email) throws Exception {
+        return (MockHttpSession) mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginDTO(email, "secret"))))
+                .andExpect(status().isOk())
+                .andReturn().getRequest().getSession(false);
+    }
+
+    private void measure(String mode) throws Exception {
+        List<MockHttpSession> sessions = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            String email = "shed-" + mode + "-" + i + "-" + System.nanoTime() + "@mail";
+            new UserRegisterRequest(mockMvc, objectMapper).registeredUser("client" + i, email, "secret");
+            sessions.add(login(email));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService threads = Executors.newFixedThreadPool(HOGS + CLIENTS);
+        try {
+            for (int i = 0; i < HOGS; i++) {
+                threads.submit(() -> {
+                    while (running.get()) {
+                        jdbcTemplate.queryForObject("select sleep(0.2)", Integer.class);
+                    }
+                    return null;
+                });
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+            List<Future<Client>> clients = new ArrayList<>();
+            for (MockHttpSession session : sessions) {
+                clients.add(threads.submit(() -> {
+                    long[] served = new long[1024];
+                    int count = 0;
+                    int shed = 0;
+                    int failed = 0;
+                    while (System.nanoTime() < deadline) {
+                        long started = System.nanoTime();
+                        int status = mockMvc.perform(get(ENDPOINT).session(session))
+                                .andReturn().getResponse().getStatus();
+                        long micros = (System.nanoTime() - started) / 1_000;
+                        if (status == 200) {
+                            if (count == served.length) {
+                                served = Arrays.copyOf(served, count * 2);
+                            }
+                            served[count++] = micros;
+                        } else if (status == 503) {
+                            shed++;
+                        } else {
+                            failed++;
+                        }
+                    }
+                    return new Client(served, count, shed, failed);
+                }));
+            }
+
+            long[] latencies = new long[0];
+            int shed = 0;
+            int failed = 0;
+            for (Future<Client> future : clients) {
+                Client client = future.get();
+                int offset = latencies.length;
+                latencies = Arrays.copyOf(latencies, offset + client.count());
+                System.arraycopy(client.served(), 0, latencies, offset, client.count());
+                shed += client.shed();
+                failed += client.failed();
+            }
+            running.set(false);
+
+            Arrays.sort(latencies);
+            assertTrue(latencies.length > 0, "no request was served");
+            ConcurrencyLimiter.Pool reads = concurrencyLimiter.getPool(RequestPool.READ);
+            System.out.printf("%-10s served %6d (%6.0f/s)  shed %6d  failed %4d  p50 %8.1f ms  p99 %8.1f ms  max %8.1f ms"
+                            + "  read limit %s%n",
+                    mode, latencies.length, latencies.length / (double) SECONDS, shed, failed,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1000.0,
+                    concurrencyLimiter.isEnabled() ? String.valueOf(reads.getLimit()) : "-");
+        } finally {
+            running.set(false);
+            threads.shutdown();
+            threads.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1000.0;
+    }
+
+    @Nested
+    class Limited {
+        @Test
+        void tailLatency() throws Exception {
+            measure("limited");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "app.concurrency-limit.enabled=false")
+    class Unlimited {
+        @Test
+        void tailLatency() throws Exception {
+            measure("unlimited");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.application.tsiktsemestraljob.StudyGroups;
+/*
+ * Two application nodes sharing the JDBC session store, so one cookie is signed in on both. The owner removes a
+ * member through node A while node B still holds the member's role in its MembershipRoleCache; the removal event never
+ * reaches node B, and only the entry's time to live ends the member's access there.
+ */
+
+import org.application.tsiktsemestraljob.TsikTsemestraljobApplication;
+import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
+import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.application.tsiktsemestraljob.demo.Service.MembershipService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers
+public class MembershipRevocationClusterIntegrationTest {
+    private static final long TTL_MS = 500;
+
+    @Container
+    public static MySQLContainer<?> MYSQL =
+            new MySQLContainer<>("mysql:8.4")
+                    .withDatabaseName("testdb")
+                    .withUsername("test")
+                    .withPassword("test");
+
+    private static final HttpClient HTTP = HttpClient.newHttpClient();
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startCluster() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        if (nodeA != null) nodeA.close();
+        if (nodeB != null) nodeB.close();
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(TsikTsemestraljobApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + MYSQL.getJdbcUrl(),
+                        "--spring.datasource.username=" + MYSQL.getUsername(),
+                        "--spring.datasource.password=" + MYSQL.getPassword(),
+                        "--spring.jpa.show-sql=false",
+                        "--app.session.store=JDBC",
+                        "--app.rate-limit.enabled=false",
+                        "--app.membership-cache.ttl-ms=" + TTL_MS);
+    }
+
+    private static String url(ConfigurableApplicationContext node, String path) {
+        return "http://localhost:" + ((WebServerApplicationContext) node).getWebServer().getPort() + path;
+    }
+
+    /* returns the session cookie */
+    private static String register(String name, String email) throws Exception {
+        HttpResponse<String> response = HTTP.send(HttpRequest.newBuilder()
+                        .uri(URI.create(url(nodeA, "/auth/register")))
+                        .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"name\":\"" + name + "\",\"email\":\"" + email + "\",\"password\":\"secret\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response.headers().firstValue(HttpHeaders.SET_COOKIE).orElseThrow().split(";", 2)[0];
+    }
+
+    private static int send(ConfigurableApplicationContext node, String method, String path, String cookie)
+            throws Exception {
+        return HTTP.send(HttpRequest.newBuilder()
+                        .uri(URI.create(url(node, path)))
+                        .header(HttpHeaders.COOKIE, cookie)
+                        .method(method, HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Test
+    void memberRemovedOnOneNodeLosesAccessOnTheOther() throws Exception {
+        String ownerEmail = "owner-" + System.nanoTime() + "@mail";
+        String memberEmail = "member-" + System.nanoTime() + "@mail";
+        String ownerCookie = register("owner", ownerEmail);
+        String memberCookie = register("member", memberEmail);
+
+        UserRepository users = nodeA.getBean(UserRepository.class);
+        User owner = users.findByEmail(ownerEmail).orElseThrow();
+        User member = users.findByEmail(memberEmail).orElseThrow();
+        StudyGroups group = new StudyGroups();
+        group.setName("revocation-" + System.nanoTime());
+        group.setCreatedBy(owner);
+        group = nodeA.getBean(StudyGroupsRepository.class).save(group);
+        MembershipService memberships = nodeA.getBean(MembershipService.class);
+        memberships.addMember(owner, group, MembershipRole.OWNER);
+        memberships.addMember(member, group, MembershipRole.MEMBER);
+
+        String members = "/api/studyGroups/" + group.getGroupId() + "/members";
+        /* the session made on node A is valid on node B, which now caches the MEMBER role */
+        assertEquals(200, send(nodeB, "GET", members, memberCookie));
+
+        assertEquals(200, send(nodeA, "DELETE", members + "/" + member.getId(), ownerCookie));
+        assertEquals(403, send(nodeA, "GET", members, memberCookie));
+
+        long removed = System.nanoTime();
+        int status = send(nodeB, "GET", members, memberCookie);
+        while (status == 200 && System.nanoTime() - removed < TimeUnit.SECONDS.toNanos(10)) {
+            Thread.sleep(50);
+            status = send(nodeB, "GET", members, memberCookie);
+        }
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - removed);
+        assertEquals(403, status);
+        assertTrue(waitedMs < TTL_MS + 1000, "node B kept the revoked role for " + waitedMs + " ms");
+    }
+}
@@ -0,0 +1,127 @@
+package org.application.tsiktsemestraljob.StudyGroups;
+/*
+ * Many joins of the same user to the same group at once, as a double click or two accepted invitations produce them.
+ * Each join runs in its own transaction, so the test itself must not hold one.
+ */
+
+import jakarta.transaction.Transactional;
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
+import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.application.tsiktsemestraljob.demo.Service.MembershipService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Testcontainers
+@SpringBootTest
+@Transactional(Transactional.TxType.NOT_SUPPORTED)
+class MembershipUpsertConcurrencyTest extends IntegrationTest {
+    private static final int JOINS = 100;
+
+    @Autowired
+    private MembershipService membershipService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StudyGroupsRepository studyGroupsRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "-" + System.nanoTime() + "@mail");
+        user.setPasswordHash("hash");
+        return userRepository.save(user);
+    }
+
+    private int rows(User user, StudyGroups group) {
+        return jdbcTemplate.queryForObject("select count(*) from memberships where user_id = ? and group_id = ?",
+                Integer.class, user.getId(), group.getGroupId());
+    }
+
+    @Test
+    void parallelJoinsLeaveExactlyOneMembership() throws Exception {
+        User owner = user("owner");
+        User joiner = user("joiner");
+        StudyGroups group = new StudyGroups();
+        group.setName("upsert-" + System.nanoTime());
+        group.setCreatedBy(owner);
+        group = studyGroupsRepository.save(group);
+        StudyGroups target = group;
+
+        ExecutorService pool = Executors.newFixedThreadPool(JOINS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<MembershipRole>>> joins = new ArrayList<>();
+        try {
+            for (int i = 0; i < JOINS; i++) {
+                joins.add(pool.submit(() -> {
+                    start.await();
+                    return membershipService.addMember(joiner, target, MembershipRole.MEMBER);
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            for (Future<Optional<MembershipRole>> join : joins) {
+                Optional<MembershipRole> existing = join.get(1, TimeUnit.MINUTES);
+                if (existing.isEmpty()) {
+                    created++;
+                } else {
+                    assertEquals(MembershipRole.MEMBER, existing.get());
+                }
+            }
+            assertEquals(1, created);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, rows(joiner, target));
+    }
+
+    @Test
+    void joiningAgainReturnsTheRoleAlreadyHeld() {
+        User owner = user("owner");
+        StudyGroups group = new StudyGroups();
+        group.setName("upsert-" + System.nanoTime());
+        group.setCreatedBy(owner);
+        group = studyGroupsRepository.save(group);
+
+        assertEquals(Optional.empty(), membershipService.addMember(owner, group, MembershipRole.OWNER));
+        assertEquals(Optional.of(MembershipRole.OWNER), membershipService.addMember(owner, group, MembershipRole.MEMBER));
+        assertEquals(1, rows(owner, group));
+    }
+
+    @Test
+    void joiningAGroupThatDoesNotExistFails() {
+        User user = user("late");
+        StudyGroups gone = new StudyGroups();
+        gone.setGroupId(Long.MAX_VALUE);
+
+        /* only a duplicate key counts as already joined, a foreign key failure is not swallowed */
+        DataIntegrityViolationException failure = assertThrows(DataIntegrityViolationException.class,
+                () -> membershipService.addMember(user, gone, MembershipRole.MEMBER));
+        assertFalse(failure instanceof DuplicateKeyException);
+        assertEquals(0, rows(user, gone));
+    }
+}
@@ -1,8 +1,11 @@
 package org.application.tsiktsemestraljob.StudyGroups;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.SqlStatementCounter;
 import org.application.tsiktsemestraljob.User.UserRegisterRequest;
 import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsRequestDTO;
 import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsResponseDTO;
@@ -20,9 +23,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -49,6 +61,10 @@ class StudyGroupsIntegrationTest extends IntegrationTest {
     private UserRepository userRepository;
     @Autowired
     private MembershipService membershipService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     private UserRegisterRequest userRegisterRequest;
     private StudyGroupsPostRequest studyGroupsPostRequest;
@@ -80,7 +96,8 @@ class StudyGroupsIntegrationTest extends IntegrationTest {
         Long id = dto.id();
 
         mockMvc.perform(delete("/api/studyGroups/" + id))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("PENDING"));
 
     }
 
@@ -108,4 +125,81 @@ class StudyGroupsIntegrationTest extends IntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name").value("testgroup"));
     }
+
+    @Test
+    void testMyGroupsRunsFixedNumberOfStatements() throws Exception {
+        StudyGroupsResponseDTO first = studyGroupsPostRequest.postGroup("testgroup");
+        int withOneGroup = countStatements("/api/studyGroups/my-groups");
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/studyGroups/" + first.createdBy())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new StudyGroupsRequestDTO("testgroup" + i, null))))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(withOneGroup, countStatements("/api/studyGroups/my-groups"));
+    }
+
+    @Test
+    void testGroupMembersRunsFixedNumberOfStatements() throws Exception {
+        StudyGroupsResponseDTO group = studyGroupsPostRequest.postGroup("testgroup");
+        String url = "/api/studyGroups/" + group.id() + "/members";
+        int withOwnerOnly = countStatements(url);
+
+        StudyGroups studyGroup = studyGroupsRepository.findById(group.id()).orElseThrow();
+        for (int i = 0; i < 5; i++) {
+            UserResponseDTO member = userRegisterRequest.registeredUser("member" + i, "member" + i + "@mail", "12345");
+            User user = userRepository.findById(member.id()).orElseThrow();
+            membershipService.addMember(user, studyGroup, MembershipRole.MEMBER);
+        }
+
+        // the membership check may be answered by the role cache on the second call
+        assertTrue(countStatements(url) <= withOwnerOnly);
+    }
+
+    @Test
+    void testActivityFeedPagesNewestFirstAndFiltersByAction() throws Exception {
+        StudyGroupsResponseDTO group = studyGroupsPostRequest.postGroup("testgroup");
+        entityManager.flush();
+        LocalDateTime start = LocalDate.now().minusDays(1).atTime(12, 0);
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.update("insert into activity_log (user_id, group_id, action, details, timestamp) values (?, ?, ?, ?, ?)",
+                    group.createdBy(), group.id(), i % 2 == 0 ? "CREATE_TASK" : "UPDATE_TASK", "TASK-ID: " + i, start.plusSeconds(i));
+        }
+        /* past the retention window, the feed skips it even before its partition is dropped */
+        jdbcTemplate.update("insert into activity_log (user_id, group_id, action, details, timestamp) values (?, ?, ?, ?, ?)",
+                group.createdBy(), group.id(), "CREATE_TASK", "TASK-ID: expired", LocalDate.now().minusMonths(13).atStartOfDay());
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            String body = mockMvc.perform(get("/api/activity/group/" + group.id())
+                            .param("limit", "2")
+                            .param("cursor", cursor == null ? "" : cursor))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(body);
+            page.get("items").forEach(item -> seen.add(item.get("details").asText()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+        assertEquals(List.of("TASK-ID: 4", "TASK-ID: 3", "TASK-ID: 2", "TASK-ID: 1", "TASK-ID: 0"), seen);
+
+        mockMvc.perform(get("/api/activity/group/" + group.id()).param("action", "UPDATE_TASK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].details").value("TASK-ID: 3"));
+
+        mockMvc.perform(get("/api/activity/me").param("action", "CREATE_TASK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(3));
+    }
+
+    private int countStatements(String url) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementCounter.reset();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return SqlStatementCounter.count();
+    }
 }
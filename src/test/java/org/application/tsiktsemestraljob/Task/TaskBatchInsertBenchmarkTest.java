@@ -0,0 +1,121 @@
+package org.application.tsiktsemestraljob.Task;
+/*
+ * Throughput of single task creation compared with the batch endpoint's service method. Each single create runs in
+ * its own transaction like a separate POST request would. Opt-in because it commits a few thousand rows:
+ * mvn test -Dtest=TaskBatchInsertBenchmarkTest -Dbenchmark=true
+ */
+
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
+import org.application.tsiktsemestraljob.demo.Entities.Task;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
+import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.application.tsiktsemestraljob.demo.Service.MembershipService;
+import org.application.tsiktsemestraljob.demo.Service.TaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class TaskBatchInsertBenchmarkTest extends IntegrationTest {
+    private static final int TASKS = 1000;
+    private static final int WARMUP = 100;
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StudyGroupsRepository studyGroupsRepository;
+    @Autowired
+    private MembershipService membershipService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate ownTransaction;
+    private Long groupId;
+
+    @BeforeEach
+    void setUp() {
+        ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        String email = "bench-" + System.nanoTime() + "@mail";
+        groupId = ownTransaction.execute(status -> {
+            User user = new User();
+            user.setName("bench");
+            user.setEmail(email);
+            user.setPasswordHash("hash");
+            userRepository.save(user);
+
+            StudyGroups group = new StudyGroups();
+            group.setName(email);
+            group.setCreatedBy(user);
+            group = studyGroupsRepository.save(group);
+            /* only members may add tasks */
+            membershipService.addMember(user, group, MembershipRole.OWNER);
+            return group.getGroupId();
+        });
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void batchInsertOutperformsSingleInserts() {
+        singleInserts(WARMUP);
+        ownTransaction.executeWithoutResult(status -> taskService.createTasks(groupId, tasks(WARMUP)));
+
+        long start = System.nanoTime();
+        singleInserts(TASKS);
+        long single = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        ownTransaction.executeWithoutResult(status -> taskService.createTasks(groupId, tasks(TASKS)));
+        long batch = System.nanoTime() - start;
+
+        System.out.printf("single inserts: %.0f tasks/s, batch insert: %.0f tasks/s (%.1fx)%n",
+                perSecond(single), perSecond(batch), (double) single / batch);
+        assertTrue(batch < single, "batch insert should be faster than single inserts");
+    }
+
+    private void singleInserts(int count) {
+        for (Task task : tasks(count)) {
+            ownTransaction.executeWithoutResult(status -> taskService.createTask(groupId, task));
+        }
+    }
+
+    private static List<Task> tasks(int count) {
+        return new ArrayList<>(IntStream.range(0, count).mapToObj(i -> {
+            Task task = new Task();
+            task.setTitle("Task " + i);
+            return task;
+        }).toList());
+    }
+
+    private static double perSecond(long nanos) {
+        return TASKS / (nanos / 1_000_000_000.0);
+    }
+}
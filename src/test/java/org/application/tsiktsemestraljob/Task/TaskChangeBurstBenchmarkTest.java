@@ -0,0 +1,246 @@
+package org.application.tsiktsemestraljob.Task;
+/*
+ * Scripted burst of task changes in one group, comparing the traffic of the old text notifications, where every
+ * subscriber reloaded the group's task list after each message, with typed delta events applied in place.
+ * Frames are published from the outbox, captured on the broker channel and applied to a replica the way the
+ * client's stores do (batches event by event, invalidate frames by reloading), the replica has to end up equal
+ * to the database. Opt-in because it commits rows:
+ * mvn test -Dtest=TaskChangeBurstBenchmarkTest -Dbenchmark=true
+ */
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskResponseDTO;
+import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
+import org.application.tsiktsemestraljob.demo.Entities.Task;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Enums.TaskStatus;
+import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
+import org.application.tsiktsemestraljob.demo.Repository.TaskRepository;
+import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.application.tsiktsemestraljob.demo.Service.MembershipService;
+import org.application.tsiktsemestraljob.demo.Service.NotificationOutboxDispatcher;
+import org.application.tsiktsemestraljob.demo.Service.TaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class TaskChangeBurstBenchmarkTest extends IntegrationTest {
+    private static final int SUBSCRIBERS = 20;
+    private static final int INITIAL_TASKS = 50;
+    private static final int CHANGES = 200;
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private MembershipService membershipService;
+    @Autowired
+    private NotificationOutboxDispatcher dispatcher;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private StudyGroupsRepository studyGroupsRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    @Qualifier("brokerChannel")
+    private AbstractSubscribableChannel brokerChannel;
+
+    /* the dispatcher thread and drain() on the test thread both publish */
+    private final List<byte[]> frames = new CopyOnWriteArrayList<>();
+    private final ChannelInterceptor capture = new ChannelInterceptor() {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            if (("/topic/group/" + groupId).equals(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+                frames.add((byte[]) message.getPayload());
+            }
+            return message;
+        }
+    };
+
+    private TransactionTemplate ownTransaction;
+    private Long groupId;
+
+    @BeforeEach
+    void setUp() {
+        ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        String email = "burst-" + System.nanoTime() + "@mail";
+        groupId = ownTransaction.execute(status -> {
+            User user = new User();
+            user.setName("burst");
+            user.setEmail(email);
+            user.setPasswordHash("hash");
+            userRepository.save(user);
+
+            StudyGroups group = new StudyGroups();
+            group.setName(email);
+            group.setCreatedBy(user);
+            studyGroupsRepository.save(group);
+            membershipService.addMember(user, group, MembershipRole.OWNER);
+            return group.getGroupId();
+        });
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+        brokerChannel.addInterceptor(capture);
+    }
+
+    @AfterEach
+    void tearDown() {
+        brokerChannel.removeInterceptor(capture);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void deltaEventsReplaceGroupReloads() throws Exception {
+        Random random = new Random(42);
+        List<Long> live = new ArrayList<>();
+        long legacyGets = 0;
+        long legacyBytes = 0;
+
+        /* before the burst every subscriber loads the group once, both strategies pay for that */
+        ownTransaction.execute(status -> taskService.createTasks(groupId, tasks(INITIAL_TASKS)))
+                .forEach(task -> live.add(task.getId()));
+        dispatcher.drain();
+        legacyGets++;
+        legacyBytes += groupListBytes();
+        Map<Long, JsonNode> replica = new HashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        for (byte[] frame : frames) {
+            applyFrame(objectMapper.readTree(frame), replica, versions);
+        }
+        frames.clear();
+
+        for (int i = 0; i < CHANGES; i++) {
+            int roll = random.nextInt(10);
+            if (roll < 4 || live.isEmpty()) {
+                live.add(ownTransaction.execute(status -> taskService.createTask(groupId, tasks(1).getFirst())).getId());
+            } else if (roll < 8) {
+                Long id = live.get(random.nextInt(live.size()));
+                Task change = new Task();
+                change.setTitle("Updated " + i);
+                change.setStatus(TaskStatus.IN_PROGRESS);
+                ownTransaction.executeWithoutResult(status -> taskService.updateTask(id, change));
+            } else {
+                Long id = live.remove(random.nextInt(live.size()));
+                ownTransaction.executeWithoutResult(status -> taskService.deleteTask(id));
+            }
+            /* the text notification made every subscriber download the whole group again */
+            legacyGets++;
+            legacyBytes += groupListBytes();
+        }
+
+        dispatcher.drain();
+        long eventBytes = frames.stream().mapToLong(frame -> frame.length).sum();
+        long reloads = 0;
+        int events = 0;
+        for (byte[] frame : frames) {
+            JsonNode json = objectMapper.readTree(frame);
+            events += json.has("events") ? json.get("events").size() : 1;
+            if (!applyFrame(json, replica, versions)) {
+                reloads++;
+                eventBytes += groupListBytes();
+            }
+        }
+
+        Map<Long, String> expected = new TreeMap<>();
+        groupTasks().forEach(task -> expected.put(task.id(), task.title()));
+        Map<Long, String> actual = new TreeMap<>();
+        replica.forEach((id, task) -> actual.put(id, task.get("title").asText()));
+        assertEquals(expected, actual, "replica built from delta events must match the database");
+
+        System.out.printf("%d subscribers, %d changes: text notifications caused %d GETs (%.1f MB), delta events %d GETs, %d events in %d frames (%.1f MB)%n",
+                SUBSCRIBERS, CHANGES, legacyGets * SUBSCRIBERS, mb(legacyBytes * SUBSCRIBERS),
+                (1 + reloads) * SUBSCRIBERS, events, frames.size(), mb(eventBytes * SUBSCRIBERS));
+        assertTrue(eventBytes < legacyBytes, "delta events should move less data than reloading the group");
+    }
+
+    /* returns false for an invalidate frame, the replica is then reloaded like the client reloads the group */
+    private boolean applyFrame(JsonNode frame, Map<Long, JsonNode> replica, Map<Long, Long> versions) {
+        if (!frame.has("events")) {
+            apply(frame, replica, versions);
+            return true;
+        }
+        if (frame.get("invalidate").asBoolean()) {
+            replica.clear();
+            groupTasks().forEach(task -> replica.put(task.id(), objectMapper.valueToTree(task)));
+            return false;
+        }
+        frame.get("events").forEach(event -> apply(event, replica, versions));
+        return true;
+    }
+
+    /* same rules as the client's TaskStore: events not newer than the known version are dropped */
+    private static void apply(JsonNode event, Map<Long, JsonNode> replica, Map<Long, Long> versions) {
+        long id = event.get("id").asLong();
+        long version = event.get("version").asLong();
+        if (version <= versions.getOrDefault(id, -1L)) {
+            return;
+        }
+        versions.put(id, version);
+        if ("DELETED".equals(event.get("operation").asText())) {
+            replica.remove(id);
+        } else {
+            replica.put(id, event.get("data"));
+        }
+    }
+
+    private List<TaskResponseDTO> groupTasks() {
+        return taskRepository.findByGroupsAndDeadline(Set.of(groupId), null, null, null, null, null, Limit.unlimited());
+    }
+
+    private long groupListBytes() throws Exception {
+        return objectMapper.writeValueAsBytes(groupTasks()).length;
+    }
+
+    private static List<Task> tasks(int count) {
+        return new ArrayList<>(IntStream.range(0, count).mapToObj(i -> {
+            Task task = new Task();
+            task.setTitle("Task " + i);
+            task.setStatus(TaskStatus.IN_PROGRESS);
+            return task;
+        }).toList());
+    }
+
+    private static double mb(long bytes) {
+        return bytes / 1_000_000.0;
+    }
+}
@@ -1,8 +1,12 @@
 package org.application.tsiktsemestraljob.Task;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.SqlStatementCounter;
+import org.application.tsiktsemestraljob.User.UserRegisterRequest;
 import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskRequestDTO;
 import org.application.tsiktsemestraljob.demo.DTO.TaskDTO.TaskResponseDTO;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +18,16 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -29,6 +43,9 @@ public class TaskIntegrationTest extends IntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private TaskPostRequest taskPostRequest;
     @BeforeEach
     void setUp() {
@@ -82,4 +99,160 @@ public class TaskIntegrationTest extends IntegrationTest {
         mockMvc.perform(delete("/api/tasks/" + id))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void getAllTasksRunsFixedNumberOfStatements() throws Exception {
+        TaskResponseDTO first = taskPostRequest.postTask("Test Task");
+        int withOneTask = countStatements("/api/tasks");
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/tasks/" + first.groupId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new TaskRequestDTO("Task " + i, null, null, null))))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(withOneTask, countStatements("/api/tasks"));
+        assertEquals(1, withOneTask);
+    }
+
+    @Test
+    void getTasksWalksAllPagesByCursor() throws Exception {
+        TaskResponseDTO first = taskPostRequest.postTask("Test Task");
+        List<Long> created = new ArrayList<>(List.of(first.id()));
+        for (int i = 0; i < 4; i++) {
+            String body = mockMvc.perform(post("/api/tasks/" + first.groupId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new TaskRequestDTO("Task " + i, null, null, null))))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            created.add(objectMapper.readValue(body, TaskResponseDTO.class).id());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            String url = "/api/tasks?limit=2" + (cursor == null ? "" : "&cursor=" + cursor);
+            JsonNode page = objectMapper.readTree(mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            assertTrue(page.get("items").size() <= 2);
+            page.get("items").forEach(item -> seen.add(item.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+
+        assertEquals(seen.size(), seen.stream().distinct().count());
+        assertEquals(seen.stream().sorted().toList(), seen);
+        assertTrue(seen.containsAll(created));
+    }
+
+    @Test
+    void queryTasksWalksAllPagesByDeadlineCursor() throws Exception {
+        TaskResponseDTO first = taskPostRequest.postTask("Test Task");
+        LocalDateTime noon = LocalDateTime.now().plusDays(3).withHour(12).withMinute(0).withSecond(0).withNano(0);
+        /* undated tasks and tasks sharing a deadline, the id has to break every tie */
+        LocalDateTime[] deadlines = {null, noon, null, noon, noon.minusHours(1), noon};
+        List<TaskResponseDTO> created = new ArrayList<>(List.of(first));
+        for (int i = 0; i < deadlines.length; i++) {
+            String body = mockMvc.perform(post("/api/tasks/" + first.groupId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new TaskRequestDTO("Task " + i, null, deadlines[i], null))))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            created.add(objectMapper.readValue(body, TaskResponseDTO.class));
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            String url = "/api/tasks/query?groupIds=" + first.groupId() + "&limit=2"
+                    + (cursor == null ? "" : "&cursor=" + cursor);
+            JsonNode page = objectMapper.readTree(mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            assertTrue(page.get("items").size() <= 2);
+            page.get("items").forEach(item -> seen.add(item.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+
+        /* MySQL puts NULL deadlines first */
+        List<Long> expected = created.stream()
+                .sorted(Comparator.comparing(TaskResponseDTO::deadline, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(TaskResponseDTO::id))
+                .map(TaskResponseDTO::id)
+                .toList();
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void createTasksInBatchSendsOneBatchedInsert() throws Exception {
+        TaskResponseDTO first = taskPostRequest.postTask("Test Task");
+        List<TaskRequestDTO> batch = List.of(
+                new TaskRequestDTO("Week 1", null, null, null),
+                new TaskRequestDTO("Week 2", null, null, null),
+                new TaskRequestDTO("Week 3", null, null, null));
+
+        SqlStatementCounter.reset();
+        String body = mockMvc.perform(post("/api/tasks/" + first.groupId() + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andReturn().getResponse().getContentAsString();
+        entityManager.flush();
+
+        TaskResponseDTO[] created = objectMapper.readValue(body, TaskResponseDTO[].class);
+        assertEquals(3, Arrays.stream(created).map(TaskResponseDTO::id).distinct().count());
+        assertEquals(1, SqlStatementCounter.count("insert into tasks\\b"));
+        /* the log entry is queued for the ActivityLogWriter, it is not part of the request's statements */
+        assertEquals(0, SqlStatementCounter.count("insert into activity_log"));
+    }
+
+    @Test
+    void createTasksInBatchRejectsEmptyList() throws Exception {
+        TaskResponseDTO first = taskPostRequest.postTask("Test Task");
+        mockMvc.perform(post("/api/tasks/" + first.groupId() + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void nonMembersCannotCreateTasksInTheGroup() throws Exception {
+        TaskResponseDTO first = taskPostRequest.postTask("Test Task");
+        new UserRegisterRequest(mockMvc, objectMapper).registeredUser("outsider", "outsidermail", "12345");
+        TaskRequestDTO task = new TaskRequestDTO("Injected", null, null, null);
+
+        mockMvc.perform(post("/api/tasks/" + first.groupId())
+                        .with(user("outsidermail"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(task)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/tasks/" + first.groupId() + "/batch")
+                        .with(user("outsidermail"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(task, task))))
+                .andExpect(status().isForbidden());
+        entityManager.flush();
+
+        Long count = entityManager.createQuery(
+                        "select count(t) from tasks t where t.studyGroup.groupId = :groupId", Long.class)
+                .setParameter("groupId", first.groupId())
+                .getSingleResult();
+        assertEquals(1L, count);
+    }
+
+    @Test
+    void getTasksRejectsMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/tasks?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private int countStatements(String url) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementCounter.reset();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return SqlStatementCounter.count();
+    }
 }
@@ -0,0 +1,124 @@
+package org.application.tsiktsemestraljob.User;
+/*
+ * Throughput of one authenticated GET through the whole filter chain for each way a caller can be recognised:
+ * a container session, a session in http_sessions (app.session.store=JDBC) and an access token (app.auth.mode=TOKEN).
+ * Every variant runs in its own application context. Opt-in because it is slow:
+ * mvn test -Dtest=AuthModeBenchmarkTest -Dbenchmark=true
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.demo.DTO.Authentication.LoginDTO;
+import org.application.tsiktsemestraljob.demo.DTO.Authentication.TokenResponseDTO;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.function.Supplier;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Testcontainers
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class AuthModeBenchmarkTest extends IntegrationTest {
+    private static final int WARMUP = 500;
+    private static final int REQUESTS = 5_000;
+    private static final String ENDPOINT = "/api/studyGroups/my-groups";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String register(String mode) throws Exception {
+        String email = "bench-" + mode + "-" + System.nanoTime() + "@mail";
+        new UserRegisterRequest(mockMvc, objectMapper).registeredUser("bench", email, "secret");
+        return email;
+    }
+
+    private String credentials(String email) throws Exception {
+        return objectMapper.writeValueAsString(new LoginDTO(email, "secret"));
+    }
+
+    private void measure(String mode, Supplier<MockHttpServletRequestBuilder> request) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            mockMvc.perform(request.get()).andExpect(status().isOk());
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(request.get()).andExpect(status().isOk());
+        }
+        long elapsed = System.nanoTime() - started;
+        System.out.printf("auth %-14s %8.0f requests/s, %6.1f µs/request%n", mode,
+                REQUESTS / (elapsed / 1e9), elapsed / 1_000.0 / REQUESTS);
+    }
+
+    /* a session login, sending back both the session and its cookie so either store finds it */
+    private void measureSession(String mode) throws Exception {
+        String email = register(mode);
+        MvcResult login = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials(email)))
+                .andExpect(status().isOk())
+                .andReturn();
+        MockHttpSession session = (MockHttpSession) login.getRequest().getSession(false);
+        var cookies = login.getResponse().getCookies();
+
+        measure(mode, () -> {
+            MockHttpServletRequestBuilder request = get(ENDPOINT);
+            if (session != null) {
+                request.session(session);
+            }
+            if (cookies.length > 0) {
+                request.cookie(cookies);
+            }
+            return request;
+        });
+    }
+
+    @Nested
+    class ContainerSessions {
+        @Test
+        void throughput() throws Exception {
+            measureSession("session/memory");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "app.session.store=JDBC")
+    class JdbcSessions {
+        @Test
+        void throughput() throws Exception {
+            measureSession("session/jdbc");
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "app.auth.mode=TOKEN")
+    class AccessTokens {
+        @Test
+        void throughput() throws Exception {
+            String email = register("token");
+            String response = mockMvc.perform(post("/auth/token")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(credentials(email)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            String accessToken = objectMapper.readValue(response, TokenResponseDTO.class).accessToken();
+
+            measure("token", () -> get(ENDPOINT).header("Authorization", "Bearer " + accessToken));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.application.tsiktsemestraljob.User;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.SqlStatementCounter;
+import org.application.tsiktsemestraljob.StudyGroups.StudyGroupsPostRequest;
+import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsRequestDTO;
+import org.application.tsiktsemestraljob.demo.DTO.StudyGroupsDTO.StudyGroupsResponseDTO;
+import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserRequestDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Testcontainers
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@WithMockUser(username = "testmail")
+class CurrentUserQueryCountTest extends IntegrationTest {
+    private static final String USER_LOOKUP = "select .* from users ";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private StudyGroupsPostRequest studyGroupsPostRequest;
+
+    @BeforeEach
+    void setUp() {
+        studyGroupsPostRequest = new StudyGroupsPostRequest(mockMvc, objectMapper);
+    }
+
+    @Test
+    void updateGroupLooksUpCallerOnce() throws Exception {
+        StudyGroupsResponseDTO group = studyGroupsPostRequest.postGroup("testgroup");
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(put("/api/studyGroups/" + group.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StudyGroupsRequestDTO("newname", null))))
+                .andExpect(status().isOk());
+
+        assertTrue(SqlStatementCounter.count(USER_LOOKUP) <= 1);
+    }
+
+    @Test
+    void createInvitationLooksUpCallerOnce() throws Exception {
+        StudyGroupsResponseDTO group = studyGroupsPostRequest.postGroup("testgroup");
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(post("/api/invitations/" + group.id()))
+                .andExpect(status().isOk());
+
+        assertTrue(SqlStatementCounter.count(USER_LOOKUP) <= 1);
+    }
+
+    @Test
+    void updateUserInvalidatesCachedCaller() throws Exception {
+        StudyGroupsResponseDTO group = studyGroupsPostRequest.postGroup("testgroup");
+
+        mockMvc.perform(put("/api/users/" + group.createdBy())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserRequestDTO("renamed", null, null))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/studyGroups/" + group.id()))
+                .andExpect(status().isOk());
+    }
+}
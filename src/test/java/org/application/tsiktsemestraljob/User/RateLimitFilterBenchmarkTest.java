@@ -0,0 +1,142 @@
+package org.application.tsiktsemestraljob.User;
+/*
+ * JMH measurement of what RateLimitFilter adds to a request: the same authenticated requests from 1000 users go
+ * through an empty chain with and without the filter, on one thread per core sharing one limiter, with limits high
+ * enough that nothing is throttled. The difference is turned into the share of one core the filter costs at 50k requests/s.
+ * limiterOnly times RateLimiter.tryAcquire alone, the rest of the difference is header and attribute handling.
+ * Needs no database. Opt-in because it takes about a minute:
+ * mvn test -Dtest=RateLimitFilterBenchmarkTest -Dbenchmark=true
+ */
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.Authorization.Config.RateLimitFilter;
+import org.application.tsiktsemestraljob.demo.Service.RateLimiter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RateLimitFilterBenchmarkTest {
+    private static final int USERS = 1000;
+    private static final String[] PATHS = {"/api/studyGroups/my-groups", "/api/tasks/7", "/auth/me"};
+
+    @State(Scope.Benchmark)
+    public static class Limiter {
+        RateLimiter rateLimiter;
+        RateLimitFilter filter;
+
+        @Setup
+        public void setup() {
+            rateLimiter = new RateLimiter(new SimpleMeterRegistry(), true,
+                    List.of("/auth/**=1000000/1000000", "/api/tasks/**=1000000/1000000", "/api/**=1000000/1000000"),
+                    100_000);
+            filter = new RateLimitFilter(rateLimiter);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Requests {
+        String[] callers = new String[USERS];
+        SecurityContext[] contexts = new SecurityContext[USERS];
+        MockHttpServletRequest[] requests = new MockHttpServletRequest[USERS];
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            for (int i = 0; i < USERS; i++) {
+                callers[i] = "user:" + i;
+                CustomUserDetails user = new CustomUserDetails((long) i, "user" + i, "user" + i + "@mail");
+                contexts[i] = new SecurityContextImpl(
+                        new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+                requests[i] = new MockHttpServletRequest("GET", PATHS[i % PATHS.length]);
+            }
+        }
+
+        int next() {
+            int i = next;
+            next = i + 1 == USERS ? 0 : i + 1;
+            SecurityContextHolder.setContext(contexts[i]);
+            return i;
+        }
+    }
+
+    @Benchmark
+    public void withoutFilter(Requests requests, Blackhole blackhole) throws Exception {
+        int i = requests.next();
+        FilterChain chain = (request, response) -> blackhole.consume(request);
+        chain.doFilter(requests.requests[i], requests.response);
+    }
+
+    @Benchmark
+    public void withFilter(Limiter limiter, Requests requests, Blackhole blackhole) throws Exception {
+        int i = requests.next();
+        FilterChain chain = (request, response) -> blackhole.consume(request);
+        limiter.filter.doFilter(requests.requests[i], requests.response, chain);
+    }
+
+    @Benchmark
+    public RateLimiter.Decision limiterOnly(Limiter limiter, Requests requests) {
+        int i = requests.next();
+        return limiter.rateLimiter.tryAcquire(requests.callers[i], requests.requests[i].getRequestURI());
+    }
+
+    @Test
+    void overheadAt50kRequestsPerSecond() throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(RateLimitFilterBenchmarkTest.class.getName() + "\\.")
+                .build()).run();
+
+        double without = 0;
+        double with = 0;
+        double limiter = 0;
+        for (RunResult result : results) {
+            double score = result.getPrimaryResult().getScore();
+            String benchmark = result.getParams().getBenchmark();
+            if (benchmark.endsWith("withoutFilter")) {
+                without = score;
+            } else if (benchmark.endsWith("withFilter")) {
+                with = score;
+            } else {
+                limiter = score;
+            }
+        }
+        double overhead = with - without;
+        System.out.printf("rate limit filter %8.1f ns/request, empty chain %8.1f ns/request, tryAcquire %8.1f ns%n",
+                with, without, limiter);
+        System.out.printf("rate limit filter at 50k requests/s: %.2f%% of one core%n", overhead * 50_000 / 1e9 * 100);
+    }
+}
@@ -0,0 +1,116 @@
+package org.application.tsiktsemestraljob.User;
+/*
+ * Per-request cost of the session store: every request loads its session, marks it accessed and saves it, the way
+ * SessionRepositoryFilter does. The same request stream runs against an in-memory MapSessionRepository and against
+ * JdbcSessionRepository on MySQL, with simulated time so the write-behind touches and their flushes happen as they
+ * would over a quarter of an hour of traffic. Opt-in because it is slow:
+ * mvn test -Dtest=SessionStoreBenchmarkTest -Dbenchmark=true
+ */
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.demo.Authorization.AuthenticationProcess.CustomUserDetails;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Service.JdbcSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class SessionStoreBenchmarkTest extends IntegrationTest {
+    private static final int SESSIONS = 500;
+    private static final int REQUESTS = 20_000;
+    /* 20k requests 50 ms apart cover about 17 minutes */
+    private static final long REQUEST_GAP_MS = 50;
+    private static final long FLUSH_EVERY_MS = 10_000;
+
+    @Autowired
+    private JdbcSessionRepository jdbcSessionRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void perRequestOverheadAgainstInMemorySessions() {
+        Run memory = run(new MapSessionRepository(new ConcurrentHashMap<>()), () -> {});
+        double writesBefore = writes();
+        Run jdbc = run(jdbcSessionRepository, jdbcSessionRepository::flushTouches);
+        double writes = writes() - writesBefore;
+
+        System.out.printf("sessions: in-memory %.1f µs/request, jdbc %.1f µs/request (%d requests on %d sessions)%n",
+                memory.microsPerRequest(), jdbc.microsPerRequest(), REQUESTS, SESSIONS);
+        System.out.printf("sessions: jdbc wrote %.0f rows, %.3f per request, a write on every access would be %d%n",
+                writes, writes / REQUESTS, REQUESTS + SESSIONS);
+        assertTrue(writes < REQUESTS / 10.0, "last-access writes are deferred");
+    }
+
+    private record Run(double microsPerRequest) {}
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Run run(SessionRepository repository, Runnable flush) {
+        Instant start = Instant.now();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            Session session = repository.createSession();
+            session.setLastAccessedTime(start);
+            session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, signedIn(i));
+            repository.save(session);
+            ids.add(session.getId());
+        }
+
+        Random random = new Random(42);
+        long nextFlush = FLUSH_EVERY_MS;
+        long started = System.nanoTime();
+        for (int request = 0; request < REQUESTS; request++) {
+            long elapsedMs = request * REQUEST_GAP_MS;
+            Session session = repository.findById(ids.get(random.nextInt(SESSIONS)));
+            assertNotNull(session);
+            session.setLastAccessedTime(start.plusMillis(elapsedMs));
+            repository.save(session);
+            if (elapsedMs >= nextFlush) {
+                flush.run();
+                nextFlush += FLUSH_EVERY_MS;
+            }
+        }
+        flush.run();
+        long elapsed = System.nanoTime() - started;
+
+        Session reloaded = repository.findById(ids.getFirst());
+        assertEquals(0L, ((CustomUserDetails) ((SecurityContextImpl) reloaded.getAttribute(
+                HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY)).getAuthentication().getPrincipal()).getId());
+        return new Run(elapsed / 1_000.0 / REQUESTS);
+    }
+
+    private double writes() {
+        return meterRegistry.get("session.writes").counters().stream().mapToDouble(counter -> counter.count()).sum();
+    }
+
+    private static SecurityContextImpl signedIn(long userId) {
+        User user = new User();
+        user.setId(userId);
+        user.setName("user" + userId);
+        user.setEmail("user" + userId + "@mail");
+        CustomUserDetails details = new CustomUserDetails(user);
+        details.eraseCredentials();
+        return new SecurityContextImpl(new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+    }
+}
@@ -13,10 +13,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -80,6 +82,18 @@ class UserIntegrationTest extends IntegrationTest {
         Long id = userWithId.id();
 
         mockMvc.perform(delete("/api/users/" + id))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    void deletingYourAccountEndsYourSession() throws Exception {
+        UserResponseDTO userWithId = request.registeredUser("testname", "testmail", "12345");
+        MockHttpSession session = new MockHttpSession();
+
+        mockMvc.perform(delete("/api/users/" + userWithId.id()).session(session))
+                .andExpect(status().isAccepted());
+
+        assertTrue(session.isInvalid());
     }
 }
@@ -0,0 +1,81 @@
+package org.application.tsiktsemestraljob.User;
+/*
+ * Paging the user list one row at a time across names that are empty or NULL. users.name is NOT NULL since the
+ * baseline, but databases baselined from the ddl-auto schema may still hold NULLs, so the column is relaxed for the
+ * test. The schema change commits at once in MySQL, therefore the test runs without a transaction and cleans up.
+ */
+
+import jakarta.transaction.Transactional;
+import org.application.tsiktsemestraljob.IntegrationTest;
+import org.application.tsiktsemestraljob.demo.DTO.PaginationDTO.CursorPageDTO;
+import org.application.tsiktsemestraljob.demo.DTO.UserDTO.UserResponseDTO;
+import org.application.tsiktsemestraljob.demo.Service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers
+@SpringBootTest
+@Transactional(Transactional.TxType.NOT_SUPPORTED)
+class UserNamePagingIntegrationTest extends IntegrationTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void allowNullNames() {
+        jdbcTemplate.execute("alter table users modify name varchar(255) null");
+    }
+
+    @AfterEach
+    void restoreSchema() {
+        inserted.forEach(id -> jdbcTemplate.update("delete from users where user_id = ?", id));
+        jdbcTemplate.execute("alter table users modify name varchar(255) not null");
+    }
+
+    private long insert(String name) {
+        String email = "paging-" + System.nanoTime() + "@mail";
+        jdbcTemplate.update("insert into users (name, email, password_hash) values (?, ?, 'hash')", name, email);
+        long id = jdbcTemplate.queryForObject("select user_id from users where email = ?", Long.class, email);
+        inserted.add(id);
+        return id;
+    }
+
+    @Test
+    void pagesOneByOneAcrossNullAndEmptyNames() {
+        long firstNull = insert(null);
+        long secondNull = insert(null);
+        long firstEmpty = insert("");
+        long secondEmpty = insert("");
+        long named = insert("a");
+
+        Set<Long> seen = new LinkedHashSet<>();
+        String cursor = null;
+        do {
+            CursorPageDTO<UserResponseDTO> page = userService.getUsersPage(cursor, 1);
+            for (UserResponseDTO user : page.items()) {
+                /* a cursor that starts over would show a user twice instead of looping forever */
+                assertTrue(seen.add(user.id()), "user " + user.id() + " returned twice");
+            }
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        List<Long> ours = seen.stream().filter(inserted::contains).toList();
+        assertEquals(List.of(firstNull, secondNull, firstEmpty, secondEmpty, named), ours);
+    }
+}
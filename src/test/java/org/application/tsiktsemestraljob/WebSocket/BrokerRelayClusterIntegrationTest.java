@@ -0,0 +1,222 @@
+package org.application.tsiktsemestraljob.WebSocket;
+/*
+ * Two application nodes on one database, both relaying /topic and /queue to an embedded ActiveMQ Artemis broker
+ * (app.websocket.broker=RELAY). A STOMP client connected to node B has to receive what node A publishes, which the
+ * in-JVM simple broker cannot do. Group topics are open to members only, so the client signs in on node B as the
+ * owner of a group created for the test.
+ */
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.application.tsiktsemestraljob.TsikTsemestraljobApplication;
+import org.application.tsiktsemestraljob.demo.DTO.ChangeEventDTO.ChangeEventMapper;
+import org.application.tsiktsemestraljob.demo.Entities.StudyGroups;
+import org.application.tsiktsemestraljob.demo.Entities.Task;
+import org.application.tsiktsemestraljob.demo.Entities.User;
+import org.application.tsiktsemestraljob.demo.Enums.ChangeOperation;
+import org.application.tsiktsemestraljob.demo.Enums.MembershipRole;
+import org.application.tsiktsemestraljob.demo.Repository.StudyGroupsRepository;
+import org.application.tsiktsemestraljob.demo.Repository.UserRepository;
+import org.application.tsiktsemestraljob.demo.Service.MembershipService;
+import org.application.tsiktsemestraljob.demo.Service.NotificationService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@Testcontainers
+public class BrokerRelayClusterIntegrationTest {
+    @Container
+    public static MySQLContainer<?> MYSQL =
+            new MySQLContainer<>("mysql:8.4")
+                    .withDatabaseName("testdb")
+                    .withUsername("test")
+                    .withPassword("test");
+
+    private static EmbeddedActiveMQ broker;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static String sessionCookie;
+    private static long groupId;
+
+    private ThreadPoolTaskScheduler receiptScheduler;
+    private WebSocketStompClient stompClient;
+    private StompSession session;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        int stompPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            stompPort = socket.getLocalPort();
+        }
+        broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + stompPort + "?protocols=STOMP"));
+        broker.start();
+
+        nodeA = startNode(stompPort);
+        nodeB = startNode(stompPort);
+        signInAsGroupOwner();
+    }
+
+    /* sessions are per node with the default MEMORY store, so the client signs in where it connects */
+    private static void signInAsGroupOwner() throws Exception {
+        String email = "relay-" + System.nanoTime() + "@mail";
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port(nodeB) + "/auth/register"))
+                        .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"name\":\"relay\",\"email\":\"" + email + "\",\"password\":\"secret\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        sessionCookie = response.headers().firstValue(HttpHeaders.SET_COOKIE).orElseThrow().split(";", 2)[0];
+
+        User owner = nodeB.getBean(UserRepository.class).findByEmail(email).orElseThrow();
+        StudyGroups group = new StudyGroups();
+        group.setName("relay-" + System.nanoTime());
+        group.setCreatedBy(owner);
+        group = nodeB.getBean(StudyGroupsRepository.class).save(group);
+        nodeB.getBean(MembershipService.class).addMember(owner, group, MembershipRole.OWNER);
+        groupId = group.getGroupId();
+    }
+
+    @AfterAll
+    static void stopCluster() throws Exception {
+        if (nodeA != null) nodeA.close();
+        if (nodeB != null) nodeB.close();
+        if (broker != null) broker.stop();
+    }
+
+    private static ConfigurableApplicationContext startNode(int stompPort) {
+        return new SpringApplicationBuilder(TsikTsemestraljobApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + MYSQL.getJdbcUrl(),
+                        "--spring.datasource.username=" + MYSQL.getUsername(),
+                        "--spring.datasource.password=" + MYSQL.getPassword(),
+                        "--spring.jpa.show-sql=false",
+                        "--app.websocket.broker=RELAY",
+                        "--app.websocket.relay.host=127.0.0.1",
+                        "--app.websocket.relay.port=" + stompPort);
+    }
+
+    private static int port(ConfigurableApplicationContext node) {
+        return ((WebServerApplicationContext) node).getWebServer().getPort();
+    }
+
+    @BeforeEach
+    void connectToNodeB() throws Exception {
+        receiptScheduler = new ThreadPoolTaskScheduler();
+        receiptScheduler.initialize();
+        stompClient = new WebSocketStompClient(new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setTaskScheduler(receiptScheduler);
+        WebSocketHttpHeaders handshake = new WebSocketHttpHeaders();
+        handshake.add(HttpHeaders.COOKIE, sessionCookie);
+        session = stompClient.connectAsync("ws://localhost:" + port(nodeB) + "/ws", handshake,
+                        new StompSessionHandlerAdapter() {})
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void disconnect() {
+        session.disconnect();
+        stompClient.stop();
+        receiptScheduler.shutdown();
+    }
+
+    /* waits for the broker's RECEIPT, a message sent before the subscription exists would simply be dropped */
+    private BlockingQueue<String> subscribe(String destination) throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        CompletableFuture<Void> subscribed = new CompletableFuture<>();
+        session.setAutoReceipt(true);
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add(new String((byte[]) payload, StandardCharsets.UTF_8));
+            }
+        }).addReceiptTask(() -> subscribed.complete(null));
+        subscribed.get(10, TimeUnit.SECONDS);
+        return received;
+    }
+
+    @Test
+    void messageSentOnOneNodeReachesClientOfTheOther() throws Exception {
+        BlockingQueue<String> received = subscribe("/topic/group/" + groupId);
+
+        nodeA.getBean(SimpMessagingTemplate.class).convertAndSend("/topic/group/" + groupId, "sent from node A");
+
+        assertEquals("sent from node A", received.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void changeEventFromTheOutboxReachesClientOfTheOtherNode() throws Exception {
+        BlockingQueue<String> received = subscribe("/topic/group/" + groupId);
+
+        nodeA.getBean(NotificationService.class)
+                .publishToGroup(groupId, () -> ChangeEventMapper.task(ChangeOperation.CREATED, task(groupId)));
+
+        String frame = received.poll(10, TimeUnit.SECONDS);
+        assertNotNull(frame, "the event was not relayed to node B");
+        JsonNode event = nodeB.getBean(ObjectMapper.class).readTree(frame);
+        assertEquals("TASK", event.get("entityType").asText());
+        assertEquals(groupId, event.get("groupId").asLong());
+    }
+
+    private static Task task(Long groupId) {
+        StudyGroups group = new StudyGroups();
+        group.setGroupId(groupId);
+        User creator = new User();
+        creator.setId(1L);
+
+        Task task = new Task();
+        task.setId(7L);
+        task.setTitle("Relayed task");
+        task.setStudyGroup(group);
+        task.setCreatedBy(creator);
+        return task;
+    }
+}